@@ -0,0 +1,347 @@
+package de.home_skrobanek.fnum.distributed;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.matrix.Matrix;
+
+import java.util.Arrays;
+/**
+ * @class BlockCyclicMatrix
+ * @brief Dense matrix distributed over a process grid in a 2D block-cyclic layout.
+ *
+ * The matrix is split into nb x nb blocks; block (i, j) belongs to process
+ * (i mod P, j mod Q) of the {@link ProcessGrid}, as in ScaLAPACK. Each
+ * process stores its blocks in one local dense array, blocks of the same
+ * block row next to each other. The cyclic assignment keeps the work
+ * balanced while factorizations shrink the active part of the matrix.
+ *
+ * <p>Every object is the local part on one process; methods documented as
+ * collective have to be called by all processes in the same order.</p>
+ */
+public final class BlockCyclicMatrix {
+
+    /** Tags of the messages of this class */
+    static final int TAG_SCATTER = 1, TAG_GATHER = 2, TAG_SUMMA_A = 3, TAG_SUMMA_B = 4;
+
+    private final Transport transport;
+
+    private final ProcessGrid grid;
+
+    private final int rows;
+
+    private final int cols;
+
+    /** Block size */
+    private final int nb;
+
+    /** Process row and column of this process */
+    private final int myRow, myCol;
+
+    /** Local blocks */
+    final double[][] local;
+
+    private BlockCyclicMatrix(Transport transport, ProcessGrid grid, int rows, int cols, int nb) {
+        this(transport, transport.getRank(), grid, rows, cols, nb);
+    }
+
+    /**
+     * Constructs the part of any rank, used to compute the layout of remote parts.
+     */
+    private BlockCyclicMatrix(Transport transport, int rank, ProcessGrid grid, int rows, int cols, int nb) {
+        if (grid.getSize() != transport.getSize())
+            throw new IllegalArgumentException("The grid has to contain all processes");
+        assert rows > 0 && cols > 0 && nb > 0;
+
+        this.transport = transport;
+        this.grid = grid;
+        this.rows = rows;
+        this.cols = cols;
+        this.nb = nb;
+        this.myRow = grid.getRow(rank);
+        this.myCol = grid.getColumn(rank);
+        this.local = new double[ProcessGrid.localCount(rows, nb, myRow, grid.getRowCount())]
+                [ProcessGrid.localCount(cols, nb, myCol, grid.getColumnCount())];
+    }
+
+    /**
+     * Creates the local part of a zero matrix.
+     *
+     * @param transport Transport of this process
+     * @param grid Process grid covering all ranks of the transport
+     * @param nb Block size
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @return Local part
+     *
+     * @throws IllegalArgumentException if the grid size does not match the transport
+     */
+    public static BlockCyclicMatrix zeros(Transport transport, ProcessGrid grid, int nb, int rows, int cols) {
+        return new BlockCyclicMatrix(transport, grid, rows, cols, nb);
+    }
+
+    /**
+     * Takes the local part of a matrix available on every process, without communication.
+     *
+     * @param transport Transport of this process
+     * @param grid Process grid covering all ranks of the transport
+     * @param nb Block size
+     * @param A Complete matrix
+     * @return Local part
+     *
+     * @throws IllegalArgumentException if the grid size does not match the transport
+     */
+    public static BlockCyclicMatrix fromMatrix(Transport transport, ProcessGrid grid, int nb, Matrix A) {
+        BlockCyclicMatrix M = new BlockCyclicMatrix(transport, grid, A.getRowCount(), A.getColumnCount(), nb);
+        for (int li = 0; li < M.getLocalRowCount(); li++) {
+            int i = M.globalRow(li);
+            for (int lj = 0; lj < M.getLocalColumnCount(); lj++)
+                M.local[li][lj] = A.getEntry(i, M.globalColumn(lj));
+        }
+        return M;
+    }
+
+    /**
+     * Distributes a matrix held by one process. Collective.
+     *
+     * @param transport Transport of this process
+     * @param grid Process grid covering all ranks of the transport
+     * @param nb Block size
+     * @param A Complete matrix on the root, ignored on the other processes
+     * @param root Rank holding A
+     * @return Local part
+     *
+     * @throws IllegalArgumentException if the grid size does not match the transport
+     */
+    public static BlockCyclicMatrix scatter(Transport transport, ProcessGrid grid, int nb, Matrix A, int root) {
+        int rank = transport.getRank();
+        double[] size;
+        if (rank == root) {
+            size = new double[]{A.getRowCount(), A.getColumnCount()};
+            for (int r = 0; r < transport.getSize(); r++)
+                if (r != root)
+                    transport.send(r, TAG_SCATTER, size);
+        } else {
+            size = transport.receive(root, TAG_SCATTER);
+        }
+
+        BlockCyclicMatrix M = new BlockCyclicMatrix(transport, grid, (int) size[0], (int) size[1], nb);
+        if (rank == root) {
+            for (int r = 0; r < transport.getSize(); r++) {
+                BlockCyclicMatrix part = r == root ? M : new BlockCyclicMatrix(transport, r, grid, M.rows, M.cols, nb);
+                for (int li = 0; li < part.getLocalRowCount(); li++) {
+                    int i = part.globalRow(li);
+                    for (int lj = 0; lj < part.getLocalColumnCount(); lj++)
+                        part.local[li][lj] = A.getEntry(i, part.globalColumn(lj));
+                }
+                if (r != root)
+                    transport.send(r, TAG_SCATTER, part.flatten());
+            }
+        } else {
+            M.unflatten(transport.receive(root, TAG_SCATTER));
+        }
+        return M;
+    }
+
+    /**
+     * Collects the matrix on one process. Collective.
+     *
+     * @param root Rank receiving the matrix
+     * @return Complete matrix on the root, {@code null} on the other processes
+     */
+    public Matrix gather(int root) {
+        int rank = transport.getRank();
+        if (rank != root) {
+            transport.send(root, TAG_GATHER, flatten());
+            return null;
+        }
+
+        double[][] a = new double[rows][cols];
+        for (int r = 0; r < transport.getSize(); r++) {
+            BlockCyclicMatrix part = this;
+            if (r != root) {
+                part = new BlockCyclicMatrix(transport, r, grid, rows, cols, nb);
+                part.unflatten(transport.receive(r, TAG_GATHER));
+            }
+            for (int li = 0; li < part.getLocalRowCount(); li++) {
+                int i = part.globalRow(li);
+                for (int lj = 0; lj < part.getLocalColumnCount(); lj++)
+                    a[i][part.globalColumn(lj)] = part.local[li][lj];
+            }
+        }
+        return new Matrix(a);
+    }
+
+    /**
+     * Multiplies by another distributed matrix with SUMMA. Collective.
+     *
+     * For every block column k of this matrix, its owners broadcast their
+     * part of it along their process row and the owners of block row k of
+     * B theirs along their process column; every process then adds the
+     * product of the two panels to its part of the result. Each process
+     * receives O(n^2 / sqrt(P · Q)) entries in total and stores only its
+     * own blocks.
+     *
+     * @param B Right factor on the same grid with the same block size
+     * @param out Result on the same grid with the same block size, overwritten
+     * @return {@code out}
+     *
+     * @throws IllegalArgumentException if the column count of this matrix does not
+     *         match the row count of B or the layouts differ
+     * @throws SameDimensionsException if out does not have the size of the result
+     */
+    public BlockCyclicMatrix multiply(BlockCyclicMatrix B, BlockCyclicMatrix out) {
+        if (cols != B.rows)
+            throw new IllegalArgumentException("Column count of this matrix must equal the row count of x");
+        if (out.rows != rows || out.cols != B.cols)
+            throw new SameDimensionsException();
+        if (!sameLayout(B) || !sameLayout(out))
+            throw new IllegalArgumentException("The matrices have to share grid and block size");
+
+        int P = grid.getRowCount(), Q = grid.getColumnCount();
+        int localRows = getLocalRowCount(), localCols = out.getLocalColumnCount();
+        for (double[] row : out.local)
+            Arrays.fill(row, 0);
+
+        int blocks = (cols + nb - 1) / nb;
+        for (int k = 0; k < blocks; k++) {
+            int width = Math.min(nb, cols - k * nb);
+            int ownerCol = k % Q, ownerRow = k % P;
+
+            // Panel of this matrix: local rows x width, along the process row
+            double[] a;
+            if (myCol == ownerCol) {
+                int offset = ProcessGrid.localOffset(k, nb, myCol, Q);
+                a = new double[localRows * width];
+                for (int i = 0; i < localRows; i++)
+                    System.arraycopy(local[i], offset, a, i * width, width);
+                for (int q = 0; q < Q; q++)
+                    if (q != myCol)
+                        transport.send(grid.getRank(myRow, q), TAG_SUMMA_A, a);
+            } else {
+                a = transport.receive(grid.getRank(myRow, ownerCol), TAG_SUMMA_A);
+            }
+
+            // Panel of B: width x local columns, along the process column
+            double[] b;
+            if (myRow == ownerRow) {
+                int offset = ProcessGrid.localOffset(k, nb, myRow, P);
+                b = new double[width * localCols];
+                for (int p = 0; p < width; p++)
+                    System.arraycopy(B.local[offset + p], 0, b, p * localCols, localCols);
+                for (int p = 0; p < P; p++)
+                    if (p != myRow)
+                        transport.send(grid.getRank(p, myCol), TAG_SUMMA_B, b);
+            } else {
+                b = transport.receive(grid.getRank(ownerRow, myCol), TAG_SUMMA_B);
+            }
+
+            multiplyAdd(a, b, out.local, 0, 0, localRows, width, localCols, 1);
+        }
+        return out;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    public int getBlockSize() {
+        return nb;
+    }
+
+    public ProcessGrid getGrid() {
+        return grid;
+    }
+
+    Transport getTransport() {
+        return transport;
+    }
+
+    int getProcessRow() {
+        return myRow;
+    }
+
+    int getProcessColumn() {
+        return myCol;
+    }
+
+    /**
+     * Returns the number of rows stored on this process.
+     */
+    public int getLocalRowCount() {
+        return local.length;
+    }
+
+    /**
+     * Returns the number of columns stored on this process.
+     */
+    public int getLocalColumnCount() {
+        return local.length == 0 ? 0 : local[0].length;
+    }
+
+    /**
+     * Returns the global row of a local row.
+     */
+    public int globalRow(int localRow) {
+        int block = localRow / nb;
+        return (block * grid.getRowCount() + myRow) * nb + localRow % nb;
+    }
+
+    /**
+     * Returns the global column of a local column.
+     */
+    public int globalColumn(int localColumn) {
+        int block = localColumn / nb;
+        return (block * grid.getColumnCount() + myCol) * nb + localColumn % nb;
+    }
+
+    /**
+     * Returns a locally stored entry.
+     *
+     * @param localRow Local row
+     * @param localColumn Local column
+     * @return Entry at (globalRow(localRow), globalColumn(localColumn))
+     */
+    public double getLocalEntry(int localRow, int localColumn) {
+        return local[localRow][localColumn];
+    }
+
+    boolean sameLayout(BlockCyclicMatrix other) {
+        return other.transport == transport && other.nb == nb
+                && other.grid.getRowCount() == grid.getRowCount() && other.grid.getColumnCount() == grid.getColumnCount();
+    }
+
+    /**
+     * Computes C[ci.., cj..] += alpha · A · B for a row-major m x k panel A
+     * and a row-major k x n panel B.
+     */
+    static void multiplyAdd(double[] a, double[] b, double[][] c, int ci, int cj, int m, int k, int n, double alpha) {
+        for (int i = 0; i < m; i++) {
+            double[] row = c[ci + i];
+            for (int p = 0; p < k; p++) {
+                double aip = alpha * a[i * k + p];
+                if (aip == 0)
+                    continue;
+                int bRow = p * n;
+                for (int j = 0; j < n; j++)
+                    row[cj + j] += aip * b[bRow + j];
+            }
+        }
+    }
+
+    private double[] flatten() {
+        int m = getLocalColumnCount();
+        double[] data = new double[local.length * m];
+        for (int i = 0; i < local.length; i++)
+            System.arraycopy(local[i], 0, data, i * m, m);
+        return data;
+    }
+
+    private void unflatten(double[] data) {
+        int m = getLocalColumnCount();
+        for (int i = 0; i < local.length; i++)
+            System.arraycopy(data, i * m, local[i], 0, m);
+    }
+}
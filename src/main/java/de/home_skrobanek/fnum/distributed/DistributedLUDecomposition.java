@@ -0,0 +1,258 @@
+package de.home_skrobanek.fnum.distributed;
+
+import de.home_skrobanek.fnum.matrix.Matrix;
+/**
+ * @class DistributedLUDecomposition
+ * @brief Computes the LU decomposition of a block-cyclic matrix across processes.
+ *
+ * Right-looking block algorithm on the process grid. In step k
+ *
+ * <ol>
+ *   <li>the owner of the diagonal block decomposes it and broadcasts it
+ *       along its process row and column,</li>
+ *   <li>process column k mod Q computes its part of the panel
+ *       L_ik = A_ik · R_kk^-1 and broadcasts it along the process rows,</li>
+ *   <li>process row k mod P computes R_kj = L_kk^-1 · A_kj and broadcasts
+ *       it along the process columns,</li>
+ *   <li>every process updates its trailing blocks A_ij -= L_ik · R_kj.</li>
+ * </ol>
+ *
+ * The matrix is overwritten by L (unit diagonal not stored) and R. Like
+ * {@link de.home_skrobanek.fnum.matrix.LUDecomposition} this does not
+ * pivot; the matrix should be diagonally dominant. All methods are
+ * collective.
+ */
+public class DistributedLUDecomposition {
+
+    private static final int TAG_DIAGONAL = 16, TAG_L = 17, TAG_R = 18, TAG_REDUCE = 19, TAG_SOLUTION = 20;
+
+    /** Local part, decomposed in place */
+    private final BlockCyclicMatrix A;
+
+    /** Whether {@link #execute(double)} has completed */
+    private boolean executed = false;
+
+    /** Gathered factors on rank 0 for solving, {@code null} elsewhere */
+    private Matrix factors;
+
+    /** Whether the factors have been gathered since the execution */
+    private boolean gathered = false;
+
+    /**
+     * Constructs the decomposition object for the local part of a square matrix.
+     *
+     * @param A Local part, overwritten by {@link #execute(double)}
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public DistributedLUDecomposition(BlockCyclicMatrix A) {
+        if (A.getRowCount() != A.getColumnCount())
+            throw new IllegalArgumentException("The matrix has to be square");
+        this.A = A;
+    }
+
+    /**
+     * Executes the decomposition. Collective.
+     *
+     * @param abs Minimum allowed pivot value. If any diagonal entry of R
+     *            is smaller in absolute value than this threshold,
+     *            the matrix is considered singular.
+     *
+     * @throws ArithmeticException on all processes if a pivot element is below the threshold
+     */
+    public void execute(double abs) {
+        executed = false;
+        factors = null;
+        gathered = false;
+        Transport transport = A.getTransport();
+        ProcessGrid grid = A.getGrid();
+        int P = grid.getRowCount(), Q = grid.getColumnCount();
+        int n = A.getRowCount(), nb = A.getBlockSize();
+        int myRow = A.getProcessRow(), myCol = A.getProcessColumn();
+        int localRows = A.getLocalRowCount(), localCols = A.getLocalColumnCount();
+        double[][] a = A.local;
+
+        int blocks = (n + nb - 1) / nb;
+        for (int k = 0; k < blocks; k++) {
+            int kb = Math.min(nb, n - k * nb);
+            int pr = k % P, pc = k % Q;
+            int diagonalOwner = grid.getRank(pr, pc);
+            int lrk = ProcessGrid.localOffset(k, nb, myRow, P), lck = ProcessGrid.localOffset(k, nb, myCol, Q);
+            int rowsDone = Math.min(localRows, ProcessGrid.localOffset(k + 1, nb, myRow, P));
+            int colsDone = Math.min(localCols, ProcessGrid.localOffset(k + 1, nb, myCol, Q));
+            int rowsBelow = localRows - rowsDone, colsRight = localCols - colsDone;
+
+            // 1. Diagonal block, the last entry flags success
+            double[] diagonal = null;
+            if (myRow == pr && myCol == pc) {
+                diagonal = new double[kb * kb + 1];
+                for (int i = 0; i < kb; i++)
+                    System.arraycopy(a[lrk + i], lck, diagonal, i * kb, kb);
+                diagonal[kb * kb] = factor(diagonal, kb, abs) ? 1 : 0;
+                for (int i = 0; i < kb; i++)
+                    System.arraycopy(diagonal, i * kb, a[lrk + i], lck, kb);
+                for (int q = 0; q < Q; q++)
+                    if (q != pc)
+                        transport.send(grid.getRank(pr, q), TAG_DIAGONAL, diagonal);
+                for (int p = 0; p < P; p++)
+                    if (p != pr)
+                        transport.send(grid.getRank(p, pc), TAG_DIAGONAL, diagonal);
+            } else if (myRow == pr || myCol == pc) {
+                diagonal = transport.receive(diagonalOwner, TAG_DIAGONAL);
+            }
+
+            // 2. Column panel L_ik = A_ik · R_kk^-1
+            double[] left;
+            if (myCol == pc) {
+                left = new double[rowsBelow * kb + 1];
+                boolean ok = diagonal[kb * kb] != 0;
+                if (ok) {
+                    for (int i = 0; i < rowsBelow; i++) {
+                        double[] row = a[rowsDone + i];
+                        for (int j = 0; j < kb; j++) {
+                            double sum = row[lck + j];
+                            for (int s = 0; s < j; s++)
+                                sum -= row[lck + s] * diagonal[s * kb + j];
+                            row[lck + j] = sum / diagonal[j * kb + j];
+                        }
+                        System.arraycopy(row, lck, left, i * kb, kb);
+                    }
+                }
+                left[rowsBelow * kb] = ok ? 1 : 0;
+                for (int q = 0; q < Q; q++)
+                    if (q != pc)
+                        transport.send(grid.getRank(myRow, q), TAG_L, left);
+            } else {
+                left = transport.receive(grid.getRank(myRow, pc), TAG_L);
+            }
+
+            // 3. Row panel R_kj = L_kk^-1 · A_kj
+            double[] top;
+            if (myRow == pr) {
+                top = new double[kb * colsRight + 1];
+                boolean ok = diagonal[kb * kb] != 0;
+                if (ok) {
+                    for (int i = 0; i < kb; i++) {
+                        double[] row = a[lrk + i];
+                        for (int s = 0; s < i; s++) {
+                            double l = diagonal[i * kb + s];
+                            if (l == 0)
+                                continue;
+                            double[] upper = a[lrk + s];
+                            for (int j = colsDone; j < localCols; j++)
+                                row[j] -= l * upper[j];
+                        }
+                        System.arraycopy(row, colsDone, top, i * colsRight, colsRight);
+                    }
+                }
+                top[kb * colsRight] = ok ? 1 : 0;
+                for (int p = 0; p < P; p++)
+                    if (p != pr)
+                        transport.send(grid.getRank(p, myCol), TAG_R, top);
+            } else {
+                top = transport.receive(grid.getRank(pr, myCol), TAG_R);
+            }
+
+            if (left[rowsBelow * kb] == 0 || top[kb * colsRight] == 0)
+                throw new ArithmeticException("Matrix is singular");
+
+            // 4. Trailing update
+            BlockCyclicMatrix.multiplyAdd(left, top, a, rowsDone, colsDone, rowsBelow, kb, colsRight, -1);
+        }
+        executed = true;
+    }
+
+    /**
+     * Returns the determinant, the product of the diagonal of R. Collective.
+     *
+     * @return Determinant on every process
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public double getDeterminant() {
+        checkExecuted();
+        Transport transport = A.getTransport();
+        double det = 1;
+        for (int li = 0; li < A.getLocalRowCount(); li++) {
+            int i = A.globalRow(li);
+            for (int lj = 0; lj < A.getLocalColumnCount(); lj++)
+                if (A.globalColumn(lj) == i)
+                    det *= A.local[li][lj];
+        }
+
+        if (transport.getRank() != 0) {
+            transport.send(0, TAG_REDUCE, new double[]{det});
+            return transport.receive(0, TAG_REDUCE)[0];
+        }
+        for (int r = 1; r < transport.getSize(); r++)
+            det *= transport.receive(r, TAG_REDUCE)[0];
+        for (int r = 1; r < transport.getSize(); r++)
+            transport.send(r, TAG_REDUCE, new double[]{det});
+        return det;
+    }
+
+    /**
+     * Solves A * x = b. Collective.
+     *
+     * The factors are gathered on rank 0 at the first call, which solves
+     * by substitution in O(n^2) and broadcasts the solution.
+     *
+     * @param b Right-hand side, the same on every process
+     * @return Solution on every process
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b does not match A
+     */
+    public double[] solve(double[] b) {
+        checkExecuted();
+        Transport transport = A.getTransport();
+        int n = A.getRowCount();
+        if (b.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+        if (!gathered) {
+            factors = A.gather(0);
+            gathered = true;
+        }
+        if (transport.getRank() != 0)
+            return transport.receive(0, TAG_SOLUTION);
+
+        double[] x = b.clone();
+        for (int i = 0; i < n; i++) {
+            double sum = x[i];
+            for (int j = 0; j < i; j++)
+                sum -= factors.getEntry(i, j) * x[j];
+            x[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int j = i + 1; j < n; j++)
+                sum -= factors.getEntry(i, j) * x[j];
+            x[i] = sum / factors.getEntry(i, i);
+        }
+        for (int r = 1; r < transport.getSize(); r++)
+            transport.send(r, TAG_SOLUTION, x);
+        return x;
+    }
+
+    /** Decomposes a kb x kb block in place without pivoting */
+    private static boolean factor(double[] d, int kb, double abs) {
+        for (int k = 0; k < kb; k++) {
+            double pivot = d[k * kb + k];
+            if (Math.abs(pivot) < abs || pivot == 0)
+                return false;
+            for (int i = k + 1; i < kb; i++) {
+                double l = d[i * kb + k] /= pivot;
+                if (l == 0)
+                    continue;
+                for (int j = k + 1; j < kb; j++)
+                    d[i * kb + j] -= l * d[k * kb + j];
+            }
+        }
+        return true;
+    }
+
+    private void checkExecuted() {
+        if (!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+    }
+}
@@ -0,0 +1,66 @@
+package de.home_skrobanek.fnum.distributed;
+/**
+ * @class InMemoryTransport
+ * @brief Transport between threads of one JVM, a stand-in for tests.
+ *
+ * {@link #create(int)} returns connected transports for all ranks; each
+ * is used by the thread playing that process. Payloads are copied on
+ * send as a network would.
+ */
+public final class InMemoryTransport implements Transport {
+
+    private final int rank;
+
+    /** Mailboxes of all ranks, shared */
+    private final Mailbox[] mailboxes;
+
+    private InMemoryTransport(int rank, Mailbox[] mailboxes) {
+        this.rank = rank;
+        this.mailboxes = mailboxes;
+    }
+
+    /**
+     * Creates connected transports.
+     *
+     * @param size Number of processes
+     * @return Transport of rank i at index i
+     *
+     * @pre size > 0
+     */
+    public static InMemoryTransport[] create(int size) {
+        assert size > 0;
+
+        Mailbox[] mailboxes = new Mailbox[size];
+        for (int i = 0; i < size; i++)
+            mailboxes[i] = new Mailbox(size);
+        InMemoryTransport[] transports = new InMemoryTransport[size];
+        for (int i = 0; i < size; i++)
+            transports[i] = new InMemoryTransport(i, mailboxes);
+        return transports;
+    }
+
+    @Override
+    public int getRank() {
+        return rank;
+    }
+
+    @Override
+    public int getSize() {
+        return mailboxes.length;
+    }
+
+    @Override
+    public void send(int to, int tag, double[] data) {
+        mailboxes[to].deliver(rank, tag, data.clone());
+    }
+
+    @Override
+    public double[] receive(int from, int tag) {
+        return mailboxes[rank].take(from, tag);
+    }
+
+    @Override
+    public void close() {
+        mailboxes[rank].close();
+    }
+}
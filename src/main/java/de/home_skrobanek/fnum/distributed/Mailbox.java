@@ -0,0 +1,82 @@
+package de.home_skrobanek.fnum.distributed;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+/**
+ * @class Mailbox
+ * @brief Messages delivered to one process, waiting to be received.
+ *
+ * One queue per sender keeps the messages of a sender in order. Receiving
+ * takes the first message of the sender with the requested tag.
+ */
+final class Mailbox {
+
+    /**
+     * Delivered message.
+     */
+    private static final class Message {
+
+        final int tag;
+
+        final double[] data;
+
+        Message(int tag, double[] data) {
+            this.tag = tag;
+            this.data = data;
+        }
+    }
+
+    /** Messages in delivery order, one queue per sender */
+    private final List<ArrayDeque<Message>> queues;
+
+    /** Senders that will not deliver any more messages */
+    private final boolean[] closed;
+
+    Mailbox(int senders) {
+        closed = new boolean[senders];
+        queues = new ArrayList<>(senders);
+        for (int i = 0; i < senders; i++)
+            queues.add(new ArrayDeque<>());
+    }
+
+    synchronized void deliver(int from, int tag, double[] data) {
+        queues.get(from).add(new Message(tag, data));
+        notifyAll();
+    }
+
+    synchronized double[] take(int from, int tag) {
+        while (true) {
+            Iterator<Message> it = queues.get(from).iterator();
+            while (it.hasNext()) {
+                Message message = it.next();
+                if (message.tag == tag) {
+                    it.remove();
+                    return message.data;
+                }
+            }
+            if (closed[from])
+                throw new IllegalStateException("The transport has been closed");
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a message", e);
+            }
+        }
+    }
+
+    /** Marks that a sender will not deliver any more messages */
+    synchronized void close(int from) {
+        closed[from] = true;
+        notifyAll();
+    }
+
+    /** Marks that no sender will deliver any more messages */
+    synchronized void close() {
+        Arrays.fill(closed, true);
+        notifyAll();
+    }
+}
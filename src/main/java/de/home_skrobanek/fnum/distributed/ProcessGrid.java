@@ -0,0 +1,112 @@
+package de.home_skrobanek.fnum.distributed;
+/**
+ * @class ProcessGrid
+ * @brief Arrangement of the processes in a P x Q grid.
+ *
+ * Process (p, q) has rank p * Q + q. Block-cyclic matrices assign block
+ * (i, j) to process (i mod P, j mod Q); distributed algorithms
+ * broadcast along the rows and columns of the grid.
+ */
+public final class ProcessGrid {
+
+    private final int rows;
+
+    private final int cols;
+
+    /**
+     * Constructs a grid.
+     *
+     * @param rows Number of process rows P
+     * @param cols Number of process columns Q
+     *
+     * @pre rows > 0 && cols > 0
+     */
+    public ProcessGrid(int rows, int cols) {
+        assert rows > 0 && cols > 0;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Constructs the most square grid of the given size, P <= Q. Square
+     * grids minimize the communication volume of SUMMA and LU.
+     *
+     * @param size Number of processes
+     * @return Grid with P * Q = size
+     *
+     * @pre size > 0
+     */
+    public static ProcessGrid of(int size) {
+        assert size > 0;
+        int rows = (int) Math.sqrt(size);
+        while (size % rows != 0)
+            rows--;
+        return new ProcessGrid(rows, size / rows);
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    public int getSize() {
+        return rows * cols;
+    }
+
+    /**
+     * Returns the rank of process (row, col).
+     */
+    public int getRank(int row, int col) {
+        return row * cols + col;
+    }
+
+    /**
+     * Returns the process row of a rank.
+     */
+    public int getRow(int rank) {
+        return rank / cols;
+    }
+
+    /**
+     * Returns the process column of a rank.
+     */
+    public int getColumn(int rank) {
+        return rank % cols;
+    }
+
+    /**
+     * Returns the number of rows or columns of a dimension that a process
+     * row or column owns, ScaLAPACK's numroc.
+     *
+     * @param size Global number of rows or columns
+     * @param block Block size
+     * @param coordinate Process row or column
+     * @param processes Number of process rows or columns
+     * @return Local number of rows or columns
+     */
+    static int localCount(int size, int block, int coordinate, int processes) {
+        int blocks = (size + block - 1) / block;
+        int count = 0;
+        for (int b = coordinate; b < blocks; b += processes)
+            count += Math.min(block, size - b * block);
+        return count;
+    }
+
+    /**
+     * Returns the number of local rows or columns that belong to the blocks
+     * before a global block. All of these blocks are complete.
+     */
+    static int localOffset(int globalBlock, int block, int coordinate, int processes) {
+        if (globalBlock <= coordinate)
+            return 0;
+        return (globalBlock - coordinate + processes - 1) / processes * block;
+    }
+
+    @Override
+    public String toString() {
+        return rows + " x " + cols;
+    }
+}
@@ -0,0 +1,207 @@
+package de.home_skrobanek.fnum.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+/**
+ * @class SocketTransport
+ * @brief Transport over TCP connections between processes.
+ *
+ * Every pair of processes shares one connection: rank r connects to all
+ * lower ranks and accepts connections from all higher ones, each side
+ * announcing its rank first. A reader thread per connection delivers the
+ * incoming messages into the mailbox, so sending never waits for the
+ * receiver to call {@link #receive(int, int)}.
+ *
+ * <p>A message is sent as its tag, its length and the doubles in
+ * big-endian order.</p>
+ */
+public final class SocketTransport implements Transport {
+
+    /** Time to wait for a peer to start listening, in milliseconds */
+    private static final long CONNECT_TIMEOUT = 30_000;
+
+    private final int rank;
+
+    private final int size;
+
+    private final Socket[] sockets;
+
+    private final DataOutputStream[] outputs;
+
+    private final Mailbox mailbox;
+
+    private SocketTransport(int rank, int size) {
+        this.rank = rank;
+        this.size = size;
+        this.sockets = new Socket[size];
+        this.outputs = new DataOutputStream[size];
+        this.mailbox = new Mailbox(size);
+    }
+
+    /**
+     * Connects this process to all others.
+     *
+     * Blocks until all connections are established. All processes have to
+     * call this with the same addresses.
+     *
+     * @param rank Rank of this process
+     * @param addresses Listening address of every rank
+     * @return Connected transport
+     *
+     * @throws IOException if a connection cannot be established
+     */
+    public static SocketTransport connect(int rank, List<InetSocketAddress> addresses) throws IOException {
+        ServerSocket server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(addresses.get(rank));
+        return connect(rank, server, addresses);
+    }
+
+    /**
+     * Connects this process to all others, accepting on a bound server socket.
+     *
+     * Useful when the listening port is chosen by the system. The server
+     * socket is closed once all connections are established.
+     *
+     * @param rank Rank of this process
+     * @param server Server socket bound to the address of this rank
+     * @param addresses Listening address of every rank
+     * @return Connected transport
+     *
+     * @throws IOException if a connection cannot be established
+     */
+    public static SocketTransport connect(int rank, ServerSocket server, List<InetSocketAddress> addresses) throws IOException {
+        int size = addresses.size();
+        SocketTransport transport = new SocketTransport(rank, size);
+        try (server) {
+            for (int peer = 0; peer < rank; peer++) {
+                Socket socket = open(addresses.get(peer));
+                new DataOutputStream(socket.getOutputStream()).writeInt(rank);
+                transport.attach(peer, socket);
+            }
+            for (int i = rank + 1; i < size; i++) {
+                Socket socket = server.accept();
+                int peer = new DataInputStream(socket.getInputStream()).readInt();
+                if (peer <= rank || peer >= size || transport.sockets[peer] != null)
+                    throw new IOException("Unexpected connection from rank " + peer);
+                transport.attach(peer, socket);
+            }
+        } catch (IOException e) {
+            transport.close();
+            throw e;
+        }
+        return transport;
+    }
+
+    @Override
+    public int getRank() {
+        return rank;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sends a message.
+     *
+     * @throws UncheckedIOException if writing to the connection fails
+     */
+    @Override
+    public void send(int to, int tag, double[] data) {
+        if (to == rank) {
+            mailbox.deliver(rank, tag, data.clone());
+            return;
+        }
+        DataOutputStream out = outputs[to];
+        ByteBuffer bytes = ByteBuffer.allocate(8 * data.length);
+        bytes.asDoubleBuffer().put(data);
+        try {
+            synchronized (out) {
+                out.writeInt(tag);
+                out.writeInt(data.length);
+                out.write(bytes.array());
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public double[] receive(int from, int tag) {
+        return mailbox.take(from, tag);
+    }
+
+    @Override
+    public void close() {
+        mailbox.close();
+        for (Socket socket : sockets) {
+            if (socket == null)
+                continue;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void attach(int peer, Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        sockets[peer] = socket;
+        outputs[peer] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (true) {
+                    int tag = in.readInt();
+                    byte[] bytes = new byte[8 * in.readInt()];
+                    in.readFully(bytes);
+                    double[] data = new double[bytes.length / 8];
+                    ByteBuffer.wrap(bytes).asDoubleBuffer().get(data);
+                    mailbox.deliver(peer, tag, data);
+                }
+            } catch (EOFException e) {
+                // The peer closed the connection
+            } catch (IOException e) {
+                // Closed locally, pending receives fail through the closed mailbox
+            } finally {
+                mailbox.close(peer);
+            }
+        }, "fnum-transport-" + rank + "-" + peer);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /** Connects to a peer, retrying until it listens */
+    private static Socket open(InetSocketAddress address) throws IOException {
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+        while (true) {
+            try {
+                return new Socket(address.getAddress(), address.getPort());
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline)
+                    throw e;
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.home_skrobanek.fnum.distributed;
+/**
+ * @interface Transport
+ * @brief Point-to-point messages between the processes of a distributed computation.
+ *
+ * Every process has a rank in [0, size). Messages carry a tag and an
+ * array of doubles. Sending never blocks on the receiver; messages from
+ * one sender are received in the order they were sent, a receive waits
+ * for the first message with the requested tag. The distributed
+ * algorithms of this package only depend on this interface, so they run
+ * over {@link SocketTransport} between JVMs or over
+ * {@link InMemoryTransport} between threads.
+ */
+public interface Transport extends AutoCloseable {
+
+    /**
+     * Returns the rank of this process.
+     */
+    int getRank();
+
+    /**
+     * Returns the number of processes.
+     */
+    int getSize();
+
+    /**
+     * Sends a message. The array may be reused once the call returns.
+     *
+     * @param to Rank of the receiver, may be this process
+     * @param tag Tag of the message
+     * @param data Payload
+     */
+    void send(int to, int tag, double[] data);
+
+    /**
+     * Waits for the next message with the given tag from a sender.
+     *
+     * @param from Rank of the sender
+     * @param tag Tag of the message
+     * @return Payload
+     *
+     * @throws IllegalStateException if the transport is closed or the thread is interrupted
+     */
+    double[] receive(int from, int tag);
+
+    /**
+     * Releases the resources of the transport.
+     */
+    @Override
+    void close();
+}
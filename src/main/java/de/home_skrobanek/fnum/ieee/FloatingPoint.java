@@ -1,4 +1,6 @@
 package de.home_skrobanek.fnum.ieee;
+
+import java.math.BigInteger;
 /**
  * @class FloatingPoint
  * @brief Represents a custom floating-point number in a positional numeral system.
@@ -17,6 +19,23 @@ package de.home_skrobanek.fnum.ieee;
  *
  * The representation is intended for educational and numerical analysis purposes,
  * such as studying floating-point arithmetic and rounding behavior.
+ *
+ * <p>Every number belongs to a {@link NumberFormat} (β, r, s). Internally the
+ * mantissa digits are packed into one integer {@code M} with
+ * {@code p = r - 1} digits, so that the value is {@code sign · M · β^(e - p)}.
+ * Evaluated values are computed once with the precomputed powers of the
+ * format and cached.</p>
+ *
+ * <p>{@link #add}, {@link #subtract}, {@link #multiply}, {@link #divide} and
+ * {@link #fma} compute the exact result and round it once with the rounding
+ * mode of the format, like IEEE 754 arithmetic does for binary formats.
+ * Formats with {@code β^(2p+2) < 2^63} use long arithmetic only, wider
+ * formats fall back to {@link BigInteger}.</p>
+ *
+ * <p>Digits whose mantissa does not fit into 63 bits, or whose exponent
+ * exceeds the range of its format, have no {@link NumberFormat}. Such
+ * numbers are evaluated from their digits as doubles and support the
+ * getters, {@link #negate()} excepted, no arithmetic.</p>
  */
 public class FloatingPoint {
 
@@ -57,6 +76,24 @@ public class FloatingPoint {
      */
     private double[] exp;
 
+    /** Format this number belongs to */
+    private final NumberFormat format;
+
+    /** Normalized integer mantissa, β^(p-1) <= mantissa < β^p, or 0 */
+    private final long mantissa;
+
+    /** Exponent belonging to the normalized mantissa */
+    private final int exponent;
+
+    /** Cached value of {@link #getCompleteM()} */
+    private final double completeM;
+
+    /** Cached value of {@link #getCompleteExp()} */
+    private final double completeExp;
+
+    /** Cached value of {@link #getFloatValue()} */
+    private final double value;
+
     /**
      * Constructs a custom floating-point number.
      *
@@ -88,10 +125,119 @@ public class FloatingPoint {
         // Set representation limits
         this.r = m.length;
         this.s = exp.length - 1;
+
+        // Exact as long as it lies within the exponent range of a format
+        double exponentValue = 0;
+        for (int i = 0; i <= s; i++)
+            exponentValue += exp[i] * Math.pow(beta, i);
+        exponentValue *= signExp;
+        this.completeExp = exponentValue;
+
+        NumberFormat fitting = NumberFormat.fitsMantissa(beta, r) ? NumberFormat.of(beta, r, s) : null;
+        if (fitting == null || Math.abs(exponentValue) > fitting.getMaxExponent()) {
+            double mantissaValue = 0;
+            for (int i = 1; i < r; i++)
+                mantissaValue += m[i] * Math.pow(beta, -i);
+            this.format = null;
+            this.mantissa = 0;
+            this.exponent = 0;
+            this.completeM = sign * mantissaValue;
+            this.value = completeM * Math.pow(beta, exponentValue);
+            return;
+        }
+
+        this.format = fitting;
+        int p = format.getPrecision();
+
+        long packed = 0;
+        for (int i = 1; i < r; i++)
+            packed += (long) m[i] * format.power(p - i);
+        long e = (long) exponentValue;
+
+        this.completeM = sign * format.evaluate(packed, -p);
+
+        // Digits after m[0] may start with zeros, normalize for the arithmetic
+        if (packed != 0) {
+            while (packed < format.power(p - 1)) {
+                packed *= beta;
+                e--;
+            }
+        }
+        this.mantissa = packed;
+        this.exponent = (int) e;
+        this.value = sign * format.evaluate(packed, this.exponent - p);
+    }
+
+    /**
+     * Constructs a number from its packed representation.
+     *
+     * @param format Format of the number
+     * @param negative Sign of the number
+     * @param mantissa Normalized mantissa with p digits, or 0
+     * @param exponent Exponent e of 0.d1 ... dp · β^e
+     */
+    FloatingPoint(NumberFormat format, boolean negative, long mantissa, int exponent) {
+        this.format = format;
+        this.beta = format.getBeta();
+        this.r = format.getR();
+        this.s = format.getS();
+        this.sign = (short) (negative && mantissa != 0 ? -1 : 1);
+        this.signExp = (short) (exponent < 0 ? -1 : 1);
+        this.mantissa = mantissa;
+        this.exponent = mantissa == 0 ? 0 : exponent;
+
+        int p = format.getPrecision();
+        this.completeM = sign * format.evaluate(mantissa, -p);
+        this.completeExp = this.exponent;
+        this.value = sign * format.evaluate(mantissa, this.exponent - p);
+    }
+
+    /**
+     * Returns zero in the given format.
+     */
+    static FloatingPoint zero(NumberFormat format) {
+        return new FloatingPoint(format, false, 0, 0);
+    }
+
+    /**
+     * Rounds a double into the given format.
+     *
+     * The conversion is exact before the single rounding step, so it is
+     * correctly rounded with the rounding mode of the format.
+     *
+     * @param x Finite value to convert
+     * @param format Target format
+     * @return Number of the format nearest to x with respect to the rounding mode
+     *
+     * @throws IllegalArgumentException if x is NaN or infinite
+     * @throws ArithmeticException if x exceeds the exponent range of the format
+     */
+    public static FloatingPoint valueOf(double x, NumberFormat format) {
+        if (!Double.isFinite(x))
+            throw new IllegalArgumentException("Only finite values can be converted");
+        requireDigits(format);
+        if (x == 0)
+            return zero(format);
+
+        boolean negative = x < 0;
+        long bits = Double.doubleToRawLongBits(Math.abs(x));
+        int biased = (int) (bits >>> 52);
+        long significand = bits & ((1L << 52) - 1);
+        if (biased == 0)
+            biased = 1;
+        else
+            significand |= 1L << 52;
+        int e2 = biased - 1075;
+
+        if (format.getBeta() == 2)
+            return format.round(negative, significand, e2);
+        if (e2 >= 0)
+            return format.round(negative, BigInteger.valueOf(significand).shiftLeft(e2), 0);
+        return format.round(negative, BigInteger.valueOf(significand), BigInteger.ONE.shiftLeft(-e2), 0);
     }
 
     /**
-     * Computes the complete mantissa value.
+     * Returns the mantissa value.
      *
      * The mantissa is evaluated as:
      *
@@ -99,20 +245,16 @@ public class FloatingPoint {
      *   sign · Σ(m_i · β^{-i}),  i = 1 ... r-1
      * </pre>
      *
+     * The value is computed once on construction.
+     *
      * @return The evaluated mantissa including its sign
      */
     public double getCompleteM() {
-        double m_delta = 0.0;
-
-        for (int i = 1; i < r; i++) {
-            m_delta += m[i] * Math.pow(beta, -i);
-        }
-
-        return m_delta * sign;
+        return completeM;
     }
 
     /**
-     * Computes the complete exponent value.
+     * Returns the exponent value.
      *
      * The exponent is evaluated as:
      *
@@ -120,24 +262,279 @@ public class FloatingPoint {
      *   signExp · Σ(exp_i · β^{i}),  i = 0 ... s
      * </pre>
      *
+     * The value is computed once on construction.
+     *
      * @return The evaluated exponent including its sign
      */
     public double getCompleteExp() {
-        double exp_delta = 0.0;
+        return completeExp;
+    }
+
+    /**
+     * Returns the real value represented by this floating-point number.
+     *
+     * @return Floating-point value as a {@code double}
+     */
+    public double getFloatValue() {
+        return value;
+    }
 
-        for (int i = 0; i <= s; i++) {
-            exp_delta += exp[i] * Math.pow(beta, i);
+    /**
+     * Returns the format of this number.
+     *
+     * @return Format, {@code null} if the digits given to the constructor
+     *         do not fit into any format
+     */
+    public NumberFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the packed mantissa M with p digits, value = sign · M · β^(e - p).
+     *
+     * @return Normalized integer mantissa, 0 for zero or without a format
+     */
+    public long getMantissa() {
+        return mantissa;
+    }
+
+    /**
+     * Returns the exponent e belonging to {@link #getMantissa()}.
+     *
+     * @return Exponent of the normalized representation
+     */
+    public int getExponent() {
+        return exponent;
+    }
+
+    public boolean isZero() {
+        return format == null ? completeM == 0 : mantissa == 0;
+    }
+
+    public boolean isNegative() {
+        return sign < 0;
+    }
+
+    /**
+     * Returns the mantissa digits in the layout of the constructor.
+     *
+     * @return Digits m[0] ... m[r-1], m[0] = 1 marks the normalized number
+     */
+    public double[] getMantissaDigits() {
+        if (m == null) {
+            double[] digits = new double[r];
+            digits[0] = 1;
+            long rest = mantissa;
+            for (int i = r - 1; i >= 1; i--) {
+                digits[i] = rest % beta;
+                rest /= beta;
+            }
+            m = digits;
         }
+        return m.clone();
+    }
 
-        return signExp * exp_delta;
+    /**
+     * Returns the exponent digits in the layout of the constructor.
+     *
+     * @return Digits exp[0] ... exp[s], least significant first
+     */
+    public double[] getExponentDigits() {
+        if (exp == null) {
+            double[] digits = new double[s + 1];
+            long rest = Math.abs((long) completeExp);
+            for (int i = 0; i <= s; i++) {
+                digits[i] = rest % beta;
+                rest /= beta;
+            }
+            exp = digits;
+        }
+        return exp.clone();
     }
 
+    // --------------------------------------------------
+    // Arithmetic
+    // --------------------------------------------------
+
     /**
-     * Computes the real value represented by this floating-point number.
+     * Returns -this.
      *
-     * @return Floating-point value as a {@code double}
+     * @return Negated number, exact
      */
-    public double getFloatValue() {
-        return getCompleteM() * Math.pow(beta, getCompleteExp());
+    public FloatingPoint negate() {
+        if (format == null)
+            return new FloatingPoint((short) -sign, m, beta, signExp, exp);
+        return new FloatingPoint(format, !isNegative(), mantissa, exponent);
+    }
+
+    /**
+     * Computes this + y rounded into the format.
+     *
+     * @param y Summand of the same format
+     * @return Correctly rounded sum
+     *
+     * @throws IllegalArgumentException if the formats differ
+     * @throws ArithmeticException on overflow
+     */
+    public FloatingPoint add(FloatingPoint y) {
+        requireSameFormat(y);
+        if (y.mantissa == 0)
+            return this;
+        if (mantissa == 0)
+            return y;
+
+        FloatingPoint a = this, b = y;
+        if (a.exponent < b.exponent || (a.exponent == b.exponent && a.mantissa < b.mantissa)) {
+            a = y;
+            b = this;
+        }
+        boolean sameSign = a.isNegative() == b.isNegative();
+        long d = (long) a.exponent - b.exponent;
+        int p = format.getPrecision();
+
+        if (format.hasFastPath()) {
+            if (d <= p + 2) {
+                // Exact aligned sum, |a| >= |b| keeps it non-negative
+                long aligned = a.mantissa * format.power((int) d);
+                long sum = sameSign ? aligned + b.mantissa : aligned - b.mantissa;
+                return format.round(a.isNegative(), sum, (long) b.exponent - p);
+            }
+            // b lies below one unit of a · β^3: replace it by a sticky digit
+            long sticky = a.mantissa * format.power(3) + (sameSign ? 1 : -1);
+            return format.round(a.isNegative(), sticky, (long) a.exponent - p - 3);
+        }
+
+        return sum(format, a.isNegative(), BigInteger.valueOf(a.mantissa), (long) a.exponent - p,
+                b.isNegative(), BigInteger.valueOf(b.mantissa), (long) b.exponent - p);
+    }
+
+    /**
+     * Computes this - y rounded into the format.
+     *
+     * @param y Subtrahend of the same format
+     * @return Correctly rounded difference
+     */
+    public FloatingPoint subtract(FloatingPoint y) {
+        return add(y.negate());
+    }
+
+    /**
+     * Computes this · y rounded into the format.
+     *
+     * @param y Factor of the same format
+     * @return Correctly rounded product
+     */
+    public FloatingPoint multiply(FloatingPoint y) {
+        requireSameFormat(y);
+        boolean negative = isNegative() != y.isNegative();
+        if (mantissa == 0 || y.mantissa == 0)
+            return zero(format);
+
+        long exp = (long) exponent + y.exponent - 2L * format.getPrecision();
+        if (format.hasFastPath())
+            return format.round(negative, mantissa * y.mantissa, exp);
+        return format.round(negative, BigInteger.valueOf(mantissa).multiply(BigInteger.valueOf(y.mantissa)), exp);
+    }
+
+    /**
+     * Computes this / y rounded into the format.
+     *
+     * @param y Divisor of the same format
+     * @return Correctly rounded quotient
+     *
+     * @throws ArithmeticException if y is zero
+     */
+    public FloatingPoint divide(FloatingPoint y) {
+        requireSameFormat(y);
+        if (y.mantissa == 0)
+            throw new ArithmeticException("Division by zero");
+        boolean negative = isNegative() != y.isNegative();
+        if (mantissa == 0)
+            return zero(format);
+
+        long exp = (long) exponent - y.exponent;
+        if (!format.hasFastPath())
+            return format.round(negative, BigInteger.valueOf(mantissa), BigInteger.valueOf(y.mantissa), exp);
+
+        // Scale so that the quotient has exactly p digits
+        int p = format.getPrecision();
+        int k = mantissa >= y.mantissa ? p - 1 : p;
+        long num = mantissa * format.power(k);
+        long q = num / y.mantissa;
+        long rem = num - q * y.mantissa;
+        return format.finish(negative, q, Long.compare(rem, y.mantissa - rem), rem != 0, exp - k + p);
+    }
+
+    /**
+     * Computes this · a + b with a single rounding.
+     *
+     * @param a Factor of the same format
+     * @param b Summand of the same format
+     * @return Correctly rounded fused multiply-add
+     */
+    public FloatingPoint fma(FloatingPoint a, FloatingPoint b) {
+        requireSameFormat(a);
+        requireSameFormat(b);
+        if (mantissa == 0 || a.mantissa == 0)
+            return b;
+        if (b.mantissa == 0)
+            return multiply(a);
+
+        int p = format.getPrecision();
+        BigInteger product = BigInteger.valueOf(mantissa).multiply(BigInteger.valueOf(a.mantissa));
+        return sum(format, isNegative() != a.isNegative(), product, (long) exponent + a.exponent - 2L * p,
+                b.isNegative(), BigInteger.valueOf(b.mantissa), (long) b.exponent - p);
+    }
+
+    /**
+     * Rounds ±A · β^eA ± B · β^eB with big integers.
+     *
+     * An operand that lies completely below the last digit of the other one
+     * only affects the rounding, so it is replaced by a sticky digit. This
+     * keeps the aligned integers short for any exponent difference.
+     */
+    private static FloatingPoint sum(NumberFormat format, boolean negA, BigInteger A, long eA,
+                                     boolean negB, BigInteger B, long eB) {
+        BigInteger beta = BigInteger.valueOf(format.getBeta());
+        double digitsPerBit = Math.log(2) / Math.log(format.getBeta());
+        long topA = eA + (long) Math.ceil(A.bitLength() * digitsPerBit) + 1;
+        long topB = eB + (long) Math.ceil(B.bitLength() * digitsPerBit) + 1;
+
+        if (eA - topB >= 3) {
+            BigInteger sticky = A.multiply(beta.pow(3)).add(BigInteger.valueOf(negA == negB ? 1 : -1));
+            return format.round(negA, sticky, eA - 3);
+        }
+        if (eB - topA >= 3) {
+            BigInteger sticky = B.multiply(beta.pow(3)).add(BigInteger.valueOf(negA == negB ? 1 : -1));
+            return format.round(negB, sticky, eB - 3);
+        }
+
+        long e = Math.min(eA, eB);
+        BigInteger a = A.multiply(beta.pow((int) (eA - e)));
+        BigInteger b = B.multiply(beta.pow((int) (eB - e)));
+        BigInteger total = (negA ? a.negate() : a).add(negB ? b.negate() : b);
+        if (total.signum() == 0)
+            return zero(format);
+        return format.round(total.signum() < 0, total.abs(), e);
+    }
+
+    private void requireSameFormat(FloatingPoint y) {
+        if (format == null)
+            throw new IllegalArgumentException("Numbers without a format support no arithmetic");
+        if (!format.equals(y.format))
+            throw new IllegalArgumentException("Both numbers need the same format");
+        requireDigits(format);
+    }
+
+    private static void requireDigits(NumberFormat format) {
+        if (format.getPrecision() < 1)
+            throw new IllegalArgumentException("Arithmetic needs at least one mantissa digit after m[0]");
+    }
+
+    @Override
+    public String toString() {
+        if (format == null)
+            return Double.toString(value);
+        return (isNegative() ? "-" : "") + "0." + Long.toString(mantissa, beta) + " * " + beta + "^" + exponent;
     }
 }
@@ -0,0 +1,728 @@
+package de.home_skrobanek.fnum.ieee;
+
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+/**
+ * @class NumberFormat
+ * @brief Describes a floating-point format (β, r, s) and rounds into it.
+ *
+ * The parameters have the same meaning as in {@link FloatingPoint}:
+ * {@code β} is the base, {@code r} the length of the mantissa digit array
+ * and {@code s + 1} the number of exponent digits. As in
+ * {@link FloatingPoint#getCompleteM()} the leading digit {@code m[0]} only
+ * marks a normalized number, so a format carries
+ *
+ * <pre>
+ *   p = r - 1
+ * </pre>
+ *
+ * significant digits. Numbers of the format are
+ * {@code ± M · β^(e - p)} with an integer mantissa {@code β^(p-1) <= M < β^p}
+ * and {@code |e| <= β^(s+1) - 1}, i.e. {@code ± 0.d1 d2 ... dp · β^e}.
+ *
+ * <p>The format precomputes the powers of β used by the arithmetic of
+ * {@link FloatingPoint}. Results are rounded correctly with the format's
+ * {@link RoundingMode}; results above the exponent range throw an
+ * {@link ArithmeticException}, results below it are flushed to zero.</p>
+ *
+ * <p>{@link #round(double)} and {@link #round(double[], int, int)} round
+ * plain doubles into the format without creating {@link FloatingPoint}
+ * objects. Base 2 is rounded by manipulating the bits of the double, other
+ * bases by scaling with the exact power table and an error-free product.
+ * These kernels make it possible to simulate a format across whole
+ * algorithms on realistic problem sizes.</p>
+ *
+ * <p>Formats are immutable and cached, obtain them with
+ * {@link #of(int, int, int)} or {@link #of(int, int, int, RoundingMode)}.</p>
+ */
+public final class NumberFormat {
+
+    private static final Map<NumberFormat, NumberFormat> CACHE = new ConcurrentHashMap<>();
+
+    /** Mantissa bits of a packed result of {@link #roundScaled(double, boolean)} */
+    private static final long SCALED_MANTISSA = (1L << 53) - 1;
+
+    /** Result of {@link #roundScaled(double, boolean)} if the fast path does not apply */
+    private static final long UNSUPPORTED = Long.MIN_VALUE;
+
+    /** Base (radix) */
+    private final int beta;
+
+    /** Length of the mantissa digit array */
+    private final int r;
+
+    /** Length of the exponent digit array minus one */
+    private final int s;
+
+    /** Rounding mode of all operations */
+    private final RoundingMode roundingMode;
+
+    /** Number of significant digits p = r - 1 */
+    private final int precision;
+
+    /** Largest exponent β^(s+1) - 1 */
+    private final int maxExponent;
+
+    /** β^i for all i with β^i <= Long.MAX_VALUE */
+    private final long[] powers;
+
+    /** β^i as double for 0 <= i < doublePowers.length */
+    private final double[] doublePowers;
+
+    /** Whether β^(2p+2) fits into a long, enabling the long arithmetic */
+    private final boolean fastPath;
+
+    /** Whether doubles can be rounded with the power table, i.e. 3 <= p and β^p <= 2^53 */
+    private final boolean doubleRounding;
+
+    /** Whether the rounding mode rounds to nearest */
+    private final boolean nearest;
+
+    /** log_β(2) for estimating decimal exponents */
+    private final double log2Beta;
+
+    /** Number of low significand bits cleared by the base 2 kernel, or -1 */
+    private final int dropBits;
+
+    /** Increments added to the raw bits of positive / negative doubles before truncation */
+    private final long incrementPositive, incrementNegative;
+
+    /** Mask clearing the dropped significand bits */
+    private final long keepMask;
+
+    /** Whether the base 2 kernel breaks ties to even */
+    private final boolean halfEven;
+
+    /** Smallest and largest magnitude bits the base 2 kernel returns without further checks */
+    private final long lowestBits, highestBits;
+
+    /**
+     * Returns the format with rounding to nearest, ties to even.
+     *
+     * @param beta Base, must be >= 2
+     * @param r Length of the mantissa digit array, must be >= 1
+     * @param s Length of the exponent digit array minus one, must be >= 0
+     * @return Cached format
+     */
+    public static NumberFormat of(int beta, int r, int s) {
+        return of(beta, r, s, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Returns the format with the given rounding mode.
+     *
+     * @param beta Base, must be >= 2
+     * @param r Length of the mantissa digit array, must be >= 1
+     * @param s Length of the exponent digit array minus one, must be >= 0
+     * @param roundingMode Rounding mode of all operations
+     * @return Cached format
+     *
+     * @throws IllegalArgumentException if the parameters are out of range or
+     *         the mantissa does not fit into 63 bits
+     */
+    public static NumberFormat of(int beta, int r, int s, RoundingMode roundingMode) {
+        NumberFormat key = new NumberFormat(beta, r, s, roundingMode, false);
+        NumberFormat cached = CACHE.get(key);
+        if (cached != null)
+            return cached;
+        return CACHE.computeIfAbsent(key, k -> new NumberFormat(beta, r, s, roundingMode, true));
+    }
+
+    private NumberFormat(int beta, int r, int s, RoundingMode roundingMode, boolean tables) {
+        if (beta < 2 || r < 1 || s < 0)
+            throw new IllegalArgumentException("Format requires beta >= 2, r >= 1 and s >= 0");
+
+        this.beta = beta;
+        this.r = r;
+        this.s = s;
+        this.roundingMode = Objects.requireNonNull(roundingMode);
+        this.precision = r - 1;
+        this.nearest = roundingMode.name().startsWith("HALF");
+
+        long maxExp = 1;
+        for (int i = 0; i <= s && maxExp <= Integer.MAX_VALUE / 4; i++)
+            maxExp *= beta;
+        this.maxExponent = (int) Math.min(maxExp - 1, Integer.MAX_VALUE / 4);
+
+        if (!tables) {
+            powers = null;
+            doublePowers = null;
+            fastPath = false;
+            doubleRounding = false;
+            log2Beta = 0;
+            dropBits = -1;
+            incrementPositive = incrementNegative = 0;
+            keepMask = lowestBits = highestBits = 0;
+            halfEven = false;
+            return;
+        }
+
+        int count = 1;
+        while (count < 64 && powerFits(beta, count))
+            count++;
+        powers = new long[count];
+        powers[0] = 1;
+        for (int i = 1; i < count; i++)
+            powers[i] = powers[i - 1] * beta;
+
+        if (precision >= count)
+            throw new IllegalArgumentException("Mantissa of the format does not fit into 63 bits");
+
+        // Exact powers only, so evaluation by division stays correctly rounded
+        int doubles = 1;
+        while (doubles < count && powers[doubles] <= (1L << 53))
+            doubles++;
+        doublePowers = new double[doubles];
+        for (int i = 0; i < doubles; i++)
+            doublePowers[i] = powers[i];
+
+        fastPath = 2 * precision + 2 < count;
+        doubleRounding = precision >= 3 && precision < doubles;
+        log2Beta = Math.log(2) / Math.log(beta);
+
+        if (beta == 2 && precision >= 1 && precision <= 53) {
+            dropBits = 53 - precision;
+            incrementPositive = increment(false);
+            incrementNegative = increment(true);
+            keepMask = -1L << dropBits;
+            halfEven = roundingMode == RoundingMode.HALF_EVEN && dropBits > 0;
+            // UNNECESSARY needs the check of the dropped bits in the slow path
+            boolean unchecked = roundingMode != RoundingMode.UNNECESSARY;
+            lowestBits = unchecked ? Math.max(1L, 1022L - maxExponent) << 52 : Long.MIN_VALUE;
+            highestBits = unchecked ? (Math.min(2046L, 1022L + maxExponent) << 52) | ((1L << 52) - 1) : Long.MIN_VALUE;
+        } else {
+            dropBits = -1;
+            incrementPositive = incrementNegative = 0;
+            keepMask = lowestBits = highestBits = 0;
+            halfEven = false;
+        }
+    }
+
+    /**
+     * Returns the value added to the magnitude bits of a double so that
+     * clearing the lowest {@link #dropBits} bits afterwards rounds with the
+     * rounding mode. Ties to even are handled separately.
+     */
+    private long increment(boolean negative) {
+        if (dropBits == 0)
+            return 0;
+        long half = 1L << (dropBits - 1);
+        long mask = (1L << dropBits) - 1;
+        switch (roundingMode) {
+            case UP:
+                return mask;
+            case CEILING:
+                return negative ? 0 : mask;
+            case FLOOR:
+                return negative ? mask : 0;
+            case HALF_UP:
+                return half;
+            case HALF_DOWN:
+            case HALF_EVEN:
+                return half - 1;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Returns whether a format with base β and r mantissa digits can be
+     * created, i.e. whether β^(r-1) fits into a long.
+     */
+    static boolean fitsMantissa(int beta, int r) {
+        return beta >= 2 && r >= 1 && powerFits(beta, r - 1);
+    }
+
+    private static boolean powerFits(int beta, int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            if (value > Long.MAX_VALUE / beta)
+                return false;
+            value *= beta;
+        }
+        return true;
+    }
+
+    public int getBeta() {
+        return beta;
+    }
+
+    public int getR() {
+        return r;
+    }
+
+    public int getS() {
+        return s;
+    }
+
+    public RoundingMode getRoundingMode() {
+        return roundingMode;
+    }
+
+    /**
+     * Returns the number of significant digits p = r - 1.
+     *
+     * @return Precision in digits of base β
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the largest exponent; the smallest is its negation.
+     *
+     * @return β^(s+1) - 1
+     */
+    public int getMaxExponent() {
+        return maxExponent;
+    }
+
+    /**
+     * Returns the unit roundoff of the format.
+     *
+     * @return β^(1-p) / 2 for rounding to nearest, β^(1-p) otherwise
+     */
+    public double getUnitRoundoff() {
+        double ulp = Math.pow(beta, 1 - precision);
+        return nearest ? ulp / 2 : ulp;
+    }
+
+    // --------------------------------------------------
+    // Rounding of doubles
+    // --------------------------------------------------
+
+    /**
+     * Rounds a double into the format.
+     *
+     * The result is the double nearest to the rounded value, which is exact
+     * whenever the rounded value is representable as a double (always for
+     * β = 2 and p <= 53). Results below the exponent range are flushed to a
+     * signed zero. NaN and infinities are returned unchanged.
+     *
+     * @param x Value to round
+     * @return x rounded into the format
+     *
+     * @throws ArithmeticException if the rounded value exceeds the exponent
+     *         range, or on inexact results with {@link RoundingMode#UNNECESSARY}
+     * @throws IllegalArgumentException if the format has no mantissa digit
+     */
+    public double round(double x) {
+        if (dropBits >= 0)
+            return roundBinary(x);
+        if (x == 0 || !Double.isFinite(x))
+            return x;
+        if (doubleRounding) {
+            long packed = roundScaled(Math.abs(x), x < 0);
+            if (packed != UNSUPPORTED) {
+                double value = evaluate(packed & SCALED_MANTISSA, (int) (packed >> 53) - precision);
+                return x < 0 ? -value : value;
+            }
+        }
+        return FloatingPoint.valueOf(x, this).getFloatValue();
+    }
+
+    /**
+     * Rounds all entries of an array in-place.
+     *
+     * @param values Values to round
+     */
+    public void round(double[] values) {
+        round(values, 0, values.length);
+    }
+
+    /**
+     * Rounds the entries {@code from} (inclusive) to {@code to} (exclusive)
+     * of an array in-place.
+     *
+     * @param values Values to round
+     * @param from First index
+     * @param to Index after the last entry
+     *
+     * @pre 0 <= from <= to <= values.length
+     */
+    public void round(double[] values, int from, int to) {
+        assert 0 <= from && from <= to && to <= values.length;
+
+        if (dropBits >= 0) {
+            for (int i = from; i < to; i++)
+                values[i] = roundBinary(values[i]);
+        } else {
+            for (int i = from; i < to; i++)
+                values[i] = round(values[i]);
+        }
+    }
+
+    /**
+     * Base 2 kernel: adds the rounding increment to the raw bits and clears
+     * the dropped significand bits. A carry out of the significand
+     * increments the exponent field, which is exactly the renormalization.
+     * A single range check on the result sends zeros, subnormals,
+     * non-finite values and results outside the exponent range to
+     * {@link #roundBinarySlow(double)}.
+     */
+    private double roundBinary(double x) {
+        long bits = Double.doubleToRawLongBits(x);
+        long magnitude = bits & Long.MAX_VALUE;
+        magnitude += bits < 0 ? incrementNegative : incrementPositive;
+        if (halfEven)
+            magnitude += (magnitude >>> dropBits) & 1;
+        magnitude &= keepMask;
+
+        if (Long.compareUnsigned(magnitude - lowestBits, highestBits - lowestBits) <= 0)
+            return Double.longBitsToDouble(magnitude | (bits & Long.MIN_VALUE));
+        return roundBinarySlow(x);
+    }
+
+    private double roundBinarySlow(double x) {
+        long bits = Double.doubleToRawLongBits(x);
+        long magnitude = bits & Long.MAX_VALUE;
+        if (magnitude == 0 || magnitude >= 0x7ff0000000000000L)
+            return x;
+        // Subnormal doubles carry fewer significant bits, round them exactly
+        if (magnitude < 0x0010000000000000L)
+            return FloatingPoint.valueOf(x, this).getFloatValue();
+
+        boolean negative = bits < 0;
+        if (roundingMode == RoundingMode.UNNECESSARY && (magnitude & ~keepMask) != 0)
+            throw new ArithmeticException("Rounding necessary");
+        magnitude += negative ? incrementNegative : incrementPositive;
+        if (halfEven)
+            magnitude += (magnitude >>> dropBits) & 1;
+        magnitude &= keepMask;
+
+        // 1.f · 2^E = 0.1f · 2^(E+1)
+        long exponent = (magnitude >>> 52) - 1022;
+        if (exponent > maxExponent)
+            throw new ArithmeticException("Overflow: exponent " + exponent + " exceeds the format");
+        if (exponent < -maxExponent)
+            return negative ? -0.0 : 0.0;
+        return Double.longBitsToDouble(magnitude | (bits & Long.MIN_VALUE));
+    }
+
+    /**
+     * General kernel: scales |x| by an exact power of β so that its integer
+     * part has p digits and rounds it. The scaled value is split into an
+     * exact sum with {@link Math#fma}, so ties and directed rounding are
+     * decided correctly. Rounding to nearest, the common case, is decided
+     * without a data-dependent branch.
+     *
+     * <p>The result packs the mantissa M into the low 53 bits and the
+     * exponent e into the high bits, {@code (e << 53) | M}. For β >= 3 the
+     * exponents of finite doubles fit easily. Zero is returned as 0.</p>
+     *
+     * @param a |x|, positive and finite
+     * @param negative Sign of x
+     * @return Packed result or {@link #UNSUPPORTED} if the exactness conditions do not hold
+     */
+    private long roundScaled(double a, boolean negative) {
+        int p = precision;
+        long e = (long) Math.floor(Math.getExponent(a) * log2Beta) + 1;
+
+        while (true) {
+            long k = p - e;
+            if (Math.abs(k) >= doublePowers.length)
+                return UNSUPPORTED;
+
+            long mantissa;
+            if (k >= 0) {
+                // a · β^k = hi + lo exactly, hi < 2^63 so the cast truncates
+                double scale = doublePowers[(int) k];
+                double hi = a * scale;
+                double lo = Math.fma(a, scale, -hi);
+                mantissa = (long) hi;
+                double frac = hi - mantissa;
+                if (frac == 0 && lo < 0) {
+                    mantissa -= 1;
+                    frac = 1;
+                }
+                if (mantissa >= powers[p] || mantissa < powers[p - 1]) {
+                    e += mantissa >= powers[p] ? 1 : -1;
+                    continue;
+                }
+
+                if (nearest) {
+                    // frac - 1/2 is exact, so the rounded sum has the sign of the exact tail
+                    double tail = (frac - 0.5) + lo;
+                    long up = -Double.doubleToRawLongBits(tail) >>> 63;
+                    if (tail == 0)
+                        up = roundingMode == RoundingMode.HALF_UP ? 1
+                                : roundingMode == RoundingMode.HALF_EVEN ? mantissa & 1 : 0;
+                    mantissa += up;
+                } else {
+                    if (roundUp(negative, mantissa, Double.compare(frac - 0.5, -lo), frac != 0 || lo != 0))
+                        mantissa++;
+                }
+            } else {
+                // a = q · β^-k + rem exactly, 1 <= a < 2^53 keeps rem representable
+                if (a >= 0x1p53)
+                    return UNSUPPORTED;
+                double scale = doublePowers[(int) -k];
+                double q = Math.floor(a / scale);
+                double rem = -Math.fma(q, scale, -a);
+                if (rem < 0) {
+                    q -= 1;
+                    rem += scale;
+                } else if (rem >= scale) {
+                    q += 1;
+                    rem -= scale;
+                }
+                if (q >= powers[p] || q < powers[p - 1]) {
+                    e += q >= powers[p] ? 1 : -1;
+                    continue;
+                }
+                mantissa = (long) q;
+                if (roundUp(negative, mantissa, Double.compare(rem, scale - rem), rem != 0))
+                    mantissa++;
+            }
+
+            if (mantissa == powers[p]) {
+                mantissa = powers[p - 1];
+                e++;
+            }
+            if (e > maxExponent)
+                throw new ArithmeticException("Overflow: exponent " + e + " exceeds the format");
+            if (e < -maxExponent)
+                return 0;
+            return (e << 53) | mantissa;
+        }
+    }
+
+    /**
+     * Rounds src[from..to) into the format and stores the signed mantissa
+     * and the exponent of every value, value = M · β^(e - p). Zero, also a
+     * flushed underflow, is stored as M = 0.
+     *
+     * @param src Finite values
+     * @param from First index
+     * @param to Index after the last value
+     * @param mantissas Receives the signed mantissas at index i - from
+     * @param exponents Receives the exponents at index i - from
+     *
+     * @throws IllegalArgumentException if a value is not finite
+     * @throws ArithmeticException if a value exceeds the exponent range
+     */
+    void decompose(double[] src, int from, int to, long[] mantissas, int[] exponents) {
+        for (int i = from; i < to; i++) {
+            double x = src[i];
+            long mantissa;
+            int exponent;
+
+            if (!Double.isFinite(x))
+                throw new IllegalArgumentException("Only finite values can be converted");
+            if (x == 0) {
+                mantissa = 0;
+                exponent = 0;
+            } else if (dropBits >= 0 && Math.abs(x) >= Double.MIN_NORMAL) {
+                long bits = Double.doubleToRawLongBits(roundBinary(x));
+                long field = (bits >>> 52) & 0x7ff;
+                if (field == 0 && (bits & Long.MAX_VALUE) != 0) {
+                    FloatingPoint f = FloatingPoint.valueOf(x, this);
+                    mantissa = f.getMantissa();
+                    exponent = f.getExponent();
+                } else {
+                    mantissa = field == 0 ? 0 : ((bits & ((1L << 52) - 1)) | (1L << 52)) >>> dropBits;
+                    exponent = field == 0 ? 0 : (int) (field - 1022);
+                }
+            } else {
+                long packed = doubleRounding && dropBits < 0 && Double.isFinite(x)
+                        ? roundScaled(Math.abs(x), x < 0) : UNSUPPORTED;
+                if (packed == UNSUPPORTED) {
+                    FloatingPoint f = FloatingPoint.valueOf(x, this);
+                    mantissa = f.getMantissa();
+                    exponent = f.getExponent();
+                } else {
+                    mantissa = packed & SCALED_MANTISSA;
+                    exponent = mantissa == 0 ? 0 : (int) (packed >> 53);
+                }
+            }
+            mantissas[i - from] = x < 0 ? -mantissa : mantissa;
+            exponents[i - from] = exponent;
+        }
+    }
+
+    // --------------------------------------------------
+    // Package-private arithmetic support for FloatingPoint
+    // --------------------------------------------------
+
+    boolean hasFastPath() {
+        return fastPath;
+    }
+
+    long power(int i) {
+        return powers[i];
+    }
+
+    /**
+     * Evaluates M · β^e as a double.
+     */
+    double evaluate(long mantissa, int exponent) {
+        if (mantissa == 0)
+            return 0.0;
+        if (exponent >= 0)
+            return exponent < doublePowers.length
+                    ? mantissa * doublePowers[exponent]
+                    : mantissa * Math.pow(beta, exponent);
+        return -exponent < doublePowers.length
+                ? mantissa / doublePowers[-exponent]
+                : mantissa * Math.pow(beta, exponent);
+    }
+
+    /**
+     * Rounds magnitude · β^exp into the format.
+     *
+     * @param negative Sign of the value
+     * @param magnitude Non-negative integer
+     * @param exp Exponent of the least significant digit of magnitude
+     * @return Rounded number of this format
+     */
+    FloatingPoint round(boolean negative, long magnitude, long exp) {
+        if (magnitude == 0)
+            return FloatingPoint.zero(this);
+
+        int digits = digits(magnitude);
+        if (digits <= precision)
+            return finish(negative, magnitude * powers[precision - digits], -1, false, exp + digits);
+
+        int k = digits - precision;
+        long q = magnitude / powers[k];
+        long rem = magnitude - q * powers[k];
+        return finish(negative, q, Long.compare(rem, powers[k] - rem), rem != 0, exp + digits);
+    }
+
+    /**
+     * Rounds the rational value q + tail, where the tail is given by its
+     * comparison with one half, into the format.
+     *
+     * @param negative Sign of the value
+     * @param q Truncated mantissa with exactly p digits
+     * @param cmpHalf Comparison of the discarded tail with one half unit
+     * @param inexact Whether the discarded tail is non-zero
+     * @param exponent Exponent e of the result 0.q · β^e
+     */
+    FloatingPoint finish(boolean negative, long q, int cmpHalf, boolean inexact, long exponent) {
+        if (roundUp(negative, q, cmpHalf, inexact)) {
+            q++;
+            if (q == powers[precision]) {
+                q = powers[precision - 1];
+                exponent++;
+            }
+        }
+        if (exponent > maxExponent)
+            throw new ArithmeticException("Overflow: exponent " + exponent + " exceeds the format");
+        if (exponent < -maxExponent)
+            return FloatingPoint.zero(this);
+
+        return new FloatingPoint(this, negative, q, (int) exponent);
+    }
+
+    /**
+     * Rounds magnitude · β^exp into the format using exact big integer
+     * arithmetic.
+     */
+    FloatingPoint round(boolean negative, BigInteger magnitude, long exp) {
+        if (magnitude.bitLength() < 64)
+            return round(negative, magnitude.longValueExact(), exp);
+
+        BigInteger b = BigInteger.valueOf(beta);
+        int k = (int) Math.floor((magnitude.bitLength() - 1) * Math.log(2) / Math.log(beta)) + 1 - precision;
+        k = Math.max(k, 0);
+        BigInteger[] qr = magnitude.divideAndRemainder(b.pow(k));
+        while (qr[0].compareTo(BigInteger.valueOf(powers[precision])) >= 0) {
+            k++;
+            qr = magnitude.divideAndRemainder(b.pow(k));
+        }
+        BigInteger unit = b.pow(k);
+        int cmp = qr[1].shiftLeft(1).compareTo(unit);
+        return finish(negative, qr[0].longValueExact(), cmp, qr[1].signum() != 0, exp + k + precision);
+    }
+
+    /**
+     * Rounds num / den · β^exp into the format.
+     *
+     * @param negative Sign of the value
+     * @param num Positive numerator
+     * @param den Positive denominator
+     * @param exp Exponent of the quotient
+     */
+    FloatingPoint round(boolean negative, BigInteger num, BigInteger den, long exp) {
+        if (num.signum() == 0)
+            return FloatingPoint.zero(this);
+
+        BigInteger b = BigInteger.valueOf(beta);
+        BigInteger low = BigInteger.valueOf(powers[precision - 1]);
+        BigInteger high = BigInteger.valueOf(powers[precision]);
+
+        // Estimate k with num · β^k / den in [β^(p-1), β^p), then correct it
+        double log = (num.bitLength() - den.bitLength()) * Math.log(2) / Math.log(beta);
+        int k = precision - 1 - (int) Math.floor(log);
+        BigInteger[] qr;
+        while (true) {
+            BigInteger n = k >= 0 ? num.multiply(b.pow(k)) : num;
+            BigInteger d = k >= 0 ? den : den.multiply(b.pow(-k));
+            qr = n.divideAndRemainder(d);
+            if (qr[0].compareTo(low) < 0)
+                k++;
+            else if (qr[0].compareTo(high) >= 0)
+                k--;
+            else {
+                int cmp = qr[1].shiftLeft(1).compareTo(d);
+                return finish(negative, qr[0].longValueExact(), cmp, qr[1].signum() != 0, exp - k + precision);
+            }
+        }
+    }
+
+    private int digits(long magnitude) {
+        int d = precision;
+        while (d < powers.length && powers[d] <= magnitude)
+            d++;
+        while (d > 0 && powers[d - 1] > magnitude)
+            d--;
+        return d;
+    }
+
+    private boolean roundUp(boolean negative, long q, int cmpHalf, boolean inexact) {
+        switch (roundingMode) {
+            case UP:
+                return inexact;
+            case DOWN:
+                return false;
+            case CEILING:
+                return inexact && !negative;
+            case FLOOR:
+                return inexact && negative;
+            case HALF_UP:
+                return inexact && cmpHalf >= 0;
+            case HALF_DOWN:
+                return cmpHalf > 0;
+            case HALF_EVEN:
+                return cmpHalf > 0 || (cmpHalf == 0 && (q & 1) == 1);
+            default:
+                if (inexact)
+                    throw new ArithmeticException("Rounding necessary");
+                return false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof NumberFormat))
+            return false;
+        NumberFormat f = (NumberFormat) o;
+        return beta == f.beta && r == f.r && s == f.s && roundingMode == f.roundingMode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(beta, r, s, roundingMode);
+    }
+
+    @Override
+    public String toString() {
+        return "NumberFormat(beta=" + beta + ", r=" + r + ", s=" + s + ", " + roundingMode + ")";
+    }
+}
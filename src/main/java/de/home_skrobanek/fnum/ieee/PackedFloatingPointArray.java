@@ -0,0 +1,307 @@
+package de.home_skrobanek.fnum.ieee;
+
+import de.home_skrobanek.fnum.utils.Chunks;
+/**
+ * @class PackedFloatingPointArray
+ * @brief Stores many numbers of one {@link NumberFormat} in bit-packed columns.
+ *
+ * A {@link FloatingPoint} object keeps its digits in {@code double[]} arrays
+ * and several fields, several hundred bytes per number. This container
+ * stores every number with just the bits its format needs, in three
+ * columns of {@code long} words:
+ *
+ * <pre>
+ *   sign      1 bit
+ *   exponent  ceil(log2(2 · maxExponent + 2)) bits, biased, 0 encodes zero
+ *   mantissa  ceil(log2(β^p - β^(p-1))) bits, M - β^(p-1)
+ * </pre>
+ *
+ * The digits of the mantissa are stored as the integer they form, which is
+ * denser than one bit field per digit. As in IEEE 754 the leading digit is
+ * implied, so binary32 takes 1 + 9 + 23 bits.
+ *
+ * <p>{@link #encode(double[], int, int, int)} rounds doubles into the
+ * format and packs them, {@link #decode(int, double[], int, int)} evaluates
+ * them back. Both walk the columns sequentially and process large ranges in
+ * parallel.</p>
+ *
+ * <p>All indices are zero-based.</p>
+ */
+public class PackedFloatingPointArray {
+
+    /** Number of elements encoded per block, a multiple of 64 so parallel blocks never share words */
+    private static final int BLOCK = Chunks.DEFAULT_CHUNK;
+
+    /** Format of all elements */
+    private final NumberFormat format;
+
+    /** Number of elements */
+    private final int size;
+
+    /** Width of the exponent and mantissa fields */
+    private final int exponentBits, mantissaBits;
+
+    /** β^(p-1), the implied leading digit */
+    private final long leading;
+
+    /** Bit-packed columns */
+    private final long[] signs, exponents, mantissas;
+
+    /**
+     * Constructs a container of zeros.
+     *
+     * @param format Format of the elements
+     * @param size Number of elements
+     *
+     * @pre size >= 0
+     * @throws IllegalArgumentException if the format has no mantissa digit
+     */
+    public PackedFloatingPointArray(NumberFormat format, int size) {
+        assert size >= 0;
+        if (format.getPrecision() < 1)
+            throw new IllegalArgumentException("The format needs at least one mantissa digit after m[0]");
+
+        this.format = format;
+        this.size = size;
+
+        int p = format.getPrecision();
+        leading = format.power(p - 1);
+        exponentBits = bitsFor(2L * format.getMaxExponent() + 1);
+        mantissaBits = bitsFor(format.power(p) - leading - 1);
+
+        signs = new long[words(size, 1)];
+        exponents = new long[words(size, exponentBits)];
+        mantissas = new long[words(size, mantissaBits)];
+    }
+
+    /**
+     * Rounds an array into a new container.
+     *
+     * @param values Finite values
+     * @param format Format of the elements
+     * @return Container holding the rounded values
+     */
+    public static PackedFloatingPointArray of(double[] values, NumberFormat format) {
+        PackedFloatingPointArray packed = new PackedFloatingPointArray(format, values.length);
+        packed.encode(values, 0, 0, values.length);
+        return packed;
+    }
+
+    public NumberFormat getFormat() {
+        return format;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bits one element occupies.
+     *
+     * @return Sum of the sign, exponent and mantissa field widths
+     */
+    public int getBitsPerElement() {
+        return 1 + exponentBits + mantissaBits;
+    }
+
+    /**
+     * Returns the memory used by the packed columns.
+     *
+     * @return Size of the word arrays in bytes
+     */
+    public long getMemoryBytes() {
+        return 8L * (signs.length + exponents.length + mantissas.length);
+    }
+
+    /**
+     * Rounds doubles into the format and stores them.
+     *
+     * @param src Finite values
+     * @param srcPos First index in src
+     * @param destPos First element to overwrite
+     * @param length Number of values
+     *
+     * @throws IndexOutOfBoundsException if a range exceeds its array
+     * @throws IllegalArgumentException if a value is not finite
+     * @throws ArithmeticException if a value exceeds the exponent range
+     */
+    public void encode(double[] src, int srcPos, int destPos, int length) {
+        checkRange(srcPos, length, src.length);
+        checkRange(destPos, length, size);
+
+        // Aligned blocks never write into the same word
+        if (destPos % 64 == 0) {
+            Chunks.forEach(length, BLOCK, (from, to) -> encodeBlock(src, srcPos + from, destPos + from, to - from));
+        } else {
+            for (int done = 0; done < length; done += BLOCK)
+                encodeBlock(src, srcPos + done, destPos + done, Math.min(BLOCK, length - done));
+        }
+    }
+
+    private void encodeBlock(double[] src, int srcPos, int destPos, int length) {
+        long[] m = new long[length];
+        int[] e = new int[length];
+        format.decompose(src, srcPos, srcPos + length, m, e);
+
+        int bias = format.getMaxExponent() + 1;
+        for (int i = 0; i < length; i++)
+            write(destPos + i, m[i], m[i] == 0 ? 0 : e[i] + bias);
+    }
+
+    /**
+     * Evaluates stored elements into doubles.
+     *
+     * @param srcPos First element to read
+     * @param dest Array receiving the values
+     * @param destPos First index in dest
+     * @param length Number of elements
+     *
+     * @throws IndexOutOfBoundsException if a range exceeds its array
+     */
+    public void decode(int srcPos, double[] dest, int destPos, int length) {
+        checkRange(srcPos, length, size);
+        checkRange(destPos, length, dest.length);
+
+        Chunks.forEach(length, BLOCK, (from, to) -> {
+            for (int i = from; i < to; i++)
+                dest[destPos + i] = getDouble(srcPos + i);
+        });
+    }
+
+    /**
+     * Evaluates all elements into a new array.
+     *
+     * @return Values of all elements
+     */
+    public double[] decode() {
+        double[] values = new double[size];
+        decode(0, values, 0, size);
+        return values;
+    }
+
+    /**
+     * Returns the value of one element.
+     *
+     * @param pos Index of the element
+     * @return Value as a double
+     */
+    public double getDouble(int pos) {
+        int code = (int) read(exponents, exponentBits, pos);
+        if (code == 0)
+            return 0.0;
+
+        int p = format.getPrecision();
+        int exponent = code - format.getMaxExponent() - 1;
+        long digits = read(mantissas, mantissaBits, pos);
+        boolean negative = read(signs, 1, pos) != 0;
+
+        double value;
+        if (format.getBeta() == 2 && p <= 53 && exponent > -1022 && exponent < 1025) {
+            // Build the double directly, the leading bit is the implicit one.
+            // Wider binary formats have more digits than the double and are rounded by evaluate
+            long bits = ((long) (exponent + 1022) << 52) | (digits << (53 - p));
+            value = Double.longBitsToDouble(bits);
+        } else {
+            value = format.evaluate(leading + digits, exponent - p);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Rounds a double into the format and stores it.
+     *
+     * @param pos Index of the element
+     * @param value Finite value
+     */
+    public void setDouble(int pos, double value) {
+        encode(new double[]{value}, 0, pos, 1);
+    }
+
+    /**
+     * Returns one element as a {@link FloatingPoint}.
+     *
+     * @param pos Index of the element
+     * @return New number of the container's format
+     */
+    public FloatingPoint get(int pos) {
+        int code = (int) read(exponents, exponentBits, pos);
+        if (code == 0)
+            return FloatingPoint.zero(format);
+        long mantissa = leading + read(mantissas, mantissaBits, pos);
+        return new FloatingPoint(format, read(signs, 1, pos) != 0, mantissa, code - format.getMaxExponent() - 1);
+    }
+
+    /**
+     * Stores a {@link FloatingPoint} without rounding.
+     *
+     * @param pos Index of the element
+     * @param x Number of the container's format
+     *
+     * @throws IllegalArgumentException if x has another format or its
+     *         exponent lies outside the range of the format
+     */
+    public void set(int pos, FloatingPoint x) {
+        if (!format.equals(x.getFormat()))
+            throw new IllegalArgumentException("The number needs the format of the container");
+        if (Math.abs((long) x.getExponent()) > format.getMaxExponent())
+            throw new IllegalArgumentException("The exponent lies outside the range of the format");
+
+        long mantissa = x.isNegative() ? -x.getMantissa() : x.getMantissa();
+        write(pos, mantissa, mantissa == 0 ? 0 : x.getExponent() + format.getMaxExponent() + 1);
+    }
+
+    private void write(int pos, long signedMantissa, int code) {
+        write(signs, 1, pos, signedMantissa < 0 ? 1 : 0);
+        write(exponents, exponentBits, pos, code);
+        write(mantissas, mantissaBits, pos, code == 0 ? 0 : Math.abs(signedMantissa) - leading);
+    }
+
+    // --------------------------------------------------
+    // Bit packing
+    // --------------------------------------------------
+
+    private static int bitsFor(long maxValue) {
+        return 64 - Long.numberOfLeadingZeros(maxValue);
+    }
+
+    private static int words(int count, int bits) {
+        return (int) (((long) count * bits + 63) >>> 6);
+    }
+
+    /**
+     * Reads the field of an element; a field may span two words.
+     */
+    private static long read(long[] words, int bits, int pos) {
+        if (bits == 0)
+            return 0;
+        long bit = (long) pos * bits;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        long mask = bits == 64 ? -1L : (1L << bits) - 1;
+
+        long value = words[word] >>> shift;
+        if (shift + bits > 64)
+            value |= words[word + 1] << (64 - shift);
+        return value & mask;
+    }
+
+    private static void write(long[] words, int bits, int pos, long value) {
+        if (bits == 0)
+            return;
+        long bit = (long) pos * bits;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        long mask = bits == 64 ? -1L : (1L << bits) - 1;
+
+        words[word] = (words[word] & ~(mask << shift)) | ((value & mask) << shift);
+        if (shift + bits > 64) {
+            int high = 64 - shift;
+            words[word + 1] = (words[word + 1] & ~(mask >>> high)) | ((value & mask) >>> high);
+        }
+    }
+
+    private static void checkRange(int pos, int length, int size) {
+        if (pos < 0 || length < 0 || pos + length > size)
+            throw new IndexOutOfBoundsException("Range [" + pos + ", " + (pos + length) + ") exceeds " + size);
+    }
+}
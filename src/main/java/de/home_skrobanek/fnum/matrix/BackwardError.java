@@ -0,0 +1,130 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class BackwardError
+ * @brief Reports how well a computed solution x solves A * x = b.
+ *
+ * The residual r = b - A * x is evaluated once, O(n^2), and condensed into
+ *
+ * <ul>
+ *   <li>the normwise backward error of Rigal and Gaches,
+ *       {@code ||r|| / (||A|| · ||x|| + ||b||)} in the infinity norm: the
+ *       smallest relative perturbation of A and b for which x is exact,</li>
+ *   <li>the componentwise backward error of Oettli and Prager,
+ *       {@code max_i |r_i| / (|A| · |x| + |b|)_i}, the same for
+ *       perturbations relative to every single entry.</li>
+ * </ul>
+ *
+ * A backward stable solver gives values of the order of the unit roundoff,
+ * 1.1e-16. Combined with a condition number estimate, for example
+ * {@link LUDecomposition#estimateConditionNumber()}, the relative forward
+ * error is bounded by about {@code condition · backward error}.
+ */
+public final class BackwardError {
+
+    /** Infinity norm of the residual */
+    private final double residualNorm;
+
+    /** Normwise relative backward error */
+    private final double normwise;
+
+    /** Componentwise relative backward error */
+    private final double componentwise;
+
+    /**
+     * Evaluates the residual of a computed solution.
+     *
+     * @param A Square coefficient matrix
+     * @param x Computed solution
+     * @param b Right-hand side
+     *
+     * @throws SameDimensionsException if the dimensions do not match
+     */
+    public BackwardError(Matrix A, double[] x, double[] b) {
+        int n = A.getRowCount();
+        if (A.getColumnCount() != x.length || b.length != n)
+            throw new SameDimensionsException();
+
+        double[][] a = A.getData();
+        double normA = 0, normX = 0, normB = 0, normR = 0, omega = 0;
+        for (double xi : x)
+            normX = Math.max(normX, Math.abs(xi));
+        for (int i = 0; i < n; i++) {
+            double[] row = a[i];
+            double r = b[i], scale = Math.abs(b[i]), rowSum = 0;
+            for (int j = 0; j < x.length; j++) {
+                double product = row[j] * x[j];
+                r -= product;
+                scale += Math.abs(product);
+                rowSum += Math.abs(row[j]);
+            }
+            normA = Math.max(normA, rowSum);
+            normB = Math.max(normB, Math.abs(b[i]));
+            normR = Math.max(normR, Math.abs(r));
+
+            // 0 / 0 for an exactly solved zero row
+            if (r != 0)
+                omega = Math.max(omega, scale == 0 ? Double.POSITIVE_INFINITY : Math.abs(r) / scale);
+        }
+
+        double denominator = normA * normX + normB;
+        this.residualNorm = normR;
+        this.normwise = normR == 0 ? 0 : normR / denominator;
+        this.componentwise = omega;
+    }
+
+    /**
+     * Evaluates the residual of a computed solution.
+     *
+     * @see #BackwardError(Matrix, double[], double[])
+     */
+    public BackwardError(Matrix A, Vector x, Vector b) {
+        this(A, toArray(x), toArray(b));
+    }
+
+    /**
+     * Returns ||b - A * x|| in the infinity norm.
+     */
+    public double getResidualNorm() {
+        return residualNorm;
+    }
+
+    /**
+     * Returns the normwise relative backward error.
+     */
+    public double getNormwise() {
+        return normwise;
+    }
+
+    /**
+     * Returns the componentwise relative backward error.
+     */
+    public double getComponentwise() {
+        return componentwise;
+    }
+
+    /**
+     * Bounds the relative forward error ||x - x_exact|| / ||x_exact||.
+     *
+     * @param conditionNumber Condition number of A, or an estimate of it
+     * @return {@code conditionNumber · normwise backward error}, to first order
+     */
+    public double estimateForwardError(double conditionNumber) {
+        return conditionNumber * normwise;
+    }
+
+    @Override
+    public String toString() {
+        return "BackwardError[residual=" + residualNorm + ", normwise=" + normwise
+                + ", componentwise=" + componentwise + "]";
+    }
+
+    private static double[] toArray(Vector v) {
+        double[] values = new double[v.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = v.getValue(i);
+        return values;
+    }
+}
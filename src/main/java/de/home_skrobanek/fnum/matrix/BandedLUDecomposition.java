@@ -0,0 +1,221 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.Arrays;
+/**
+ * @class BandedLUDecomposition
+ * @brief Computes the LU decomposition of a band matrix with partial pivoting.
+ *
+ * Decomposes P · A = L · R for a {@link BandedMatrix} with kl sub- and ku
+ * super-diagonals. Row interchanges widen the band of R to kl + ku
+ * super-diagonals, so the factors are kept in an extended band storage
+ * with {@code 2 · kl + ku + 1} entries per column, as in LAPACK's gbtrf.
+ * Decomposition costs O(n · kl · (kl + ku)) and every solve
+ * O(n · (2 · kl + ku)).
+ *
+ * <p>In contrast to {@link LUDecomposition} the largest entry of each
+ * column is chosen as pivot, so no diagonal dominance is required.</p>
+ */
+public class BandedLUDecomposition {
+
+    /** Matrix to decompose */
+    private final BandedMatrix A;
+
+    /** Dimension */
+    private final int n;
+
+    /** Number of sub-diagonals */
+    private final int kl;
+
+    /** Number of super-diagonals of R, kl + ku */
+    private final int kv;
+
+    /** Entries per column of the factor storage, 2 · kl + ku + 1 */
+    private final int ld;
+
+    /** L (below the diagonal row kv) and R (up to row kv) in band storage */
+    private final double[] factors;
+
+    /** Row interchanged with row j in step j */
+    private final int[] pivots;
+
+    /** Whether {@link #execute(double)} has completed */
+    private boolean executed = false;
+
+    /**
+     * Constructs the decomposition object for a band matrix.
+     *
+     * @param A Band matrix to decompose
+     */
+    public BandedLUDecomposition(BandedMatrix A) {
+        this.A = A;
+        this.n = A.getRowCount();
+        this.kl = A.getLowerBandwidth();
+        this.kv = kl + A.getUpperBandwidth();
+        this.ld = kl + kv + 1;
+        this.factors = new double[ld * n];
+        this.pivots = new int[n];
+    }
+
+    /**
+     * Executes the decomposition.
+     *
+     * @param abs Minimum allowed absolute value of the chosen pivot. If the
+     *            largest candidate of a column is smaller, the matrix is
+     *            considered singular.
+     *
+     * @throws ArithmeticException if a pivot element is below the threshold
+     */
+    public void execute(double abs) {
+        executed = false;
+        int ku = A.getUpperBandwidth();
+        int ldA = kl + ku + 1;
+        double[] band = A.getBand();
+
+        // Copy the band below the kl rows reserved for fill-in
+        Arrays.fill(factors, 0.0);
+        for (int j = 0; j < n; j++)
+            System.arraycopy(band, j * ldA, factors, j * ld + kl, ldA);
+
+        // Last column touched by the interchanges so far
+        int ju = 0;
+        for (int j = 0; j < n; j++) {
+            int km = Math.min(kl, n - 1 - j);
+            int diag = j * ld + kv;
+
+            int jp = 0;
+            double max = Math.abs(factors[diag]);
+            for (int t = 1; t <= km; t++) {
+                double candidate = Math.abs(factors[diag + t]);
+                if (candidate > max) {
+                    max = candidate;
+                    jp = t;
+                }
+            }
+            pivots[j] = j + jp;
+
+            if (max < abs || max == 0)
+                throw new ArithmeticException("Matrix is singular");
+
+            ju = Math.max(ju, Math.min(j + ku + jp, n - 1));
+            if (jp != 0) {
+                for (int c = j; c <= ju; c++) {
+                    int top = c * ld + kv + j - c;
+                    double tmp = factors[top];
+                    factors[top] = factors[top + jp];
+                    factors[top + jp] = tmp;
+                }
+            }
+
+            if (km > 0) {
+                double inv = 1.0 / factors[diag];
+                for (int t = 1; t <= km; t++)
+                    factors[diag + t] *= inv;
+
+                // Rank-1 update of the trailing columns, each a contiguous run
+                for (int c = j + 1; c <= ju; c++) {
+                    int top = c * ld + kv + j - c;
+                    double f = factors[top];
+                    for (int t = 1; t <= km; t++)
+                        factors[top + t] -= factors[diag + t] * f;
+                }
+            }
+        }
+        executed = true;
+    }
+
+    /**
+     * Returns the row interchanges.
+     *
+     * @return Array p where row j was interchanged with row p[j] in step j
+     */
+    public int[] getPivots() {
+        return pivots.clone();
+    }
+
+    /**
+     * Returns the determinant of A.
+     *
+     * @return Product of the pivots, with the sign of the interchanges
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public double getDeterminant() {
+        requireExecuted();
+        double det = 1;
+        for (int j = 0; j < n; j++) {
+            det *= factors[j * ld + kv];
+            if (pivots[j] != j)
+                det = -det;
+        }
+        return det;
+    }
+
+    /**
+     * Solves the linear system A * x = b.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public Vector solve(Vector b) {
+        if (b.size() != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    /**
+     * Solves the linear system A * x = b into a caller-provided array.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    public double[] solve(double[] b, double[] x) {
+        requireExecuted();
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+
+        // Forward substitution with the interchanges, L · y = P · b
+        for (int j = 0; j < n - 1; j++) {
+            int p = pivots[j];
+            double xj = x[p];
+            if (p != j) {
+                x[p] = x[j];
+                x[j] = xj;
+            }
+            int lm = Math.min(kl, n - 1 - j);
+            int diag = j * ld + kv;
+            for (int t = 1; t <= lm; t++)
+                x[j + t] -= factors[diag + t] * xj;
+        }
+
+        // Backward substitution R · x = y, column by column
+        for (int j = n - 1; j >= 0; j--) {
+            int diag = j * ld + kv;
+            double xj = x[j] / factors[diag];
+            x[j] = xj;
+            int i0 = Math.max(0, j - kv);
+            for (int i = i0; i < j; i++)
+                x[i] -= factors[diag + i - j] * xj;
+        }
+        return x;
+    }
+
+    private void requireExecuted() {
+        if (!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+    }
+}
@@ -0,0 +1,242 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.Arrays;
+/**
+ * @class BandedMatrix
+ * @brief Square matrix whose non-zero entries lie in a band around the diagonal.
+ *
+ * Only the entries with {@code i - kl <= j <= i + ku} are stored, using
+ * the band storage of LAPACK: the band is kept column by column in a flat
+ * array with {@code kl + ku + 1} entries per column,
+ *
+ * <pre>
+ *   A(i, j)  is stored at  band[j · (kl + ku + 1) + ku + i - j]
+ * </pre>
+ *
+ * so storage and matrix-vector products cost O(n · (kl + ku)) instead of
+ * O(n^2). Systems are solved with {@link BandedLUDecomposition}, or with
+ * {@link TridiagonalSolver} for kl = ku = 1.
+ *
+ * <p>All indices are zero-based.</p>
+ */
+public class BandedMatrix {
+
+    /** Band storage, column-major with {@code ld} entries per column */
+    private final double[] band;
+
+    /** Dimension */
+    private final int n;
+
+    /** Number of sub-diagonals */
+    private final int kl;
+
+    /** Number of super-diagonals */
+    private final int ku;
+
+    /** Entries per stored column, kl + ku + 1 */
+    private final int ld;
+
+    /**
+     * Constructs a zero band matrix.
+     *
+     * @param n Dimension
+     * @param kl Number of sub-diagonals
+     * @param ku Number of super-diagonals
+     *
+     * @pre n > 0
+     * @throws IllegalArgumentException if a bandwidth is negative or not smaller
+     *         than n, or the band exceeds the size of an array
+     */
+    public BandedMatrix(int n, int kl, int ku) {
+        assert n > 0;
+        if (kl < 0 || ku < 0 || (n > 1 && (kl >= n || ku >= n)))
+            throw new IllegalArgumentException("Bandwidths have to lie between 0 and n - 1");
+
+        this.n = n;
+        this.kl = kl;
+        this.ku = ku;
+        this.ld = kl + ku + 1;
+        if ((long) ld * n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The band does not fit into one array");
+        this.band = new double[ld * n];
+    }
+
+    /**
+     * Constructs a tridiagonal matrix from its three diagonals.
+     *
+     * Uses the convention of LAPACK's gtsv: {@code lower[i] = A(i+1, i)} and
+     * {@code upper[i] = A(i, i+1)}.
+     *
+     * @param lower Sub-diagonal of length n - 1
+     * @param diagonal Diagonal of length n
+     * @param upper Super-diagonal of length n - 1
+     * @return Band matrix with kl = ku = 1
+     *
+     * @throws SameDimensionsException if the lengths do not fit
+     */
+    public static BandedMatrix tridiagonal(double[] lower, double[] diagonal, double[] upper) {
+        int n = diagonal.length;
+        if (lower.length != n - 1 || upper.length != n - 1)
+            throw new SameDimensionsException();
+
+        BandedMatrix A = new BandedMatrix(n, Math.min(1, n - 1), Math.min(1, n - 1));
+        for (int i = 0; i < n; i++) {
+            A.setEntry(i, i, diagonal[i]);
+            if (i < n - 1) {
+                A.setEntry(i + 1, i, lower[i]);
+                A.setEntry(i, i + 1, upper[i]);
+            }
+        }
+        return A;
+    }
+
+    /**
+     * Extracts the band of a dense matrix.
+     *
+     * Entries outside the band are ignored.
+     *
+     * @param A Square matrix
+     * @param kl Number of sub-diagonals
+     * @param ku Number of super-diagonals
+     * @return Band matrix holding the entries of the band
+     *
+     * @throws IllegalArgumentException if A is not square
+     */
+    public static BandedMatrix fromMatrix(Matrix A, int kl, int ku) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        int n = A.getRowCount();
+        BandedMatrix B = new BandedMatrix(n, kl, ku);
+        for (int j = 0; j < n; j++)
+            for (int i = Math.max(0, j - ku); i <= Math.min(n - 1, j + kl); i++)
+                B.setEntry(i, j, A.getEntry(i, j));
+        return B;
+    }
+
+    public int getRowCount() {
+        return n;
+    }
+
+    public int getColumnCount() {
+        return n;
+    }
+
+    public int getLowerBandwidth() {
+        return kl;
+    }
+
+    public int getUpperBandwidth() {
+        return ku;
+    }
+
+    /**
+     * Returns whether an entry lies inside the stored band.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @return {@code true} if {@code i - kl <= j <= i + ku}
+     */
+    public boolean isInBand(int i, int j) {
+        return j - i <= ku && i - j <= kl;
+    }
+
+    /**
+     * Returns an entry; entries outside the band are 0.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @return Entry at (i, j)
+     *
+     * @pre 0 <= i, j < n
+     */
+    public double getEntry(int i, int j) {
+        assert i >= 0 && j >= 0 && i < n && j < n;
+        return isInBand(i, j) ? band[j * ld + ku + i - j] : 0.0;
+    }
+
+    /**
+     * Sets an entry inside the band.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @param value New value
+     *
+     * @pre 0 <= i, j < n
+     * @throws IllegalArgumentException if (i, j) lies outside the band
+     */
+    public void setEntry(int i, int j, double value) {
+        assert i >= 0 && j >= 0 && i < n && j < n;
+        if (!isInBand(i, j))
+            throw new IllegalArgumentException("Entry (" + i + ", " + j + ") lies outside the band");
+        band[j * ld + ku + i - j] = value;
+    }
+
+    /**
+     * Returns the band storage.
+     *
+     * Package-private for the decompositions working directly on the band.
+     */
+    double[] getBand() {
+        return band;
+    }
+
+    /**
+     * Computes y = A · x.
+     *
+     * @param x Vector of length n
+     * @param y Array of length n receiving the product, must not be x
+     * @return {@code y}
+     *
+     * @throws SameDimensionsException if a length does not match n
+     */
+    public double[] multiply(double[] x, double[] y) {
+        if (x.length != n || y.length != n)
+            throw new SameDimensionsException();
+        assert x != y;
+
+        Arrays.fill(y, 0.0);
+        for (int j = 0; j < n; j++) {
+            double xj = x[j];
+            int offset = j * ld + ku - j;
+            int iEnd = Math.min(n - 1, j + kl);
+            for (int i = Math.max(0, j - ku); i <= iEnd; i++)
+                y[i] += band[offset + i] * xj;
+        }
+        return y;
+    }
+
+    /**
+     * Computes A · x.
+     *
+     * @param x Vector of dimension n
+     * @return New vector holding the product
+     *
+     * @throws SameDimensionsException if the dimension of x does not match n
+     */
+    public Vector multiply(Vector x) {
+        if (x.size() != n)
+            throw new SameDimensionsException();
+
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+            values[i] = x.getValue(i);
+        return new Vector(multiply(values, new double[n]));
+    }
+
+    /**
+     * Converts the matrix into dense storage.
+     *
+     * @return New dense matrix with the same entries
+     */
+    public Matrix toMatrix() {
+        Matrix A = new Matrix(n, n);
+        for (int j = 0; j < n; j++)
+            for (int i = Math.max(0, j - ku); i <= Math.min(n - 1, j + kl); i++)
+                A.setEntry(i, j, getEntry(i, j));
+        return A;
+    }
+}
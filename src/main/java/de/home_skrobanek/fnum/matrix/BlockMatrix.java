@@ -0,0 +1,332 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.Chunks;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class BlockMatrix
+ * @brief Matrix assembled from dense blocks that are never copied together.
+ *
+ * The rows are split into block rows of the given heights, the columns
+ * into block columns of the given widths. Every block is either a
+ * {@link Matrix} of matching size or absent, which stands for a zero
+ * block and costs neither memory nor time. Products visit the present
+ * blocks only, block rows in parallel:
+ *
+ * <pre>
+ *   y_I = Σ_J B_IJ · x_J
+ * </pre>
+ *
+ * <p>Blocks are referenced, not copied; one matrix may appear in several
+ * places, for example the identity blocks of a saddle point system.
+ * {@link #materialize()} forms the full matrix.</p>
+ */
+public class BlockMatrix {
+
+    /** Height of every block row */
+    private final int[] rowSizes;
+
+    /** Width of every block column */
+    private final int[] columnSizes;
+
+    /** First row of every block row, and the row count at the end */
+    private final int[] rowOffsets;
+
+    /** First column of every block column, and the column count at the end */
+    private final int[] columnOffsets;
+
+    /** Blocks, {@code null} for zero blocks */
+    private final Matrix[][] blocks;
+
+    /**
+     * Constructs a block matrix of zero blocks.
+     *
+     * @param rowSizes Height of every block row
+     * @param columnSizes Width of every block column
+     *
+     * @throws IllegalArgumentException if a size is not positive
+     */
+    public BlockMatrix(int[] rowSizes, int[] columnSizes) {
+        this.rowSizes = rowSizes.clone();
+        this.columnSizes = columnSizes.clone();
+        rowOffsets = offsets(this.rowSizes);
+        columnOffsets = offsets(this.columnSizes);
+        blocks = new Matrix[rowSizes.length][columnSizes.length];
+    }
+
+    /**
+     * Constructs a block matrix from a grid of blocks. Every block row and
+     * every block column needs at least one present block to define its size.
+     *
+     * @param blocks Grid of blocks, {@code null} entries are zero blocks
+     * @return New block matrix referencing the blocks
+     *
+     * @throws IllegalArgumentException if a block row or column has no block
+     * @throws SameDimensionsException if the sizes of the blocks do not fit together
+     */
+    public static BlockMatrix of(Matrix[][] blocks) {
+        int p = blocks.length, q = blocks[0].length;
+        int[] rowSizes = new int[p], columnSizes = new int[q];
+        for (int I = 0; I < p; I++)
+            for (int J = 0; J < q; J++)
+                if (blocks[I][J] != null) {
+                    rowSizes[I] = blocks[I][J].getRowCount();
+                    columnSizes[J] = blocks[I][J].getColumnCount();
+                }
+
+        BlockMatrix M = new BlockMatrix(rowSizes, columnSizes);
+        for (int I = 0; I < p; I++) {
+            if (blocks[I].length != q)
+                throw new SameDimensionsException();
+            for (int J = 0; J < q; J++)
+                if (blocks[I][J] != null)
+                    M.setBlock(I, J, blocks[I][J]);
+        }
+        return M;
+    }
+
+    private static int[] offsets(int[] sizes) {
+        int[] offsets = new int[sizes.length + 1];
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] <= 0)
+                throw new IllegalArgumentException("Every block row and column needs a positive size");
+            offsets[i + 1] = offsets[i] + sizes[i];
+        }
+        return offsets;
+    }
+
+    public int getRowCount() {
+        return rowOffsets[rowSizes.length];
+    }
+
+    public int getColumnCount() {
+        return columnOffsets[columnSizes.length];
+    }
+
+    public int getBlockRowCount() {
+        return rowSizes.length;
+    }
+
+    public int getBlockColumnCount() {
+        return columnSizes.length;
+    }
+
+    /**
+     * Places a block.
+     *
+     * @param I Block row
+     * @param J Block column
+     * @param block Matrix of the size of the block, {@code null} for a zero block
+     *
+     * @throws SameDimensionsException if the size of the block does not match
+     * @throws IndexOutOfBoundsException if the block position is out of range
+     */
+    public void setBlock(int I, int J, Matrix block) {
+        if (I < 0 || I >= rowSizes.length || J < 0 || J >= columnSizes.length)
+            throw new IndexOutOfBoundsException("Block (" + I + ", " + J + ") out of range");
+        if (block != null && (block.getRowCount() != rowSizes[I] || block.getColumnCount() != columnSizes[J]))
+            throw new SameDimensionsException();
+        blocks[I][J] = block;
+    }
+
+    /**
+     * Returns a block.
+     *
+     * @return Referenced block, {@code null} for a zero block
+     */
+    public Matrix getBlock(int I, int J) {
+        return blocks[I][J];
+    }
+
+    /**
+     * Returns one entry of the assembled matrix.
+     */
+    public double getEntry(int i, int j) {
+        if (i < 0 || i >= getRowCount() || j < 0 || j >= getColumnCount())
+            throw new IndexOutOfBoundsException("Entry (" + i + ", " + j + ") out of range");
+        int I = find(rowOffsets, i), J = find(columnOffsets, j);
+        Matrix block = blocks[I][J];
+        return block == null ? 0 : block.getEntry(i - rowOffsets[I], j - columnOffsets[J]);
+    }
+
+    /** Index of the block containing position i */
+    private static int find(int[] offsets, int i) {
+        int index = java.util.Arrays.binarySearch(offsets, i);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Computes y = M · x block by block.
+     *
+     * @param x Array of the column count
+     * @param y Array of the row count receiving the product, must not be x
+     * @return {@code y}
+     *
+     * @throws SameDimensionsException if a length does not match
+     */
+    public double[] multiply(double[] x, double[] y) {
+        if (x.length != getColumnCount() || y.length != getRowCount())
+            throw new SameDimensionsException();
+        assert x != y;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        Chunks.forEach(rowSizes.length, 1, (from, to) -> {
+            for (int I = from; I < to; I++) {
+                int r0 = rowOffsets[I];
+                for (int i = 0; i < rowSizes[I]; i++)
+                    y[r0 + i] = 0;
+                for (int J = 0; J < columnSizes.length; J++) {
+                    Matrix block = blocks[I][J];
+                    if (block == null)
+                        continue;
+                    double[][] b = block.getData();
+                    int c0 = columnOffsets[J];
+                    for (int i = 0; i < rowSizes[I]; i++) {
+                        double[] row = b[i];
+                        double sum = 0;
+                        for (int j = 0; j < row.length; j++)
+                            sum += row[j] * x[c0 + j];
+                        y[r0 + i] += sum;
+                    }
+                }
+            }
+        });
+
+        if (Metrics.ENABLED) {
+            long entries = storedEntries();
+            Metrics.record(Operation.BLOCK_MULTIPLY, 2 * entries, 8 * (entries + x.length + y.length), start);
+        }
+        return y;
+    }
+
+    /**
+     * Computes M · x.
+     *
+     * @param x Vector of the column count
+     * @return New vector holding the product
+     *
+     * @throws SameDimensionsException if the dimension of x does not match
+     */
+    public Vector multiply(Vector x) {
+        if (x.size() != getColumnCount())
+            throw new SameDimensionsException();
+
+        double[] values = new double[x.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = x.getValue(i);
+        return new Vector(multiply(values, new double[getRowCount()]));
+    }
+
+    /**
+     * Computes Y = M · X, every present block multiplied with the matching
+     * rows of X by the blocked kernel of {@link Matrix#multiply(Matrix, Matrix)}.
+     *
+     * @param X Matrix with as many rows as M has columns
+     * @param Y Matrix receiving the product, must not be X
+     * @return {@code Y}
+     *
+     * @throws SameDimensionsException if a dimension does not match
+     */
+    public Matrix multiply(Matrix X, Matrix Y) {
+        int k = X.getColumnCount();
+        if (X.getRowCount() != getColumnCount() || Y.getRowCount() != getRowCount() || Y.getColumnCount() != k)
+            throw new SameDimensionsException();
+        assert X != Y;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        double[][] x = X.getData(), y = Y.getData();
+        Chunks.forEach(rowSizes.length, 1, (from, to) -> {
+            for (int I = from; I < to; I++) {
+                int r0 = rowOffsets[I];
+                for (int i = 0; i < rowSizes[I]; i++)
+                    java.util.Arrays.fill(y[r0 + i], 0);
+                for (int J = 0; J < columnSizes.length; J++) {
+                    Matrix block = blocks[I][J];
+                    if (block == null)
+                        continue;
+                    double[][] b = block.getData();
+                    int c0 = columnOffsets[J];
+                    for (int i = 0; i < rowSizes[I]; i++) {
+                        double[] row = b[i], target = y[r0 + i];
+                        for (int j = 0; j < row.length; j++) {
+                            double f = row[j];
+                            if (f == 0)
+                                continue;
+                            double[] source = x[c0 + j];
+                            for (int c = 0; c < k; c++)
+                                target[c] += f * source[c];
+                        }
+                    }
+                }
+            }
+        });
+        Y.modified();
+
+        if (Metrics.ENABLED) {
+            long entries = storedEntries();
+            Metrics.record(Operation.BLOCK_MULTIPLY, 2 * entries * k,
+                    8 * (entries + (long) k * (getRowCount() + getColumnCount())), start);
+        }
+        return Y;
+    }
+
+    /**
+     * Computes M · X into a new matrix.
+     *
+     * @see #multiply(Matrix, Matrix)
+     */
+    public Matrix multiply(Matrix X) {
+        return multiply(X, new Matrix(getRowCount(), X.getColumnCount()));
+    }
+
+    /**
+     * Returns the 1-norm, the largest absolute column sum over all blocks.
+     */
+    public double norm1() {
+        double[] sums = new double[getColumnCount()];
+        for (int I = 0; I < rowSizes.length; I++)
+            for (int J = 0; J < columnSizes.length; J++) {
+                Matrix block = blocks[I][J];
+                if (block == null)
+                    continue;
+                double[][] b = block.getData();
+                for (double[] row : b)
+                    for (int j = 0; j < row.length; j++)
+                        sums[columnOffsets[J] + j] += Math.abs(row[j]);
+            }
+        double max = 0;
+        for (double sum : sums)
+            max = Math.max(max, sum);
+        return max;
+    }
+
+    /**
+     * Forms the full matrix.
+     *
+     * @return New matrix with the blocks copied into place and zeros elsewhere
+     */
+    public Matrix materialize() {
+        double[][] out = new double[getRowCount()][getColumnCount()];
+        for (int I = 0; I < rowSizes.length; I++)
+            for (int J = 0; J < columnSizes.length; J++) {
+                Matrix block = blocks[I][J];
+                if (block == null)
+                    continue;
+                double[][] b = block.getData();
+                for (int i = 0; i < rowSizes[I]; i++)
+                    System.arraycopy(b[i], 0, out[rowOffsets[I] + i], columnOffsets[J], columnSizes[J]);
+            }
+        return new Matrix(out);
+    }
+
+    private long storedEntries() {
+        long entries = 0;
+        for (int I = 0; I < rowSizes.length; I++)
+            for (int J = 0; J < columnSizes.length; J++)
+                if (blocks[I][J] != null)
+                    entries += (long) rowSizes[I] * columnSizes[J];
+        return entries;
+    }
+}
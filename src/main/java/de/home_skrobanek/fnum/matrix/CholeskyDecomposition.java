@@ -0,0 +1,443 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.DoublePair;
+import de.home_skrobanek.fnum.utils.Workspace;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class CholeskyDecomposition
+ * @brief Computes the Cholesky decomposition of a symmetric positive definite matrix.
+ *
+ * Decomposes A = L · L^T with a lower triangular L. Only the lower
+ * triangle of A is read. L is kept row by row in a jagged array, row i
+ * holding its i + 1 entries, so the factor needs half the memory of a
+ * dense matrix and every inner product of the Cholesky-Crout recurrence
+ * runs over two contiguous rows. Decomposition costs n^3 / 3 flops, half
+ * of an LU decomposition, and needs no pivoting.
+ *
+ * <p>{@link #update(double[])} and {@link #downdate(double[])} modify an
+ * executed factor for a rank-1 change of A in O(n^2), the Matrix variants
+ * apply rank-k changes column by column.</p>
+ */
+public class CholeskyDecomposition implements Factorization {
+
+    /** Matrix to decompose, {@code null} for cached decompositions */
+    private final Matrix A;
+
+    /** Dimension */
+    private final int n;
+
+    /** Rows of L up to the diagonal */
+    private final double[][] L;
+
+    /**
+     * Lower triangle of A with the updates and downdates applied, created
+     * by the first of them; {@code null} while the factor is that of A
+     */
+    private double[][] modified;
+
+    /** Whether {@link #execute()} has completed */
+    private boolean executed = false;
+
+    /**
+     * Constructs the decomposition object for a square matrix.
+     *
+     * @param A Symmetric matrix to decompose
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public CholeskyDecomposition(Matrix A) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        this.A = A;
+        this.n = A.getRowCount();
+        this.L = triangle(n);
+    }
+
+    /**
+     * Decomposes A without keeping a reference to it, so the
+     * {@link FactorizationCache} does not keep A alive.
+     */
+    private CholeskyDecomposition(int n) {
+        this.A = null;
+        this.n = n;
+        this.L = triangle(n);
+    }
+
+    static CholeskyDecomposition decompose(Matrix A) {
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(A.getRowCount());
+        cholesky.execute(A.getData());
+        return cholesky;
+    }
+
+    private static double[][] triangle(int n) {
+        double[][] rows = new double[n][];
+        for (int i = 0; i < n; i++)
+            rows[i] = new double[i + 1];
+        return rows;
+    }
+
+    /**
+     * Executes the decomposition.
+     *
+     * @throws ArithmeticException if the matrix is not positive definite
+     */
+    public void execute() {
+        execute(A.getData());
+    }
+
+    private void execute(double[][] a) {
+        executed = false;
+        modified = null;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+
+        for (int i = 0; i < n; i++) {
+            double[] li = L[i];
+            for (int j = 0; j <= i; j++) {
+                double[] lj = L[j];
+                double sum = a[i][j];
+                for (int k = 0; k < j; k++)
+                    sum -= li[k] * lj[k];
+
+                if (j < i) {
+                    li[j] = sum / lj[j];
+                } else {
+                    if (!(sum > 0))
+                        throw new ArithmeticException("Matrix is not positive definite");
+                    li[i] = Math.sqrt(sum);
+                }
+            }
+        }
+        executed = true;
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.CHOLESKY_EXECUTE, (long) n * n * n / 3, 8L * n * (n + 1), start);
+    }
+
+    /**
+     * Returns the factor L.
+     *
+     * @param storage Storage scheme of the triangle
+     * @return Lower triangular matrix with A = L · L^T
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public TriangularMatrix getL(PackedStorage storage) {
+        requireExecuted();
+        TriangularMatrix T = new TriangularMatrix(n, true, storage);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j <= i; j++)
+                T.setEntry(i, j, L[i][j]);
+        return T;
+    }
+
+    /**
+     * Returns the determinant of A.
+     *
+     * @return Square of the product of the diagonal of L
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    @Override
+    public double getDeterminant() {
+        requireExecuted();
+        double det = 1;
+        for (int i = 0; i < n; i++)
+            det *= L[i][i];
+        return det * det;
+    }
+
+    /**
+     * Returns the sign and the natural logarithm of the determinant,
+     * 2 · Σ log l_ii, which does not overflow or underflow for large n.
+     *
+     * @return Pair (1, log det A)
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public DoublePair getLogDeterminant() {
+        requireExecuted();
+        double log = 0;
+        for (int i = 0; i < n; i++)
+            log += Math.log(L[i][i]);
+        return new DoublePair(1, 2 * log);
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return 4L * n * (n + 1);
+    }
+
+    /**
+     * Solves the linear system A * x = b.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public Vector solve(Vector b) {
+        if (b.size() != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    /**
+     * Solves the linear system A * x = b into a caller-provided array.
+     *
+     * Only reads the factor, so concurrent solves are safe.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    @Override
+    public double[] solve(double[] b, double[] x) {
+        requireExecuted();
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+
+        // Forward substitution L * y = b, row by row
+        for (int i = 0; i < n; i++) {
+            double[] li = L[i];
+            double sum = x[i];
+            for (int j = 0; j < i; j++)
+                sum -= li[j] * x[j];
+            x[i] = sum / li[i];
+        }
+
+        // Backward substitution L^T * x = y, row i of L is column i of L^T
+        for (int i = n - 1; i >= 0; i--) {
+            double[] li = L[i];
+            double xi = x[i] / li[i];
+            x[i] = xi;
+            for (int j = 0; j < i; j++)
+                x[j] -= li[j] * xi;
+        }
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.CHOLESKY_SOLVE, 2L * n * n, 4L * n * (n + 5), start);
+        return x;
+    }
+
+    /**
+     * Solves A^T * x = b, which is A * x = b for the symmetric A.
+     *
+     * @see #solve(double[], double[])
+     */
+    @Override
+    public double[] solveTransposed(double[] b, double[] x) {
+        return solve(b, x);
+    }
+
+    /**
+     * Estimates the condition number of A in the 1-norm in O(n^2).
+     *
+     * After {@link #update} or {@link #downdate} the estimate is that of
+     * the updated matrix, whose norm is kept alongside the factor.
+     *
+     * @return Estimate of ||A||_1 · ||A^-1||_1, never larger than the
+     *         condition number and usually within a factor of 3
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @see ConditionEstimator
+     */
+    public double estimateConditionNumber() {
+        requireExecuted();
+        if (A == null)
+            throw new IllegalStateException("The decomposed matrix is not available");
+        double norm = modified == null ? ConditionEstimator.norm1(A.getData(), n) : symmetricNorm1(modified);
+        return norm * ConditionEstimator.estimateInverseNorm1(this, n);
+    }
+
+    /**
+     * Updates the factor to the decomposition of A + x · x^T in O(n^2).
+     *
+     * Every row of L is rotated with the Givens rotations of the rows
+     * above it, so L is traversed row by row like in the decomposition.
+     * The matrix passed to the constructor is not changed.
+     *
+     * @param x Vector of length n, not modified
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of x does not match A
+     */
+    public void update(double[] x) {
+        requireExecuted();
+        if (x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+        rotate(x, 1.0);
+        track(x, 1.0);
+    }
+
+    /**
+     * Downdates the factor to the decomposition of A - x · x^T in O(n^2).
+     *
+     * Feasibility is checked first with the forward substitution
+     * L · p = x: A - x · x^T is positive definite exactly if
+     * ||p|| < 1. The factor is left unchanged if the check fails.
+     *
+     * @param x Vector of length n, not modified
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of x does not match A
+     * @throws ArithmeticException if A - x · x^T is not positive definite
+     */
+    public void downdate(double[] x) {
+        requireExecuted();
+        if (x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        double norm = 0;
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        double[] p = workspace.borrowVector(n);
+        for (int i = 0; i < n; i++) {
+            double[] li = L[i];
+            double sum = x[i];
+            for (int j = 0; j < i; j++)
+                sum -= li[j] * p[j];
+            p[i] = sum / li[i];
+            norm += p[i] * p[i];
+        }
+        workspace.release(mark);
+        if (!(norm < 1))
+            throw new ArithmeticException("Downdated matrix is not positive definite");
+
+        rotate(x, -1.0);
+        track(x, -1.0);
+    }
+
+    /**
+     * Updates the factor to the decomposition of A + X · X^T, one column
+     * of X after the other, in O(k · n^2).
+     *
+     * @param X Matrix with n rows and k columns
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if X does not have n rows
+     */
+    public void update(Matrix X) {
+        double[] x = new double[n];
+        for (int k = 0; k < columns(X); k++)
+            update(column(X, k, x));
+    }
+
+    /**
+     * Downdates the factor to the decomposition of A - X · X^T, one column
+     * of X after the other, in O(k · n^2).
+     *
+     * @param X Matrix with n rows and k columns
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if X does not have n rows
+     * @throws ArithmeticException if an intermediate matrix is not positive
+     *         definite; the columns before have been applied
+     */
+    public void downdate(Matrix X) {
+        double[] x = new double[n];
+        for (int k = 0; k < columns(X); k++)
+            downdate(column(X, k, x));
+    }
+
+    /**
+     * Applies L · L^T + sign · x · x^T. Row i first applies the rotations
+     * (c_k, s_k) of all rows k above to its entries and its component of
+     * x, then determines its own rotation from the diagonal.
+     */
+    private void rotate(double[] x, double sign) {
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        double[] c = workspace.borrowVector(n);
+        double[] s = workspace.borrowVector(n);
+
+        for (int i = 0; i < n; i++) {
+            double[] li = L[i];
+            double xi = x[i];
+            for (int k = 0; k < i; k++) {
+                double l = (li[k] + sign * s[k] * xi) / c[k];
+                li[k] = l;
+                xi = c[k] * xi - s[k] * l;
+            }
+            double d = li[i];
+            double r = Math.sqrt(d * d + sign * xi * xi);
+            c[i] = r / d;
+            s[i] = xi / d;
+            li[i] = r;
+        }
+        workspace.release(mark);
+    }
+
+    /**
+     * Applies A + sign · x · x^T to the lower triangle kept for the
+     * condition estimate, in O(n^2) like the rotation of the factor.
+     */
+    private void track(double[] x, double sign) {
+        if (A == null)
+            return;
+        if (modified == null) {
+            double[][] a = A.getData();
+            modified = triangle(n);
+            for (int i = 0; i < n; i++)
+                System.arraycopy(a[i], 0, modified[i], 0, i + 1);
+        }
+        for (int i = 0; i < n; i++) {
+            double[] row = modified[i];
+            double xi = sign * x[i];
+            for (int j = 0; j <= i; j++)
+                row[j] += xi * x[j];
+        }
+    }
+
+    /**
+     * Returns the 1-norm of the symmetric matrix given by its lower triangle.
+     */
+    private static double symmetricNorm1(double[][] lower) {
+        int n = lower.length;
+        double[] sums = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] row = lower[i];
+            for (int j = 0; j < i; j++) {
+                double a = Math.abs(row[j]);
+                sums[j] += a;
+                sums[i] += a;
+            }
+            sums[i] += Math.abs(row[i]);
+        }
+        double max = 0;
+        for (double sum : sums)
+            max = Math.max(max, sum);
+        return max;
+    }
+
+    private int columns(Matrix X) {
+        if (X.getRowCount() != n)
+            throw new IllegalArgumentException("The row count has to match the matrix");
+        return X.getColumnCount();
+    }
+
+    private static double[] column(Matrix X, int k, double[] x) {
+        for (int i = 0; i < x.length; i++)
+            x[i] = X.getEntry(i, k);
+        return x;
+    }
+
+    private void requireExecuted() {
+        if (!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+    }
+}
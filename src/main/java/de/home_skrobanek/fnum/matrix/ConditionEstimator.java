@@ -0,0 +1,118 @@
+package de.home_skrobanek.fnum.matrix;
+
+import java.util.Arrays;
+/**
+ * @class ConditionEstimator
+ * @brief Estimates ||A^-1||_1 from a decomposition without forming the inverse.
+ *
+ * Implements the estimator of Hager in the form of Higham (LAPACK's
+ * lacn2): a gradient ascent of ||A^-1 · x||_1 over the unit ball of the
+ * 1-norm, whose maximum is attained at a unit vector e_j. Every step
+ * costs one solve with A and one with A^T, at most five steps are taken.
+ * A final solve with the alternating vector
+ * {@code x_i = (-1)^i (1 + i / (n - 1))} guards against the rare
+ * matrices where the ascent stops early.
+ *
+ * <p>The result is a lower bound of ||A^-1||_1, in practice rarely off by
+ * more than a factor of 3, at O(n^2) cost for an executed decomposition.</p>
+ */
+final class ConditionEstimator {
+
+    /** Maximum number of ascent steps */
+    private static final int MAX_STEPS = 5;
+
+    private ConditionEstimator() {
+    }
+
+    /**
+     * Estimates the 1-norm of the inverse of the decomposed matrix.
+     *
+     * @param f Executed decomposition
+     * @param n Dimension
+     * @return Lower bound of ||A^-1||_1
+     */
+    static double estimateInverseNorm1(Factorization f, int n) {
+        double[] x = new double[n];
+        double[] sign = new double[n];
+
+        for (int i = 0; i < n; i++)
+            x[i] = 1.0 / n;
+        f.solve(x, x);
+        if (n == 1)
+            return Math.abs(x[0]);
+
+        double estimate = norm1(x);
+        signs(x, sign);
+        f.solveTransposed(sign, x);
+        int j = argmax(x);
+
+        for (int step = 1; step < MAX_STEPS; step++) {
+            unit(x, j);
+            f.solve(x, x);
+            double previous = estimate;
+            estimate = norm1(x);
+
+            // Converged if the signs repeat or the estimate stops growing
+            boolean repeated = true;
+            for (int i = 0; i < n; i++)
+                repeated &= (x[i] >= 0 ? 1.0 : -1.0) == sign[i];
+            if (repeated || estimate <= previous) {
+                estimate = Math.max(estimate, previous);
+                break;
+            }
+
+            signs(x, sign);
+            f.solveTransposed(sign, x);
+            int last = j;
+            j = argmax(x);
+            if (Math.abs(x[last]) == Math.abs(x[j]))
+                break;
+        }
+
+        for (int i = 0; i < n; i++)
+            x[i] = (i % 2 == 0 ? 1 : -1) * (1 + (double) i / (n - 1));
+        f.solve(x, x);
+        return Math.max(estimate, 2 * norm1(x) / (3.0 * n));
+    }
+
+    /**
+     * Returns the 1-norm, the largest absolute column sum, of a square matrix.
+     */
+    static double norm1(double[][] a, int n) {
+        double[] sums = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] row = a[i];
+            for (int j = 0; j < n; j++)
+                sums[j] += Math.abs(row[j]);
+        }
+        double max = 0;
+        for (double sum : sums)
+            max = Math.max(max, sum);
+        return max;
+    }
+
+    private static double norm1(double[] x) {
+        double sum = 0;
+        for (double v : x)
+            sum += Math.abs(v);
+        return sum;
+    }
+
+    private static void signs(double[] x, double[] sign) {
+        for (int i = 0; i < x.length; i++)
+            sign[i] = x[i] >= 0 ? 1.0 : -1.0;
+    }
+
+    private static int argmax(double[] x) {
+        int j = 0;
+        for (int i = 1; i < x.length; i++)
+            if (Math.abs(x[i]) > Math.abs(x[j]))
+                j = i;
+        return j;
+    }
+
+    private static void unit(double[] x, int j) {
+        Arrays.fill(x, 0.0);
+        x[j] = 1;
+    }
+}
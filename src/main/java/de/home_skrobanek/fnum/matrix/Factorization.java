@@ -0,0 +1,39 @@
+package de.home_skrobanek.fnum.matrix;
+/**
+ * @interface Factorization
+ * @brief Executed decomposition of a square matrix that solves systems with it.
+ *
+ * Implemented by the decompositions {@link Matrix} keeps in the
+ * {@link FactorizationCache}. Solving only reads the factors, so one
+ * factorization may serve several threads at once.
+ */
+interface Factorization {
+
+    /**
+     * Solves A * x = b.
+     *
+     * @param b Right-hand side of length n
+     * @param x Array of length n receiving the solution, may be b
+     * @return {@code x}
+     */
+    double[] solve(double[] b, double[] x);
+
+    /**
+     * Solves A^T * x = b.
+     *
+     * @param b Right-hand side of length n
+     * @param x Array of length n receiving the solution, may be b
+     * @return {@code x}
+     */
+    double[] solveTransposed(double[] b, double[] x);
+
+    /**
+     * Returns the determinant of the decomposed matrix.
+     */
+    double getDeterminant();
+
+    /**
+     * Returns the memory held by the factors, the weight in the cache.
+     */
+    long getMemoryBytes();
+}
@@ -0,0 +1,190 @@
+package de.home_skrobanek.fnum.matrix;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+/**
+ * @class FactorizationCache
+ * @brief Keeps the decompositions of recently solved matrices for reuse.
+ *
+ * {@link Matrix#solve(de.home_skrobanek.fnum.vector.Vector)},
+ * {@link Matrix#getDet()} and {@link Matrix#inverse()} store the
+ * {@link CholeskyDecomposition} or {@link PivotedLUDecomposition} they
+ * compute here, so later calls with the same unmodified matrix skip the
+ * O(n^3) decomposition. An entry is valid as long as the modification
+ * count of its matrix is unchanged.
+ *
+ * <p>Entries are keyed by matrix identity and refer to the matrix only
+ * weakly, the cache never keeps a matrix alive. Entries of collected
+ * matrices are removed on the next access. The total size of the factors
+ * is bounded by {@link #setCapacity(long)}; beyond it the least recently
+ * used entries are evicted.</p>
+ *
+ * <p>A valid entry is found through a reference held by the matrix
+ * itself, so lookups neither hash nor allocate.</p>
+ */
+public final class FactorizationCache {
+
+    /** Default capacity, 64 MiB */
+    public static final long DEFAULT_CAPACITY = 64L << 20;
+
+    /** Entries in access order, least recently used first */
+    private static final LinkedHashMap<Entry, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Entries whose matrix has been collected */
+    private static final ReferenceQueue<Matrix> collected = new ReferenceQueue<>();
+
+    /** Maximum total size of the factors in bytes */
+    private static long capacity = DEFAULT_CAPACITY;
+
+    /** Current total size of the factors in bytes */
+    private static long bytes = 0;
+
+    private FactorizationCache() {
+    }
+
+    /**
+     * Cached factorization of one version of a matrix.
+     */
+    static final class Entry extends WeakReference<Matrix> {
+
+        final Factorization factorization;
+
+        final long modificationCount;
+
+        final long bytes;
+
+        /** Set once the entry left the cache */
+        boolean evicted = false;
+
+        Entry(Matrix A, Factorization factorization) {
+            super(A, collected);
+            this.factorization = factorization;
+            this.modificationCount = A.getModificationCount();
+            this.bytes = factorization.getMemoryBytes();
+        }
+    }
+
+    /**
+     * Sets the maximum total size of the cached factors.
+     *
+     * Entries are evicted immediately if the cache is larger. A capacity
+     * of 0 disables caching.
+     *
+     * @param capacity Capacity in bytes
+     *
+     * @pre capacity >= 0
+     */
+    public static synchronized void setCapacity(long capacity) {
+        assert capacity >= 0;
+        FactorizationCache.capacity = capacity;
+        evict();
+    }
+
+    public static synchronized long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the total size of the cached factors in bytes.
+     */
+    public static synchronized long getSize() {
+        expunge();
+        return bytes;
+    }
+
+    /**
+     * Returns the number of cached factorizations.
+     */
+    public static synchronized int getCount() {
+        expunge();
+        return entries.size();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public static synchronized void clear() {
+        for (Entry entry : entries.keySet())
+            entry.evicted = true;
+        entries.clear();
+        bytes = 0;
+        expunge();
+    }
+
+    /**
+     * Returns the cached factorization of the current version of A.
+     *
+     * @param A Matrix to look up
+     * @return Factorization or {@code null} if none is cached
+     */
+    static Factorization lookup(Matrix A) {
+        Entry entry = A.cacheEntry;
+        if (entry == null)
+            return null;
+
+        synchronized (FactorizationCache.class) {
+            if (entry.evicted)
+                return null;
+            if (entry.modificationCount != A.getModificationCount()) {
+                // A stale entry can never become valid again
+                remove(entry);
+                return null;
+            }
+            entries.get(entry);
+            return entry.factorization;
+        }
+    }
+
+    /**
+     * Caches a factorization of the current version of A, replacing any
+     * previous one. Factorizations larger than the capacity are not cached.
+     *
+     * @param A Decomposed matrix
+     * @param factorization Executed decomposition of A
+     */
+    static synchronized void put(Matrix A, Factorization factorization) {
+        expunge();
+        if (A.cacheEntry != null && !A.cacheEntry.evicted)
+            remove(A.cacheEntry);
+
+        Entry entry = new Entry(A, factorization);
+        if (entry.bytes > capacity) {
+            entry.evicted = true;
+            return;
+        }
+        A.cacheEntry = entry;
+        entries.put(entry, entry);
+        bytes += entry.bytes;
+        evict();
+    }
+
+    /** Evicts least recently used entries until the size fits the capacity */
+    private static void evict() {
+        Iterator<Entry> it = entries.keySet().iterator();
+        while (bytes > capacity && it.hasNext()) {
+            Entry entry = it.next();
+            it.remove();
+            entry.evicted = true;
+            bytes -= entry.bytes;
+        }
+    }
+
+    /** Removes the entries of collected matrices */
+    private static void expunge() {
+        Reference<? extends Matrix> reference;
+        while ((reference = collected.poll()) != null) {
+            Entry entry = (Entry) reference;
+            if (!entry.evicted)
+                remove(entry);
+        }
+    }
+
+    private static void remove(Entry entry) {
+        entries.remove(entry);
+        entry.evicted = true;
+        bytes -= entry.bytes;
+    }
+}
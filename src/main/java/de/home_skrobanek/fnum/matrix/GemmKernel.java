@@ -0,0 +1,249 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.ieee.NumberFormat;
+import de.home_skrobanek.fnum.utils.Chunks;
+import de.home_skrobanek.fnum.utils.Summation;
+import de.home_skrobanek.fnum.utils.Workspace;
+
+import java.util.Arrays;
+
+/**
+ * @class GemmKernel
+ * @brief Cache-tiled kernels for dense matrix multiplication.
+ *
+ * The kernels work on row-major storage, either as the {@code double[][]}
+ * rows used by {@link Matrix} or as flat arrays addressed by an offset and a
+ * row stride. The flat form allows callers such as
+ * {@link StrassenMultiplication} to work on sub-blocks without copying.
+ *
+ * <p>All loops run in i-k-j order so that the innermost loop walks
+ * contiguous memory of B and C.</p>
+ */
+final class GemmKernel {
+
+    /** Edge length of the square tiles the loops are blocked into. */
+    static final int TILE = 64;
+
+    private GemmKernel() {
+    }
+
+    /**
+     * Computes C = A * B for row arrays.
+     *
+     * @param a Left factor with n rows and k columns
+     * @param b Right factor with k rows and m columns
+     * @param c Result with n rows and m columns, overwritten
+     */
+    static void multiply(double[][] a, double[][] b, double[][] c) {
+        int n = a.length;
+        int k = b.length;
+        int m = b[0].length;
+
+        for (int i = 0; i < n; i++)
+            Arrays.fill(c[i], 0, m, 0.0);
+
+        for (int ii = 0; ii < n; ii += TILE) {
+            int iEnd = Math.min(ii + TILE, n);
+            for (int kk = 0; kk < k; kk += TILE) {
+                int kEnd = Math.min(kk + TILE, k);
+                for (int jj = 0; jj < m; jj += TILE) {
+                    int jEnd = Math.min(jj + TILE, m);
+
+                    for (int i = ii; i < iEnd; i++) {
+                        double[] aRow = a[i];
+                        double[] cRow = c[i];
+                        for (int p = kk; p < kEnd; p++) {
+                            double aip = aRow[p];
+                            double[] bRow = b[p];
+                            for (int j = jj; j < jEnd; j++)
+                                cRow[j] += aip * bRow[j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes C = A * B for row arrays, rounding every product and every
+     * partial sum into a number format.
+     *
+     * Each row of C accumulates the scaled rows of B in ascending order of k,
+     * so every entry is the sequential dot product
+     * {@code fl(fl(a_i0 b_0j) + fl(a_i1 b_1j)) + ...}. Products and sums are
+     * rounded a whole row at a time with {@link NumberFormat#round(double[], int, int)}.
+     * Rows are processed in parallel.
+     *
+     * @param a Left factor with n rows and k columns
+     * @param b Right factor with k rows and m columns
+     * @param c Result with n rows and m columns, overwritten
+     * @param format Format every intermediate is rounded to
+     */
+    static void multiply(double[][] a, double[][] b, double[][] c, NumberFormat format) {
+        int n = a.length;
+        int k = b.length;
+        int m = b[0].length;
+
+        Chunks.forEach(n, (int) Math.max(1, Chunks.DEFAULT_CHUNK / Math.max(1L, (long) k * m)), (from, to) -> {
+            Workspace workspace = Workspace.current();
+            int mark = workspace.mark();
+            double[] products = workspace.borrowVector(m);
+
+            for (int i = from; i < to; i++) {
+                double[] aRow = a[i];
+                double[] cRow = c[i];
+                Arrays.fill(cRow, 0, m, 0.0);
+                for (int p = 0; p < k; p++) {
+                    double aip = aRow[p];
+                    double[] bRow = b[p];
+                    for (int j = 0; j < m; j++)
+                        products[j] = aip * bRow[j];
+                    format.round(products, 0, m);
+                    for (int j = 0; j < m; j++)
+                        cRow[j] += products[j];
+                    format.round(cRow, 0, m);
+                }
+            }
+            workspace.release(mark);
+        });
+    }
+
+    /**
+     * Computes C = A * B for row arrays with every entry accumulated by a
+     * summation strategy.
+     *
+     * The strategies need the dot product form, so B is transposed once
+     * into the workspace of the calling thread and every entry of C is the
+     * dot product of a row of A with a row of B^T. Rows of C are processed
+     * in parallel.
+     *
+     * @param a Left factor with n rows and k columns
+     * @param b Right factor with k rows and m columns
+     * @param c Result with n rows and m columns, overwritten
+     * @param summation Strategy accumulating the k products of every entry
+     */
+    static void multiply(double[][] a, double[][] b, double[][] c, Summation summation) {
+        int n = a.length;
+        int k = b.length;
+        int m = b[0].length;
+
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        double[][] bt = workspace.borrowMatrix(m, k);
+        for (int p = 0; p < k; p++) {
+            double[] bRow = b[p];
+            for (int j = 0; j < m; j++)
+                bt[j][p] = bRow[j];
+        }
+
+        Chunks.forEach(n, (int) Math.max(1, Chunks.DEFAULT_CHUNK / Math.max(1L, (long) k * m)), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] aRow = a[i];
+                double[] cRow = c[i];
+                for (int j = 0; j < m; j++)
+                    cRow[j] = summation.dot(aRow, bt[j], 0, k);
+            }
+        });
+        workspace.release(mark);
+    }
+
+    /**
+     * Computes C = A * B for square blocks stored in flat arrays.
+     *
+     * @param a Array holding A
+     * @param ao Offset of A(0,0)
+     * @param as Row stride of A
+     * @param b Array holding B
+     * @param bo Offset of B(0,0)
+     * @param bs Row stride of B
+     * @param c Array holding C, overwritten
+     * @param co Offset of C(0,0)
+     * @param cs Row stride of C
+     * @param size Edge length of the blocks
+     */
+    static void multiply(double[] a, int ao, int as,
+                         double[] b, int bo, int bs,
+                         double[] c, int co, int cs, int size) {
+        for (int i = 0; i < size; i++)
+            Arrays.fill(c, co + i * cs, co + i * cs + size, 0.0);
+
+        for (int ii = 0; ii < size; ii += TILE) {
+            int iEnd = Math.min(ii + TILE, size);
+            for (int kk = 0; kk < size; kk += TILE) {
+                int kEnd = Math.min(kk + TILE, size);
+                for (int jj = 0; jj < size; jj += TILE) {
+                    int jEnd = Math.min(jj + TILE, size);
+
+                    for (int i = ii; i < iEnd; i++) {
+                        int aRow = ao + i * as;
+                        int cRow = co + i * cs;
+                        for (int p = kk; p < kEnd; p++) {
+                            double aip = a[aRow + p];
+                            int bRow = bo + p * bs;
+                            for (int j = jj; j < jEnd; j++)
+                                c[cRow + j] += aip * b[bRow + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes C += alpha * A * B for square tiles stored row by row in
+     * flat arrays of length size * size.
+     *
+     * @param a Left factor
+     * @param b Right factor
+     * @param c Result, accumulated into
+     * @param size Edge length of the tiles
+     * @param alpha Factor of the product
+     */
+    static void multiplyAdd(double[] a, double[] b, double[] c, int size, double alpha) {
+        for (int ii = 0; ii < size; ii += TILE) {
+            int iEnd = Math.min(ii + TILE, size);
+            for (int kk = 0; kk < size; kk += TILE) {
+                int kEnd = Math.min(kk + TILE, size);
+                for (int jj = 0; jj < size; jj += TILE) {
+                    int jEnd = Math.min(jj + TILE, size);
+
+                    for (int i = ii; i < iEnd; i++) {
+                        int row = i * size;
+                        for (int p = kk; p < kEnd; p++) {
+                            double aip = alpha * a[row + p];
+                            if (aip == 0)
+                                continue;
+                            int bRow = p * size;
+                            for (int j = jj; j < jEnd; j++)
+                                c[row + j] += aip * b[bRow + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes C += alpha * A * B^T for square tiles stored row by row in
+     * flat arrays of length size * size. Every entry is a dot product of
+     * two contiguous rows.
+     *
+     * @param a Left factor
+     * @param b Right factor, used transposed
+     * @param c Result, accumulated into
+     * @param size Edge length of the tiles
+     * @param alpha Factor of the product
+     */
+    static void multiplyAddTransposed(double[] a, double[] b, double[] c, int size, double alpha) {
+        for (int i = 0; i < size; i++) {
+            int aRow = i * size;
+            for (int j = 0; j < size; j++) {
+                int bRow = j * size;
+                double sum = 0;
+                for (int p = 0; p < size; p++)
+                    sum += a[aRow + p] * b[bRow + p];
+                c[aRow + j] += alpha * sum;
+            }
+        }
+    }
+}
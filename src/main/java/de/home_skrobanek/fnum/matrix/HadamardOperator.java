@@ -0,0 +1,177 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.Chunks;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class HadamardOperator
+ * @brief Elementwise product A ∘ B of two matrices evaluated without forming it.
+ *
+ * The entries (A ∘ B)_ij = a_ij · b_ij are computed on the fly inside the
+ * products, so no third n x m array is allocated and A and B are read in
+ * one pass. Typical uses are masks and weights applied to an operator,
+ * for example a covariance matrix tapered by a correlation function.
+ *
+ * <p>The factors are referenced, not copied, so later changes of A and B
+ * are visible. {@link #materialize()} forms the full matrix.</p>
+ */
+public class HadamardOperator {
+
+    private final Matrix A;
+
+    private final Matrix B;
+
+    /**
+     * Constructs the operator A ∘ B.
+     *
+     * @param A First factor
+     * @param B Second factor of the same dimensions
+     *
+     * @throws SameDimensionsException if the dimensions of A and B differ
+     */
+    public HadamardOperator(Matrix A, Matrix B) {
+        if (A.getRowCount() != B.getRowCount() || A.getColumnCount() != B.getColumnCount())
+            throw new SameDimensionsException();
+        this.A = A;
+        this.B = B;
+    }
+
+    public int getRowCount() {
+        return A.getRowCount();
+    }
+
+    public int getColumnCount() {
+        return A.getColumnCount();
+    }
+
+    public double getEntry(int i, int j) {
+        return A.getEntry(i, j) * B.getEntry(i, j);
+    }
+
+    /**
+     * Computes y = (A ∘ B) · x, rows in parallel.
+     *
+     * @param x Array of length m
+     * @param y Array of length n receiving the product, must not be x
+     * @return {@code y}
+     *
+     * @throws SameDimensionsException if a length does not match
+     */
+    public double[] multiply(double[] x, double[] y) {
+        int n = getRowCount(), m = getColumnCount();
+        if (x.length != m || y.length != n)
+            throw new SameDimensionsException();
+        assert x != y;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        double[][] a = A.getData(), b = B.getData();
+        Chunks.forEach(n, Math.max(1, Chunks.DEFAULT_CHUNK / Math.max(1, m)), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] ra = a[i], rb = b[i];
+                double sum = 0;
+                for (int j = 0; j < m; j++)
+                    sum += ra[j] * rb[j] * x[j];
+                y[i] = sum;
+            }
+        });
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.HADAMARD_MULTIPLY, 3L * n * m, 16L * n * m + 8L * (n + m), start);
+        return y;
+    }
+
+    /**
+     * Computes (A ∘ B) · x.
+     *
+     * @param x Vector of dimension m
+     * @return New vector holding the product
+     *
+     * @throws SameDimensionsException if the dimension of x does not match
+     */
+    public Vector multiply(Vector x) {
+        if (x.size() != getColumnCount())
+            throw new SameDimensionsException();
+
+        double[] values = new double[x.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = x.getValue(i);
+        return new Vector(multiply(values, new double[getRowCount()]));
+    }
+
+    /**
+     * Computes Y = (A ∘ B) · X, rows of Y in parallel.
+     *
+     * @param X Matrix with m rows
+     * @param Y Matrix receiving the product, n rows and as many columns as X, must not be X
+     * @return {@code Y}
+     *
+     * @throws SameDimensionsException if a dimension does not match
+     */
+    public Matrix multiply(Matrix X, Matrix Y) {
+        int n = getRowCount(), m = getColumnCount(), k = X.getColumnCount();
+        if (X.getRowCount() != m || Y.getRowCount() != n || Y.getColumnCount() != k)
+            throw new SameDimensionsException();
+        assert X != Y;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        double[][] a = A.getData(), b = B.getData(), x = X.getData(), y = Y.getData();
+        Chunks.forEach(n, (int) Math.max(1, Chunks.DEFAULT_CHUNK / Math.max(1L, (long) m * k)), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] ra = a[i], rb = b[i], target = y[i];
+                java.util.Arrays.fill(target, 0);
+                for (int j = 0; j < m; j++) {
+                    double f = ra[j] * rb[j];
+                    double[] source = x[j];
+                    for (int c = 0; c < k; c++)
+                        target[c] += f * source[c];
+                }
+            }
+        });
+        Y.modified();
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.HADAMARD_MULTIPLY, (2L * k + 1) * n * m, 16L * n * m + 8L * k * (n + m), start);
+        return Y;
+    }
+
+    /**
+     * Computes (A ∘ B) · X into a new matrix.
+     *
+     * @see #multiply(Matrix, Matrix)
+     */
+    public Matrix multiply(Matrix X) {
+        return multiply(X, new Matrix(getRowCount(), X.getColumnCount()));
+    }
+
+    /**
+     * Returns the 1-norm, the largest absolute column sum of A ∘ B.
+     */
+    public double norm1() {
+        double[][] a = A.getData(), b = B.getData();
+        double[] sums = new double[getColumnCount()];
+        for (int i = 0; i < getRowCount(); i++)
+            for (int j = 0; j < sums.length; j++)
+                sums[j] += Math.abs(a[i][j] * b[i][j]);
+        double max = 0;
+        for (double sum : sums)
+            max = Math.max(max, sum);
+        return max;
+    }
+
+    /**
+     * Forms the full matrix.
+     *
+     * @return New matrix with the entries a_ij · b_ij
+     */
+    public Matrix materialize() {
+        int n = getRowCount(), m = getColumnCount();
+        double[][] a = A.getData(), b = B.getData();
+        double[][] out = new double[n][m];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                out[i][j] = a[i][j] * b[i][j];
+        return new Matrix(out);
+    }
+}
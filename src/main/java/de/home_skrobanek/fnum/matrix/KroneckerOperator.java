@@ -0,0 +1,272 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.Workspace;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class KroneckerOperator
+ * @brief Kronecker product A ⊗ B evaluated without forming it.
+ *
+ * For an mA x nA matrix A and an mB x nB matrix B the Kronecker product
+ * is the (mA · mB) x (nA · nB) block matrix with blocks a_ij · B. Products
+ * use the identity
+ *
+ * <pre>
+ *   (A ⊗ B) · vec(X) = vec(B · X · A^T)
+ * </pre>
+ *
+ * with vec stacking the columns of the nB x nA matrix X. This costs
+ * O(nA · nB · (mA + mB)) instead of O(mA · mB · nA · nB) operations and
+ * stores only the factors instead of (mA · mB) x (nA · nB) entries; the two
+ * products are ordered so that the smaller intermediate is formed.
+ *
+ * <p>The factors are referenced, not copied, so later changes of A and B
+ * are visible. {@link #materialize()} forms the full matrix when the
+ * entries are needed.</p>
+ */
+public class KroneckerOperator {
+
+    /** Left factor */
+    private final Matrix A;
+
+    /** Right factor */
+    private final Matrix B;
+
+    /**
+     * Constructs the operator A ⊗ B.
+     *
+     * @param A Left factor
+     * @param B Right factor
+     */
+    public KroneckerOperator(Matrix A, Matrix B) {
+        this.A = A;
+        this.B = B;
+    }
+
+    public Matrix getLeft() {
+        return A;
+    }
+
+    public Matrix getRight() {
+        return B;
+    }
+
+    public int getRowCount() {
+        return A.getRowCount() * B.getRowCount();
+    }
+
+    public int getColumnCount() {
+        return A.getColumnCount() * B.getColumnCount();
+    }
+
+    /**
+     * Returns one entry, a_(i / mB)(j / nB) · b_(i % mB)(j % nB).
+     */
+    public double getEntry(int i, int j) {
+        int mB = B.getRowCount(), nB = B.getColumnCount();
+        return A.getEntry(i / mB, j / nB) * B.getEntry(i % mB, j % nB);
+    }
+
+    /**
+     * Computes y = (A ⊗ B) · x as vec(B · X · A^T).
+     *
+     * @param x Array of length nA · nB
+     * @param y Array of length mA · mB receiving the product, must not be x
+     * @return {@code y}
+     *
+     * @throws SameDimensionsException if a length does not match
+     */
+    public double[] multiply(double[] x, double[] y) {
+        if (x.length != getColumnCount() || y.length != getRowCount())
+            throw new SameDimensionsException();
+        assert x != y;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        apply(x, 0, y, 0);
+        if (Metrics.ENABLED) {
+            long mA = A.getRowCount(), nA = A.getColumnCount(), mB = B.getRowCount(), nB = B.getColumnCount();
+            long flops = 2 * Math.min(nA * mB * (nB + mA), mA * nB * (nA + mB));
+            Metrics.record(Operation.KRONECKER_MULTIPLY, flops, 8 * (mA * nA + mB * nB + nA * nB + mA * mB), start);
+        }
+        return y;
+    }
+
+    /**
+     * Computes (A ⊗ B) · x.
+     *
+     * @param x Vector of dimension nA · nB
+     * @return New vector holding the product
+     *
+     * @throws SameDimensionsException if the dimension of x does not match
+     */
+    public Vector multiply(Vector x) {
+        if (x.size() != getColumnCount())
+            throw new SameDimensionsException();
+
+        double[] values = new double[x.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = x.getValue(i);
+        return new Vector(multiply(values, new double[getRowCount()]));
+    }
+
+    /**
+     * Computes Y = (A ⊗ B) · X column by column.
+     *
+     * @param X Matrix with nA · nB rows
+     * @param Y Matrix receiving the product, mA · mB rows and as many columns as X, must not be X
+     * @return {@code Y}
+     *
+     * @throws SameDimensionsException if a dimension does not match
+     */
+    public Matrix multiply(Matrix X, Matrix Y) {
+        int rows = getRowCount(), cols = getColumnCount(), k = X.getColumnCount();
+        if (X.getRowCount() != cols || Y.getRowCount() != rows || Y.getColumnCount() != k)
+            throw new SameDimensionsException();
+        assert X != Y;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        double[] x = workspace.borrowVector(cols), y = workspace.borrowVector(rows);
+        double[][] in = X.getData(), out = Y.getData();
+        for (int c = 0; c < k; c++) {
+            for (int i = 0; i < cols; i++)
+                x[i] = in[i][c];
+            apply(x, 0, y, 0);
+            for (int i = 0; i < rows; i++)
+                out[i][c] = y[i];
+        }
+        workspace.release(mark);
+        Y.modified();
+
+        if (Metrics.ENABLED) {
+            long mA = A.getRowCount(), nA = A.getColumnCount(), mB = B.getRowCount(), nB = B.getColumnCount();
+            long flops = 2 * k * Math.min(nA * mB * (nB + mA), mA * nB * (nA + mB));
+            Metrics.record(Operation.KRONECKER_MULTIPLY, flops, 8 * (mA * nA + mB * nB + k * (nA * nB + mA * mB)), start);
+        }
+        return Y;
+    }
+
+    /**
+     * Computes Y = (A ⊗ B) · X into a new matrix.
+     *
+     * @see #multiply(Matrix, Matrix)
+     */
+    public Matrix multiply(Matrix X) {
+        return multiply(X, new Matrix(getRowCount(), X.getColumnCount()));
+    }
+
+    /**
+     * Applies the operator to x[xOffset ..] into y[yOffset ..].
+     *
+     * X is nB x nA with X(jB, jA) = x[jA · nB + jB], Y is mB x mA with
+     * Y(iB, iA) = y[iA · mB + iB]. Either T = B · X (mB x nA) is formed
+     * first and Y = T · A^T, or T = X · A^T (nB x mA) and Y = B · T,
+     * whichever needs fewer operations.
+     */
+    private void apply(double[] x, int xOffset, double[] y, int yOffset) {
+        double[][] a = A.getData(), b = B.getData();
+        int mA = A.getRowCount(), nA = A.getColumnCount(), mB = B.getRowCount(), nB = B.getColumnCount();
+
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        if ((long) mB * nA * (nB + mA) <= (long) nB * mA * (nA + mB)) {
+            // T = B · X, stored column-wise: t[jA · mB + iB]
+            double[] t = workspace.borrowVector(mB * nA);
+            for (int jA = 0; jA < nA; jA++) {
+                int xc = xOffset + jA * nB, tc = jA * mB;
+                for (int iB = 0; iB < mB; iB++) {
+                    double[] row = b[iB];
+                    double sum = 0;
+                    for (int jB = 0; jB < nB; jB++)
+                        sum += row[jB] * x[xc + jB];
+                    t[tc + iB] = sum;
+                }
+            }
+            // Y = T · A^T: column iA of Y is sum over jA of a_(iA, jA) · column jA of T
+            for (int iA = 0; iA < mA; iA++) {
+                double[] row = a[iA];
+                int yc = yOffset + iA * mB;
+                for (int iB = 0; iB < mB; iB++)
+                    y[yc + iB] = 0;
+                for (int jA = 0; jA < nA; jA++) {
+                    double f = row[jA];
+                    int tc = jA * mB;
+                    for (int iB = 0; iB < mB; iB++)
+                        y[yc + iB] += f * t[tc + iB];
+                }
+            }
+        } else {
+            // T = X · A^T, stored column-wise: t[iA · nB + jB]
+            double[] t = workspace.borrowVector(nB * mA);
+            for (int iA = 0; iA < mA; iA++) {
+                double[] row = a[iA];
+                int tc = iA * nB;
+                for (int jB = 0; jB < nB; jB++)
+                    t[tc + jB] = 0;
+                for (int jA = 0; jA < nA; jA++) {
+                    double f = row[jA];
+                    int xc = xOffset + jA * nB;
+                    for (int jB = 0; jB < nB; jB++)
+                        t[tc + jB] += f * x[xc + jB];
+                }
+            }
+            // Y = B · T
+            for (int iA = 0; iA < mA; iA++) {
+                int tc = iA * nB, yc = yOffset + iA * mB;
+                for (int iB = 0; iB < mB; iB++) {
+                    double[] row = b[iB];
+                    double sum = 0;
+                    for (int jB = 0; jB < nB; jB++)
+                        sum += row[jB] * t[tc + jB];
+                    y[yc + iB] = sum;
+                }
+            }
+        }
+        workspace.release(mark);
+    }
+
+    /**
+     * Returns the 1-norm, which is exactly ||A||_1 · ||B||_1.
+     */
+    public double norm1() {
+        return columnNorm(A) * columnNorm(B);
+    }
+
+    /**
+     * Forms the full matrix.
+     *
+     * @return New (mA · mB) x (nA · nB) matrix with the entries of A ⊗ B
+     */
+    public Matrix materialize() {
+        int mA = A.getRowCount(), nA = A.getColumnCount(), mB = B.getRowCount(), nB = B.getColumnCount();
+        double[][] a = A.getData(), b = B.getData();
+        double[][] out = new double[mA * mB][nA * nB];
+        for (int iA = 0; iA < mA; iA++)
+            for (int jA = 0; jA < nA; jA++) {
+                double f = a[iA][jA];
+                for (int iB = 0; iB < mB; iB++) {
+                    double[] target = out[iA * mB + iB], source = b[iB];
+                    int offset = jA * nB;
+                    for (int jB = 0; jB < nB; jB++)
+                        target[offset + jB] = f * source[jB];
+                }
+            }
+        return new Matrix(out);
+    }
+
+    /** Largest absolute column sum of a possibly rectangular matrix */
+    static double columnNorm(Matrix M) {
+        double[][] data = M.getData();
+        double[] sums = new double[M.getColumnCount()];
+        for (int i = 0; i < M.getRowCount(); i++)
+            for (int j = 0; j < sums.length; j++)
+                sums[j] += Math.abs(data[i][j]);
+        double max = 0;
+        for (double sum : sums)
+            max = Math.max(max, sum);
+        return max;
+    }
+}
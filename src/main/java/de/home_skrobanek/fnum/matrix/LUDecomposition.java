@@ -1,5 +1,13 @@
 package de.home_skrobanek.fnum.matrix;
 
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.ieee.NumberFormat;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.Chunks;
+import de.home_skrobanek.fnum.utils.DoublePair;
+import de.home_skrobanek.fnum.utils.Summation;
+import de.home_skrobanek.fnum.utils.Workspace;
 import de.home_skrobanek.fnum.vector.Vector;
 /**
  * @class LUDecomposition
@@ -15,7 +23,7 @@ import de.home_skrobanek.fnum.vector.Vector;
  * <p>Note: This implementation does not include pivoting. For matrices
  * that are nearly singular, small pivot thresholds must be provided.</p>
  */
-public class LUDecomposition {
+public class LUDecomposition implements Factorization {
 
     /** Original matrix to decompose */
     private Matrix A;
@@ -26,6 +34,9 @@ public class LUDecomposition {
     /** Upper triangular matrix */
     private Matrix R;
 
+    /** Whether {@link #execute(double)} has completed */
+    private boolean executed = false;
+
     /**
      * Constructs the LUDecomposition object for a given square matrix.
      *
@@ -58,6 +69,8 @@ public class LUDecomposition {
      * @throws ArithmeticException if a pivot element is below the threshold
      */
     public void execute(double abs) {
+        executed = false;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
         int n = A.getRowCount();
 
         for (int k = 0; k < n; k++) {
@@ -83,6 +96,159 @@ public class LUDecomposition {
                 L.setEntry(i, k, (A.getEntry(i, k) - sum) / R.getEntry(k, k));
             }
         }
+        executed = true;
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_EXECUTE, 2L * n * n * n / 3, 24L * n * n, start);
+    }
+
+    /**
+     * Executes the LU decomposition with a chosen summation strategy.
+     *
+     * Runs the same Doolittle recurrence as {@link #execute(double)}, every
+     * inner sum {@code Σ l_ks · r_sj} accumulated by {@code summation}.
+     * The columns of R are mirrored into a transposed copy borrowed from
+     * the workspace, so every sum runs over two contiguous rows.
+     * {@link Summation#NAIVE} reproduces {@link #execute(double)} exactly.
+     *
+     * @param abs Minimum allowed pivot value
+     * @param summation Strategy accumulating the inner sums
+     *
+     * @throws ArithmeticException if a pivot element is below the threshold
+     */
+    public void execute(double abs, Summation summation) {
+        executed = false;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        int n = A.getRowCount();
+        double[][] a = A.getData();
+        double[][] l = L.getData();
+        double[][] r = R.getData();
+
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        double[][] rt = workspace.borrowMatrix(n, n);
+        try {
+            for (int k = 0; k < n; k++) {
+                double[] lk = l[k];
+                for (int j = k; j < n; j++) {
+                    double rkj = a[k][j] - summation.dot(lk, rt[j], 0, k);
+                    r[k][j] = rkj;
+                    rt[j][k] = rkj;
+                }
+
+                double pivot = r[k][k];
+                if (Math.abs(pivot) < abs)
+                    throw new ArithmeticException("Matrix is singular");
+
+                double[] rk = rt[k];
+                for (int i = k + 1; i < n; i++)
+                    l[i][k] = (a[i][k] - summation.dot(l[i], rk, 0, k)) / pivot;
+            }
+        } finally {
+            workspace.release(mark);
+        }
+        L.modified();
+        R.modified();
+        executed = true;
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_EXECUTE, 2L * n * n * n / 3, 24L * n * n, start);
+    }
+
+    /**
+     * Executes the LU decomposition in a simulated number format.
+     *
+     * The elimination runs right-looking: for every pivot k the rows below
+     * are updated with {@code a_ij = fl(a_ij - fl(l_ik · r_kj))} and the
+     * multipliers are {@code l_ik = fl(a_ik / r_kk)}. Every intermediate is
+     * rounded into {@code format}, the row updates in bulk with
+     * {@link NumberFormat#round(double[], int, int)} and in parallel. In exact
+     * arithmetic the result equals {@link #execute(double)}. The entries of
+     * A are used as given; round them first to simulate data stored in the
+     * format.
+     *
+     * @param abs Minimum allowed pivot value
+     * @param format Format every intermediate is rounded to
+     *
+     * @throws ArithmeticException if a pivot element is below the threshold
+     *         or an intermediate exceeds the exponent range
+     */
+    public void execute(double abs, NumberFormat format) {
+        executed = false;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        int n = A.getRowCount();
+        double[][] a = A.getData();
+        double[][] l = L.getData();
+        double[][] r = R.getData();
+
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a[i], 0, r[i], 0, n);
+            for (int j = 0; j < n; j++)
+                l[i][j] = i == j ? 1 : 0;
+        }
+
+        for (int k = 0; k < n; k++) {
+            double pivot = r[k][k];
+            if (Math.abs(pivot) < abs)
+                throw new ArithmeticException("Matrix is singular");
+
+            int row = k;
+            double[] pivotRow = r[k];
+            Chunks.forEach(n - k - 1, Math.max(1, Chunks.DEFAULT_CHUNK / (n - k)), (from, to) -> {
+                Workspace workspace = Workspace.current();
+                int mark = workspace.mark();
+                double[] products = workspace.borrowVector(n);
+
+                for (int i = row + 1 + from; i < row + 1 + to; i++) {
+                    double[] ri = r[i];
+                    double lik = format.round(ri[row] / pivot);
+                    l[i][row] = lik;
+                    ri[row] = 0;
+                    for (int j = row + 1; j < n; j++)
+                        products[j] = lik * pivotRow[j];
+                    format.round(products, row + 1, n);
+                    for (int j = row + 1; j < n; j++)
+                        ri[j] -= products[j];
+                    format.round(ri, row + 1, n);
+                }
+                workspace.release(mark);
+            });
+        }
+        L.modified();
+        R.modified();
+        executed = true;
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_EXECUTE, 2L * n * n * n / 3, 24L * n * n, start);
+    }
+
+    /**
+     * Executes the LU decomposition into caller-provided matrices.
+     *
+     * L and R are completely overwritten and returned by {@link #getL()}
+     * and {@link #getR()} afterwards. Reusing the same matrices for
+     * repeated decompositions avoids any allocation.
+     *
+     * @param abs Minimum allowed pivot value
+     * @param L Matrix receiving the lower triangular factor
+     * @param R Matrix receiving the upper triangular factor
+     *
+     * @throws SameDimensionsException if L or R do not have the size of A
+     * @throws ArithmeticException if a pivot element is below the threshold
+     */
+    public void execute(double abs, Matrix L, Matrix R) {
+        int n = A.getRowCount();
+        if(L.getRowCount() != n || L.getColumnCount() != n || R.getRowCount() != n || R.getColumnCount() != n)
+            throw new SameDimensionsException();
+
+        MatrixOperations.makeIdentity(L);
+        for(int i = 1; i < n; i++)
+            for(int j = 0; j < i; j++)
+                R.setEntry(i, j, 0);
+
+        this.L = L;
+        this.R = R;
+        execute(abs);
     }
 
     /**
@@ -105,12 +271,91 @@ public class LUDecomposition {
         return R;
     }
 
+    /**
+     * Returns L as a triangular view.
+     *
+     * The view wraps the rows of {@link #getL()} without copying and offers
+     * the triangular kernels of {@link TriangularMatrix}. Use
+     * {@link TriangularMatrix#fromMatrix(Matrix, boolean, PackedStorage)}
+     * for a packed copy.
+     *
+     * @return Lower triangular view of L
+     *
+     * @throws IllegalStateException if decomposition has not been executed
+     */
+    public TriangularMatrix getTriangularL(){
+        if(!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+        return TriangularMatrix.view(L, true);
+    }
+
+    /**
+     * Returns R as a triangular view.
+     *
+     * @return Upper triangular view of R
+     *
+     * @throws IllegalStateException if decomposition has not been executed
+     * @see #getTriangularL()
+     */
+    public TriangularMatrix getTriangularR(){
+        if(!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+        return TriangularMatrix.view(R, false);
+    }
+
+    /**
+     * Returns the determinant of A, the determinant of R since L has unit diagonal.
+     *
+     * @return Product of the diagonal of R
+     *
+     * @throws IllegalStateException if decomposition has not been executed
+     */
+    @Override
+    public double getDeterminant(){
+        if(!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+        return getDeterminantR();
+    }
+
+    /**
+     * Returns the sign and the natural logarithm of the absolute value of
+     * the determinant, which do not overflow or underflow for large n
+     * like the determinant itself.
+     *
+     * @return Pair (sign, log|det A|) with sign -1, 0 or 1; log|det A| is
+     *         -Infinity for a singular matrix
+     *
+     * @throws IllegalStateException if decomposition has not been executed
+     */
+    public DoublePair getLogDeterminant(){
+        if(!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+
+        double[][] r = R.getData();
+        double sign = 1, log = 0;
+        for(int i = 0; i < r.length; i++){
+            double d = r[i][i];
+            if(d == 0)
+                return new DoublePair(0, Double.NEGATIVE_INFINITY);
+            if(d < 0)
+                sign = -sign;
+            log += Math.log(Math.abs(d));
+        }
+        return new DoublePair(sign, log);
+    }
+
+    @Override
+    public long getMemoryBytes(){
+        long n = A.getRowCount();
+        return 16 * n * n;
+    }
+
     /**
      *
      * @return determinant of R by multiplying the elements of the diagonal
      */
     public double getDeterminantR(){
-        double tmp = 0;
+        double tmp = 1;
 
         for(int i = 0; i < R.getRowCount(); i++)
             tmp *= R.getEntry(i,i);
@@ -132,6 +377,161 @@ public class LUDecomposition {
      * @throws IllegalArgumentException if the dimension of b does not match A
      */
     public Vector solve(Vector b){
-        return null; // TODO: implement forward/backward substitution
+        return solve(b, new Vector(A.getRowCount()));
+    }
+
+    /**
+     * Solves the linear system A * x = b into a caller-provided vector.
+     *
+     * The forward substitution stores its intermediate result in x, so no
+     * scratch memory is needed. x may be b itself.
+     *
+     * @param b Right-hand side vector
+     * @param x Vector receiving the solution
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if decomposition has not been executed
+     * @throws IllegalArgumentException if the dimension of b or x does not match A
+     */
+    public Vector solve(Vector b, Vector x){
+        if(!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+
+        int n = A.getRowCount();
+        if(b.size() != n || x.size() != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+
+        // Forward substitution L * y = b, y is stored in x
+        for(int i = 0; i < n; i++){
+            double sum = b.getValue(i);
+            for(int j = 0; j < i; j++)
+                sum -= L.getEntry(i, j) * x.getValue(j);
+            x.addValue(i, sum);
+        }
+
+        // Backward substitution R * x = y
+        for(int i = n - 1; i >= 0; i--){
+            double sum = x.getValue(i);
+            for(int j = i + 1; j < n; j++)
+                sum -= R.getEntry(i, j) * x.getValue(j);
+            x.addValue(i, sum / R.getEntry(i, i));
+        }
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_SOLVE, 2L * n * n, 8L * n * (n + 2), start);
+        return x;
+    }
+
+    /**
+     * Solves the linear system A * x = b into a caller-provided array.
+     *
+     * Works on the rows of L and R directly and only reads them, so
+     * concurrent solves are safe.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    @Override
+    public double[] solve(double[] b, double[] x){
+        if(!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+
+        int n = A.getRowCount();
+        if(b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+        if(x != b)
+            System.arraycopy(b, 0, x, 0, n);
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        double[][] l = L.getData();
+        double[][] r = R.getData();
+
+        for(int i = 1; i < n; i++){
+            double[] row = l[i];
+            double sum = x[i];
+            for(int j = 0; j < i; j++)
+                sum -= row[j] * x[j];
+            x[i] = sum;
+        }
+        for(int i = n - 1; i >= 0; i--){
+            double[] row = r[i];
+            double sum = x[i];
+            for(int j = i + 1; j < n; j++)
+                sum -= row[j] * x[j];
+            x[i] = sum / row[i];
+        }
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_SOLVE, 2L * n * n, 8L * n * (n + 2), start);
+        return x;
+    }
+
+    /**
+     * Solves the linear system A^T * x = b into a caller-provided array.
+     *
+     * Solves R^T * y = b and L^T * x = y, both with the rows of the factors.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    @Override
+    public double[] solveTransposed(double[] b, double[] x){
+        if(!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+
+        int n = A.getRowCount();
+        if(b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+        if(x != b)
+            System.arraycopy(b, 0, x, 0, n);
+
+        double[][] l = L.getData();
+        double[][] r = R.getData();
+        for(int i = 0; i < n; i++){
+            double[] row = r[i];
+            double yi = x[i] / row[i];
+            x[i] = yi;
+            for(int j = i + 1; j < n; j++)
+                x[j] -= row[j] * yi;
+        }
+        for(int i = n - 1; i > 0; i--){
+            double[] row = l[i];
+            double xi = x[i];
+            for(int j = 0; j < i; j++)
+                x[j] -= row[j] * xi;
+        }
+        return x;
+    }
+
+    /**
+     * Estimates the condition number of A in the 1-norm in O(n^2).
+     *
+     * Reuses the decomposition for a few solves with A and A^T instead of
+     * forming the inverse. Unlike the pivot threshold of
+     * {@link #execute(double)} the result is independent of the scaling
+     * of A: a system is hopeless when the estimate approaches 1 / ε.
+     *
+     * @return Estimate of ||A||_1 · ||A^-1||_1, never larger than the
+     *         condition number and usually within a factor of 3
+     *
+     * @throws IllegalStateException if decomposition has not been executed
+     * @see ConditionEstimator
+     */
+    public double estimateConditionNumber(){
+        if(!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+
+        int n = A.getRowCount();
+        return ConditionEstimator.norm1(A.getData(), n) * ConditionEstimator.estimateInverseNorm1(this, n);
     }
 }
@@ -0,0 +1,224 @@
+package de.home_skrobanek.fnum.matrix;
+/**
+ * @interface LinearOperator
+ * @brief Square linear map that is only accessed through products A · x.
+ *
+ * Algorithms written against this interface, such as
+ * {@link MatrixExponential#expmv(LinearOperator, double, double[])}, never
+ * need the entries of A, so they work for dense, band, packed and sparse
+ * matrices alike, or for operators that are never assembled at all.
+ */
+public interface LinearOperator {
+
+    /**
+     * Returns the dimension n of the operator.
+     */
+    int getDimension();
+
+    /**
+     * Computes y = A · x.
+     *
+     * @param x Array of length n
+     * @param y Array of length n receiving the product, must not be x
+     */
+    void apply(double[] x, double[] y);
+
+    /**
+     * Returns the 1-norm, the largest absolute column sum, or an upper bound of it.
+     */
+    double norm1();
+
+    /**
+     * Wraps a dense square matrix. The entries are read on every
+     * application, so later changes of A are visible.
+     *
+     * @param A Square matrix
+     * @return Operator x -> A · x
+     *
+     * @throws IllegalArgumentException if A is not square
+     */
+    static LinearOperator of(Matrix A) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        return new LinearOperator() {
+            @Override
+            public int getDimension() {
+                return A.getRowCount();
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                double[][] a = A.getData();
+                for (int i = 0; i < y.length; i++) {
+                    double[] row = a[i];
+                    double sum = 0;
+                    for (int j = 0; j < x.length; j++)
+                        sum += row[j] * x[j];
+                    y[i] = sum;
+                }
+            }
+
+            @Override
+            public double norm1() {
+                return ConditionEstimator.norm1(A.getData(), A.getRowCount());
+            }
+        };
+    }
+
+    /**
+     * Wraps a band matrix.
+     *
+     * @param A Band matrix
+     * @return Operator x -> A · x
+     */
+    static LinearOperator of(BandedMatrix A) {
+        return new LinearOperator() {
+            @Override
+            public int getDimension() {
+                return A.getRowCount();
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                A.multiply(x, y);
+            }
+
+            @Override
+            public double norm1() {
+                int n = A.getRowCount(), kl = A.getLowerBandwidth(), ku = A.getUpperBandwidth();
+                double max = 0;
+                for (int j = 0; j < n; j++) {
+                    double sum = 0;
+                    for (int i = Math.max(0, j - ku); i <= Math.min(n - 1, j + kl); i++)
+                        sum += Math.abs(A.getEntry(i, j));
+                    max = Math.max(max, sum);
+                }
+                return max;
+            }
+        };
+    }
+
+    /**
+     * Wraps a packed symmetric matrix.
+     *
+     * @param A Symmetric matrix
+     * @return Operator x -> A · x
+     */
+    static LinearOperator of(SymmetricMatrix A) {
+        return new LinearOperator() {
+            @Override
+            public int getDimension() {
+                return A.getRowCount();
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                A.multiply(x, y);
+            }
+
+            @Override
+            public double norm1() {
+                int n = A.getRowCount();
+                double max = 0;
+                for (int j = 0; j < n; j++) {
+                    double sum = 0;
+                    for (int i = 0; i < n; i++)
+                        sum += Math.abs(A.getEntry(i, j));
+                    max = Math.max(max, sum);
+                }
+                return max;
+            }
+        };
+    }
+
+    /**
+     * Wraps a Kronecker product, applied by its structure.
+     *
+     * @param K Square Kronecker product
+     * @return Operator x -> (A ⊗ B) · x
+     *
+     * @throws IllegalArgumentException if K is not square
+     */
+    static LinearOperator of(KroneckerOperator K) {
+        if (K.getRowCount() != K.getColumnCount())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        return new LinearOperator() {
+            @Override
+            public int getDimension() {
+                return K.getRowCount();
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                K.multiply(x, y);
+            }
+
+            @Override
+            public double norm1() {
+                return K.norm1();
+            }
+        };
+    }
+
+    /**
+     * Wraps a block matrix.
+     *
+     * @param M Square block matrix
+     * @return Operator x -> M · x
+     *
+     * @throws IllegalArgumentException if M is not square
+     */
+    static LinearOperator of(BlockMatrix M) {
+        if (M.getRowCount() != M.getColumnCount())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        return new LinearOperator() {
+            @Override
+            public int getDimension() {
+                return M.getRowCount();
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                M.multiply(x, y);
+            }
+
+            @Override
+            public double norm1() {
+                return M.norm1();
+            }
+        };
+    }
+
+    /**
+     * Wraps an elementwise product.
+     *
+     * @param H Square elementwise product
+     * @return Operator x -> (A ∘ B) · x
+     *
+     * @throws IllegalArgumentException if H is not square
+     */
+    static LinearOperator of(HadamardOperator H) {
+        if (H.getRowCount() != H.getColumnCount())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        return new LinearOperator() {
+            @Override
+            public int getDimension() {
+                return H.getRowCount();
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                H.multiply(x, y);
+            }
+
+            @Override
+            public double norm1() {
+                return H.norm1();
+            }
+        };
+    }
+}
@@ -1,7 +1,15 @@
 package de.home_skrobanek.fnum.matrix;
 
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.ieee.NumberFormat;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.Summation;
+import de.home_skrobanek.fnum.utils.Workspace;
 import de.home_skrobanek.fnum.vector.Vector;
 
+import java.util.Arrays;
+
 /**
  * @class Matrix
  * @brief Represents a dense real-valued matrix and provides basic operations.
@@ -10,9 +18,15 @@ import de.home_skrobanek.fnum.vector.Vector;
  * two-dimensional {@code double} array. It supports element access,
  * basic operations, and computation of the determinant for square matrices.
  *
- * <p><b>Note:</b> The determinant is computed recursively using
- * Laplace expansion, which has factorial complexity and is therefore
- * only suitable for small matrices.</p>
+ * <p><b>Note:</b> The determinant of small matrices is computed
+ * recursively using Laplace expansion. Larger matrices, like
+ * {@link #solve(Vector)} and {@link #inverse()}, use a decomposition kept
+ * in the {@link FactorizationCache}.</p>
+ *
+ * <p>Every change of an entry through this class increments the
+ * modification count, which invalidates cached decompositions. Changes
+ * written directly into an array passed to {@link #Matrix(double[][])}
+ * are not tracked.</p>
  *
  * <p>All indices are zero-based.</p>
  */
@@ -27,6 +41,15 @@ public class Matrix {
     /** Number of columns. */
     private int m;
 
+    /** Number of modifications, see {@link #getModificationCount()} */
+    private long modificationCount = 0;
+
+    /** Last factorization stored in the {@link FactorizationCache}, may be stale */
+    FactorizationCache.Entry cacheEntry;
+
+    /** Largest dimension whose determinant is computed by Laplace expansion */
+    private static final int LAPLACE_MAX = 5;
+
     /**
      * Constructs a matrix with the given number of rows and columns.
      *
@@ -66,10 +89,9 @@ public class Matrix {
 
         A = new double[n][m];
 
-        for(int x = 0; x < n; x++){
-            for(int y = 0; y < m; y++){
-                setEntry(x, y, value);
-            }
+        if(value != 0){
+            for(double[] row : A)
+                Arrays.fill(row, value);
         }
     }
 
@@ -115,6 +137,7 @@ public class Matrix {
         assert x >= 0 && y >= 0;
 
         A[x][y] = value;
+        modificationCount++;
     }
 
     /**
@@ -141,22 +164,108 @@ public class Matrix {
         return m;
     }
 
+    /**
+     * Returns the number of modifications of this matrix.
+     *
+     * Incremented by {@link #setEntry(int, int, double)} and every operation
+     * that changes entries in place, including writes of the kernels of this
+     * package into result matrices. Two equal counts guarantee unchanged
+     * entries, which is how the {@link FactorizationCache} detects stale
+     * decompositions.
+     *
+     * @return Modification count
+     */
+    public long getModificationCount(){
+        return modificationCount;
+    }
+
+    /**
+     * Records a change of entries written through {@link #getData()}.
+     */
+    void modified(){
+        modificationCount++;
+    }
+
+    /**
+     * Returns the internal row storage for kernels of this package.
+     *
+     * @return Backing array, no copy is made
+     */
+    double[][] getData(){
+        return A;
+    }
+
     public boolean isSquare(){
         return getColumnCount() == getRowCount();
     }
 
     /**
-     * Recursively computes the determinant of a square matrix using
-     * Laplace expansion along the first row.
+     * Computes the determinant of a square matrix.
+     *
+     * Uses a cached decomposition of this matrix if there is one. Otherwise
+     * matrices up to 5 x 5 are expanded recursively along the first row,
+     * with minors borrowed from the workspace of the calling thread, see
+     * {@link #getDet(Workspace)}. Larger matrices are decomposed and the
+     * decomposition is cached.
      *
      * @return Determinant of the matrix
      *
      * @throws IllegalArgumentException if the matrix is not square
-     *
-     * @note Time complexity is O(n!), suitable only for small matrices.
      */
     public double getDet(){
-        return getDet(A);
+        return getDet(Workspace.current());
+    }
+
+    /**
+     * Computes the determinant with minors borrowed from a workspace.
+     *
+     * One minor per recursion level is borrowed, so repeated calls for
+     * matrices of the same size allocate nothing. Matrices larger than
+     * 5 x 5 or with a cached decomposition use the decomposition instead,
+     * see {@link #getDet()}.
+     *
+     * @param workspace Workspace providing the minors
+     * @return Determinant of the matrix
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public double getDet(Workspace workspace){
+        if(!isSquare())
+            throw new IllegalArgumentException("Matrix must be square");
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        Factorization factorization = FactorizationCache.lookup(this);
+        if (factorization != null || n > LAPLACE_MAX) {
+            double det;
+            try {
+                det = (factorization != null ? factorization : factorization()).getDeterminant();
+            } catch (ArithmeticException e) {
+                // Exactly zero pivot column
+                det = 0.0;
+            }
+            if (Metrics.ENABLED)
+                Metrics.record(Operation.MATRIX_DETERMINANT, n, 8L * n, start);
+            return det;
+        }
+
+        int mark = workspace.mark();
+        try {
+            return getDet(A, n, workspace);
+        } finally {
+            workspace.release(mark);
+            if (Metrics.ENABLED)
+                Metrics.record(Operation.MATRIX_DETERMINANT, laplaceFlops(n), 8L * n * n, start);
+        }
+    }
+
+    /** Flops of the Laplace expansion: f(2) = 3, f(n) = n · (f(n-1) + 2) */
+    private static long laplaceFlops(int size){
+        if(size < 2)
+            return 0;
+        long flops = 3;
+        for(int k = 3; k <= size && flops < Long.MAX_VALUE / (2L * k); k++)
+            flops = k * (flops + 2);
+        return flops;
     }
 
     /**
@@ -183,44 +292,37 @@ public class Matrix {
     }
 
 
-    private double getDet(double[][] matrix){
-        int n_tmp = matrix.length;
-        int m_tmp = matrix[0].length;
-
-        if(n_tmp != m_tmp)
-            throw new IllegalArgumentException("Matrix must be square");
-
-        if(n_tmp == 1)
+    private double getDet(double[][] matrix, int size, Workspace workspace){
+        if(size == 1)
             return matrix[0][0];
-        else if(n_tmp == 2)
+        else if(size == 2)
             return matrix[0][0] * matrix[1][1] - matrix[0][1] * matrix[1][0];
 
+        int mark = workspace.mark();
+        double[][] minor = workspace.borrowMatrix(size - 1, size - 1);
         double determinant = 0.0;
 
-        for (int j = 0; j < n_tmp; j++) {
-            determinant += Math.pow(-1, j) * matrix[0][j] * getDet(minor(matrix, 0, j));
+        for (int j = 0; j < size; j++) {
+            minor(matrix, size, 0, j, minor);
+            determinant += Math.pow(-1, j) * matrix[0][j] * getDet(minor, size - 1, workspace);
         }
 
+        workspace.release(mark);
         return determinant;
     }
 
-    private double[][] minor(double[][] matrix, int row, int col) {
-        int n_tmp = matrix.length;
-        double[][] minor = new double[n_tmp - 1][n_tmp - 1];
-
+    private void minor(double[][] matrix, int size, int row, int col, double[][] minor) {
         int r = 0;
-        for (int i = 0; i < n_tmp; i++) {
+        for (int i = 0; i < size; i++) {
             if (i == row) continue;
             int c = 0;
-            for (int j = 0; j < n_tmp; j++) {
+            for (int j = 0; j < size; j++) {
                 if (j == col) continue;
                 minor[r][c] = matrix[i][j];
                 c++;
             }
             r++;
         }
-
-        return minor;
     }
 
     // --------------------------------------------------
@@ -235,8 +337,10 @@ public class Matrix {
      * @return A new Matrix object with identical entries to this matrix
      */
     public Matrix copy() {
-        // TODO: implement copy
-        return null;
+        double[][] values = new double[n][];
+        for (int i = 0; i < n; i++)
+            values[i] = A[i].clone();
+        return new Matrix(values);
     }
 
     /**
@@ -249,8 +353,94 @@ public class Matrix {
      *         does not equal the number of rows of matrix x
      */
     public Matrix multiply(Matrix x) {
-        // TODO: implement matrix multiplication
-        return null;
+        return multiply(x, new Matrix(getRowCount(), x.getColumnCount()));
+    }
+
+    /**
+     * Multiplies this matrix by another matrix into a given result matrix.
+     *
+     * @param x The matrix to multiply with (this * x)
+     * @param out Matrix receiving the result, must not be this or x
+     * @return {@code out}
+     *
+     * @throws IllegalArgumentException if the number of columns of this matrix
+     *         does not equal the number of rows of matrix x
+     * @throws SameDimensionsException if out does not have the size of the result
+     */
+    public Matrix multiply(Matrix x, Matrix out) {
+        if (getColumnCount() != x.getRowCount())
+            throw new IllegalArgumentException("Column count of this matrix must equal the row count of x");
+        if (out.getRowCount() != getRowCount() || out.getColumnCount() != x.getColumnCount())
+            throw new SameDimensionsException();
+        assert out != this && out != x;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        GemmKernel.multiply(A, x.A, out.A);
+        out.modified();
+        if (Metrics.ENABLED) {
+            long n = getRowCount(), k = getColumnCount(), m = x.getColumnCount();
+            Metrics.record(Operation.MATRIX_MULTIPLY, 2 * n * k * m, 8 * (n * k + k * m + n * m), start);
+        }
+        return out;
+    }
+
+    /**
+     * Multiplies this matrix with another matrix in a simulated number format.
+     *
+     * Every product and every partial sum is rounded into {@code format}, so
+     * the result shows the rounding error growth of a sequential dot product
+     * in that format. The entries of both factors are used as given; round
+     * them with {@link NumberFormat#round(double[])} first to simulate data
+     * stored in the format.
+     *
+     * @param x Right factor
+     * @param format Format every intermediate is rounded to
+     * @return New matrix holding the rounded product
+     *
+     * @throws IllegalArgumentException if the column count of this matrix
+     *         does not match the row count of x
+     * @throws ArithmeticException if an intermediate exceeds the exponent range
+     */
+    public Matrix multiply(Matrix x, NumberFormat format) {
+        if (getColumnCount() != x.getRowCount())
+            throw new IllegalArgumentException("Column count of this matrix must equal the row count of x");
+
+        Matrix out = new Matrix(getRowCount(), x.getColumnCount());
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        GemmKernel.multiply(A, x.A, out.A, format);
+        if (Metrics.ENABLED) {
+            long n = getRowCount(), k = getColumnCount(), m = x.getColumnCount();
+            Metrics.record(Operation.MATRIX_MULTIPLY, 2 * n * k * m, 8 * (n * k + k * m + n * m), start);
+        }
+        return out;
+    }
+
+    /**
+     * Multiplies this matrix by another matrix with a chosen summation strategy.
+     *
+     * Every entry of the result is a dot product accumulated by
+     * {@code summation}, see {@link Summation} for the accuracy and cost of
+     * the strategies.
+     *
+     * @param x The matrix to multiply with (this * x)
+     * @param summation Strategy accumulating the products of every entry
+     * @return New matrix holding the product
+     *
+     * @throws IllegalArgumentException if the column count of this matrix
+     *         does not match the row count of x
+     */
+    public Matrix multiply(Matrix x, Summation summation) {
+        if (getColumnCount() != x.getRowCount())
+            throw new IllegalArgumentException("Column count of this matrix must equal the row count of x");
+
+        Matrix out = new Matrix(getRowCount(), x.getColumnCount());
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        GemmKernel.multiply(A, x.A, out.A, summation);
+        if (Metrics.ENABLED) {
+            long n = getRowCount(), k = getColumnCount(), m = x.getColumnCount();
+            Metrics.record(Operation.MATRIX_MULTIPLY, 2 * n * k * m, 8 * (n * k + k * m + n * m), start);
+        }
+        return out;
     }
 
     /**
@@ -265,8 +455,18 @@ public class Matrix {
      *         does not equal the size of vector x
      */
     public Matrix multiply(Vector x) {
-        // TODO: implement matrix-vector multiplication
-        return null;
+        if (getColumnCount() != x.size())
+            throw new IllegalArgumentException("Column count of this matrix must equal the size of x");
+
+        Matrix out = new Matrix(n, 1);
+        for (int i = 0; i < n; i++) {
+            double[] row = A[i];
+            double sum = 0;
+            for (int j = 0; j < m; j++)
+                sum += row[j] * x.getValue(j);
+            out.A[i][0] = sum;
+        }
+        return out;
     }
 
     /**
@@ -279,7 +479,25 @@ public class Matrix {
      *       m x n to hold the transposed values.
      */
     public void transpose() {
-        // TODO: implement in-place or reallocation transpose
+        if (n == m) {
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double tmp = A[i][j];
+                    A[i][j] = A[j][i];
+                    A[j][i] = tmp;
+                }
+            }
+        } else {
+            double[][] T = new double[m][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < m; j++)
+                    T[j][i] = A[i][j];
+            A = T;
+            int tmp = n;
+            n = m;
+            m = tmp;
+        }
+        modificationCount++;
     }
 
     /**
@@ -290,21 +508,210 @@ public class Matrix {
      * @param scaling Scalar factor
      */
     public void scale(int scaling) {
-        // TODO: implement properly
+        for (double[] row : A)
+            for (int j = 0; j < m; j++)
+                row[j] *= scaling;
+        modificationCount++;
     }
 
     /**
      * Computes the inverse of this matrix in-place.
      *
      * The matrix must be square and have a non-zero determinant.
-     * After execution, this matrix will contain its inverse.
+     * After execution, this matrix will contain its inverse. The columns
+     * of the inverse are solved with the cached decomposition of this
+     * matrix, which is computed first if necessary.
      *
      * @throws IllegalArgumentException if the matrix is not square
      * @throws ArithmeticException if the matrix is singular (determinant = 0)
-     *
-     * @note Implementation is currently a placeholder; recommended: Gauss-Jordan
      */
     public void inverse() {
-        // TODO: implement matrix inversion
+        if (!isSquare())
+            throw new IllegalArgumentException("Matrix must be square");
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        Factorization factorization = factorization();
+
+        // The decomposition holds its own copy, A is free for the result
+        double[] column = new double[n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++)
+                column[i] = i == j ? 1 : 0;
+            factorization.solve(column, column);
+            for (int i = 0; i < n; i++)
+                A[i][j] = column[i];
+        }
+        modificationCount++;
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.MATRIX_INVERSE, 8L * n * n * n / 3, 16L * n * n, start);
+    }
+
+    /**
+     * Computes an integer power of this matrix.
+     *
+     * Uses binary exponentiation: the base is squared for every bit of
+     * |k| and multiplied into the result for every set bit, about
+     * 2 · log2(|k|) products in total. The products alternate between
+     * preallocated buffers, so no memory is allocated per step. A negative
+     * power is the power of the inverse.
+     *
+     * @param k Exponent, A^0 is the identity
+     * @return New matrix A^k
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     * @throws ArithmeticException if k is negative and the matrix is singular
+     */
+    public Matrix pow(int k) {
+        if (!isSquare())
+            throw new IllegalArgumentException("Matrix must be square");
+
+        Matrix base = copy();
+        if (k < 0)
+            base.inverse();
+        long e = Math.abs((long) k);
+
+        Matrix result = null;
+        Matrix spare = new Matrix(n, n), square = new Matrix(n, n);
+        while (e > 0) {
+            if ((e & 1) != 0) {
+                if (result == null) {
+                    result = new Matrix(n, n);
+                    for (int i = 0; i < n; i++)
+                        System.arraycopy(base.A[i], 0, result.A[i], 0, n);
+                } else {
+                    result.multiply(base, spare);
+                    Matrix swap = result;
+                    result = spare;
+                    spare = swap;
+                }
+            }
+            e >>= 1;
+            if (e > 0) {
+                base.multiply(base, square);
+                Matrix swap = base;
+                base = square;
+                square = swap;
+            }
+        }
+
+        if (result == null) {
+            result = spare;
+            for (int i = 0; i < n; i++)
+                result.A[i][i] = 1;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the exponential of this matrix.
+     *
+     * @return New matrix exp(A)
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     * @see MatrixExponential#expm(Matrix)
+     */
+    public Matrix expm() {
+        return MatrixExponential.expm(this);
+    }
+
+    /**
+     * Computes exp(t · A) · b without forming exp(t · A).
+     *
+     * @param t Time step
+     * @param b Vector of dimension n
+     * @return New vector exp(t · A) · b
+     *
+     * @throws IllegalArgumentException if the matrix is not square or the
+     *         dimension of b does not match
+     * @see MatrixExponential#expmv(LinearOperator, double, double[])
+     */
+    public Vector expmv(double t, Vector b) {
+        return MatrixExponential.expmv(LinearOperator.of(this), t, b);
+    }
+
+    /**
+     * Solves the linear system this * x = b.
+     *
+     * Reuses the decomposition in the {@link FactorizationCache} if this
+     * matrix has not been modified since it was computed. Otherwise a
+     * symmetric matrix is decomposed with {@link CholeskyDecomposition},
+     * falling back to {@link PivotedLUDecomposition} if it is not positive
+     * definite, and the decomposition is cached.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalArgumentException if the matrix is not square or the
+     *         dimension of b does not match
+     * @throws ArithmeticException if the matrix is singular
+     */
+    public Vector solve(Vector b) {
+        if (!isSquare())
+            throw new IllegalArgumentException("Matrix must be square");
+        if (b.size() != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = b.getValue(i);
+        return new Vector(factorization().solve(x, x));
+    }
+
+    /**
+     * Estimates the condition number of this matrix in the 1-norm.
+     *
+     * Uses the cached decomposition, computing it if necessary, and
+     * {@link ConditionEstimator} on top of it, so the estimate costs
+     * O(n^2) if the matrix is solved with anyway. Lets callers reject
+     * ill-conditioned systems before trusting a solution: about
+     * log10(condition) decimal digits are lost.
+     *
+     * @return Estimate of ||A||_1 · ||A^-1||_1, infinite if the matrix is singular
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public double estimateConditionNumber() {
+        if (!isSquare())
+            throw new IllegalArgumentException("Matrix must be square");
+
+        Factorization factorization;
+        try {
+            factorization = factorization();
+        } catch (ArithmeticException e) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return ConditionEstimator.norm1(A, n) * ConditionEstimator.estimateInverseNorm1(factorization, n);
+    }
+
+    /**
+     * Returns the cached decomposition of this matrix or computes and caches one.
+     *
+     * @throws ArithmeticException if the matrix is singular
+     */
+    Factorization factorization() {
+        Factorization factorization = FactorizationCache.lookup(this);
+        if (factorization != null)
+            return factorization;
+
+        if (isSymmetric()) {
+            try {
+                factorization = CholeskyDecomposition.decompose(this);
+            } catch (ArithmeticException e) {
+                // Indefinite, decompose with pivoting below
+            }
+        }
+        if (factorization == null)
+            factorization = PivotedLUDecomposition.decompose(this, 0);
+        FactorizationCache.put(this, factorization);
+        return factorization;
+    }
+
+    private boolean isSymmetric() {
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < i; j++)
+                if (A[i][j] != A[j][i])
+                    return false;
+        return true;
     }
 }
@@ -0,0 +1,405 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.utils.Chunks;
+/**
+ * @class MatrixBatch
+ * @brief Stores many small square matrices of equal size in one buffer.
+ *
+ * The batch keeps {@code count} matrices of size {@code dim x dim} with
+ * {@code 2 <= dim <= 4} in structure-of-arrays layout: entry (i, j) of all
+ * members is stored contiguously, member {@code b} at
+ *
+ * <pre>
+ *   data[(i · dim + j) · count + b]
+ * </pre>
+ *
+ * All operations loop over the batch index innermost, so the JIT can
+ * vectorize across members, and use fully unrolled kernels per size.
+ * Large batches are split into chunks which are processed in parallel.
+ *
+ * <p>Determinant, inverse and solve use closed-form cofactor formulas
+ * without pivoting. Singular members produce non-finite results instead
+ * of an exception, since one bad system should not abort the whole batch;
+ * check {@link #determinant(double[])} where this matters.</p>
+ *
+ * <p>Right-hand sides and solutions of {@link #solve(double[], double[])}
+ * use the same layout: entry i of member b is at {@code i · count + b}.</p>
+ */
+public class MatrixBatch {
+
+    /** Entries of all members in structure-of-arrays layout */
+    private final double[] data;
+
+    /** Number of matrices */
+    private final int count;
+
+    /** Number of rows and columns of every matrix */
+    private final int dim;
+
+    /**
+     * Constructs a batch of zero matrices.
+     *
+     * @param count Number of matrices
+     * @param dim Size of every matrix
+     *
+     * @throws IllegalArgumentException if dim is not between 2 and 4
+     *
+     * @pre count > 0
+     */
+    public MatrixBatch(int count, int dim){
+        assert count > 0;
+
+        if(dim < 2 || dim > 4)
+            throw new IllegalArgumentException("Batched kernels support sizes 2 to 4");
+
+        this.count = count;
+        this.dim = dim;
+        this.data = new double[dim * dim * count];
+    }
+
+    public int getCount(){
+        return count;
+    }
+
+    public int getDimension(){
+        return dim;
+    }
+
+    /**
+     * Returns the backing array in structure-of-arrays layout.
+     *
+     * @return Backing array, no copy is made
+     */
+    public double[] getData(){
+        return data;
+    }
+
+    public void setEntry(int member, int i, int j, double value){
+        assert member >= 0 && i >= 0 && j >= 0;
+        data[(i * dim + j) * count + member] = value;
+    }
+
+    public double getEntry(int member, int i, int j){
+        assert member >= 0 && i >= 0 && j >= 0;
+        return data[(i * dim + j) * count + member];
+    }
+
+    /**
+     * Copies a matrix into the batch.
+     *
+     * @param member Index of the member to overwrite
+     * @param M Matrix of size dim x dim
+     *
+     * @throws SameDimensionsException if M does not have size dim x dim
+     */
+    public void set(int member, Matrix M){
+        if(M.getRowCount() != dim || M.getColumnCount() != dim)
+            throw new SameDimensionsException();
+
+        for(int i = 0; i < dim; i++)
+            for(int j = 0; j < dim; j++)
+                setEntry(member, i, j, M.getEntry(i, j));
+    }
+
+    /**
+     * Copies one member of the batch into a new matrix.
+     *
+     * @param member Index of the member
+     * @return New dim x dim matrix
+     */
+    public Matrix get(int member){
+        Matrix M = new Matrix(dim, dim);
+        for(int i = 0; i < dim; i++)
+            for(int j = 0; j < dim; j++)
+                M.setEntry(i, j, getEntry(member, i, j));
+        return M;
+    }
+
+    // --------------------------------------------------
+    // Batched operations
+    // --------------------------------------------------
+
+    /**
+     * Multiplies every member with the corresponding member of B.
+     *
+     * out_b = this_b * B_b. {@code out} must not be this batch or B.
+     *
+     * @param B Right factors
+     * @param out Batch receiving the products
+     *
+     * @throws SameDimensionsException if the batches do not match
+     */
+    public void multiply(MatrixBatch B, MatrixBatch out){
+        requireSameShape(B);
+        requireSameShape(out);
+        assert out != this && out != B;
+
+        Chunks.forEach(count, (from, to) -> multiply(B.data, out.data, from, to));
+    }
+
+    /**
+     * Computes the determinant of every member.
+     *
+     * @param out Array of length count receiving the determinants
+     */
+    public void determinant(double[] out){
+        assert out.length >= count;
+
+        Chunks.forEach(count, (from, to) -> {
+            switch (dim){
+                case 2: determinant2(out, from, to); break;
+                case 3: determinant3(out, from, to); break;
+                default: determinant4(out, from, to);
+            }
+        });
+    }
+
+    /**
+     * Inverts every member.
+     *
+     * {@code out} may be this batch for an in-place inversion.
+     *
+     * @param out Batch receiving the inverses
+     *
+     * @throws SameDimensionsException if the batches do not match
+     */
+    public void inverse(MatrixBatch out){
+        requireSameShape(out);
+
+        Chunks.forEach(count, (from, to) -> {
+            switch (dim){
+                case 2: inverse2(out.data, from, to); break;
+                case 3: inverse3(out.data, from, to); break;
+                default: inverse4(out.data, from, to);
+            }
+        });
+    }
+
+    /**
+     * Solves A_b · x_b = rhs_b for every member.
+     *
+     * @param rhs Right-hand sides, entry i of member b at {@code i · count + b}
+     * @param x Array receiving the solutions in the same layout, may be rhs
+     */
+    public void solve(double[] rhs, double[] x){
+        assert rhs.length >= dim * count && x.length >= dim * count;
+
+        Chunks.forEach(count, (from, to) -> {
+            switch (dim){
+                case 2: solve2(rhs, x, from, to); break;
+                case 3: solve3(rhs, x, from, to); break;
+                default: solve4(rhs, x, from, to);
+            }
+        });
+    }
+
+    private void requireSameShape(MatrixBatch other){
+        if(other.count != count || other.dim != dim)
+            throw new SameDimensionsException();
+    }
+
+    // --------------------------------------------------
+    // Kernels
+    // --------------------------------------------------
+
+    private void multiply(double[] b, double[] c, int from, int to){
+        double[] a = data;
+        int n = count;
+
+        for(int i = 0; i < dim; i++){
+            for(int j = 0; j < dim; j++){
+                int cij = (i * dim + j) * n;
+                for(int m = from; m < to; m++)
+                    c[cij + m] = 0.0;
+
+                for(int k = 0; k < dim; k++){
+                    int aik = (i * dim + k) * n;
+                    int bkj = (k * dim + j) * n;
+                    for(int m = from; m < to; m++)
+                        c[cij + m] += a[aik + m] * b[bkj + m];
+                }
+            }
+        }
+    }
+
+    private void determinant2(double[] out, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++)
+            out[m] = a[m] * a[3 * n + m] - a[n + m] * a[2 * n + m];
+    }
+
+    private void determinant3(double[] out, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++){
+            double a00 = a[m],         a01 = a[n + m],     a02 = a[2 * n + m];
+            double a10 = a[3 * n + m], a11 = a[4 * n + m], a12 = a[5 * n + m];
+            double a20 = a[6 * n + m], a21 = a[7 * n + m], a22 = a[8 * n + m];
+
+            out[m] = a00 * (a11 * a22 - a12 * a21)
+                   - a01 * (a10 * a22 - a12 * a20)
+                   + a02 * (a10 * a21 - a11 * a20);
+        }
+    }
+
+    private void determinant4(double[] out, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++){
+            double a00 = a[m],          a01 = a[n + m],      a02 = a[2 * n + m],  a03 = a[3 * n + m];
+            double a10 = a[4 * n + m],  a11 = a[5 * n + m],  a12 = a[6 * n + m],  a13 = a[7 * n + m];
+            double a20 = a[8 * n + m],  a21 = a[9 * n + m],  a22 = a[10 * n + m], a23 = a[11 * n + m];
+            double a30 = a[12 * n + m], a31 = a[13 * n + m], a32 = a[14 * n + m], a33 = a[15 * n + m];
+
+            double s0 = a00 * a11 - a10 * a01, s1 = a00 * a12 - a10 * a02;
+            double s2 = a00 * a13 - a10 * a03, s3 = a01 * a12 - a11 * a02;
+            double s4 = a01 * a13 - a11 * a03, s5 = a02 * a13 - a12 * a03;
+            double c5 = a22 * a33 - a32 * a23, c4 = a21 * a33 - a31 * a23;
+            double c3 = a21 * a32 - a31 * a22, c2 = a20 * a33 - a30 * a23;
+            double c1 = a20 * a32 - a30 * a22, c0 = a20 * a31 - a30 * a21;
+
+            out[m] = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        }
+    }
+
+    private void inverse2(double[] out, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++){
+            double a00 = a[m], a01 = a[n + m], a10 = a[2 * n + m], a11 = a[3 * n + m];
+            double inv = 1.0 / (a00 * a11 - a01 * a10);
+
+            out[m] = a11 * inv;
+            out[n + m] = -a01 * inv;
+            out[2 * n + m] = -a10 * inv;
+            out[3 * n + m] = a00 * inv;
+        }
+    }
+
+    private void inverse3(double[] out, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++){
+            double a00 = a[m],         a01 = a[n + m],     a02 = a[2 * n + m];
+            double a10 = a[3 * n + m], a11 = a[4 * n + m], a12 = a[5 * n + m];
+            double a20 = a[6 * n + m], a21 = a[7 * n + m], a22 = a[8 * n + m];
+
+            double b00 = a11 * a22 - a12 * a21, b01 = a02 * a21 - a01 * a22, b02 = a01 * a12 - a02 * a11;
+            double b10 = a12 * a20 - a10 * a22, b11 = a00 * a22 - a02 * a20, b12 = a02 * a10 - a00 * a12;
+            double b20 = a10 * a21 - a11 * a20, b21 = a01 * a20 - a00 * a21, b22 = a00 * a11 - a01 * a10;
+            double inv = 1.0 / (a00 * b00 + a01 * b10 + a02 * b20);
+
+            out[m] = b00 * inv;         out[n + m] = b01 * inv;     out[2 * n + m] = b02 * inv;
+            out[3 * n + m] = b10 * inv; out[4 * n + m] = b11 * inv; out[5 * n + m] = b12 * inv;
+            out[6 * n + m] = b20 * inv; out[7 * n + m] = b21 * inv; out[8 * n + m] = b22 * inv;
+        }
+    }
+
+    private void inverse4(double[] out, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++){
+            double a00 = a[m],          a01 = a[n + m],      a02 = a[2 * n + m],  a03 = a[3 * n + m];
+            double a10 = a[4 * n + m],  a11 = a[5 * n + m],  a12 = a[6 * n + m],  a13 = a[7 * n + m];
+            double a20 = a[8 * n + m],  a21 = a[9 * n + m],  a22 = a[10 * n + m], a23 = a[11 * n + m];
+            double a30 = a[12 * n + m], a31 = a[13 * n + m], a32 = a[14 * n + m], a33 = a[15 * n + m];
+
+            double s0 = a00 * a11 - a10 * a01, s1 = a00 * a12 - a10 * a02;
+            double s2 = a00 * a13 - a10 * a03, s3 = a01 * a12 - a11 * a02;
+            double s4 = a01 * a13 - a11 * a03, s5 = a02 * a13 - a12 * a03;
+            double c5 = a22 * a33 - a32 * a23, c4 = a21 * a33 - a31 * a23;
+            double c3 = a21 * a32 - a31 * a22, c2 = a20 * a33 - a30 * a23;
+            double c1 = a20 * a32 - a30 * a22, c0 = a20 * a31 - a30 * a21;
+            double inv = 1.0 / (s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0);
+
+            out[m]          = ( a11 * c5 - a12 * c4 + a13 * c3) * inv;
+            out[n + m]      = (-a01 * c5 + a02 * c4 - a03 * c3) * inv;
+            out[2 * n + m]  = ( a31 * s5 - a32 * s4 + a33 * s3) * inv;
+            out[3 * n + m]  = (-a21 * s5 + a22 * s4 - a23 * s3) * inv;
+            out[4 * n + m]  = (-a10 * c5 + a12 * c2 - a13 * c1) * inv;
+            out[5 * n + m]  = ( a00 * c5 - a02 * c2 + a03 * c1) * inv;
+            out[6 * n + m]  = (-a30 * s5 + a32 * s2 - a33 * s1) * inv;
+            out[7 * n + m]  = ( a20 * s5 - a22 * s2 + a23 * s1) * inv;
+            out[8 * n + m]  = ( a10 * c4 - a11 * c2 + a13 * c0) * inv;
+            out[9 * n + m]  = (-a00 * c4 + a01 * c2 - a03 * c0) * inv;
+            out[10 * n + m] = ( a30 * s4 - a31 * s2 + a33 * s0) * inv;
+            out[11 * n + m] = (-a20 * s4 + a21 * s2 - a23 * s0) * inv;
+            out[12 * n + m] = (-a10 * c3 + a11 * c1 - a12 * c0) * inv;
+            out[13 * n + m] = ( a00 * c3 - a01 * c1 + a02 * c0) * inv;
+            out[14 * n + m] = (-a30 * s3 + a31 * s1 - a32 * s0) * inv;
+            out[15 * n + m] = ( a20 * s3 - a21 * s1 + a22 * s0) * inv;
+        }
+    }
+
+    private void solve2(double[] rhs, double[] x, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++){
+            double a00 = a[m], a01 = a[n + m], a10 = a[2 * n + m], a11 = a[3 * n + m];
+            double r0 = rhs[m], r1 = rhs[n + m];
+            double inv = 1.0 / (a00 * a11 - a01 * a10);
+
+            x[m] = (a11 * r0 - a01 * r1) * inv;
+            x[n + m] = (a00 * r1 - a10 * r0) * inv;
+        }
+    }
+
+    private void solve3(double[] rhs, double[] x, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++){
+            double a00 = a[m],         a01 = a[n + m],     a02 = a[2 * n + m];
+            double a10 = a[3 * n + m], a11 = a[4 * n + m], a12 = a[5 * n + m];
+            double a20 = a[6 * n + m], a21 = a[7 * n + m], a22 = a[8 * n + m];
+            double r0 = rhs[m], r1 = rhs[n + m], r2 = rhs[2 * n + m];
+
+            double b00 = a11 * a22 - a12 * a21, b01 = a02 * a21 - a01 * a22, b02 = a01 * a12 - a02 * a11;
+            double b10 = a12 * a20 - a10 * a22, b11 = a00 * a22 - a02 * a20, b12 = a02 * a10 - a00 * a12;
+            double b20 = a10 * a21 - a11 * a20, b21 = a01 * a20 - a00 * a21, b22 = a00 * a11 - a01 * a10;
+            double inv = 1.0 / (a00 * b00 + a01 * b10 + a02 * b20);
+
+            x[m]         = (b00 * r0 + b01 * r1 + b02 * r2) * inv;
+            x[n + m]     = (b10 * r0 + b11 * r1 + b12 * r2) * inv;
+            x[2 * n + m] = (b20 * r0 + b21 * r1 + b22 * r2) * inv;
+        }
+    }
+
+    private void solve4(double[] rhs, double[] x, int from, int to){
+        double[] a = data;
+        int n = count;
+        for(int m = from; m < to; m++){
+            double a00 = a[m],          a01 = a[n + m],      a02 = a[2 * n + m],  a03 = a[3 * n + m];
+            double a10 = a[4 * n + m],  a11 = a[5 * n + m],  a12 = a[6 * n + m],  a13 = a[7 * n + m];
+            double a20 = a[8 * n + m],  a21 = a[9 * n + m],  a22 = a[10 * n + m], a23 = a[11 * n + m];
+            double a30 = a[12 * n + m], a31 = a[13 * n + m], a32 = a[14 * n + m], a33 = a[15 * n + m];
+            double r0 = rhs[m], r1 = rhs[n + m], r2 = rhs[2 * n + m], r3 = rhs[3 * n + m];
+
+            double s0 = a00 * a11 - a10 * a01, s1 = a00 * a12 - a10 * a02;
+            double s2 = a00 * a13 - a10 * a03, s3 = a01 * a12 - a11 * a02;
+            double s4 = a01 * a13 - a11 * a03, s5 = a02 * a13 - a12 * a03;
+            double c5 = a22 * a33 - a32 * a23, c4 = a21 * a33 - a31 * a23;
+            double c3 = a21 * a32 - a31 * a22, c2 = a20 * a33 - a30 * a23;
+            double c1 = a20 * a32 - a30 * a22, c0 = a20 * a31 - a30 * a21;
+            double inv = 1.0 / (s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0);
+
+            x[m] = (( a11 * c5 - a12 * c4 + a13 * c3) * r0
+                  + (-a01 * c5 + a02 * c4 - a03 * c3) * r1
+                  + ( a31 * s5 - a32 * s4 + a33 * s3) * r2
+                  + (-a21 * s5 + a22 * s4 - a23 * s3) * r3) * inv;
+            x[n + m] = ((-a10 * c5 + a12 * c2 - a13 * c1) * r0
+                      + ( a00 * c5 - a02 * c2 + a03 * c1) * r1
+                      + (-a30 * s5 + a32 * s2 - a33 * s1) * r2
+                      + ( a20 * s5 - a22 * s2 + a23 * s1) * r3) * inv;
+            x[2 * n + m] = (( a10 * c4 - a11 * c2 + a13 * c0) * r0
+                          + (-a00 * c4 + a01 * c2 - a03 * c0) * r1
+                          + ( a30 * s4 - a31 * s2 + a33 * s0) * r2
+                          + (-a20 * s4 + a21 * s2 - a23 * s0) * r3) * inv;
+            x[3 * n + m] = ((-a10 * c3 + a11 * c1 - a12 * c0) * r0
+                          + ( a00 * c3 - a01 * c1 + a02 * c0) * r1
+                          + (-a30 * s3 + a31 * s1 - a32 * s0) * r2
+                          + ( a20 * s3 - a21 * s1 + a22 * s0) * r3) * inv;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.Arrays;
+/**
+ * @class MatrixExponential
+ * @brief Computes the matrix exponential and its action on vectors.
+ *
+ * {@link #expm(Matrix)} forms exp(A) by the scaling and squaring method
+ * of Higham (2005): if ||A||_1 is small enough a Padé approximant of
+ * degree 3, 5, 7 or 9 is accurate to unit roundoff, otherwise A is scaled
+ * by 2^-s until the degree 13 approximant is, and the result is squared
+ * s times. This costs about (6 + s) matrix products and one solve with
+ * n right-hand sides, O(n^3) in total.
+ *
+ * <p>{@link #expmv(LinearOperator, double, double[])} computes
+ * exp(t·A) · b without forming exp(t·A), following Al-Mohy and Higham
+ * (2011): a truncated Taylor series of degree m is applied s times with
+ * step t / s, where m and s minimize the number m · s of products A · x
+ * for the required accuracy. Only products with A are needed, so the cost
+ * is O(m · s · nnz) for a sparse operator and the memory O(n).</p>
+ */
+public final class MatrixExponential {
+
+    /** Padé degrees tried without scaling */
+    private static final int[] PADE_DEGREES = {3, 5, 7, 9};
+
+    /** Largest 1-norm for which the Padé approximant of degree 3, 5, 7, 9 is accurate */
+    private static final double[] PADE_THETA = {
+            1.495585217958292e-2, 2.539398330063230e-1, 9.504178996162932e-1, 2.097847961257068e0
+    };
+
+    /** Largest 1-norm for which the Padé approximant of degree 13 is accurate */
+    private static final double THETA_13 = 5.371920351148152e0;
+
+    /** Coefficients of the Padé approximants of degree 3, 5, 7, 9 */
+    private static final double[][] PADE_COEFFICIENTS = {
+            {120, 60, 12, 1},
+            {30240, 15120, 3360, 420, 30, 1},
+            {17297280, 8648640, 1995840, 277200, 25200, 1512, 56, 1},
+            {17643225600.0, 8821612800.0, 2075673600, 302702400, 30270240, 2162160, 110880, 3960, 90, 1}
+    };
+
+    /** Coefficients of the Padé approximant of degree 13 */
+    private static final double[] PADE_13 = {
+            64764752532480000.0, 32382376266240000.0, 7771770303897600.0, 1187353796428800.0,
+            129060195264000.0, 10559470521600.0, 670442572800.0, 33522128640.0,
+            1323241920, 40840800, 960960, 16380, 182, 1
+    };
+
+    /** Taylor degrees considered by expmv */
+    private static final int[] TAYLOR_DEGREES = {
+            1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20,
+            21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 35, 40, 45, 50, 55
+    };
+
+    /** Largest ||t·A||_1 / s for which the Taylor series of that degree is accurate to 2^-53 */
+    private static final double[] TAYLOR_THETA = {
+            2.22e-16, 2.58e-8, 1.39e-5, 3.40e-4, 2.40e-3, 9.07e-3, 2.38e-2, 5.00e-2, 8.96e-2, 1.44e-1,
+            2.14e-1, 3.00e-1, 4.00e-1, 5.14e-1, 6.41e-1, 7.81e-1, 9.31e-1, 1.09, 1.26, 1.44,
+            1.62, 1.82, 2.01, 2.22, 2.43, 2.64, 2.86, 3.08, 3.31, 3.54, 4.7, 6.0, 7.2, 8.5, 9.9
+    };
+
+    /** Relative tolerance of the early termination of a Taylor series */
+    private static final double TOLERANCE = 0x1p-53;
+
+    private MatrixExponential() {
+    }
+
+    /**
+     * Computes exp(A) by scaling and squaring.
+     *
+     * @param A Square matrix, not modified
+     * @return New matrix exp(A)
+     *
+     * @throws IllegalArgumentException if A is not square
+     */
+    public static Matrix expm(Matrix A) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("Matrix must be square");
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        int n = A.getRowCount();
+        double[][] a = A.getData();
+        double norm = ConditionEstimator.norm1(a, n);
+        int products;
+
+        double[][] X;
+        int degree = 0;
+        while (degree < PADE_DEGREES.length && norm > PADE_THETA[degree])
+            degree++;
+
+        if (degree < PADE_DEGREES.length) {
+            int powers = degree + 2;
+            products = powers;
+            X = pade(a, n, PADE_COEFFICIENTS[degree], powers);
+        } else {
+            int s = Math.max(0, (int) Math.ceil(Math.log(norm / THETA_13) / Math.log(2)));
+            double[][] scaled = new double[n][n];
+            double factor = Math.scalb(1.0, -s);
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    scaled[i][j] = a[i][j] * factor;
+            X = pade13(scaled, n);
+
+            // Squaring, ping-pong between two buffers
+            double[][] T = scaled;
+            for (int k = 0; k < s; k++) {
+                GemmKernel.multiply(X, X, T);
+                double[][] swap = X;
+                X = T;
+                T = swap;
+            }
+            products = 6 + s;
+        }
+
+        if (Metrics.ENABLED) {
+            long nn = n;
+            Metrics.record(Operation.MATRIX_EXPONENTIAL, (6L * products + 8) * nn * nn * nn / 3, 8 * 6 * nn * nn, start);
+        }
+        return new Matrix(X);
+    }
+
+    /**
+     * Computes exp(t·A) · b without forming exp(t·A).
+     *
+     * @param A Operator
+     * @param t Time step, may be negative
+     * @param b Vector of length n, not modified
+     * @return New array exp(t·A) · b
+     *
+     * @throws IllegalArgumentException if the length of b does not match A
+     */
+    public static double[] expmv(LinearOperator A, double t, double[] b) {
+        int n = A.getDimension();
+        if (b.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        double[] f = b.clone();
+        double norm = Math.abs(t) * A.norm1();
+        if (norm == 0 || n == 0)
+            return f;
+
+        // Degree m and number of steps s with the fewest products m · s
+        int m = 0, s = 0;
+        long cost = Long.MAX_VALUE;
+        for (int i = 0; i < TAYLOR_DEGREES.length; i++) {
+            long steps = Math.max(1, (long) Math.ceil(norm / TAYLOR_THETA[i]));
+            long c = steps * TAYLOR_DEGREES[i];
+            if (c < cost) {
+                cost = c;
+                m = TAYLOR_DEGREES[i];
+                s = (int) Math.min(steps, Integer.MAX_VALUE);
+            }
+        }
+
+        double[] term = b.clone();
+        double[] next = new double[n];
+        for (int step = 0; step < s; step++) {
+            double c1 = normInf(term);
+            for (int j = 1; j <= m; j++) {
+                A.apply(term, next);
+                double factor = t / ((double) s * j);
+                for (int i = 0; i < n; i++) {
+                    next[i] *= factor;
+                    f[i] += next[i];
+                }
+                double[] swap = term;
+                term = next;
+                next = swap;
+
+                // Two small consecutive terms end the series early
+                double c2 = normInf(term);
+                if (c1 + c2 <= TOLERANCE * normInf(f))
+                    break;
+                c1 = c2;
+            }
+            System.arraycopy(f, 0, term, 0, n);
+        }
+        return f;
+    }
+
+    /**
+     * Computes exp(t·A) · b without forming exp(t·A).
+     *
+     * @param A Operator
+     * @param t Time step, may be negative
+     * @param b Vector of dimension n
+     * @return New vector exp(t·A) · b
+     *
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public static Vector expmv(LinearOperator A, double t, Vector b) {
+        double[] values = new double[b.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = b.getValue(i);
+        return new Vector(expmv(A, t, values));
+    }
+
+    /**
+     * Evaluates the Padé approximant of degree 2 · powers - 1 from the even
+     * powers A^0 .. A^(2 · powers - 2).
+     */
+    private static double[][] pade(double[][] a, int n, double[] b, int powers) {
+        double[][][] P = new double[powers][][];
+        P[0] = identity(n);
+        if (powers > 1) {
+            P[1] = new double[n][n];
+            GemmKernel.multiply(a, a, P[1]);
+        }
+        for (int k = 2; k < powers; k++) {
+            P[k] = new double[n][n];
+            GemmKernel.multiply(P[k - 1], P[1], P[k]);
+        }
+
+        double[][] odd = new double[n][n];
+        double[][] V = new double[n][n];
+        for (int k = 0; k < powers; k++) {
+            combine(odd, b[2 * k + 1], P[k]);
+            combine(V, b[2 * k], P[k]);
+        }
+        double[][] U = P[0];
+        GemmKernel.multiply(a, odd, U);
+        return solve(U, V, n);
+    }
+
+    /**
+     * Evaluates the Padé approximant of degree 13 with six products.
+     */
+    private static double[][] pade13(double[][] a, int n) {
+        double[] b = PADE_13;
+        double[][] A2 = new double[n][n];
+        double[][] A4 = new double[n][n];
+        double[][] A6 = new double[n][n];
+        GemmKernel.multiply(a, a, A2);
+        GemmKernel.multiply(A2, A2, A4);
+        GemmKernel.multiply(A4, A2, A6);
+
+        // U = A · (A6 · (b13 A6 + b11 A4 + b9 A2) + b7 A6 + b5 A4 + b3 A2 + b1 I)
+        double[][] inner = new double[n][n];
+        combine(inner, b[13], A6);
+        combine(inner, b[11], A4);
+        combine(inner, b[9], A2);
+        double[][] odd = new double[n][n];
+        GemmKernel.multiply(A6, inner, odd);
+        combine(odd, b[7], A6);
+        combine(odd, b[5], A4);
+        combine(odd, b[3], A2);
+        for (int i = 0; i < n; i++)
+            odd[i][i] += b[1];
+        double[][] U = new double[n][n];
+        GemmKernel.multiply(a, odd, U);
+
+        // V = A6 · (b12 A6 + b10 A4 + b8 A2) + b6 A6 + b4 A4 + b2 A2 + b0 I
+        for (double[] row : inner)
+            Arrays.fill(row, 0);
+        combine(inner, b[12], A6);
+        combine(inner, b[10], A4);
+        combine(inner, b[8], A2);
+        double[][] V = odd;
+        GemmKernel.multiply(A6, inner, V);
+        combine(V, b[6], A6);
+        combine(V, b[4], A4);
+        combine(V, b[2], A2);
+        for (int i = 0; i < n; i++)
+            V[i][i] += b[0];
+        return solve(U, V, n);
+    }
+
+    /**
+     * Solves (V - U) · X = V + U, overwriting U and V.
+     */
+    private static double[][] solve(double[][] U, double[][] V, int n) {
+        for (int i = 0; i < n; i++) {
+            double[] u = U[i], v = V[i];
+            for (int j = 0; j < n; j++) {
+                double sum = v[j] + u[j];
+                v[j] -= u[j];
+                u[j] = sum;
+            }
+        }
+        PivotedLUDecomposition lu = PivotedLUDecomposition.decompose(new Matrix(V), 0);
+
+        double[] column = new double[n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++)
+                column[i] = U[i][j];
+            lu.solve(column, column);
+            for (int i = 0; i < n; i++)
+                U[i][j] = column[i];
+        }
+        return U;
+    }
+
+    /** Computes Y += alpha · X */
+    private static void combine(double[][] Y, double alpha, double[][] X) {
+        for (int i = 0; i < Y.length; i++) {
+            double[] y = Y[i], x = X[i];
+            for (int j = 0; j < y.length; j++)
+                y[j] += alpha * x[j];
+        }
+    }
+
+    private static double[][] identity(int n) {
+        double[][] I = new double[n][n];
+        for (int i = 0; i < n; i++)
+            I[i][i] = 1;
+        return I;
+    }
+
+    private static double normInf(double[] x) {
+        double max = 0;
+        for (double v : x)
+            max = Math.max(max, Math.abs(v));
+        return max;
+    }
+}
@@ -0,0 +1,282 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.sparse.SparseMatrix;
+import de.home_skrobanek.fnum.utils.Chunks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+/**
+ * @class MatrixFactory
+ * @brief Parallel, reproducible generation of random and structured test matrices.
+ *
+ * The rows (columns for band matrices) are split into tiles of
+ * {@value #TILE} and every tile draws from its own {@link SplittableRandom}
+ * stream. The streams are split off a root generator seeded with the
+ * given seed in tile order before any work starts, so the tiles can be
+ * filled by any number of threads in any order and the same seed always
+ * yields the same matrix.
+ *
+ * <ul>
+ *   <li>{@link #random}, {@link #gaussian}: dense, uniform in [-1, 1) or standard normal</li>
+ *   <li>{@link #sparse}: sparse with a given probability of an entry</li>
+ *   <li>{@link #symmetricPositiveDefinite}: dense SPD, strictly diagonally dominant</li>
+ *   <li>{@link #banded}: band matrix, strictly diagonally dominant</li>
+ *   <li>{@link #orthogonal}: orthogonal, distributed uniformly (Haar measure)</li>
+ *   <li>{@link #withConditionNumber}: U · Σ · V^T with geometrically spaced singular values</li>
+ * </ul>
+ */
+public final class MatrixFactory {
+
+    /** Rows or columns per random stream */
+    static final int TILE = 64;
+
+    /**
+     * Kernel filling one tile from its own stream.
+     */
+    @FunctionalInterface
+    private interface TileKernel {
+        void fill(int tile, int from, int to, SplittableRandom random);
+    }
+
+    private MatrixFactory() {
+    }
+
+    /**
+     * Runs the kernel over [0, count) in tiles of {@value #TILE}, in parallel.
+     */
+    private static void forEachTile(int count, long seed, TileKernel kernel) {
+        int tiles = (count + TILE - 1) / TILE;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[tiles];
+        for (int t = 0; t < tiles; t++)
+            streams[t] = root.split();
+        Chunks.forEach(tiles, 1, (from, to) -> {
+            for (int t = from; t < to; t++)
+                kernel.fill(t, t * TILE, Math.min(count, (t + 1) * TILE), streams[t]);
+        });
+    }
+
+    /**
+     * Generates a dense matrix with entries uniform in [-1, 1).
+     *
+     * @param n Number of rows
+     * @param m Number of columns
+     * @param seed Seed of the random streams
+     * @return New matrix
+     *
+     * @pre n > 0 && m > 0
+     */
+    public static Matrix random(int n, int m, long seed) {
+        assert n > 0 && m > 0;
+        double[][] data = new double[n][m];
+        forEachTile(n, seed, (tile, from, to, random) -> {
+            for (int i = from; i < to; i++) {
+                double[] row = data[i];
+                for (int j = 0; j < m; j++)
+                    row[j] = 2 * random.nextDouble() - 1;
+            }
+        });
+        return new Matrix(data);
+    }
+
+    /**
+     * Generates a dense matrix with standard normal entries.
+     *
+     * @param n Number of rows
+     * @param m Number of columns
+     * @param seed Seed of the random streams
+     * @return New matrix
+     *
+     * @pre n > 0 && m > 0
+     */
+    public static Matrix gaussian(int n, int m, long seed) {
+        assert n > 0 && m > 0;
+        double[][] data = new double[n][m];
+        forEachTile(n, seed, (tile, from, to, random) -> {
+            for (int i = from; i < to; i++) {
+                double[] row = data[i];
+                for (int j = 0; j < m; j += 2) {
+                    // Marsaglia's polar method, two normal numbers per accepted pair
+                    double u, v, s;
+                    do {
+                        u = 2 * random.nextDouble() - 1;
+                        v = 2 * random.nextDouble() - 1;
+                        s = u * u + v * v;
+                    } while (s >= 1 || s == 0);
+                    double f = Math.sqrt(-2 * Math.log(s) / s);
+                    row[j] = u * f;
+                    if (j + 1 < m)
+                        row[j + 1] = v * f;
+                }
+            }
+        });
+        return new Matrix(data);
+    }
+
+    /**
+     * Generates a sparse matrix in which every entry is present with the
+     * given probability and then uniform in [-1, 1). The positions are
+     * drawn by geometric skips, so the cost is O(n + nnz), not O(n · m).
+     *
+     * @param n Number of rows
+     * @param m Number of columns
+     * @param density Probability of an entry, in (0, 1]
+     * @param seed Seed of the random streams
+     * @return New sparse matrix
+     *
+     * @throws IllegalArgumentException if the density is not in (0, 1]
+     *
+     * @pre n > 0 && m > 0
+     */
+    public static SparseMatrix sparse(int n, int m, double density, long seed) {
+        assert n > 0 && m > 0;
+        if (!(density > 0 && density <= 1))
+            throw new IllegalArgumentException("The density has to lie in (0, 1]");
+
+        int tiles = (n + TILE - 1) / TILE;
+        int[][] columns = new int[tiles][];
+        double[][] values = new double[tiles][];
+        int[] counts = new int[n];
+        double logSkip = Math.log1p(-density);
+        forEachTile(n, seed, (tile, from, to, random) -> {
+            int capacity = Math.max(16, (int) Math.min(Integer.MAX_VALUE - 8, (long) (1.2 * density * m * (to - from)) + 16));
+            int[] c = new int[capacity];
+            double[] v = new double[capacity];
+            int nnz = 0;
+            for (int i = from; i < to; i++) {
+                int j = -1;
+                while (true) {
+                    j += density == 1 ? 1 : 1 + (int) Math.min(m, Math.floor(Math.log(1 - random.nextDouble()) / logSkip));
+                    if (j >= m)
+                        break;
+                    if (nnz == c.length) {
+                        c = Arrays.copyOf(c, 2 * nnz);
+                        v = Arrays.copyOf(v, 2 * nnz);
+                    }
+                    c[nnz] = j;
+                    v[nnz++] = 2 * random.nextDouble() - 1;
+                    counts[i]++;
+                }
+            }
+            columns[tile] = Arrays.copyOf(c, nnz);
+            values[tile] = Arrays.copyOf(v, nnz);
+        });
+
+        long total = 0;
+        for (int[] c : columns)
+            total += c.length;
+        if (total > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The matrix does not fit into one array");
+        int[] rows = new int[(int) total], cols = new int[(int) total];
+        double[] entries = new double[(int) total];
+        int e = 0, row = 0;
+        for (int t = 0; t < tiles; t++) {
+            System.arraycopy(columns[t], 0, cols, e, columns[t].length);
+            System.arraycopy(values[t], 0, entries, e, values[t].length);
+            for (int end = Math.min(n, (t + 1) * TILE); row < end; row++)
+                for (int k = 0; k < counts[row]; k++)
+                    rows[e++] = row;
+        }
+        return SparseMatrix.fromTriplets(n, m, rows, cols, entries);
+    }
+
+    /**
+     * Generates a symmetric positive definite matrix (B + B^T) / 2 + n · I
+     * with B uniform in [-1, 1). It is strictly diagonally dominant, so
+     * its condition number stays below 3 whatever n.
+     *
+     * @param n Dimension
+     * @param seed Seed of the random streams
+     * @return New SPD matrix
+     *
+     * @pre n > 0
+     */
+    public static Matrix symmetricPositiveDefinite(int n, long seed) {
+        Matrix B = random(n, n, seed);
+        double[][] b = B.getData();
+        double[][] data = new double[n][n];
+        Chunks.forEach(n, TILE, (from, to) -> {
+            for (int i = from; i < to; i++)
+                for (int j = 0; j < n; j++)
+                    data[i][j] = 0.5 * (b[i][j] + b[j][i]) + (i == j ? n : 0);
+        });
+        return new Matrix(data);
+    }
+
+    /**
+     * Generates a band matrix with off-diagonal entries uniform in [-1, 1)
+     * and diagonal entries kl + ku + 1 plus uniform noise in [-1, 1), which
+     * makes it strictly diagonally dominant by column.
+     *
+     * @param n Dimension
+     * @param kl Number of sub-diagonals
+     * @param ku Number of super-diagonals
+     * @param seed Seed of the random streams
+     * @return New band matrix
+     *
+     * @throws IllegalArgumentException if a bandwidth is negative or not smaller than n
+     */
+    public static BandedMatrix banded(int n, int kl, int ku, long seed) {
+        BandedMatrix A = new BandedMatrix(n, kl, ku);
+        forEachTile(n, seed, (tile, from, to, random) -> {
+            for (int j = from; j < to; j++)
+                for (int i = Math.max(0, j - ku); i <= Math.min(n - 1, j + kl); i++)
+                    A.setEntry(i, j, 2 * random.nextDouble() - 1 + (i == j ? kl + ku + 1 : 0));
+        });
+        return A;
+    }
+
+    /**
+     * Generates an orthogonal matrix distributed uniformly over the
+     * orthogonal group: the factor Q of a Gaussian matrix with the signs
+     * of its columns chosen so that R has a positive diagonal (Mezzadri).
+     *
+     * @param n Dimension
+     * @param seed Seed of the random streams
+     * @return New orthogonal matrix
+     *
+     * @pre n > 0
+     */
+    public static Matrix orthogonal(int n, long seed) {
+        QRDecomposition qr = new QRDecomposition(gaussian(n, n, seed));
+        Matrix Q = qr.getQ(), R = qr.getR();
+        double[][] q = Q.getData();
+        for (int j = 0; j < n; j++)
+            if (R.getEntry(j, j) < 0)
+                for (int i = 0; i < n; i++)
+                    q[i][j] = -q[i][j];
+        Q.modified();
+        return Q;
+    }
+
+    /**
+     * Generates a matrix U · Σ · V^T with random orthogonal U and V and
+     * singular values spaced geometrically from 1 down to 1 / condition,
+     * so its 2-norm condition number is the given one.
+     *
+     * @param n Dimension
+     * @param condition 2-norm condition number, at least 1
+     * @param seed Seed of the random streams
+     * @return New matrix
+     *
+     * @throws IllegalArgumentException if the condition number is smaller than 1
+     *
+     * @pre n > 0
+     */
+    public static Matrix withConditionNumber(int n, double condition, long seed) {
+        if (!(condition >= 1))
+            throw new IllegalArgumentException("The condition number has to be at least 1");
+
+        SplittableRandom root = new SplittableRandom(seed);
+        Matrix U = orthogonal(n, root.nextLong()), V = orthogonal(n, root.nextLong());
+        double[][] u = U.getData();
+        for (int j = 0; j < n; j++) {
+            double sigma = n == 1 ? 1 : Math.pow(condition, -(double) j / (n - 1));
+            for (int i = 0; i < n; i++)
+                u[i][j] *= sigma;
+        }
+        U.modified();
+        V.transpose();
+        return U.multiply(V);
+    }
+}
@@ -2,6 +2,8 @@ package de.home_skrobanek.fnum.matrix;
 
 import de.home_skrobanek.fnum.exception.SameDimensionsException;
 
+import java.util.Arrays;
+
 public class MatrixOperations {
 
     public static Matrix makeIdentity(Matrix A){
@@ -10,41 +12,57 @@ public class MatrixOperations {
         if(A.getColumnCount() != A.getRowCount())
             throw new SameDimensionsException();
 
-        for(int x = 0; x < A.getColumnCount(); x++){
-            for(int y = 0; y < A.getRowCount(); y++){
-                if(x==y)
-                    A.setEntry(x,y, 1);
-                else
-                    A.setEntry(x, y, 0);
-            }
+        double[][] data = A.getData();
+        for(int i = 0; i < data.length; i++){
+            Arrays.fill(data[i], 0);
+            data[i][i] = 1;
         }
+        A.modified();
         return A;
     }
 
     public static Matrix makeIdentity(int n, int m){
         Matrix A = new Matrix(n, m);
-        for(int x = 0; x < A.getColumnCount(); x++){
-            for(int y = 0; y < A.getRowCount(); y++){
-                if(x==y)
-                    A.setEntry(x,y, 1);
-                else
-                    A.setEntry(x, y, 0);
-            }
-        }
+        double[][] data = A.getData();
+        for(int i = 0; i < Math.min(n, m); i++)
+            data[i][i] = 1;
         return A;
     }
 
     public static Matrix addMatrix(Matrix A, Matrix B){
         assert A.getRowCount() == B.getRowCount() && A.getColumnCount() == B.getColumnCount();
 
-        Matrix solution = new Matrix(A.getColumnCount(), A.getRowCount());
-        for(int x = 0; x < A.getColumnCount(); x++){
-            for(int y = 0; y < A.getRowCount(); y++){
-                solution.setEntry(x, y, A.getEntry(x, y)+B.getEntry(x,y));
+        return addMatrix(A, B, new Matrix(A.getRowCount(), A.getColumnCount()));
+    }
+
+    /**
+     * Adds two matrices into a given result matrix.
+     *
+     * {@code out} may be A or B for an in-place addition.
+     *
+     * @param A First summand
+     * @param B Second summand
+     * @param out Matrix receiving A + B
+     * @return {@code out}
+     *
+     * @throws SameDimensionsException if the matrices do not have the same dimensions
+     */
+    public static Matrix addMatrix(Matrix A, Matrix B, Matrix out){
+        if(A.getRowCount() != B.getRowCount() || A.getColumnCount() != B.getColumnCount()
+                || A.getRowCount() != out.getRowCount() || A.getColumnCount() != out.getColumnCount())
+            throw new SameDimensionsException();
+
+        double[][] a = A.getData();
+        double[][] b = B.getData();
+        double[][] c = out.getData();
+        for(int x = 0; x < A.getRowCount(); x++){
+            for(int y = 0; y < A.getColumnCount(); y++){
+                c[x][y] = a[x][y] + b[x][y];
             }
         }
+        out.modified();
 
-        return solution;
+        return out;
     }
 
     public static Matrix multiplyMatrix(Matrix A, Matrix B){
@@ -0,0 +1,262 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class OutOfCoreLUDecomposition
+ * @brief Computes the LU decomposition of a matrix stored in a {@link TiledMatrixFile}.
+ *
+ * The right-looking tiled algorithm overwrites the file with L (unit
+ * diagonal not stored) below and R on and above the diagonal. Step k
+ * decomposes the diagonal tile, solves the tiles right of and below it
+ * with its factors and updates the trailing tiles by
+ * A_ij -= L_ik · R_kj. Every update touches three tiles; the tiles of the
+ * next update are prefetched while the current one is computed.
+ *
+ * <p>Like {@link LUDecomposition} this does not pivot, the matrix should
+ * be diagonally dominant or positive definite.</p>
+ */
+public class OutOfCoreLUDecomposition {
+
+    /** Matrix decomposed in place */
+    private final TiledMatrixFile A;
+
+    /** Whether {@link #execute(double)} has completed */
+    private boolean executed = false;
+
+    /**
+     * Constructs the decomposition object for a square matrix on disk.
+     *
+     * @param A Square matrix to decompose, overwritten by {@link #execute(double)}
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public OutOfCoreLUDecomposition(TiledMatrixFile A) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+        this.A = A;
+    }
+
+    /**
+     * Executes the decomposition in place.
+     *
+     * @param abs Minimum allowed pivot value. If any diagonal entry of R
+     *            is smaller in absolute value than this threshold,
+     *            the matrix is considered singular.
+     *
+     * @throws ArithmeticException if a pivot element is below the threshold
+     */
+    public void execute(double abs) {
+        executed = false;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        TileCache cache = A.getCache();
+        int t = A.getTileSize(), tiles = A.getTileRowCount(), n = A.getRowCount();
+
+        for (int k = 0; k < tiles; k++) {
+            int d = A.extent(k, n);
+            double[] D = cache.acquire(k, k);
+            try {
+                factor(D, t, d, abs);
+            } finally {
+                cache.release(k, k, true);
+            }
+            if (k + 1 < tiles)
+                cache.prefetch(k, k + 1);
+
+            D = cache.acquire(k, k);
+            for (int j = k + 1; j < tiles; j++) {
+                if (j + 1 < tiles)
+                    cache.prefetch(k, j + 1);
+                else if (k + 1 < tiles)
+                    cache.prefetch(k + 1, k);
+                solveLower(D, cache.acquire(k, j), t, d, A.extent(j, n));
+                cache.release(k, j, true);
+            }
+            for (int i = k + 1; i < tiles; i++) {
+                if (i + 1 < tiles)
+                    cache.prefetch(i + 1, k);
+                solveUpper(D, cache.acquire(i, k), t, d, A.extent(i, n));
+                cache.release(i, k, true);
+            }
+            cache.release(k, k, false);
+
+            // Trailing update, row by row of tiles
+            for (int i = k + 1; i < tiles; i++) {
+                double[] Lik = cache.acquire(i, k);
+                for (int j = k + 1; j < tiles; j++) {
+                    if (j + 1 < tiles) {
+                        cache.prefetch(i, j + 1);
+                        cache.prefetch(k, j + 1);
+                    } else if (i + 1 < tiles) {
+                        cache.prefetch(i + 1, k);
+                        cache.prefetch(i + 1, k + 1);
+                    }
+                    double[] Rkj = cache.acquire(k, j);
+                    GemmKernel.multiplyAdd(Lik, Rkj, cache.acquire(i, j), t, -1);
+                    cache.release(i, j, true);
+                    cache.release(k, j, false);
+                }
+                cache.release(i, k, false);
+            }
+        }
+        executed = true;
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_EXECUTE, 2L * n * n * n / 3, 8L * n * n * (tiles + 1), start);
+    }
+
+    /**
+     * Returns the determinant of the decomposed matrix, the product of the
+     * diagonal of R.
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public double getDeterminant() {
+        checkExecuted();
+        TileCache cache = A.getCache();
+        int t = A.getTileSize(), n = A.getRowCount();
+        double det = 1;
+        for (int k = 0; k < A.getTileRowCount(); k++) {
+            double[] D = cache.acquire(k, k);
+            for (int i = 0; i < A.extent(k, n); i++)
+                det *= D[i * t + i];
+            cache.release(k, k, false);
+        }
+        return det;
+    }
+
+    /**
+     * Solves A * x = b with the decomposition, reading every tile twice
+     * at most.
+     *
+     * @param b Right-hand side of length n
+     * @param x Array of length n receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    public double[] solve(double[] b, double[] x) {
+        checkExecuted();
+        int n = A.getRowCount();
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        TileCache cache = A.getCache();
+        int t = A.getTileSize(), tiles = A.getTileRowCount();
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+
+        // Forward substitution with L
+        for (int i = 0; i < tiles; i++) {
+            int r = A.extent(i, n);
+            for (int j = 0; j <= i; j++) {
+                if (j < i)
+                    cache.prefetch(i, j + 1);
+                double[] T = cache.acquire(i, j);
+                int c = A.extent(j, n);
+                for (int p = 0; p < r; p++) {
+                    double sum = 0;
+                    int limit = j == i ? p : c;
+                    for (int q = 0; q < limit; q++)
+                        sum += T[p * t + q] * x[j * t + q];
+                    x[i * t + p] -= sum;
+                }
+                cache.release(i, j, false);
+            }
+        }
+
+        // Backward substitution with R
+        for (int i = tiles - 1; i >= 0; i--) {
+            int r = A.extent(i, n);
+            for (int j = tiles - 1; j >= i; j--) {
+                if (j > i)
+                    cache.prefetch(i, j - 1);
+                double[] T = cache.acquire(i, j);
+                int c = A.extent(j, n);
+                if (j > i) {
+                    for (int p = 0; p < r; p++) {
+                        double sum = 0;
+                        for (int q = 0; q < c; q++)
+                            sum += T[p * t + q] * x[j * t + q];
+                        x[i * t + p] -= sum;
+                    }
+                } else {
+                    for (int p = r - 1; p >= 0; p--) {
+                        double sum = x[i * t + p];
+                        for (int q = p + 1; q < r; q++)
+                            sum -= T[p * t + q] * x[i * t + q];
+                        x[i * t + p] = sum / T[p * t + p];
+                    }
+                }
+                cache.release(i, j, false);
+            }
+        }
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_SOLVE, 2L * n * n, 8L * n * n, start);
+        return x;
+    }
+
+    /**
+     * Solves A * x = b with the decomposition.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public Vector solve(Vector b) {
+        double[] x = new double[b.size()];
+        for (int i = 0; i < x.length; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    /** Decomposes the leading d x d block of a tile in place */
+    private static void factor(double[] D, int t, int d, double abs) {
+        for (int k = 0; k < d; k++) {
+            double pivot = D[k * t + k];
+            if (Math.abs(pivot) < abs || pivot == 0)
+                throw new ArithmeticException("Matrix is singular");
+            for (int i = k + 1; i < d; i++) {
+                double l = D[i * t + k] /= pivot;
+                if (l == 0)
+                    continue;
+                for (int j = k + 1; j < d; j++)
+                    D[i * t + j] -= l * D[k * t + j];
+            }
+        }
+    }
+
+    /** Computes X = L^-1 · X for the unit lower factor of D, c columns of X */
+    private static void solveLower(double[] D, double[] X, int t, int d, int c) {
+        for (int i = 1; i < d; i++)
+            for (int k = 0; k < i; k++) {
+                double l = D[i * t + k];
+                if (l == 0)
+                    continue;
+                for (int j = 0; j < c; j++)
+                    X[i * t + j] -= l * X[k * t + j];
+            }
+    }
+
+    /** Computes Y = Y · R^-1 for the upper factor of D, r rows of Y */
+    private static void solveUpper(double[] D, double[] Y, int t, int d, int r) {
+        for (int p = 0; p < r; p++)
+            for (int j = 0; j < d; j++) {
+                double sum = Y[p * t + j];
+                for (int k = 0; k < j; k++)
+                    sum -= Y[p * t + k] * D[k * t + j];
+                Y[p * t + j] = sum / D[j * t + j];
+            }
+    }
+
+    private void checkExecuted() {
+        if (!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+    }
+}
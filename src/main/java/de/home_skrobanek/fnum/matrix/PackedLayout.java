@@ -0,0 +1,98 @@
+package de.home_skrobanek.fnum.matrix;
+/**
+ * @class PackedLayout
+ * @brief Addresses the lower triangle of an n x n matrix in a {@link PackedStorage} scheme.
+ *
+ * Column j of the triangle, the entries (i, j) with i >= j, is always the
+ * arithmetic progression {@code start(j) + (i - j) · stride(j)}, so the
+ * kernels walk the columns without evaluating the index function per entry.
+ */
+final class PackedLayout {
+
+    /** Dimension */
+    final int n;
+
+    /** Storage scheme */
+    final PackedStorage storage;
+
+    /** RFP: number of leading columns stored in place */
+    private final int k;
+
+    /** RFP: leading dimension of the rectangle */
+    private final int ld;
+
+    /** RFP: offset of the leading columns, 1 if the trailing diagonal lies above them */
+    private final int leadingOffset;
+
+    /** RFP: offset of the trailing triangle, one column if it lies right of the leading diagonal */
+    private final int trailingOffset;
+
+    /**
+     * @throws IllegalArgumentException if the triangle exceeds the size of an array
+     */
+    PackedLayout(int n, PackedStorage storage) {
+        assert n > 0;
+        if ((long) n * (n + 1) / 2 > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The triangle does not fit into one array");
+        this.n = n;
+        this.storage = storage;
+        if (n % 2 == 0) {
+            // (n + 1) x n/2, the trailing diagonal occupies row 0
+            k = n / 2;
+            ld = n + 1;
+            leadingOffset = 1;
+            trailingOffset = 0;
+        } else {
+            // n x (n + 1)/2, the trailing triangle starts in column 1
+            k = n / 2 + 1;
+            ld = n;
+            leadingOffset = 0;
+            trailingOffset = n;
+        }
+    }
+
+    /**
+     * Returns the number of stored entries.
+     */
+    int length() {
+        return (int) ((long) n * (n + 1) / 2);
+    }
+
+    /**
+     * Returns the position of (i, j) with i >= j.
+     */
+    int index(int i, int j) {
+        assert i >= j;
+        return start(j) + (i - j) * stride(j);
+    }
+
+    /**
+     * Returns the position of the diagonal entry (j, j).
+     */
+    int start(int j) {
+        if (storage == PackedStorage.PACKED)
+            return (int) ((long) j * (2 * n - j + 1) / 2);
+        if (j < k)
+            return leadingOffset + j * (ld + 1);
+        // Trailing triangle, stored transposed at the top of the rectangle
+        return trailingOffset + (j - k) * (ld + 1);
+    }
+
+    /**
+     * Returns the distance between (i, j) and (i + 1, j).
+     */
+    int stride(int j) {
+        return storage == PackedStorage.PACKED || j < k ? 1 : ld;
+    }
+
+    /**
+     * Computes y += a · x over the first m entries, the row update of all
+     * packed kernels. Skips zero multipliers like the reference BLAS.
+     */
+    static void axpy(double a, double[] x, double[] y, int m) {
+        if (a == 0)
+            return;
+        for (int k = 0; k < m; k++)
+            y[k] += a * x[k];
+    }
+}
@@ -0,0 +1,26 @@
+package de.home_skrobanek.fnum.matrix;
+/**
+ * @class PackedStorage
+ * @brief Storage schemes for the triangle of {@link TriangularMatrix} and {@link SymmetricMatrix}.
+ *
+ * Both schemes keep the n(n+1)/2 entries of one triangle in a flat array,
+ * half the memory of dense storage.
+ */
+public enum PackedStorage {
+
+    /**
+     * Columns of the lower triangle one after another, as in LAPACK's
+     * packed format: {@code A(i, j)} is stored at {@code i + j(2n - j - 1)/2}.
+     * Every column is contiguous.
+     */
+    PACKED,
+
+    /**
+     * Rectangular full packed format of LAPACK (lower, not transposed).
+     * The trailing triangle is stored transposed next to the leading one,
+     * so the triangle fills a rectangle of n(n+1)/2 entries. Every column
+     * is a run with constant stride: the leading columns are contiguous,
+     * the trailing ones have the stride of the rectangle.
+     */
+    RECTANGULAR_FULL_PACKED
+}
@@ -0,0 +1,340 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.Chunks;
+import de.home_skrobanek.fnum.utils.DoublePair;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class PivotedLUDecomposition
+ * @brief Computes the LU decomposition of a square matrix with partial pivoting.
+ *
+ * Decomposes P · A = L · R, choosing the largest entry of each column as
+ * pivot like LAPACK's getrf. L (without its unit diagonal) and R share one
+ * dense array; row interchanges swap row references only. The updates of
+ * the rows below the pivot run in parallel.
+ *
+ * <p>In contrast to {@link LUDecomposition} no diagonal dominance is
+ * required, so this is the decomposition {@link Matrix#solve(Vector)},
+ * {@link Matrix#getDet()} and {@link Matrix#inverse()} fall back to.</p>
+ */
+public class PivotedLUDecomposition implements Factorization {
+
+    /** Matrix to decompose, {@code null} for cached decompositions */
+    private final Matrix A;
+
+    /** Dimension */
+    private final int n;
+
+    /** L below and R on and above the diagonal, rows in pivot order */
+    private final double[][] factors;
+
+    /** Row interchanged with row k in step k */
+    private final int[] pivots;
+
+    /** Whether {@link #execute(double)} has completed */
+    private boolean executed = false;
+
+    /**
+     * Constructs the decomposition object for a square matrix.
+     *
+     * @param A Square matrix to decompose
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public PivotedLUDecomposition(Matrix A) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        this.A = A;
+        this.n = A.getRowCount();
+        this.factors = new double[n][n];
+        this.pivots = new int[n];
+    }
+
+    /**
+     * Decomposes A without keeping a reference to it, so the
+     * {@link FactorizationCache} does not keep A alive.
+     */
+    private PivotedLUDecomposition(int n) {
+        this.A = null;
+        this.n = n;
+        this.factors = new double[n][n];
+        this.pivots = new int[n];
+    }
+
+    static PivotedLUDecomposition decompose(Matrix A, double abs) {
+        PivotedLUDecomposition lu = new PivotedLUDecomposition(A.getRowCount());
+        lu.execute(A.getData(), abs);
+        return lu;
+    }
+
+    /**
+     * Executes the decomposition.
+     *
+     * @param abs Minimum allowed absolute value of the chosen pivot. If the
+     *            largest candidate of a column is smaller, the matrix is
+     *            considered singular.
+     *
+     * @throws ArithmeticException if a pivot element is below the threshold
+     */
+    public void execute(double abs) {
+        execute(A.getData(), abs);
+    }
+
+    private void execute(double[][] a, double abs) {
+        executed = false;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        for (int i = 0; i < n; i++)
+            System.arraycopy(a[i], 0, factors[i], 0, n);
+
+        for (int k = 0; k < n; k++) {
+            int p = k;
+            double max = Math.abs(factors[k][k]);
+            for (int i = k + 1; i < n; i++) {
+                double candidate = Math.abs(factors[i][k]);
+                if (candidate > max) {
+                    max = candidate;
+                    p = i;
+                }
+            }
+            pivots[k] = p;
+            if (max < abs || max == 0)
+                throw new ArithmeticException("Matrix is singular");
+
+            double[] pivotRow = factors[p];
+            factors[p] = factors[k];
+            factors[k] = pivotRow;
+
+            int step = k;
+            double pivot = pivotRow[k];
+            Chunks.forEach(n - k - 1, Math.max(1, Chunks.DEFAULT_CHUNK / (n - k)), (from, to) -> {
+                for (int i = step + 1 + from; i < step + 1 + to; i++) {
+                    double[] row = factors[i];
+                    double l = row[step] / pivot;
+                    row[step] = l;
+                    if (l != 0)
+                        for (int j = step + 1; j < n; j++)
+                            row[j] -= l * pivotRow[j];
+                }
+            });
+        }
+        executed = true;
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_EXECUTE, 2L * n * n * n / 3, 16L * n * n, start);
+    }
+
+    /**
+     * Returns the row interchanges.
+     *
+     * @return Array p where row k was interchanged with row p[k] in step k
+     */
+    public int[] getPivots() {
+        return pivots.clone();
+    }
+
+    /**
+     * Returns the determinant of A.
+     *
+     * @return Product of the pivots, with the sign of the interchanges
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    @Override
+    public double getDeterminant() {
+        requireExecuted();
+        double det = 1;
+        for (int k = 0; k < n; k++) {
+            det *= factors[k][k];
+            if (pivots[k] != k)
+                det = -det;
+        }
+        return det;
+    }
+
+    /**
+     * Returns the sign and the natural logarithm of the absolute value of
+     * the determinant, which do not overflow or underflow for large n
+     * like the determinant itself.
+     *
+     * @return Pair (sign, log|det A|) with sign -1, 0 or 1; log|det A| is
+     *         -Infinity for a singular matrix
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public DoublePair getLogDeterminant() {
+        requireExecuted();
+        double sign = 1, log = 0;
+        for (int k = 0; k < n; k++) {
+            double d = factors[k][k];
+            if (d == 0)
+                return new DoublePair(0, Double.NEGATIVE_INFINITY);
+            if (d < 0 ^ pivots[k] != k)
+                sign = -sign;
+            log += Math.log(Math.abs(d));
+        }
+        return new DoublePair(sign, log);
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return 8L * n * n + 4L * n;
+    }
+
+    /**
+     * Solves the linear system A * x = b.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public Vector solve(Vector b) {
+        if (b.size() != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    /**
+     * Solves the linear system A * x = b into a caller-provided array.
+     *
+     * Only reads the factors, so concurrent solves are safe.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    @Override
+    public double[] solve(double[] b, double[] x) {
+        requireExecuted();
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+        return solveInPlace(x);
+    }
+
+    /**
+     * Solves A * x = b in place on the first n entries of x, which may be
+     * longer like a buffer borrowed from the workspace.
+     *
+     * @param x Right-hand side on input, solution on output
+     * @return {@code x}
+     *
+     * @pre executed
+     * @pre x.length >= n
+     */
+    double[] solveInPlace(double[] x) {
+        assert executed && x.length >= n;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        for (int k = 0; k < n; k++) {
+            int p = pivots[k];
+            if (p != k) {
+                double tmp = x[p];
+                x[p] = x[k];
+                x[k] = tmp;
+            }
+        }
+
+        // Forward substitution L * y = P * b, row by row
+        for (int i = 1; i < n; i++) {
+            double[] row = factors[i];
+            double sum = x[i];
+            for (int j = 0; j < i; j++)
+                sum -= row[j] * x[j];
+            x[i] = sum;
+        }
+
+        // Backward substitution R * x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double[] row = factors[i];
+            double sum = x[i];
+            for (int j = i + 1; j < n; j++)
+                sum -= row[j] * x[j];
+            x[i] = sum / row[i];
+        }
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_SOLVE, 2L * n * n, 8L * n * (n + 2), start);
+        return x;
+    }
+
+    /**
+     * Solves the linear system A^T * x = b into a caller-provided array.
+     *
+     * With P · A = L · R this solves R^T · L^T · (P · x) = b and undoes the
+     * interchanges in reverse order.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    @Override
+    public double[] solveTransposed(double[] b, double[] x) {
+        requireExecuted();
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+
+        // R^T * w = b, row i of R is column i of R^T
+        for (int i = 0; i < n; i++) {
+            double[] row = factors[i];
+            double wi = x[i] / row[i];
+            x[i] = wi;
+            for (int j = i + 1; j < n; j++)
+                x[j] -= row[j] * wi;
+        }
+
+        // L^T * v = w
+        for (int i = n - 1; i > 0; i--) {
+            double[] row = factors[i];
+            double vi = x[i];
+            for (int j = 0; j < i; j++)
+                x[j] -= row[j] * vi;
+        }
+
+        for (int k = n - 1; k >= 0; k--) {
+            int p = pivots[k];
+            if (p != k) {
+                double tmp = x[p];
+                x[p] = x[k];
+                x[k] = tmp;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Estimates the condition number of A in the 1-norm in O(n^2).
+     *
+     * @return Estimate of ||A||_1 · ||A^-1||_1, never larger than the
+     *         condition number and usually within a factor of 3
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @see ConditionEstimator
+     */
+    public double estimateConditionNumber() {
+        requireExecuted();
+        if (A == null)
+            throw new IllegalStateException("The decomposed matrix is not available");
+        return ConditionEstimator.norm1(A.getData(), n) * ConditionEstimator.estimateInverseNorm1(this, n);
+    }
+
+    private void requireExecuted() {
+        if (!executed)
+            throw new IllegalStateException("The decomposition has to be executed first");
+    }
+}
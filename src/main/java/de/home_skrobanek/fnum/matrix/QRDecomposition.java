@@ -0,0 +1,361 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class QRDecomposition
+ * @brief Computes the QR decomposition of a matrix and keeps it up to date.
+ *
+ * Decomposes an m x n matrix A = Q · R with an orthogonal m x m matrix Q
+ * and an upper trapezoidal m x n matrix R by Householder reflections.
+ * Both factors are stored explicitly, so rows and columns of A can be
+ * inserted and deleted afterwards by Givens rotations as described by
+ * Golub and Van Loan, section 12.5:
+ *
+ * <ul>
+ *   <li>{@link #insertRow(int, double[])} in O(m^2 + (m + n) · n)</li>
+ *   <li>{@link #deleteRow(int)} in O(m · (m + n))</li>
+ *   <li>{@link #insertColumn(int, double[])} in O(m · (m + n))</li>
+ *   <li>{@link #deleteColumn(int)} in O((m + n) · n)</li>
+ * </ul>
+ *
+ * instead of O(m · n^2) for a new decomposition. This is the usual tool
+ * for sliding-window least squares and active-set methods.
+ */
+public class QRDecomposition {
+
+    /** Orthogonal factor, m x m */
+    private double[][] Q;
+
+    /** Upper trapezoidal factor, m x n */
+    private double[][] R;
+
+    /** Number of rows of A */
+    private int m;
+
+    /** Number of columns of A */
+    private int n;
+
+    /**
+     * Computes the decomposition of A.
+     *
+     * @param A Matrix to decompose, not modified
+     */
+    public QRDecomposition(Matrix A) {
+        m = A.getRowCount();
+        n = A.getColumnCount();
+        R = new double[m][];
+        for (int i = 0; i < m; i++)
+            R[i] = A.getData()[i].clone();
+        Q = new double[m][m];
+        for (int i = 0; i < m; i++)
+            Q[i][i] = 1;
+
+        double[] v = new double[m];
+        for (int k = 0; k < Math.min(m - 1, n); k++) {
+            double norm = 0;
+            for (int i = k; i < m; i++)
+                norm = Math.hypot(norm, R[i][k]);
+            if (norm == 0)
+                continue;
+
+            // v = x + sign(x_0) ||x|| e_0 avoids cancellation
+            double alpha = R[k][k] > 0 ? -norm : norm;
+            for (int i = k; i < m; i++)
+                v[i] = R[i][k];
+            v[k] -= alpha;
+            double vv = 0;
+            for (int i = k; i < m; i++)
+                vv += v[i] * v[i];
+            if (vv == 0)
+                continue;
+
+            // R = H · R, only the columns right of k change beyond the known column k
+            for (int j = k + 1; j < n; j++) {
+                double dot = 0;
+                for (int i = k; i < m; i++)
+                    dot += v[i] * R[i][j];
+                double f = 2 * dot / vv;
+                for (int i = k; i < m; i++)
+                    R[i][j] -= f * v[i];
+            }
+            R[k][k] = alpha;
+            for (int i = k + 1; i < m; i++)
+                R[i][k] = 0;
+
+            // Q = Q · H, row by row
+            for (int i = 0; i < m; i++) {
+                double[] q = Q[i];
+                double dot = 0;
+                for (int t = k; t < m; t++)
+                    dot += q[t] * v[t];
+                double f = 2 * dot / vv;
+                for (int t = k; t < m; t++)
+                    q[t] -= f * v[t];
+            }
+        }
+    }
+
+    public int getRowCount() {
+        return m;
+    }
+
+    public int getColumnCount() {
+        return n;
+    }
+
+    /**
+     * Returns a copy of the orthogonal factor.
+     *
+     * @return m x m matrix Q
+     */
+    public Matrix getQ() {
+        return copy(Q, m, m);
+    }
+
+    /**
+     * Returns a copy of the upper trapezoidal factor.
+     *
+     * @return m x n matrix R
+     */
+    public Matrix getR() {
+        return copy(R, m, n);
+    }
+
+    /**
+     * Updates the decomposition for a new row of A inserted at position k.
+     *
+     * The new row is placed on top of R, which makes R upper Hessenberg;
+     * n rotations restore the triangle. Copying Q into the enlarged
+     * (m + 1) x (m + 1) factor costs O(m^2), the Givens sweep O((m + n) · n).
+     *
+     * @param k Position of the new row, 0 <= k <= m
+     * @param row Entries of the new row, length n
+     *
+     * @throws SameDimensionsException if the length of row does not match n
+     * @throws IndexOutOfBoundsException if k is out of range
+     */
+    public void insertRow(int k, double[] row) {
+        if (row.length != n)
+            throw new SameDimensionsException();
+        if (k < 0 || k > m)
+            throw new IndexOutOfBoundsException("Row " + k + " out of range");
+
+        double[][] q = new double[m + 1][m + 1];
+        for (int i = 0, src = 0; i <= m; i++) {
+            if (i == k) {
+                q[i][0] = 1;
+            } else {
+                System.arraycopy(Q[src], 0, q[i], 1, m);
+                src++;
+            }
+        }
+        double[][] r = new double[m + 1][];
+        r[0] = row.clone();
+        System.arraycopy(R, 0, r, 1, m);
+
+        Q = q;
+        R = r;
+        m++;
+        for (int j = 0; j < Math.min(n, m - 1); j++)
+            eliminate(j, j + 1, j);
+    }
+
+    /**
+     * Updates the decomposition for the deletion of row k of A.
+     *
+     * Rotations from the bottom reduce row k of Q to a multiple of e_0,
+     * which makes R upper Hessenberg; dropping its first row leaves the
+     * factor of the remaining rows.
+     *
+     * @param k Row to delete
+     *
+     * @throws IndexOutOfBoundsException if k is out of range
+     * @throws IllegalStateException if A has only one row
+     */
+    public void deleteRow(int k) {
+        if (k < 0 || k >= m)
+            throw new IndexOutOfBoundsException("Row " + k + " out of range");
+        if (m == 1)
+            throw new IllegalStateException("The last row cannot be deleted");
+
+        double[] qk = Q[k];
+        for (int j = m - 1; j > 0; j--) {
+            double a = qk[j - 1], b = qk[j];
+            if (b == 0)
+                continue;
+            double h = Math.hypot(a, b);
+            rotate(j - 1, j, a / h, b / h);
+        }
+
+        double[][] q = new double[m - 1][];
+        for (int i = 0, dst = 0; i < m; i++) {
+            if (i == k)
+                continue;
+            double[] shorter = new double[m - 1];
+            System.arraycopy(Q[i], 1, shorter, 0, m - 1);
+            q[dst++] = shorter;
+        }
+        double[][] r = new double[m - 1][];
+        System.arraycopy(R, 1, r, 0, m - 1);
+
+        Q = q;
+        R = r;
+        m--;
+    }
+
+    /**
+     * Updates the decomposition for a new column of A inserted at position j.
+     *
+     * The new column of R is Q^T · column; rotations from the bottom reduce
+     * it to length j + 1 and keep the shifted columns triangular.
+     *
+     * @param j Position of the new column, 0 <= j <= n
+     * @param column Entries of the new column, length m
+     *
+     * @throws SameDimensionsException if the length of column does not match m
+     * @throws IndexOutOfBoundsException if j is out of range
+     */
+    public void insertColumn(int j, double[] column) {
+        if (column.length != m)
+            throw new SameDimensionsException();
+        if (j < 0 || j > n)
+            throw new IndexOutOfBoundsException("Column " + j + " out of range");
+
+        double[] w = new double[m];
+        for (int i = 0; i < m; i++) {
+            double ci = column[i];
+            double[] qi = Q[i];
+            for (int t = 0; t < m; t++)
+                w[t] += qi[t] * ci;
+        }
+
+        for (int i = 0; i < m; i++) {
+            double[] wider = new double[n + 1];
+            System.arraycopy(R[i], 0, wider, 0, j);
+            wider[j] = w[i];
+            System.arraycopy(R[i], j, wider, j + 1, n - j);
+            R[i] = wider;
+        }
+        n++;
+        for (int i = m - 1; i > j; i--)
+            eliminate(i - 1, i, j);
+    }
+
+    /**
+     * Updates the decomposition for the deletion of column j of A.
+     *
+     * Removing the column leaves a subdiagonal in the columns right of j,
+     * which rotations of neighbouring rows eliminate.
+     *
+     * @param j Column to delete
+     *
+     * @throws IndexOutOfBoundsException if j is out of range
+     * @throws IllegalStateException if A has only one column
+     */
+    public void deleteColumn(int j) {
+        if (j < 0 || j >= n)
+            throw new IndexOutOfBoundsException("Column " + j + " out of range");
+        if (n == 1)
+            throw new IllegalStateException("The last column cannot be deleted");
+
+        for (int i = 0; i < m; i++) {
+            double[] narrower = new double[n - 1];
+            System.arraycopy(R[i], 0, narrower, 0, j);
+            System.arraycopy(R[i], j + 1, narrower, j, n - 1 - j);
+            R[i] = narrower;
+        }
+        n--;
+        for (int c = j; c < Math.min(n, m - 1); c++)
+            eliminate(c, c + 1, c);
+    }
+
+    /**
+     * Solves the least squares problem min ||A · x - b||.
+     *
+     * @param b Right-hand side of length m
+     * @return Solution of length n
+     *
+     * @throws IllegalArgumentException if m < n or the length of b does not match m
+     * @throws ArithmeticException if A does not have full column rank
+     */
+    public double[] solve(double[] b) {
+        if (m < n)
+            throw new IllegalArgumentException("The system is underdetermined");
+        if (b.length != m)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        double[] x = new double[n];
+        for (int i = 0; i < m; i++) {
+            double bi = b[i];
+            double[] qi = Q[i];
+            for (int t = 0; t < n; t++)
+                x[t] += qi[t] * bi;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double[] ri = R[i];
+            double sum = x[i];
+            for (int t = i + 1; t < n; t++)
+                sum -= ri[t] * x[t];
+            if (ri[i] == 0)
+                throw new ArithmeticException("Matrix is rank deficient");
+            x[i] = sum / ri[i];
+        }
+        return x;
+    }
+
+    /**
+     * Solves the least squares problem min ||A · x - b||.
+     *
+     * @param b Right-hand side vector of dimension m
+     * @return Solution vector of dimension n
+     *
+     * @throws IllegalArgumentException if m < n or the dimension of b does not match m
+     * @throws ArithmeticException if A does not have full column rank
+     */
+    public Vector solve(Vector b) {
+        double[] values = new double[b.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = b.getValue(i);
+        return new Vector(solve(values));
+    }
+
+    /**
+     * Zeroes R(q, col) with a rotation of the rows p and q.
+     */
+    private void eliminate(int p, int q, int col) {
+        double a = R[p][col], b = R[q][col];
+        if (b == 0)
+            return;
+        double h = Math.hypot(a, b);
+        rotate(p, q, a / h, b / h);
+        R[q][col] = 0;
+    }
+
+    /**
+     * Applies G = [c s; -s c] to the rows p, q of R and G^T to the columns
+     * p, q of Q, which keeps Q · R unchanged.
+     */
+    private void rotate(int p, int q, double c, double s) {
+        double[] rp = R[p], rq = R[q];
+        for (int t = 0; t < n; t++) {
+            double x = rp[t], y = rq[t];
+            rp[t] = c * x + s * y;
+            rq[t] = c * y - s * x;
+        }
+        for (int i = 0; i < m; i++) {
+            double[] qi = Q[i];
+            double x = qi[p], y = qi[q];
+            qi[p] = c * x + s * y;
+            qi[q] = c * y - s * x;
+        }
+    }
+
+    private static Matrix copy(double[][] data, int rows, int cols) {
+        Matrix M = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < cols; j++)
+                M.setEntry(i, j, data[i][j]);
+        return M;
+    }
+}
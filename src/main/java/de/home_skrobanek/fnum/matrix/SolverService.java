@@ -0,0 +1,307 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+/**
+ * @class SolverService
+ * @brief Solves linear systems for many concurrent clients.
+ *
+ * {@link #solve(Matrix, Vector)} returns immediately with a future. The
+ * requests are handled on lightweight threads: virtual threads if the
+ * runtime provides them (Java 21 and later), a cached thread pool
+ * otherwise. Handling covers validation, grouping and the completion of
+ * the futures, so client callbacks never run on the compute threads.
+ *
+ * <p>The decompositions and solves run on a fixed number of compute
+ * threads. Requests for the same matrix are grouped: while one batch of a
+ * matrix is solved, further requests for it are collected and solved
+ * together with a single decomposition afterwards, taken from the
+ * {@link FactorizationCache} if the matrix is unchanged. A matrix is
+ * therefore never decomposed by two threads at once, and a burst of
+ * requests costs one decomposition and one solve per right-hand side.</p>
+ *
+ * <p>At most {@code maxPending} requests are outstanding; {@code solve}
+ * blocks the caller until a request completes beyond that, which keeps a
+ * flood of requests from queueing unbounded work.</p>
+ *
+ * <p>A matrix must not be modified while requests for it are pending.</p>
+ */
+public final class SolverService implements AutoCloseable {
+
+    /**
+     * One pending system.
+     */
+    private static final class Request {
+
+        final double[] b;
+
+        final CompletableFuture<Vector> future = new CompletableFuture<>();
+
+        Request(double[] b) {
+            this.b = b;
+        }
+    }
+
+    /**
+     * Requests for one matrix waiting for the next solve.
+     */
+    private static final class Batch {
+
+        final Matrix A;
+
+        List<Request> waiting = new ArrayList<>();
+
+        Batch(Matrix A) {
+            this.A = A;
+        }
+    }
+
+    /** Threads handling requests */
+    private final ExecutorService handlers;
+
+    /** Whether the handlers are virtual threads */
+    private final boolean virtual;
+
+    /** Threads decomposing and solving */
+    private final ExecutorService compute;
+
+    private final int computeThreads;
+
+    private final int maxPending;
+
+    /** One permit per request that may still be submitted */
+    private final Semaphore permits;
+
+    /** Batches of the matrices with pending requests, guarded by itself */
+    private final IdentityHashMap<Matrix, Batch> batches = new IdentityHashMap<>();
+
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /** Guards the check of {@link #closed} together with taking a permit */
+    private final Object submission = new Object();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Constructs a service with one compute thread per processor and up to
+     * 64 pending requests per compute thread.
+     */
+    public SolverService() {
+        this(Runtime.getRuntime().availableProcessors(), 64 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a service.
+     *
+     * @param computeThreads Number of threads decomposing and solving
+     * @param maxPending Maximum number of outstanding requests
+     *
+     * @pre computeThreads > 0
+     * @pre maxPending > 0
+     */
+    public SolverService(int computeThreads, int maxPending) {
+        assert computeThreads > 0;
+        assert maxPending > 0;
+
+        this.computeThreads = computeThreads;
+        this.maxPending = maxPending;
+        this.permits = new Semaphore(maxPending);
+        this.compute = Executors.newFixedThreadPool(computeThreads, daemon("fnum-solver-"));
+
+        ExecutorService executor = null;
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            executor = (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Virtual threads are not available before Java 21
+        }
+        this.virtual = executor != null;
+        this.handlers = virtual ? executor : Executors.newCachedThreadPool(daemon("fnum-solver-handler-"));
+    }
+
+    /**
+     * Submits the system A · x = b.
+     *
+     * Blocks while the maximum number of requests is pending. The future
+     * completes with the solution, or exceptionally with an
+     * {@link IllegalArgumentException} if the dimensions do not match or
+     * an {@link ArithmeticException} if A is singular.
+     *
+     * @param A Square matrix, must not be modified until the future completes
+     * @param b Right-hand side vector, copied
+     * @return Future of the solution x
+     *
+     * @throws IllegalStateException if the service has been closed, also
+     *         if it is closed while the caller is blocked
+     */
+    public CompletableFuture<Vector> solve(Matrix A, Vector b) {
+        // close() takes all permits only after the blocked submitter got
+        // its own one, later submitters see the flag
+        synchronized (submission) {
+            if (closed)
+                throw new IllegalStateException("The service has been closed");
+            permits.acquireUninterruptibly();
+        }
+        double[] values = new double[b.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = b.getValue(i);
+        Request request = new Request(values);
+        handlers.execute(() -> enqueue(A, request));
+        return request.future;
+    }
+
+    /**
+     * Returns whether requests are handled on virtual threads.
+     */
+    public boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    public int getComputeThreads() {
+        return computeThreads;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Returns the number of submitted requests that have not completed yet.
+     */
+    public int getPendingCount() {
+        return maxPending - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of validated requests waiting for the next batch
+     * of their matrix, those of running batches excluded.
+     */
+    public int getWaitingCount() {
+        synchronized (batches) {
+            int count = 0;
+            for (Batch batch : batches.values())
+                count += batch.waiting.size();
+            return count;
+        }
+    }
+
+    /**
+     * Returns the number of batches solved so far. Each batch needed at
+     * most one decomposition, so requests per batch measures the grouping.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Stops accepting requests and waits until all pending requests have completed.
+     */
+    @Override
+    public void close() {
+        synchronized (submission) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        permits.acquireUninterruptibly(maxPending);
+        compute.shutdown();
+        handlers.shutdown();
+    }
+
+    /** Validates a request and adds it to the batch of its matrix */
+    private void enqueue(Matrix A, Request request) {
+        if (!A.isSquare()) {
+            complete(request, null, new IllegalArgumentException("Matrix must be square"));
+            return;
+        }
+        if (request.b.length != A.getRowCount()) {
+            complete(request, null, new IllegalArgumentException("The vector dimension has to match the matrix"));
+            return;
+        }
+
+        boolean start;
+        synchronized (batches) {
+            Batch batch = batches.get(A);
+            start = batch == null;
+            if (start) {
+                batch = new Batch(A);
+                batches.put(A, batch);
+            }
+            batch.waiting.add(request);
+            if (start) {
+                Batch submitted = batch;
+                compute.execute(() -> run(submitted));
+            }
+        }
+    }
+
+    /** Solves all requests collected for a matrix so far */
+    private void run(Batch batch) {
+        List<Request> requests;
+        synchronized (batches) {
+            requests = batch.waiting;
+            batch.waiting = new ArrayList<>();
+        }
+        batchCount.incrementAndGet();
+
+        Factorization factorization = null;
+        RuntimeException failure = null;
+        try {
+            factorization = batch.A.factorization();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (Request request : requests) {
+            if (failure != null) {
+                complete(request, null, failure);
+                continue;
+            }
+            double[] x = new double[request.b.length];
+            try {
+                factorization.solve(request.b, x);
+                complete(request, new Vector(x), null);
+            } catch (RuntimeException e) {
+                complete(request, null, e);
+            }
+        }
+
+        // Requests that arrived meanwhile form the next batch, queued behind other matrices
+        synchronized (batches) {
+            if (batch.waiting.isEmpty())
+                batches.remove(batch.A);
+            else
+                compute.execute(() -> run(batch));
+        }
+    }
+
+    /** Completes a request on a handler thread and frees its permit */
+    private void complete(Request request, Vector x, Throwable failure) {
+        handlers.execute(() -> {
+            if (failure == null)
+                request.future.complete(x);
+            else
+                request.future.completeExceptionally(failure);
+            permits.release();
+        });
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
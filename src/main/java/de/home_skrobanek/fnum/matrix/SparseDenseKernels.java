@@ -0,0 +1,122 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.utils.Chunks;
+
+import java.util.Arrays;
+
+/**
+ * @class SparseDenseKernels
+ * @brief Kernels combining a sparse matrix in compressed sparse row (CSR) format with dense matrices.
+ *
+ * The sparse operand is passed as its three CSR arrays: the start of every
+ * row in the index and value arrays, the column of every stored entry and
+ * its value. The kernels read and write the dense operands row by row on
+ * their storage, with the rows split over {@link Chunks}. A kernel writing
+ * a dense matrix records the change once after its parallel loop has
+ * joined. Dimensions are checked by the caller,
+ * e.g. {@link de.home_skrobanek.fnum.sparse.SparseMatrix}.
+ */
+public final class SparseDenseKernels {
+
+    private SparseDenseKernels() {
+    }
+
+    /**
+     * Computes C = alpha · A · B, or C += alpha · A · B if accumulate is set.
+     * Every row of C is the combination of the rows of B selected by the
+     * row of A, accumulated directly in the row of C.
+     *
+     * @param rowPointers Row starts of A, length n + 1
+     * @param columnIndices Columns of the entries of A
+     * @param values Values of the entries of A
+     * @param B Dense matrix with as many rows as A has columns
+     * @param C Dense n x k matrix to write
+     * @param alpha Factor of the product
+     * @param accumulate Whether to add to C instead of overwriting it
+     *
+     * @pre C.getRowCount() == rowPointers.length - 1 && C.getColumnCount() == B.getColumnCount() && B != C
+     */
+    public static void multiply(int[] rowPointers, int[] columnIndices, double[] values,
+                                Matrix B, Matrix C, double alpha, boolean accumulate) {
+        assert C.getRowCount() == rowPointers.length - 1 && C.getColumnCount() == B.getColumnCount() && B != C;
+        int k = B.getColumnCount();
+        double[][] b = B.getData(), c = C.getData();
+        Chunks.forEach(C.getRowCount(), chunk(k), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] ci = c[i];
+                if (!accumulate)
+                    Arrays.fill(ci, 0);
+                for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                    double[] bp = b[columnIndices[p]];
+                    double a = alpha * values[p];
+                    for (int j = 0; j < k; j++)
+                        ci[j] += a * bp[j];
+                }
+            }
+        });
+        C.modified();
+    }
+
+    /**
+     * Computes out[p] = values[p] · (X · Y^T)(i, j) for every stored entry
+     * p at (i, j) of A.
+     *
+     * @param rowPointers Row starts of A, length n + 1
+     * @param columnIndices Columns of the entries of A
+     * @param values Values of the entries of A
+     * @param X Dense n x k matrix
+     * @param Y Dense matrix with k columns and a row for every column of A
+     * @param out Array receiving the values in the storage order of A
+     *
+     * @pre X.getRowCount() == rowPointers.length - 1 && Y.getColumnCount() == X.getColumnCount() && out.length == rowPointers[rowPointers.length - 1]
+     */
+    public static void sampledProduct(int[] rowPointers, int[] columnIndices, double[] values,
+                                      Matrix X, Matrix Y, double[] out) {
+        assert X.getRowCount() == rowPointers.length - 1 && Y.getColumnCount() == X.getColumnCount()
+                && out.length == rowPointers[rowPointers.length - 1];
+        int k = X.getColumnCount();
+        double[][] x = X.getData(), y = Y.getData();
+        Chunks.forEach(X.getRowCount(), chunk(k), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] xi = x[i];
+                for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                    double[] yj = y[columnIndices[p]];
+                    double sum = 0;
+                    for (int t = 0; t < k; t++)
+                        sum += xi[t] * yj[t];
+                    out[p] = values[p] * sum;
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes C += alpha · A, touching only the stored entries.
+     *
+     * @param rowPointers Row starts of A, length n + 1
+     * @param columnIndices Columns of the entries of A
+     * @param values Values of the entries of A
+     * @param C Dense matrix with the dimensions of A
+     * @param alpha Factor of A
+     *
+     * @pre C.getRowCount() == rowPointers.length - 1
+     */
+    public static void addTo(int[] rowPointers, int[] columnIndices, double[] values, Matrix C, double alpha) {
+        int rows = C.getRowCount();
+        assert rows == rowPointers.length - 1;
+        double[][] c = C.getData();
+        Chunks.forEach(rows, chunk(Math.max(1, rowPointers[rows] / Math.max(1, rows))), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] ci = c[i];
+                for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++)
+                    ci[columnIndices[p]] += alpha * values[p];
+            }
+        });
+        C.modified();
+    }
+
+    /** Rows per parallel chunk for kernels doing work proportional to k per entry */
+    private static int chunk(int k) {
+        return Math.max(16, Chunks.DEFAULT_CHUNK / Math.max(1, k));
+    }
+}
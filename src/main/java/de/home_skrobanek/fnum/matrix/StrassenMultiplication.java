@@ -0,0 +1,473 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+/**
+ * @class StrassenMultiplication
+ * @brief Multiplies two matrices with the Strassen-Winograd recursion.
+ *
+ * The factors are padded into square blocks of size
+ * {@code base · 2^levels}, where {@code base <= cutoff}. Each level of the
+ * recursion replaces one block product by 7 half-sized products and 15
+ * block additions (Winograd's variant of Strassen's method). Blocks of
+ * size {@code <= cutoff} are multiplied with the tiled standard kernel
+ * used by {@link Matrix#multiply(Matrix)}.
+ *
+ * <p>All scratch memory is allocated once per {@link #execute()} in a
+ * single array. The upper {@code parallelDepth} levels run their 7
+ * subproducts as fork/join tasks; these levels need separate buffers for
+ * every subproduct, the sequential levels below reuse three temporaries.</p>
+ *
+ * <p><b>Accuracy:</b> Strassen-Winograd is not as accurate as the
+ * standard product. Only a normwise bound holds (Higham, Accuracy and
+ * Stability of Numerical Algorithms, Thm. 23.3):</p>
+ *
+ * <pre>
+ *   max|C - Ĉ| <= [(n/n0)^{log2 18} (n0^2 + 6 n0) - 6 n] · u · max|A| · max|B|
+ * </pre>
+ *
+ * <p>With {@link #setErrorCheck(boolean)} the result is verified against
+ * this bound after the multiplication with a randomized O(n^2) check.</p>
+ */
+public class StrassenMultiplication {
+
+    /** Default size below which the standard kernel is used */
+    public static final int DEFAULT_CUTOFF = 256;
+
+    /** Unit roundoff of {@code double} */
+    private static final double UNIT_ROUNDOFF = Math.ulp(1.0) / 2;
+
+    /** Left factor */
+    private Matrix A;
+
+    /** Right factor */
+    private Matrix B;
+
+    /** Result of the last execution */
+    private Matrix C;
+
+    /** Block size at which the recursion stops */
+    private int cutoff = DEFAULT_CUTOFF;
+
+    /** Number of recursion levels that run their subproducts in parallel */
+    private int parallelDepth = ForkJoinPool.getCommonPoolParallelism() > 1 ? 1 : 0;
+
+    /** Whether the result is checked against the error bound */
+    private boolean errorCheck = false;
+
+    /** Theoretical bound on max|C - Ĉ| of the last execution */
+    private double errorBound = Double.NaN;
+
+    /** Observed error estimate of the last execution */
+    private double errorEstimate = Double.NaN;
+
+    /** Padded size of the last execution */
+    private int paddedSize;
+
+    /** Block size at which the last execution stopped the recursion */
+    private int baseSize;
+
+    /**
+     * Constructs the multiplication C = A * B.
+     *
+     * @param A Left factor
+     * @param B Right factor
+     *
+     * @throws IllegalArgumentException if the column count of A does not
+     *         equal the row count of B
+     */
+    public StrassenMultiplication(Matrix A, Matrix B){
+        if(A.getColumnCount() != B.getRowCount())
+            throw new IllegalArgumentException("Column count of A must equal the row count of B");
+
+        this.A = A;
+        this.B = B;
+    }
+
+    /**
+     * Sets the block size below which the standard kernel is used.
+     *
+     * @param cutoff New cutoff
+     *
+     * @pre cutoff >= 1
+     */
+    public void setCutoff(int cutoff){
+        assert cutoff >= 1;
+        this.cutoff = cutoff;
+    }
+
+    public int getCutoff(){
+        return cutoff;
+    }
+
+    /**
+     * Sets how many of the upper recursion levels fork their 7 subproducts.
+     *
+     * Every parallel level needs 12 instead of 3 temporaries of the
+     * block size, so this trades memory for parallelism.
+     *
+     * @param parallelDepth Number of parallel levels, 0 runs sequentially
+     *
+     * @pre parallelDepth >= 0
+     */
+    public void setParallelDepth(int parallelDepth){
+        assert parallelDepth >= 0;
+        this.parallelDepth = parallelDepth;
+    }
+
+    public int getParallelDepth(){
+        return parallelDepth;
+    }
+
+    /**
+     * Enables the error-bound check mode.
+     *
+     * When enabled, {@link #execute()} compares C·r with A·(B·r) for a
+     * random vector r and throws if the deviation exceeds the error bound
+     * of the Strassen-Winograd recursion.
+     *
+     * @param errorCheck true to check every result
+     */
+    public void setErrorCheck(boolean errorCheck){
+        this.errorCheck = errorCheck;
+    }
+
+    /**
+     * Executes the multiplication.
+     *
+     * After execution, {@link #getC()} returns the product.
+     *
+     * @throws ArithmeticException if the error check is enabled and the
+     *         result violates the error bound
+     */
+    public void execute(){
+        int n = A.getRowCount();
+        int k = A.getColumnCount();
+        int m = B.getColumnCount();
+        int size = Math.max(n, Math.max(k, m));
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+
+        if(size <= cutoff){
+            C = A.multiply(B);
+            paddedSize = size;
+            baseSize = size;
+        }
+        else {
+            int levels = 0;
+            int base = size;
+            while(base > cutoff){
+                base = (base + 1) / 2;
+                levels++;
+            }
+            int N = base << levels;
+            paddedSize = N;
+            baseSize = base;
+
+            double[] a = pad(A.getData(), n, k, N);
+            double[] b = pad(B.getData(), k, m, N);
+            double[] c = new double[N * N];
+            long workSize = workspaceSize(N, parallelDepth);
+            if(workSize > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("Workspace too large, use a lower parallel depth");
+            double[] work = new double[(int) workSize];
+
+            if(parallelDepth > 0)
+                ForkJoinPool.commonPool().invoke(new Product(a, 0, N, b, 0, N, c, 0, N, N, work, 0, parallelDepth));
+            else
+                multiply(a, 0, N, b, 0, N, c, 0, N, N, work, 0, 0);
+
+            C = new Matrix(n, m);
+            double[][] data = C.getData();
+            for(int i = 0; i < n; i++)
+                System.arraycopy(c, i * N, data[i], 0, m);
+        }
+
+        if (Metrics.ENABLED) {
+            // Flops of the standard product, so rates compare to Matrix.multiply
+            int threads = paddedSize > baseSize && parallelDepth > 0 ? ForkJoinPool.getCommonPoolParallelism() : 1;
+            Metrics.record(Operation.STRASSEN_MULTIPLY, 2L * n * k * m, 8L * ((long) n * k + (long) k * m + (long) n * m), start, threads);
+        }
+
+        errorBound = computeErrorBound();
+        errorEstimate = Double.NaN;
+        if(errorCheck){
+            errorEstimate = estimateError();
+            if(errorEstimate > errorBound)
+                throw new ArithmeticException("Strassen result exceeds its error bound");
+        }
+    }
+
+    /**
+     * Returns the product of the last execution.
+     *
+     * @return Product C = A * B
+     */
+    public Matrix getC(){
+        return C;
+    }
+
+    /**
+     * Returns the bound on max|C - Ĉ| for the last execution.
+     *
+     * @return Absolute error bound for every entry of C
+     */
+    public double getErrorBound(){
+        return errorBound;
+    }
+
+    /**
+     * Returns the observed error of the last execution.
+     *
+     * Only available when the error check is enabled, NaN otherwise. The
+     * value is ||(Ĉ - AB)·r||_inf / (n · ||r||_inf), which is a lower
+     * estimate of max|C - Ĉ|.
+     *
+     * @return Estimated entrywise error
+     */
+    public double getErrorEstimate(){
+        return errorEstimate;
+    }
+
+    // --------------------------------------------------
+    // Recursion
+    // --------------------------------------------------
+
+    /**
+     * Returns the number of doubles of scratch memory needed for a block.
+     */
+    private long workspaceSize(int size, int depth){
+        if(size <= baseSize)
+            return 0;
+
+        long h = size / 2;
+        if(depth > 0)
+            return 12 * h * h + 7 * workspaceSize(size / 2, depth - 1);
+        return 3 * h * h + workspaceSize(size / 2, 0);
+    }
+
+    /**
+     * Sequential Strassen-Winograd step with the temporaries X, Y, Z.
+     *
+     * C = A * B for blocks of edge length {@code size}; the scratch memory
+     * starts at {@code wo} in {@code w}.
+     */
+    private void multiply(double[] a, int ao, int as,
+                          double[] b, int bo, int bs,
+                          double[] c, int co, int cs,
+                          int size, double[] w, int wo, int depth){
+        if(size <= baseSize){
+            GemmKernel.multiply(a, ao, as, b, bo, bs, c, co, cs, size);
+            return;
+        }
+        if(depth > 0){
+            new Product(a, ao, as, b, bo, bs, c, co, cs, size, w, wo, depth).compute();
+            return;
+        }
+
+        int h = size / 2;
+        int a11 = ao, a12 = ao + h, a21 = ao + h * as, a22 = a21 + h;
+        int b11 = bo, b12 = bo + h, b21 = bo + h * bs, b22 = b21 + h;
+        int c11 = co, c12 = co + h, c21 = co + h * cs, c22 = c21 + h;
+        int x = wo, y = wo + h * h, z = wo + 2 * h * h;
+        int next = wo + 3 * h * h;
+
+        // C21 = M7 = (A11 - A21)(B22 - B12)
+        sub(a, a11, as, a, a21, as, w, x, h, h);
+        sub(b, b22, bs, b, b12, bs, w, y, h, h);
+        multiply(w, x, h, w, y, h, c, c21, cs, h, w, next, 0);
+
+        // C22 = M5 = S1·T1 with S1 = A21 + A22, T1 = B12 - B11
+        add(a, a21, as, a, a22, as, w, x, h, h);
+        sub(b, b12, bs, b, b11, bs, w, y, h, h);
+        multiply(w, x, h, w, y, h, c, c22, cs, h, w, next, 0);
+
+        // Z = M6 = S2·T2 with S2 = S1 - A11, T2 = B22 - T1
+        sub(w, x, h, a, a11, as, w, x, h, h);
+        sub(b, b22, bs, w, y, h, w, y, h, h);
+        multiply(w, x, h, w, y, h, w, z, h, h, w, next, 0);
+
+        // C11 = M1 = A11·B11, Z = U2 = M1 + M6
+        multiply(a, a11, as, b, b11, bs, c, c11, cs, h, w, next, 0);
+        add(w, z, h, c, c11, cs, w, z, h, h);
+
+        // C21 = U3 = U2 + M7, C12 = U4 = U2 + M5, C22 = U7 = U3 + M5
+        add(c, c21, cs, w, z, h, c, c21, cs, h);
+        add(w, z, h, c, c22, cs, c, c12, cs, h);
+        add(c, c22, cs, c, c21, cs, c, c22, cs, h);
+
+        // C11 = M1 + M2 with M2 = A12·B21
+        multiply(a, a12, as, b, b21, bs, w, z, h, h, w, next, 0);
+        add(c, c11, cs, w, z, h, c, c11, cs, h);
+
+        // C12 = U4 + M3 with M3 = S4·B22, S4 = A12 - S2
+        sub(a, a12, as, w, x, h, w, x, h, h);
+        multiply(w, x, h, b, b22, bs, w, z, h, h, w, next, 0);
+        add(c, c12, cs, w, z, h, c, c12, cs, h);
+
+        // C21 = U3 - M4 with M4 = A22·T4, T4 = T2 - B21
+        sub(w, y, h, b, b21, bs, w, y, h, h);
+        multiply(a, a22, as, w, y, h, w, z, h, h, w, next, 0);
+        sub(c, c21, cs, w, z, h, c, c21, cs, h);
+    }
+
+    /**
+     * Parallel Strassen-Winograd step.
+     *
+     * All 8 operand sums are formed first, then the 7 products run as
+     * fork/join tasks. M1, M5 and M7 are written straight into C.
+     */
+    private final class Product extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] a, b, c, w;
+        private final int ao, as, bo, bs, co, cs, size, wo, depth;
+
+        Product(double[] a, int ao, int as, double[] b, int bo, int bs,
+                double[] c, int co, int cs, int size, double[] w, int wo, int depth){
+            this.a = a; this.ao = ao; this.as = as;
+            this.b = b; this.bo = bo; this.bs = bs;
+            this.c = c; this.co = co; this.cs = cs;
+            this.size = size; this.w = w; this.wo = wo; this.depth = depth;
+        }
+
+        @Override
+        protected void compute(){
+            if(size <= baseSize || depth == 0){
+                multiply(a, ao, as, b, bo, bs, c, co, cs, size, w, wo, 0);
+                return;
+            }
+
+            int h = size / 2;
+            int hh = h * h;
+            int a11 = ao, a12 = ao + h, a21 = ao + h * as, a22 = a21 + h;
+            int b11 = bo, b12 = bo + h, b21 = bo + h * bs, b22 = b21 + h;
+            int c11 = co, c12 = co + h, c21 = co + h * cs, c22 = c21 + h;
+
+            int s1 = wo, s2 = s1 + hh, s3 = s2 + hh, s4 = s3 + hh;
+            int t1 = s4 + hh, t2 = t1 + hh, t3 = t2 + hh, t4 = t3 + hh;
+            int p2 = t4 + hh, p3 = p2 + hh, p4 = p3 + hh, p6 = p4 + hh;
+            int child = p6 + hh;
+            int childSize = (int) workspaceSize(h, depth - 1);
+
+            add(a, a21, as, a, a22, as, w, s1, h, h);
+            sub(w, s1, h, a, a11, as, w, s2, h, h);
+            sub(a, a11, as, a, a21, as, w, s3, h, h);
+            sub(a, a12, as, w, s2, h, w, s4, h, h);
+            sub(b, b12, bs, b, b11, bs, w, t1, h, h);
+            sub(b, b22, bs, w, t1, h, w, t2, h, h);
+            sub(b, b22, bs, b, b12, bs, w, t3, h, h);
+            sub(w, t2, h, b, b21, bs, w, t4, h, h);
+
+            int d = depth - 1;
+            invokeAll(
+                    new Product(a, a11, as, b, b11, bs, c, c11, cs, h, w, child, d),
+                    new Product(a, a12, as, b, b21, bs, w, p2, h, h, w, child + childSize, d),
+                    new Product(w, s4, h, b, b22, bs, w, p3, h, h, w, child + 2 * childSize, d),
+                    new Product(a, a22, as, w, t4, h, w, p4, h, h, w, child + 3 * childSize, d),
+                    new Product(w, s1, h, w, t1, h, c, c22, cs, h, w, child + 4 * childSize, d),
+                    new Product(w, s2, h, w, t2, h, w, p6, h, h, w, child + 5 * childSize, d),
+                    new Product(w, s3, h, w, t3, h, c, c21, cs, h, w, child + 6 * childSize, d));
+
+            add(w, p6, h, c, c11, cs, w, p6, h, h);
+            add(c, c21, cs, w, p6, h, c, c21, cs, h);
+            add(w, p6, h, c, c22, cs, c, c12, cs, h);
+            add(c, c22, cs, c, c21, cs, c, c22, cs, h);
+            add(c, c12, cs, w, p3, h, c, c12, cs, h);
+            sub(c, c21, cs, w, p4, h, c, c21, cs, h);
+            add(c, c11, cs, w, p2, h, c, c11, cs, h);
+        }
+    }
+
+    // --------------------------------------------------
+    // Helpers
+    // --------------------------------------------------
+
+    /** dst = x + y for blocks of edge length size */
+    private static void add(double[] x, int xo, int xs, double[] y, int yo, int ys,
+                            double[] dst, int d, int ds, int size){
+        for(int i = 0; i < size; i++){
+            int xr = xo + i * xs, yr = yo + i * ys, dr = d + i * ds;
+            for(int j = 0; j < size; j++)
+                dst[dr + j] = x[xr + j] + y[yr + j];
+        }
+    }
+
+    /** dst = x - y for blocks of edge length size */
+    private static void sub(double[] x, int xo, int xs, double[] y, int yo, int ys,
+                            double[] dst, int d, int ds, int size){
+        for(int i = 0; i < size; i++){
+            int xr = xo + i * xs, yr = yo + i * ys, dr = d + i * ds;
+            for(int j = 0; j < size; j++)
+                dst[dr + j] = x[xr + j] - y[yr + j];
+        }
+    }
+
+    /** Copies rows x cols entries into a zero padded N x N flat array */
+    private static double[] pad(double[][] data, int rows, int cols, int N){
+        double[] padded = new double[N * N];
+        for(int i = 0; i < rows; i++)
+            System.arraycopy(data[i], 0, padded, i * N, cols);
+        return padded;
+    }
+
+    private double computeErrorBound(){
+        double n = paddedSize;
+        double n0 = baseSize;
+        double factor;
+        if(paddedSize == baseSize)
+            factor = n * n; // standard product: n terms, each off by gamma_n
+        else
+            factor = Math.pow(n / n0, Math.log(18) / Math.log(2)) * (n0 * n0 + 6 * n0) - 6 * n;
+
+        return factor * UNIT_ROUNDOFF * maxAbs(A) * maxAbs(B);
+    }
+
+    /**
+     * Freivalds-style check: compares C·r with A·(B·r) for a random r.
+     */
+    private double estimateError(){
+        int n = A.getRowCount();
+        int k = A.getColumnCount();
+        int m = B.getColumnCount();
+        Random random = new Random(n * 31L + m);
+
+        double[] r = new double[m];
+        double rNorm = 0;
+        for(int j = 0; j < m; j++){
+            r[j] = random.nextDouble() * 2 - 1;
+            rNorm = Math.max(rNorm, Math.abs(r[j]));
+        }
+
+        double[] br = new double[k];
+        for(int p = 0; p < k; p++)
+            for(int j = 0; j < m; j++)
+                br[p] += B.getEntry(p, j) * r[j];
+
+        double residual = 0;
+        for(int i = 0; i < n; i++){
+            double abr = 0, cr = 0;
+            for(int p = 0; p < k; p++)
+                abr += A.getEntry(i, p) * br[p];
+            for(int j = 0; j < m; j++)
+                cr += C.getEntry(i, j) * r[j];
+            residual = Math.max(residual, Math.abs(cr - abr));
+        }
+
+        // Remove the rounding error of the check itself
+        double checkError = 2.0 * (k + m) * UNIT_ROUNDOFF * k * maxAbs(A) * maxAbs(B) * rNorm;
+        return Math.max(0, residual - checkError) / (m * rNorm);
+    }
+
+    private static double maxAbs(Matrix M){
+        double max = 0;
+        for(double[] row : M.getData())
+            for(double v : row)
+                max = Math.max(max, Math.abs(v));
+        return max;
+    }
+}
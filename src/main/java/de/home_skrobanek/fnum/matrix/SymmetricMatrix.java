@@ -0,0 +1,275 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.Arrays;
+/**
+ * @class SymmetricMatrix
+ * @brief Square symmetric matrix in packed storage.
+ *
+ * Only the lower triangle, n(n+1)/2 entries, is stored in one of the
+ * layouts of {@link PackedStorage}; {@code A(i, j)} and {@code A(j, i)}
+ * share one entry. The kernels {@link #multiply(Matrix)} (SYMM) and
+ * {@link #rankUpdate(double, Matrix, double)} (SYRK) read and write the
+ * packed array directly, every off-diagonal entry is used for both of its
+ * positions.
+ *
+ * <p>All indices are zero-based.</p>
+ */
+public class SymmetricMatrix {
+
+    /** Lower triangle */
+    private final double[] data;
+
+    /** Addressing of {@link #data} */
+    private final PackedLayout layout;
+
+    /** Dimension */
+    private final int n;
+
+    /**
+     * Constructs a zero symmetric matrix in {@link PackedStorage#PACKED} storage.
+     *
+     * @param n Dimension
+     *
+     * @pre n > 0
+     */
+    public SymmetricMatrix(int n) {
+        this(n, PackedStorage.PACKED);
+    }
+
+    /**
+     * Constructs a zero symmetric matrix.
+     *
+     * @param n Dimension
+     * @param storage Storage scheme of the lower triangle
+     *
+     * @pre n > 0
+     */
+    public SymmetricMatrix(int n, PackedStorage storage) {
+        assert n > 0;
+        this.n = n;
+        this.layout = new PackedLayout(n, storage);
+        this.data = new double[layout.length()];
+    }
+
+    /**
+     * Constructs a symmetric matrix from the lower triangle of a dense matrix.
+     *
+     * The strict upper triangle of A is not read, so A does not have to be
+     * exactly symmetric.
+     *
+     * @param A Square matrix
+     * @param storage Storage scheme of the lower triangle
+     * @return Symmetric matrix holding the lower triangle of A
+     *
+     * @throws IllegalArgumentException if A is not square
+     */
+    public static SymmetricMatrix fromMatrix(Matrix A, PackedStorage storage) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        int n = A.getRowCount();
+        double[][] a = A.getData();
+        SymmetricMatrix S = new SymmetricMatrix(n, storage);
+        for (int j = 0; j < n; j++) {
+            int s = S.layout.start(j), st = S.layout.stride(j);
+            for (int i = j; i < n; i++)
+                S.data[s + (i - j) * st] = a[i][j];
+        }
+        return S;
+    }
+
+    /**
+     * Computes the Gram matrix A · A^T (SYRK).
+     *
+     * @param A Matrix with n rows and any number of columns
+     * @param storage Storage scheme of the result
+     * @return Symmetric n x n matrix A · A^T
+     */
+    public static SymmetricMatrix gram(Matrix A, PackedStorage storage) {
+        SymmetricMatrix S = new SymmetricMatrix(A.getRowCount(), storage);
+        S.rankUpdate(1.0, A, 0.0);
+        return S;
+    }
+
+    public int getRowCount() {
+        return n;
+    }
+
+    public int getColumnCount() {
+        return n;
+    }
+
+    public PackedStorage getStorage() {
+        return layout.storage;
+    }
+
+    /**
+     * Returns the number of stored entries, n(n+1)/2.
+     */
+    public int getStoredEntries() {
+        return data.length;
+    }
+
+    /**
+     * Returns an entry.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @return Entry at (i, j), equal to the entry at (j, i)
+     *
+     * @pre 0 <= i, j < n
+     */
+    public double getEntry(int i, int j) {
+        assert i >= 0 && j >= 0 && i < n && j < n;
+        return data[i >= j ? layout.index(i, j) : layout.index(j, i)];
+    }
+
+    /**
+     * Sets the entries at (i, j) and (j, i).
+     *
+     * @param i Row index
+     * @param j Column index
+     * @param value New value
+     *
+     * @pre 0 <= i, j < n
+     */
+    public void setEntry(int i, int j, double value) {
+        assert i >= 0 && j >= 0 && i < n && j < n;
+        data[i >= j ? layout.index(i, j) : layout.index(j, i)] = value;
+    }
+
+    /**
+     * Computes S · B (SYMM).
+     *
+     * Every stored entry (i, j) below the diagonal updates row i of the
+     * result with row j of B and row j with row i, so the triangle is read
+     * exactly once.
+     *
+     * @param B Matrix with n rows
+     * @return New n x m matrix holding the product
+     *
+     * @throws SameDimensionsException if B does not have n rows
+     */
+    public Matrix multiply(Matrix B) {
+        if (B.getRowCount() != n)
+            throw new SameDimensionsException();
+
+        int m = B.getColumnCount();
+        double[][] b = B.getData();
+        Matrix C = new Matrix(n, m);
+        double[][] c = C.getData();
+        for (int j = 0; j < n; j++) {
+            int s = layout.start(j), st = layout.stride(j);
+            double[] bj = b[j], cj = c[j];
+            PackedLayout.axpy(data[s], bj, cj, m);
+            for (int i = j + 1; i < n; i++) {
+                double a = data[s + (i - j) * st];
+                PackedLayout.axpy(a, bj, c[i], m);
+                PackedLayout.axpy(a, b[i], cj, m);
+            }
+        }
+        return C;
+    }
+
+    /**
+     * Computes y = S · x.
+     *
+     * @param x Vector of length n
+     * @param y Array of length n receiving the product, must not be x
+     * @return {@code y}
+     *
+     * @throws SameDimensionsException if a length does not match n
+     */
+    public double[] multiply(double[] x, double[] y) {
+        if (x.length != n || y.length != n)
+            throw new SameDimensionsException();
+        assert x != y;
+
+        Arrays.fill(y, 0.0);
+        for (int j = 0; j < n; j++) {
+            int s = layout.start(j), st = layout.stride(j);
+            double xj = x[j];
+            double sum = data[s] * xj;
+            for (int i = j + 1; i < n; i++) {
+                double a = data[s + (i - j) * st];
+                y[i] += a * xj;
+                sum += a * x[i];
+            }
+            y[j] += sum;
+        }
+        return y;
+    }
+
+    /**
+     * Computes S · x.
+     *
+     * @param x Vector of dimension n
+     * @return New vector holding the product
+     *
+     * @throws SameDimensionsException if the dimension of x does not match n
+     */
+    public Vector multiply(Vector x) {
+        if (x.size() != n)
+            throw new SameDimensionsException();
+
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+            values[i] = x.getValue(i);
+        return new Vector(multiply(values, new double[n]));
+    }
+
+    /**
+     * Computes S = alpha · A · A^T + beta · S in place (SYRK).
+     *
+     * Only the lower triangle of the product is evaluated, each entry as
+     * the dot product of two rows of A, which halves the work of a general
+     * matrix product. For {@code beta == 0} the old entries are not read.
+     *
+     * @param alpha Factor of the product
+     * @param A Matrix with n rows
+     * @param beta Factor of the current entries
+     *
+     * @throws SameDimensionsException if A does not have n rows
+     */
+    public void rankUpdate(double alpha, Matrix A, double beta) {
+        if (A.getRowCount() != n)
+            throw new SameDimensionsException();
+
+        int k = A.getColumnCount();
+        double[][] a = A.getData();
+        for (int j = 0; j < n; j++) {
+            int s = layout.start(j), st = layout.stride(j);
+            double[] aj = a[j];
+            for (int i = j; i < n; i++) {
+                double[] ai = a[i];
+                double dot = 0;
+                for (int t = 0; t < k; t++)
+                    dot += ai[t] * aj[t];
+                int p = s + (i - j) * st;
+                data[p] = beta == 0 ? alpha * dot : alpha * dot + beta * data[p];
+            }
+        }
+    }
+
+    /**
+     * Converts the matrix into dense storage.
+     *
+     * @return New dense matrix with the same entries
+     */
+    public Matrix toMatrix() {
+        Matrix A = new Matrix(n, n);
+        double[][] a = A.getData();
+        for (int j = 0; j < n; j++) {
+            int s = layout.start(j), st = layout.stride(j);
+            for (int i = j; i < n; i++) {
+                double v = data[s + (i - j) * st];
+                a[i][j] = v;
+                a[j][i] = v;
+            }
+        }
+        return A;
+    }
+}
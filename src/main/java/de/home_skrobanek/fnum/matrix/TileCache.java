@@ -0,0 +1,199 @@
+package de.home_skrobanek.fnum.matrix;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+/**
+ * @class TileCache
+ * @brief Bounded cache of the tiles of a {@link TiledMatrixFile} in memory.
+ *
+ * Tiles are copied out of the memory-mapped file into heap arrays, used
+ * by the kernels and written back when they are evicted or flushed.
+ * Tiles in use are pinned and never evicted, beyond that the least
+ * recently used tiles leave the cache once it holds more than its
+ * capacity.
+ *
+ * <p>{@link #prefetch(int, int)} loads a tile on a background thread, so
+ * the page faults of the mapped file are taken while the caller still
+ * computes on the previous tiles.</p>
+ */
+final class TileCache {
+
+    /** Background thread loading prefetched tiles, shared by all caches */
+    private static final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fnum-tile-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * One cached tile.
+     */
+    private static final class Slot {
+
+        final int ti;
+
+        final int tj;
+
+        /** Completes once the tile has been read */
+        final CompletableFuture<double[]> data = new CompletableFuture<>();
+
+        /** Whether the tile differs from the file */
+        boolean dirty = false;
+
+        /** Number of users that have not released the tile */
+        int pins = 0;
+
+        Slot(int ti, int tj) {
+            this.ti = ti;
+            this.tj = tj;
+        }
+    }
+
+    private final TiledMatrixFile file;
+
+    /** Maximum number of unpinned tiles kept */
+    private final int capacity;
+
+    /** Tiles in access order, least recently used first */
+    private final LinkedHashMap<Long, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+
+    TileCache(TiledMatrixFile file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns a tile and pins it until {@link #release(int, int, boolean)}.
+     *
+     * @param ti Tile row
+     * @param tj Tile column
+     * @return Entries of the tile, row by row
+     */
+    double[] acquire(int ti, int tj) {
+        return acquire(ti, tj, true);
+    }
+
+    /**
+     * Returns a tile whose previous content is not needed. A tile that is
+     * not cached is not read, its content is undefined.
+     *
+     * @param ti Tile row
+     * @param tj Tile column
+     * @return Entries of the tile, row by row
+     */
+    double[] acquireForWrite(int ti, int tj) {
+        return acquire(ti, tj, false);
+    }
+
+    /**
+     * Unpins a tile.
+     *
+     * @param ti Tile row
+     * @param tj Tile column
+     * @param modified Whether the tile has been written to
+     */
+    synchronized void release(int ti, int tj, boolean modified) {
+        Slot slot = slots.get(key(ti, tj));
+        if (modified)
+            slot.dirty = true;
+        slot.pins--;
+        evict();
+    }
+
+    /**
+     * Starts loading a tile in the background unless it is cached.
+     *
+     * @param ti Tile row
+     * @param tj Tile column
+     */
+    void prefetch(int ti, int tj) {
+        Slot slot;
+        synchronized (this) {
+            long key = key(ti, tj);
+            if (slots.containsKey(key))
+                return;
+            slot = new Slot(ti, tj);
+            slots.put(key, slot);
+            evict();
+        }
+        prefetcher.execute(() -> load(slot));
+    }
+
+    /**
+     * Writes all modified tiles back to the file.
+     */
+    synchronized void flush() {
+        for (Slot slot : slots.values())
+            if (slot.dirty && slot.data.isDone()) {
+                file.writeTile(slot.ti, slot.tj, slot.data.join());
+                slot.dirty = false;
+            }
+    }
+
+    private double[] acquire(int ti, int tj, boolean read) {
+        Slot slot;
+        boolean load;
+        synchronized (this) {
+            long key = key(ti, tj);
+            slot = slots.get(key);
+            load = slot == null;
+            if (load) {
+                slot = new Slot(ti, tj);
+                slots.put(key, slot);
+            }
+            slot.pins++;
+            evict();
+        }
+        if (load) {
+            if (read)
+                load(slot);
+            else
+                slot.data.complete(new double[file.getTileLength()]);
+        }
+        try {
+            return slot.data.join();
+        } catch (CompletionException e) {
+            synchronized (this) {
+                slots.remove(key(ti, tj));
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private void load(Slot slot) {
+        try {
+            double[] data = new double[file.getTileLength()];
+            file.readTile(slot.ti, slot.tj, data);
+            slot.data.complete(data);
+        } catch (RuntimeException e) {
+            slot.data.completeExceptionally(e);
+        }
+    }
+
+    /** Evicts unpinned, loaded tiles until the capacity is met */
+    private void evict() {
+        Iterator<Slot> it = slots.values().iterator();
+        int excess = slots.size() - capacity;
+        while (excess > 0 && it.hasNext()) {
+            Slot slot = it.next();
+            if (slot.pins > 0 || !slot.data.isDone())
+                continue;
+            if (slot.dirty)
+                file.writeTile(slot.ti, slot.tj, slot.data.join());
+            it.remove();
+            excess--;
+        }
+    }
+
+    private static long key(int ti, int tj) {
+        return ((long) ti << 32) | (tj & 0xffffffffL);
+    }
+}
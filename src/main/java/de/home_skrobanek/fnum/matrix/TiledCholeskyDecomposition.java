@@ -0,0 +1,230 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.TaskGraph;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.concurrent.ForkJoinPool;
+/**
+ * @class TiledCholeskyDecomposition
+ * @brief Computes the Cholesky decomposition as a dataflow graph of tile tasks.
+ *
+ * The lower triangle of A is split into t x t tiles. Step k consists of
+ * the tasks
+ *
+ * <pre>
+ *   POTRF  L_kk = chol(A_kk)
+ *   TRSM   L_ik = A_ik · L_kk^-T              for i > k
+ *   SYRK   A_ii -= L_ik · L_ik^T              for i > k
+ *   GEMM   A_ij -= L_ik · L_jk^T              for i > j > k
+ * </pre>
+ *
+ * which a {@link TaskGraph} runs as soon as the tiles they read are
+ * final, instead of separating the steps by barriers. The tasks of the
+ * next panel and the updates of tile column k + 1 that it waits for have
+ * the highest priority, so panel k + 1 is factored while the bulk of the
+ * trailing update of step k is still running (lookahead).
+ *
+ * <p>The result equals {@link CholeskyDecomposition} up to rounding. The
+ * tiled form pays off on several cores for n of a few hundred and more.</p>
+ */
+public class TiledCholeskyDecomposition implements Factorization {
+
+    /** Default edge length of the tiles */
+    public static final int DEFAULT_TILE = GemmKernel.TILE;
+
+    /** Matrix to decompose */
+    private final Matrix A;
+
+    /** Edge length of the tiles */
+    private final int tile;
+
+    /** Factor L in the lower tiles, {@code null} before execution */
+    private Tiles factors;
+
+    /** Number of tasks of the last execution */
+    private int taskCount;
+
+    /**
+     * Constructs the decomposition object with the default tile size.
+     *
+     * @param A Symmetric matrix to decompose
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public TiledCholeskyDecomposition(Matrix A) {
+        this(A, DEFAULT_TILE);
+    }
+
+    /**
+     * Constructs the decomposition object.
+     *
+     * @param A Symmetric matrix to decompose, only its lower triangle is read
+     * @param tile Edge length of the tiles
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     *
+     * @pre tile > 0
+     */
+    public TiledCholeskyDecomposition(Matrix A, int tile) {
+        assert tile > 0;
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+        this.A = A;
+        this.tile = tile;
+    }
+
+    /**
+     * Executes the decomposition on the common pool.
+     *
+     * @throws ArithmeticException if the matrix is not positive definite
+     */
+    public void execute() {
+        execute(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Executes the decomposition on a pool.
+     *
+     * @param pool Pool running the tile tasks
+     *
+     * @throws ArithmeticException if the matrix is not positive definite
+     */
+    public void execute(ForkJoinPool pool) {
+        factors = null;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        Tiles tiles = new Tiles(A, tile);
+        int T = tiles.count, t = tile;
+        long[] none = {};
+
+        TaskGraph graph = new TaskGraph();
+        for (int k = 0; k < T; k++) {
+            int step = k;
+            int critical = 2 * T - k, bulk = T - k;
+            graph.add(() -> Tiles.potrf(tiles.tile(step, step), t), critical,
+                    none, new long[]{tiles.key(k, k)});
+            for (int i = k + 1; i < T; i++) {
+                int row = i;
+                graph.add(() -> Tiles.trsmLowerTransposedRight(tiles.tile(step, step), tiles.tile(row, step), t), critical,
+                        new long[]{tiles.key(k, k)}, new long[]{tiles.key(i, k)});
+            }
+            for (int i = k + 1; i < T; i++) {
+                for (int j = k + 1; j <= i; j++) {
+                    int row = i, column = j;
+                    graph.add(() -> GemmKernel.multiplyAddTransposed(tiles.tile(row, step), tiles.tile(column, step),
+                                    tiles.tile(row, column), t, -1),
+                            j == k + 1 ? critical : bulk,
+                            i == j ? new long[]{tiles.key(i, k)} : new long[]{tiles.key(i, k), tiles.key(j, k)},
+                            new long[]{tiles.key(i, j)});
+                }
+            }
+        }
+        taskCount = graph.size();
+        graph.execute(pool);
+        factors = tiles;
+
+        if (Metrics.ENABLED) {
+            long n = A.getRowCount();
+            Metrics.record(Operation.CHOLESKY_EXECUTE, n * n * n / 3, 8 * n * n, start);
+        }
+    }
+
+    /**
+     * Returns the number of tile tasks of the last execution.
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Returns the factor L.
+     *
+     * @return New lower triangular matrix with A = L · L^T
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public Matrix getL() {
+        checkExecuted();
+        return factors.toMatrix(true, false, false);
+    }
+
+    @Override
+    public double getDeterminant() {
+        checkExecuted();
+        double det = 1;
+        for (int i = 0; i < factors.n; i++) {
+            double d = factors.get(i, i);
+            det *= d * d;
+        }
+        return det;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return factors == null ? 0 : 8L * factors.data.length * tile * tile;
+    }
+
+    /**
+     * Solves A * x = b.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public Vector solve(Vector b) {
+        double[] x = new double[b.size()];
+        for (int i = 0; i < x.length; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    /**
+     * Solves A * x = b by forward and backward substitution with L.
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    @Override
+    public double[] solve(double[] b, double[] x) {
+        checkExecuted();
+        int n = factors.n;
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+        for (int i = 0; i < n; i++) {
+            double sum = x[i];
+            for (int j = 0; j < i; j++)
+                sum -= factors.get(i, j) * x[j];
+            x[i] = sum / factors.get(i, i);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int j = i + 1; j < n; j++)
+                sum -= factors.get(j, i) * x[j];
+            x[i] = sum / factors.get(i, i);
+        }
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.CHOLESKY_SOLVE, 2L * n * n, 8L * n * n / 2, start);
+        return x;
+    }
+
+    /**
+     * Solves A^T * x = b, the same system as A is symmetric.
+     */
+    @Override
+    public double[] solveTransposed(double[] b, double[] x) {
+        return solve(b, x);
+    }
+
+    private void checkExecuted() {
+        if (factors == null)
+            throw new IllegalStateException("The decomposition has to be executed first");
+    }
+}
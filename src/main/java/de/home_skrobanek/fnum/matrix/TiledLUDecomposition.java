@@ -0,0 +1,267 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.TaskGraph;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.concurrent.ForkJoinPool;
+/**
+ * @class TiledLUDecomposition
+ * @brief Computes the LU decomposition as a dataflow graph of tile tasks.
+ *
+ * A is split into t x t tiles. Step k consists of the tasks
+ *
+ * <pre>
+ *   GETRF  A_kk = L_kk · R_kk
+ *   TRSM   R_kj = L_kk^-1 · A_kj              for j > k
+ *   TRSM   L_ik = A_ik · R_kk^-1              for i > k
+ *   GEMM   A_ij -= L_ik · R_kj                for i, j > k
+ * </pre>
+ *
+ * run by a {@link TaskGraph} as soon as their input tiles are final. The
+ * panel tasks and the updates of tile row and column k + 1 have the
+ * highest priority, so the next panel starts while the trailing update
+ * of step k is still running (lookahead).
+ *
+ * <p>Like {@link LUDecomposition} this does not pivot; the matrix should
+ * be diagonally dominant. The result equals {@link LUDecomposition} up to
+ * rounding.</p>
+ */
+public class TiledLUDecomposition implements Factorization {
+
+    /** Default edge length of the tiles */
+    public static final int DEFAULT_TILE = GemmKernel.TILE;
+
+    /** Matrix to decompose */
+    private final Matrix A;
+
+    /** Edge length of the tiles */
+    private final int tile;
+
+    /** L below and R on and above the diagonal, {@code null} before execution */
+    private Tiles factors;
+
+    /** Number of tasks of the last execution */
+    private int taskCount;
+
+    /**
+     * Constructs the decomposition object with the default tile size.
+     *
+     * @param A Square matrix to decompose
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public TiledLUDecomposition(Matrix A) {
+        this(A, DEFAULT_TILE);
+    }
+
+    /**
+     * Constructs the decomposition object.
+     *
+     * @param A Square matrix to decompose
+     * @param tile Edge length of the tiles
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     *
+     * @pre tile > 0
+     */
+    public TiledLUDecomposition(Matrix A, int tile) {
+        assert tile > 0;
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+        this.A = A;
+        this.tile = tile;
+    }
+
+    /**
+     * Executes the decomposition on the common pool.
+     *
+     * @param abs Minimum allowed pivot value
+     *
+     * @throws ArithmeticException if a pivot element is below the threshold
+     */
+    public void execute(double abs) {
+        execute(abs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Executes the decomposition on a pool.
+     *
+     * @param abs Minimum allowed pivot value. If any diagonal entry of R
+     *            is smaller in absolute value than this threshold,
+     *            the matrix is considered singular.
+     * @param pool Pool running the tile tasks
+     *
+     * @throws ArithmeticException if a pivot element is below the threshold
+     */
+    public void execute(double abs, ForkJoinPool pool) {
+        factors = null;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        Tiles tiles = new Tiles(A, tile);
+        int T = tiles.count, t = tile;
+        long[] none = {};
+
+        TaskGraph graph = new TaskGraph();
+        for (int k = 0; k < T; k++) {
+            int step = k;
+            int critical = 2 * T - k, bulk = T - k;
+            graph.add(() -> Tiles.getrf(tiles.tile(step, step), t, tiles.rows(step), abs), critical,
+                    none, new long[]{tiles.key(k, k)});
+            for (int j = k + 1; j < T; j++) {
+                int column = j;
+                graph.add(() -> Tiles.trsmUnitLowerLeft(tiles.tile(step, step), tiles.tile(step, column), t), critical,
+                        new long[]{tiles.key(k, k)}, new long[]{tiles.key(k, j)});
+            }
+            for (int i = k + 1; i < T; i++) {
+                int row = i;
+                graph.add(() -> Tiles.trsmUpperRight(tiles.tile(step, step), tiles.tile(row, step), t), critical,
+                        new long[]{tiles.key(k, k)}, new long[]{tiles.key(i, k)});
+            }
+            for (int i = k + 1; i < T; i++) {
+                for (int j = k + 1; j < T; j++) {
+                    int row = i, column = j;
+                    graph.add(() -> GemmKernel.multiplyAdd(tiles.tile(row, step), tiles.tile(step, column),
+                                    tiles.tile(row, column), t, -1),
+                            i == k + 1 || j == k + 1 ? critical : bulk,
+                            new long[]{tiles.key(i, k), tiles.key(k, j)}, new long[]{tiles.key(i, j)});
+                }
+            }
+        }
+        taskCount = graph.size();
+        graph.execute(pool);
+        factors = tiles;
+
+        if (Metrics.ENABLED) {
+            long n = A.getRowCount();
+            Metrics.record(Operation.LU_EXECUTE, 2 * n * n * n / 3, 16 * n * n, start);
+        }
+    }
+
+    /**
+     * Returns the number of tile tasks of the last execution.
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Returns the lower triangular factor with unit diagonal.
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public Matrix getL() {
+        checkExecuted();
+        return factors.toMatrix(true, true, false);
+    }
+
+    /**
+     * Returns the upper triangular factor.
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public Matrix getR() {
+        checkExecuted();
+        return factors.toMatrix(false, false, true);
+    }
+
+    @Override
+    public double getDeterminant() {
+        checkExecuted();
+        double det = 1;
+        for (int i = 0; i < factors.n; i++)
+            det *= factors.get(i, i);
+        return det;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return factors == null ? 0 : 8L * factors.data.length * tile * tile;
+    }
+
+    /**
+     * Solves A * x = b.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public Vector solve(Vector b) {
+        double[] x = new double[b.size()];
+        for (int i = 0; i < x.length; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    /**
+     * Solves A * x = b by forward substitution with L and backward
+     * substitution with R.
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    @Override
+    public double[] solve(double[] b, double[] x) {
+        checkExecuted();
+        int n = factors.n;
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+        for (int i = 0; i < n; i++) {
+            double sum = x[i];
+            for (int j = 0; j < i; j++)
+                sum -= factors.get(i, j) * x[j];
+            x[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int j = i + 1; j < n; j++)
+                sum -= factors.get(i, j) * x[j];
+            x[i] = sum / factors.get(i, i);
+        }
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.LU_SOLVE, 2L * n * n, 8L * n * n, start);
+        return x;
+    }
+
+    /**
+     * Solves A^T * x = b, that is R^T · L^T · x = b.
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    @Override
+    public double[] solveTransposed(double[] b, double[] x) {
+        checkExecuted();
+        int n = factors.n;
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+        for (int i = 0; i < n; i++) {
+            double sum = x[i];
+            for (int j = 0; j < i; j++)
+                sum -= factors.get(j, i) * x[j];
+            x[i] = sum / factors.get(i, i);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int j = i + 1; j < n; j++)
+                sum -= factors.get(j, i) * x[j];
+            x[i] = sum;
+        }
+        return x;
+    }
+
+    private void checkExecuted() {
+        if (factors == null)
+            throw new IllegalStateException("The decomposition has to be executed first");
+    }
+}
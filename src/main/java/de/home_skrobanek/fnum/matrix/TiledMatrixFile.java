@@ -0,0 +1,396 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+/**
+ * @class TiledMatrixFile
+ * @brief Dense matrix kept on disk in tile-major order for out-of-core computations.
+ *
+ * The matrix is split into square tiles of t x t entries, stored one
+ * after another in the file, each tile row by row. Edge tiles are padded
+ * with zeros to full size, so every tile is one contiguous block at a
+ * computable offset. The file is memory-mapped in windows of whole tiles;
+ * the operating system pages the windows in and out, only the tiles in
+ * the {@link TileCache} occupy heap memory.
+ *
+ * <p>{@link #multiply(TiledMatrixFile, TiledMatrixFile)} and
+ * {@link OutOfCoreLUDecomposition} work tile by tile and prefetch the
+ * next tiles on a background thread while the current ones are
+ * multiplied, so reading overlaps computation. A matrix that fits into
+ * memory is faster as a {@link Matrix}; this class is meant for matrices
+ * larger than the physical memory.</p>
+ *
+ * <p>The file starts with a header of {@value #HEADER} bytes: a magic
+ * number, the row and column count and the tile size. Entries are stored
+ * in native byte order.</p>
+ */
+public final class TiledMatrixFile implements AutoCloseable {
+
+    /** Default edge length of the tiles, 512 KiB per tile */
+    public static final int DEFAULT_TILE = 256;
+
+    /** Default number of tiles held in memory */
+    public static final int DEFAULT_CACHE_TILES = 64;
+
+    /** Size of the header in bytes */
+    static final int HEADER = 64;
+
+    /** Identifies tiled matrix files, "FNUMTILE" */
+    private static final long MAGIC = 0x464E554D54494C45L;
+
+    /** Maximum size of one mapped window */
+    private static final long WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+
+    private final int rows;
+
+    private final int cols;
+
+    private final int tile;
+
+    /** Number of tile rows */
+    private final int tileRows;
+
+    /** Number of tile columns */
+    private final int tileCols;
+
+    /** Number of tiles per mapped window */
+    private final int tilesPerWindow;
+
+    /** Mapped windows, kept to force them on flush */
+    private final MappedByteBuffer[] windows;
+
+    /** Double views of the windows */
+    private final DoubleBuffer[] views;
+
+    private final TileCache cache;
+
+    private TiledMatrixFile(FileChannel channel, int rows, int cols, int tile, int cacheTiles) throws IOException {
+        this.channel = channel;
+        this.rows = rows;
+        this.cols = cols;
+        this.tile = tile;
+        this.tileRows = (rows + tile - 1) / tile;
+        this.tileCols = (cols + tile - 1) / tile;
+
+        long tileBytes = 8L * tile * tile;
+        long tiles = (long) tileRows * tileCols;
+        this.tilesPerWindow = (int) Math.max(1, Math.min(tiles, WINDOW / tileBytes));
+        int count = (int) ((tiles + tilesPerWindow - 1) / tilesPerWindow);
+        this.windows = new MappedByteBuffer[count];
+        this.views = new DoubleBuffer[count];
+        for (int w = 0; w < count; w++) {
+            long first = (long) w * tilesPerWindow;
+            long size = Math.min(tilesPerWindow, tiles - first) * tileBytes;
+            windows[w] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + first * tileBytes, size);
+            views[w] = windows[w].order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+        this.cache = new TileCache(this, cacheTiles);
+    }
+
+    /**
+     * Creates a file for a zero matrix, replacing an existing file.
+     *
+     * @param path File to create
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param tile Edge length of the tiles
+     * @param cacheTiles Number of tiles held in memory
+     * @return Matrix backed by the new file
+     *
+     * @throws IOException if the file cannot be created
+     *
+     * @pre rows > 0 && cols > 0
+     * @pre tile > 0 && 8 * tile * tile <= Integer.MAX_VALUE
+     * @pre cacheTiles > 0
+     */
+    public static TiledMatrixFile create(Path path, int rows, int cols, int tile, int cacheTiles) throws IOException {
+        assert rows > 0 && cols > 0;
+        assert tile > 0 && 8L * tile * tile <= Integer.MAX_VALUE;
+        assert cacheTiles > 0;
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putLong(MAGIC).putInt(rows).putInt(cols).putInt(tile).rewind();
+            channel.write(header, 0);
+            long tiles = (long) ((rows + tile - 1) / tile) * ((cols + tile - 1) / tile);
+            channel.truncate(HEADER + tiles * 8L * tile * tile);
+            // Extends the file with zeros, truncate only shrinks
+            channel.write(ByteBuffer.allocate(1), HEADER + tiles * 8L * tile * tile - 1);
+            return new TiledMatrixFile(channel, rows, cols, tile, cacheTiles);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a file for a zero matrix with the default tile and cache size.
+     *
+     * @see #create(Path, int, int, int, int)
+     */
+    public static TiledMatrixFile create(Path path, int rows, int cols) throws IOException {
+        return create(path, rows, cols, DEFAULT_TILE, DEFAULT_CACHE_TILES);
+    }
+
+    /**
+     * Opens an existing file.
+     *
+     * @param path File written by this class
+     * @param cacheTiles Number of tiles held in memory
+     * @return Matrix backed by the file
+     *
+     * @throws IOException if the file cannot be read or is no tiled matrix file
+     *
+     * @pre cacheTiles > 0
+     */
+    public static TiledMatrixFile open(Path path, int cacheTiles) throws IOException {
+        assert cacheTiles > 0;
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Read the complete header
+            }
+            header.rewind();
+            if (header.getLong() != MAGIC)
+                throw new IOException("Not a tiled matrix file: " + path);
+            return new TiledMatrixFile(channel, header.getInt(), header.getInt(), header.getInt(), cacheTiles);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a matrix into a new file.
+     *
+     * @param path File to create
+     * @param A Matrix to store
+     * @param tile Edge length of the tiles
+     * @param cacheTiles Number of tiles held in memory
+     * @return Matrix backed by the new file
+     *
+     * @throws IOException if the file cannot be created
+     */
+    public static TiledMatrixFile fromMatrix(Path path, Matrix A, int tile, int cacheTiles) throws IOException {
+        TiledMatrixFile file = create(path, A.getRowCount(), A.getColumnCount(), tile, cacheTiles);
+        double[][] a = A.getData();
+        double[] data = new double[file.getTileLength()];
+        for (int ti = 0; ti < file.tileRows; ti++)
+            for (int tj = 0; tj < file.tileCols; tj++) {
+                int r = file.extent(ti, file.rows), c = file.extent(tj, file.cols);
+                if (r < tile || c < tile)
+                    Arrays.fill(data, 0);
+                for (int i = 0; i < r; i++)
+                    System.arraycopy(a[ti * tile + i], tj * tile, data, i * tile, c);
+                file.writeTile(ti, tj, data);
+            }
+        return file;
+    }
+
+    /**
+     * Reads the whole matrix into memory.
+     *
+     * @return New in-memory matrix
+     */
+    public Matrix toMatrix() {
+        Matrix M = new Matrix(rows, cols);
+        double[][] m = M.getData();
+        for (int ti = 0; ti < tileRows; ti++)
+            for (int tj = 0; tj < tileCols; tj++) {
+                double[] data = cache.acquire(ti, tj);
+                int r = extent(ti, rows), c = extent(tj, cols);
+                for (int i = 0; i < r; i++)
+                    System.arraycopy(data, i * tile, m[ti * tile + i], tj * tile, c);
+                cache.release(ti, tj, false);
+            }
+        return M;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    public int getTileSize() {
+        return tile;
+    }
+
+    public int getTileRowCount() {
+        return tileRows;
+    }
+
+    public int getTileColumnCount() {
+        return tileCols;
+    }
+
+    /**
+     * Returns the number of tiles the cache keeps in memory.
+     */
+    public int getCacheCapacity() {
+        return cache.getCapacity();
+    }
+
+    public boolean isSquare() {
+        return rows == cols;
+    }
+
+    /**
+     * Returns an entry. Loads its tile into the cache if necessary.
+     *
+     * @param i Row
+     * @param j Column
+     * @return Entry (i, j)
+     */
+    public double getEntry(int i, int j) {
+        checkIndex(i, j);
+        int ti = i / tile, tj = j / tile;
+        double value = cache.acquire(ti, tj)[(i % tile) * tile + j % tile];
+        cache.release(ti, tj, false);
+        return value;
+    }
+
+    /**
+     * Sets an entry. The change reaches the file when its tile is evicted
+     * or on {@link #flush()}.
+     *
+     * @param i Row
+     * @param j Column
+     * @param value New value
+     */
+    public void setEntry(int i, int j, double value) {
+        checkIndex(i, j);
+        int ti = i / tile, tj = j / tile;
+        cache.acquire(ti, tj)[(i % tile) * tile + j % tile] = value;
+        cache.release(ti, tj, true);
+    }
+
+    /**
+     * Multiplies this matrix by another one into a third, out = this * B.
+     *
+     * Every tile of the result is accumulated from a row of tiles of this
+     * matrix and a column of tiles of B. The next pair of tiles is
+     * prefetched while the current pair is multiplied, so only three tiles
+     * of each matrix need to be in memory.
+     *
+     * @param B Right factor with the same tile size
+     * @param out Result with the same tile size, must not be this or B
+     * @return {@code out}
+     *
+     * @throws IllegalArgumentException if the column count of this matrix does not
+     *         match the row count of B or the tile sizes differ
+     * @throws SameDimensionsException if out does not have the size of the result
+     */
+    public TiledMatrixFile multiply(TiledMatrixFile B, TiledMatrixFile out) {
+        if (cols != B.rows)
+            throw new IllegalArgumentException("Column count of this matrix must equal the row count of x");
+        if (out.rows != rows || out.cols != B.cols)
+            throw new SameDimensionsException();
+        if (B.tile != tile || out.tile != tile)
+            throw new IllegalArgumentException("The tile sizes have to match");
+        assert out != this && out != B;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        int inner = tileCols;
+        for (int ti = 0; ti < tileRows; ti++) {
+            for (int tj = 0; tj < B.tileCols; tj++) {
+                double[] c = out.cache.acquireForWrite(ti, tj);
+                Arrays.fill(c, 0);
+                for (int tk = 0; tk < inner; tk++) {
+                    if (tk + 1 < inner) {
+                        cache.prefetch(ti, tk + 1);
+                        B.cache.prefetch(tk + 1, tj);
+                    } else if (tj + 1 < B.tileCols) {
+                        cache.prefetch(ti, 0);
+                        B.cache.prefetch(0, tj + 1);
+                    } else if (ti + 1 < tileRows) {
+                        cache.prefetch(ti + 1, 0);
+                        B.cache.prefetch(0, 0);
+                    }
+                    double[] a = cache.acquire(ti, tk);
+                    double[] b = B.cache.acquire(tk, tj);
+                    GemmKernel.multiplyAdd(a, b, c, tile, 1);
+                    cache.release(ti, tk, false);
+                    B.cache.release(tk, tj, false);
+                }
+                out.cache.release(ti, tj, true);
+            }
+        }
+
+        if (Metrics.ENABLED) {
+            long n = rows, k = cols, m = B.cols;
+            Metrics.record(Operation.MATRIX_MULTIPLY, 2 * n * k * m, 8 * (n * k * B.tileCols + k * m * tileRows + n * m), start);
+        }
+        return out;
+    }
+
+    /**
+     * Writes all modified tiles to the file and forces the file to the storage device.
+     */
+    public void flush() {
+        cache.flush();
+        for (MappedByteBuffer window : windows)
+            window.force();
+    }
+
+    /**
+     * Flushes and closes the file.
+     *
+     * @throws IOException if closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    TileCache getCache() {
+        return cache;
+    }
+
+    /** Number of entries of a tile including padding */
+    int getTileLength() {
+        return tile * tile;
+    }
+
+    /** Number of rows or columns of tile t that lie inside a dimension of the given size */
+    int extent(int t, int size) {
+        return Math.min(tile, size - t * tile);
+    }
+
+    /** Copies a tile out of the mapped file */
+    void readTile(int ti, int tj, double[] data) {
+        long index = (long) ti * tileCols + tj;
+        views[(int) (index / tilesPerWindow)].get((int) (index % tilesPerWindow) * tile * tile, data);
+    }
+
+    /** Copies a tile into the mapped file */
+    void writeTile(int ti, int tj, double[] data) {
+        long index = (long) ti * tileCols + tj;
+        views[(int) (index / tilesPerWindow)].put((int) (index % tilesPerWindow) * tile * tile, data);
+    }
+
+    private void checkIndex(int i, int j) {
+        if (i < 0 || i >= rows || j < 0 || j >= cols)
+            throw new IndexOutOfBoundsException("Entry (" + i + ", " + j + ") out of range");
+    }
+}
@@ -0,0 +1,172 @@
+package de.home_skrobanek.fnum.matrix;
+/**
+ * @class Tiles
+ * @brief Square matrix split into square tiles, with the tile kernels of the tiled decompositions.
+ *
+ * Each tile is a flat array of t x t entries, row by row. The matrix is
+ * padded to a multiple of t with zeros and ones on the padded part of the
+ * diagonal, so the padded matrix is diag(A, I): decompositions,
+ * determinants and solutions of A are unchanged and every kernel works on
+ * full tiles. The padded ones only ever land in the last diagonal tile;
+ * kernels that check their pivots take the number of rows of A in the tile
+ * and leave the padded pivots unchecked.
+ */
+final class Tiles {
+
+    /** Edge length of the tiles */
+    final int t;
+
+    /** Number of tiles per row and column */
+    final int count;
+
+    /** Dimension of the matrix without padding */
+    final int n;
+
+    /** Tiles, tile (i, j) at index i * count + j */
+    final double[][] data;
+
+    Tiles(Matrix A, int t) {
+        this.t = t;
+        this.n = A.getRowCount();
+        this.count = (n + t - 1) / t;
+        this.data = new double[count * count][t * t];
+
+        double[][] a = A.getData();
+        for (int i = 0; i < count * t; i++) {
+            for (int j = 0; j < count * t; j++) {
+                double value = i < n && j < n ? a[i][j] : i == j ? 1 : 0;
+                data[(i / t) * count + j / t][(i % t) * t + j % t] = value;
+            }
+        }
+    }
+
+    double[] tile(int i, int j) {
+        return data[i * count + j];
+    }
+
+    /** Key of tile (i, j) for a {@link de.home_skrobanek.fnum.utils.TaskGraph} */
+    long key(int i, int j) {
+        return (long) i * count + j;
+    }
+
+    /** Number of rows of the unpadded matrix in tile row i */
+    int rows(int i) {
+        return Math.min(t, n - i * t);
+    }
+
+    double get(int i, int j) {
+        return data[(i / t) * count + j / t][(i % t) * t + j % t];
+    }
+
+    /** Copies the unpadded entries selected by the filter into a new matrix */
+    Matrix toMatrix(boolean lower, boolean unitDiagonal, boolean upper) {
+        Matrix M = new Matrix(n, n);
+        double[][] m = M.getData();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                if (i > j && lower || i < j && upper)
+                    m[i][j] = get(i, j);
+                else if (i == j)
+                    m[i][j] = unitDiagonal ? 1 : get(i, j);
+            }
+        return M;
+    }
+
+    /**
+     * Overwrites the lower triangle of a tile with its Cholesky factor and
+     * clears the upper triangle.
+     *
+     * @throws ArithmeticException if the tile is not positive definite
+     */
+    static void potrf(double[] a, int t) {
+        for (int j = 0; j < t; j++) {
+            int row = j * t;
+            double d = a[row + j];
+            for (int p = 0; p < j; p++)
+                d -= a[row + p] * a[row + p];
+            if (!(d > 0))
+                throw new ArithmeticException("Matrix is not positive definite");
+            d = Math.sqrt(d);
+            a[row + j] = d;
+            for (int i = j + 1; i < t; i++) {
+                int other = i * t;
+                double sum = a[other + j];
+                for (int p = 0; p < j; p++)
+                    sum -= a[other + p] * a[row + p];
+                a[other + j] = sum / d;
+            }
+            for (int k = j + 1; k < t; k++)
+                a[row + k] = 0;
+        }
+    }
+
+    /**
+     * Computes B = B · L^-T for the lower triangular tile L.
+     */
+    static void trsmLowerTransposedRight(double[] l, double[] b, int t) {
+        for (int r = 0; r < t; r++) {
+            int row = r * t;
+            for (int j = 0; j < t; j++) {
+                double sum = b[row + j];
+                int lRow = j * t;
+                for (int p = 0; p < j; p++)
+                    sum -= b[row + p] * l[lRow + p];
+                b[row + j] = sum / l[lRow + j];
+            }
+        }
+    }
+
+    /**
+     * Decomposes a tile into L (unit diagonal, below) and R in place without pivoting.
+     * Only the pivots of the first rows are checked; the remaining rows are
+     * padding and keep their unit pivot.
+     *
+     * @throws ArithmeticException if a checked pivot is below the threshold
+     *
+     * @pre 0 < rows <= t
+     */
+    static void getrf(double[] a, int t, int rows, double abs) {
+        assert rows > 0 && rows <= t;
+        for (int k = 0; k < t; k++) {
+            double pivot = a[k * t + k];
+            if (k < rows && (Math.abs(pivot) < abs || pivot == 0))
+                throw new ArithmeticException("Matrix is singular");
+            for (int i = k + 1; i < t; i++) {
+                double l = a[i * t + k] /= pivot;
+                if (l == 0)
+                    continue;
+                for (int j = k + 1; j < t; j++)
+                    a[i * t + j] -= l * a[k * t + j];
+            }
+        }
+    }
+
+    /**
+     * Computes B = L^-1 · B for the unit lower factor stored in d.
+     */
+    static void trsmUnitLowerLeft(double[] d, double[] b, int t) {
+        for (int i = 1; i < t; i++)
+            for (int k = 0; k < i; k++) {
+                double l = d[i * t + k];
+                if (l == 0)
+                    continue;
+                for (int j = 0; j < t; j++)
+                    b[i * t + j] -= l * b[k * t + j];
+            }
+    }
+
+    /**
+     * Computes B = B · R^-1 for the upper factor stored in d.
+     */
+    static void trsmUpperRight(double[] d, double[] b, int t) {
+        for (int r = 0; r < t; r++) {
+            int row = r * t;
+            for (int j = 0; j < t; j++) {
+                double sum = b[row + j];
+                for (int k = 0; k < j; k++)
+                    sum -= b[row + k] * d[k * t + j];
+                b[row + j] = sum / d[j * t + j];
+            }
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.Arrays;
+/**
+ * @class TriangularMatrix
+ * @brief Square lower or upper triangular matrix in packed storage.
+ *
+ * Only the n(n+1)/2 entries of the triangle are stored, in one of the
+ * layouts of {@link PackedStorage}. An upper triangular matrix is kept as
+ * the lower triangle of its transpose, so row i of an upper matrix is a run
+ * with constant stride just like column i of a lower one.
+ *
+ * <p>Besides element access the class provides the triangular kernels of
+ * BLAS level 2 and 3: {@link #multiply(Matrix)} (TRMM),
+ * {@link #solve(Matrix)} (TRSM) and their vector counterparts. They operate
+ * on the packed array directly and never expand the triangle.</p>
+ *
+ * <p>{@link #view(Matrix, boolean)} instead wraps the triangle of a dense
+ * matrix without copying it, e.g. the factors of {@link LUDecomposition}.
+ * The kernels then run over the rows of the dense matrix.</p>
+ *
+ * <p>All indices are zero-based.</p>
+ */
+public class TriangularMatrix {
+
+    /** Lower triangle of the matrix (or of its transpose if upper), {@code null} for a view */
+    private final double[] data;
+
+    /** Addressing of {@link #data}, {@code null} for a view */
+    private final PackedLayout layout;
+
+    /** Wrapped dense matrix of a view, {@code null} for packed storage */
+    private final Matrix dense;
+
+    /** Dimension */
+    private final int n;
+
+    /** Whether the non-zero entries lie on and below the diagonal */
+    private final boolean lower;
+
+    /**
+     * Constructs a zero triangular matrix in {@link PackedStorage#PACKED} storage.
+     *
+     * @param n Dimension
+     * @param lower {@code true} for a lower, {@code false} for an upper triangular matrix
+     *
+     * @pre n > 0
+     */
+    public TriangularMatrix(int n, boolean lower) {
+        this(n, lower, PackedStorage.PACKED);
+    }
+
+    /**
+     * Constructs a zero triangular matrix.
+     *
+     * @param n Dimension
+     * @param lower {@code true} for a lower, {@code false} for an upper triangular matrix
+     * @param storage Storage scheme of the triangle
+     *
+     * @pre n > 0
+     */
+    public TriangularMatrix(int n, boolean lower, PackedStorage storage) {
+        assert n > 0;
+        this.n = n;
+        this.lower = lower;
+        this.layout = new PackedLayout(n, storage);
+        this.data = new double[layout.length()];
+        this.dense = null;
+    }
+
+    private TriangularMatrix(Matrix dense, boolean lower) {
+        this.n = dense.getRowCount();
+        this.lower = lower;
+        this.layout = null;
+        this.data = null;
+        this.dense = dense;
+    }
+
+    /**
+     * Wraps a triangle of a dense matrix without copying.
+     *
+     * Entries outside the triangle are ignored. Changes of A show through
+     * the view, {@link #setEntry(int, int, double)} writes into A.
+     *
+     * @param A Square matrix
+     * @param lower {@code true} for the lower, {@code false} for the upper triangle
+     * @return Triangular view of A
+     *
+     * @throws IllegalArgumentException if A is not square
+     */
+    public static TriangularMatrix view(Matrix A, boolean lower) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+        return new TriangularMatrix(A, lower);
+    }
+
+    /**
+     * Extracts a triangle of a dense matrix.
+     *
+     * Entries outside the triangle are ignored.
+     *
+     * @param A Square matrix
+     * @param lower {@code true} to take the lower, {@code false} to take the upper triangle
+     * @param storage Storage scheme of the triangle
+     * @return Triangular matrix holding the entries of the triangle
+     *
+     * @throws IllegalArgumentException if A is not square
+     */
+    public static TriangularMatrix fromMatrix(Matrix A, boolean lower, PackedStorage storage) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        int n = A.getRowCount();
+        double[][] a = A.getData();
+        TriangularMatrix T = new TriangularMatrix(n, lower, storage);
+        for (int j = 0; j < n; j++) {
+            int s = T.layout.start(j), st = T.layout.stride(j);
+            for (int i = j; i < n; i++)
+                T.data[s + (i - j) * st] = lower ? a[i][j] : a[j][i];
+        }
+        return T;
+    }
+
+    public int getRowCount() {
+        return n;
+    }
+
+    public int getColumnCount() {
+        return n;
+    }
+
+    public boolean isLower() {
+        return lower;
+    }
+
+    /**
+     * Returns the storage scheme of the triangle, {@code null} for a view.
+     */
+    public PackedStorage getStorage() {
+        return dense == null ? layout.storage : null;
+    }
+
+    /**
+     * Returns the number of entries of the triangle, n(n+1)/2.
+     */
+    public int getStoredEntries() {
+        return (int) ((long) n * (n + 1) / 2);
+    }
+
+    /**
+     * Returns whether an entry lies inside the stored triangle.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @return {@code true} if {@code i >= j} for a lower, {@code i <= j} for an upper matrix
+     */
+    public boolean isInTriangle(int i, int j) {
+        return lower ? i >= j : i <= j;
+    }
+
+    /**
+     * Returns an entry; entries outside the triangle are 0.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @return Entry at (i, j)
+     *
+     * @pre 0 <= i, j < n
+     */
+    public double getEntry(int i, int j) {
+        assert i >= 0 && j >= 0 && i < n && j < n;
+        if (!isInTriangle(i, j))
+            return 0.0;
+        if (dense != null)
+            return dense.getData()[i][j];
+        return lower ? data[layout.index(i, j)] : data[layout.index(j, i)];
+    }
+
+    /**
+     * Sets an entry inside the triangle.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @param value New value
+     *
+     * @pre 0 <= i, j < n
+     * @throws IllegalArgumentException if (i, j) lies outside the triangle
+     */
+    public void setEntry(int i, int j, double value) {
+        assert i >= 0 && j >= 0 && i < n && j < n;
+        if (!isInTriangle(i, j))
+            throw new IllegalArgumentException("Entry (" + i + ", " + j + ") lies outside the triangle");
+        if (dense != null)
+            dense.setEntry(i, j, value);
+        else
+            data[lower ? layout.index(i, j) : layout.index(j, i)] = value;
+    }
+
+    /**
+     * Computes T · B (TRMM).
+     *
+     * @param B Matrix with n rows
+     * @return New n x m matrix holding the product
+     *
+     * @throws SameDimensionsException if B does not have n rows
+     */
+    public Matrix multiply(Matrix B) {
+        if (B.getRowCount() != n)
+            throw new SameDimensionsException();
+
+        int m = B.getColumnCount();
+        double[][] b = B.getData();
+        Matrix C = new Matrix(n, m);
+        double[][] c = C.getData();
+        if (dense != null) {
+            // Row i of T gathers the rows of B in its triangle
+            double[][] t = dense.getData();
+            for (int i = 0; i < n; i++)
+                for (int j = first(i); j <= last(i); j++)
+                    PackedLayout.axpy(t[i][j], b[j], c[i], m);
+            return C;
+        }
+        for (int j = 0; j < n; j++) {
+            int s = layout.start(j), st = layout.stride(j);
+            if (lower) {
+                // Column j of T scatters row j of B
+                double[] bj = b[j];
+                for (int i = j; i < n; i++)
+                    PackedLayout.axpy(data[s + (i - j) * st], bj, c[i], m);
+            } else {
+                // Row j of T gathers the rows j..n-1 of B
+                double[] cj = c[j];
+                for (int i = j; i < n; i++)
+                    PackedLayout.axpy(data[s + (i - j) * st], b[i], cj, m);
+            }
+        }
+        return C;
+    }
+
+    /**
+     * Computes y = T · x.
+     *
+     * @param x Vector of length n
+     * @param y Array of length n receiving the product, must not be x
+     * @return {@code y}
+     *
+     * @throws SameDimensionsException if a length does not match n
+     */
+    public double[] multiply(double[] x, double[] y) {
+        if (x.length != n || y.length != n)
+            throw new SameDimensionsException();
+        assert x != y;
+
+        if (dense != null) {
+            double[][] t = dense.getData();
+            for (int i = 0; i < n; i++) {
+                double[] ti = t[i];
+                double sum = 0;
+                for (int j = first(i); j <= last(i); j++)
+                    sum += ti[j] * x[j];
+                y[i] = sum;
+            }
+            return y;
+        }
+        if (lower)
+            Arrays.fill(y, 0.0);
+        for (int j = 0; j < n; j++) {
+            int s = layout.start(j), st = layout.stride(j);
+            if (lower) {
+                double xj = x[j];
+                for (int i = j; i < n; i++)
+                    y[i] += data[s + (i - j) * st] * xj;
+            } else {
+                double sum = 0;
+                for (int i = j; i < n; i++)
+                    sum += data[s + (i - j) * st] * x[i];
+                y[j] = sum;
+            }
+        }
+        return y;
+    }
+
+    /**
+     * Computes T · x.
+     *
+     * @param x Vector of dimension n
+     * @return New vector holding the product
+     *
+     * @throws SameDimensionsException if the dimension of x does not match n
+     */
+    public Vector multiply(Vector x) {
+        return new Vector(multiply(toArray(x), new double[n]));
+    }
+
+    /**
+     * Solves T · X = B by forward or backward substitution (TRSM).
+     *
+     * @param B Right-hand sides with n rows
+     * @return New n x m matrix holding X
+     *
+     * @throws SameDimensionsException if B does not have n rows
+     * @throws ArithmeticException if a diagonal entry is zero
+     */
+    public Matrix solve(Matrix B) {
+        if (B.getRowCount() != n)
+            throw new SameDimensionsException();
+
+        Matrix X = B.copy();
+        double[][] x = X.getData();
+        int m = B.getColumnCount();
+        if (dense != null) {
+            // Row by row from the end of the triangle that is already known
+            double[][] t = dense.getData();
+            for (int k = 0; k < n; k++) {
+                int i = lower ? k : n - 1 - k;
+                double[] ti = t[i], xi = x[i];
+                for (int j = first(i); j <= last(i); j++)
+                    if (j != i)
+                        PackedLayout.axpy(-ti[j], x[j], xi, m);
+                divide(xi, nonZero(ti[i]), m);
+            }
+            return X;
+        }
+        if (lower) {
+            // Column oriented: finish row j, then eliminate it below
+            for (int j = 0; j < n; j++) {
+                int s = layout.start(j), st = layout.stride(j);
+                double[] xj = x[j];
+                divide(xj, pivot(s), m);
+                for (int i = j + 1; i < n; i++)
+                    PackedLayout.axpy(-data[s + (i - j) * st], xj, x[i], m);
+            }
+        } else {
+            // Row oriented: gather the finished rows below, then divide
+            for (int j = n - 1; j >= 0; j--) {
+                int s = layout.start(j), st = layout.stride(j);
+                double[] xj = x[j];
+                for (int i = j + 1; i < n; i++)
+                    PackedLayout.axpy(-data[s + (i - j) * st], x[i], xj, m);
+                divide(xj, pivot(s), m);
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Solves T · x = b into a caller-provided array.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws SameDimensionsException if the length of b or x does not match n
+     * @throws ArithmeticException if a diagonal entry is zero
+     */
+    public double[] solve(double[] b, double[] x) {
+        if (b.length != n || x.length != n)
+            throw new SameDimensionsException();
+        if (x != b)
+            System.arraycopy(b, 0, x, 0, n);
+
+        if (dense != null) {
+            double[][] t = dense.getData();
+            for (int k = 0; k < n; k++) {
+                int i = lower ? k : n - 1 - k;
+                double[] ti = t[i];
+                double sum = x[i];
+                for (int j = first(i); j <= last(i); j++)
+                    if (j != i)
+                        sum -= ti[j] * x[j];
+                x[i] = sum / nonZero(ti[i]);
+            }
+            return x;
+        }
+        if (lower) {
+            for (int j = 0; j < n; j++) {
+                int s = layout.start(j), st = layout.stride(j);
+                double xj = x[j] / pivot(s);
+                x[j] = xj;
+                for (int i = j + 1; i < n; i++)
+                    x[i] -= data[s + (i - j) * st] * xj;
+            }
+        } else {
+            for (int j = n - 1; j >= 0; j--) {
+                int s = layout.start(j), st = layout.stride(j);
+                double sum = x[j];
+                for (int i = j + 1; i < n; i++)
+                    sum -= data[s + (i - j) * st] * x[i];
+                x[j] = sum / pivot(s);
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Solves T · x = b.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws SameDimensionsException if the dimension of b does not match n
+     * @throws ArithmeticException if a diagonal entry is zero
+     */
+    public Vector solve(Vector b) {
+        double[] x = toArray(b);
+        return new Vector(solve(x, x));
+    }
+
+    /**
+     * Converts the matrix into dense storage.
+     *
+     * @return New dense matrix with the same entries
+     */
+    public Matrix toMatrix() {
+        Matrix A = new Matrix(n, n);
+        double[][] a = A.getData();
+        if (dense != null) {
+            double[][] t = dense.getData();
+            for (int i = 0; i < n; i++)
+                System.arraycopy(t[i], first(i), a[i], first(i), last(i) - first(i) + 1);
+            return A;
+        }
+        for (int j = 0; j < n; j++) {
+            int s = layout.start(j), st = layout.stride(j);
+            for (int i = j; i < n; i++) {
+                if (lower)
+                    a[i][j] = data[s + (i - j) * st];
+                else
+                    a[j][i] = data[s + (i - j) * st];
+            }
+        }
+        return A;
+    }
+
+    private double pivot(int position) {
+        return nonZero(data[position]);
+    }
+
+    private static double nonZero(double d) {
+        if (d == 0)
+            throw new ArithmeticException("Matrix is singular");
+        return d;
+    }
+
+    /** First column of row i inside the triangle */
+    private int first(int i) {
+        return lower ? 0 : i;
+    }
+
+    /** Last column of row i inside the triangle */
+    private int last(int i) {
+        return lower ? i : n - 1;
+    }
+
+    private double[] toArray(Vector x) {
+        if (x.size() != n)
+            throw new SameDimensionsException();
+
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+            values[i] = x.getValue(i);
+        return values;
+    }
+
+    private static void divide(double[] x, double d, int m) {
+        for (int k = 0; k < m; k++)
+            x[k] /= d;
+    }
+}
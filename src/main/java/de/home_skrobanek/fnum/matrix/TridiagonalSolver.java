@@ -0,0 +1,331 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.utils.Workspace;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+/**
+ * @class TridiagonalSolver
+ * @brief Solves tridiagonal linear systems in O(n).
+ *
+ * The system is given by its three diagonals in the convention of LAPACK's
+ * gtsv: {@code lower[i] = A(i+1, i)}, {@code diagonal[i] = A(i, i)} and
+ * {@code upper[i] = A(i, i+1)}.
+ *
+ * <p>{@link #solve(double[], double[])} runs the Thomas algorithm, one
+ * forward elimination and one backward substitution.
+ * {@link #solveParallel(double[], double[])} splits the system into
+ * blocks that are reduced simultaneously, like one level of cyclic
+ * reduction with whole blocks instead of single unknowns. What remains is
+ * a tridiagonal system with one separator unknown between neighbouring
+ * blocks, solved sequentially, after which all blocks are completed in
+ * parallel.</p>
+ *
+ * <p>Neither variant pivots. Both are stable for diagonally dominant or
+ * symmetric positive definite matrices, which covers the usual
+ * discretizations and spline systems. Use {@link BandedLUDecomposition}
+ * for other matrices.</p>
+ */
+public class TridiagonalSolver {
+
+    /** Smallest block of the parallel solver, smaller systems use the Thomas algorithm */
+    private static final int MIN_BLOCK = 1 << 14;
+
+    /** Sub-diagonal, length n - 1 */
+    private final double[] lower;
+
+    /** Diagonal, length n */
+    private final double[] diagonal;
+
+    /** Super-diagonal, length n - 1 */
+    private final double[] upper;
+
+    /** Dimension */
+    private final int n;
+
+    /** Number of blocks of the parallel solver, 0 chooses automatically */
+    private int blocks = 0;
+
+    /**
+     * Constructs a solver for the given diagonals.
+     *
+     * The arrays are used directly, no deep copy is performed.
+     *
+     * @param lower Sub-diagonal of length n - 1
+     * @param diagonal Diagonal of length n
+     * @param upper Super-diagonal of length n - 1
+     *
+     * @throws SameDimensionsException if the lengths do not fit
+     */
+    public TridiagonalSolver(double[] lower, double[] diagonal, double[] upper) {
+        this.n = diagonal.length;
+        if (n == 0 || lower.length != n - 1 || upper.length != n - 1)
+            throw new SameDimensionsException();
+
+        this.lower = lower;
+        this.diagonal = diagonal;
+        this.upper = upper;
+    }
+
+    /**
+     * Constructs a solver for a band matrix with one sub- and one super-diagonal.
+     *
+     * @param A Tridiagonal band matrix
+     *
+     * @throws IllegalArgumentException if A is not tridiagonal
+     */
+    public TridiagonalSolver(BandedMatrix A) {
+        this(new double[A.getRowCount() - 1], new double[A.getRowCount()], new double[A.getRowCount() - 1]);
+        if (A.getLowerBandwidth() > 1 || A.getUpperBandwidth() > 1)
+            throw new IllegalArgumentException("The matrix has to be tridiagonal");
+
+        for (int i = 0; i < n; i++) {
+            diagonal[i] = A.getEntry(i, i);
+            if (i < n - 1) {
+                lower[i] = A.getEntry(i + 1, i);
+                upper[i] = A.getEntry(i, i + 1);
+            }
+        }
+    }
+
+    public int getDimension() {
+        return n;
+    }
+
+    /**
+     * Sets the number of blocks of {@link #solveParallel(double[], double[])}.
+     *
+     * @param blocks Number of blocks, 0 to derive it from the
+     *               dimension and the parallelism of the common pool
+     *
+     * @pre blocks >= 0
+     */
+    public void setBlocks(int blocks) {
+        assert blocks >= 0;
+        this.blocks = blocks;
+    }
+
+    public int getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Solves A * x = b with the Thomas algorithm.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws SameDimensionsException if the dimension of b does not match
+     * @throws ArithmeticException if a pivot becomes zero
+     */
+    public Vector solve(Vector b) {
+        if (b.size() != n)
+            throw new SameDimensionsException();
+
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    /**
+     * Solves A * x = b with the Thomas algorithm into a caller-provided array.
+     *
+     * The modified super-diagonal is borrowed from the workspace of the
+     * calling thread, so repeated solves allocate nothing.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws SameDimensionsException if the length of b or x does not match
+     * @throws ArithmeticException if a pivot becomes zero
+     */
+    public double[] solve(double[] b, double[] x) {
+        if (b.length != n || x.length != n)
+            throw new SameDimensionsException();
+
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        try {
+            double[] c = workspace.borrowVector(n);
+
+            double pivot = diagonal[0];
+            if (pivot == 0)
+                throw new ArithmeticException("Matrix is singular");
+            c[0] = n > 1 ? upper[0] / pivot : 0;
+            x[0] = b[0] / pivot;
+            for (int i = 1; i < n; i++) {
+                double l = lower[i - 1];
+                pivot = diagonal[i] - l * c[i - 1];
+                if (pivot == 0)
+                    throw new ArithmeticException("Matrix is singular");
+                c[i] = i < n - 1 ? upper[i] / pivot : 0;
+                x[i] = (b[i] - l * x[i - 1]) / pivot;
+            }
+            for (int i = n - 2; i >= 0; i--)
+                x[i] -= c[i] * x[i + 1];
+            return x;
+        } finally {
+            workspace.release(mark);
+        }
+    }
+
+    /**
+     * Solves A * x = b with the partitioned parallel reduction.
+     *
+     * The unknowns are split into p blocks separated by single separator
+     * unknowns σ. Every block [s, e] is solved locally for three right-hand
+     * sides: b, the coupling to the separator on its left and the coupling
+     * to the separator on its right, giving
+     *
+     * <pre>
+     *   x_i = y_i + v_i · σ_left + w_i · σ_right
+     * </pre>
+     *
+     * Inserting this into the separator rows yields a tridiagonal system for
+     * the p - 1 separators, the Schur complement, which is solved with the
+     * Thomas algorithm. Then every block evaluates the formula above. The
+     * work is about twice that of {@link #solve(double[], double[])}, spread
+     * over all blocks.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws SameDimensionsException if the length of b or x does not match
+     * @throws ArithmeticException if a pivot becomes zero
+     */
+    public double[] solveParallel(double[] b, double[] x) {
+        if (b.length != n || x.length != n)
+            throw new SameDimensionsException();
+
+        int p = this.blocks > 0 ? this.blocks
+                : Math.min(4 * ForkJoinPool.getCommonPoolParallelism(), n / MIN_BLOCK);
+        p = Math.min(p, n / 2);
+        if (p <= 1)
+            return solve(b, x);
+
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        try {
+            double[] c = workspace.borrowVector(n);
+            double[] v = workspace.borrowVector(n);
+
+            // y_s, y_e, v_s, v_e, w_s, w_e of every block
+            int count = p;
+            double[] ends = new double[6 * count];
+            IntStream.range(0, count).parallel().forEach(k ->
+                    reduceBlock(blockStart(k, count), blockStart(k + 1, count) - 2, b, x, c, v, ends, 6 * k));
+
+            double[] sigma = solveSeparators(b, ends, count);
+            for (int j = 0; j < count - 1; j++)
+                x[blockStart(j + 1, count) - 1] = sigma[j];
+
+            IntStream.range(0, count).parallel().forEach(k ->
+                    completeBlock(blockStart(k, count), blockStart(k + 1, count) - 2, x, c, v,
+                            k > 0 ? sigma[k - 1] : 0, k < count - 1 ? sigma[k] : 0));
+            return x;
+        } finally {
+            workspace.release(mark);
+        }
+    }
+
+    /**
+     * First unknown of block k. The separator between block k - 1 and k is
+     * the unknown right before, the last block ends at n - 1.
+     */
+    private int blockStart(int k, int p) {
+        return k == p ? n + 1 : (int) ((long) n * k / p) + (k > 0 ? 1 : 0);
+    }
+
+    /**
+     * Thomas forward elimination of one block for the right-hand sides
+     * b, -lower[s-1] · e_1 and -upper[e] · e_m, followed by the backward
+     * substitution of y and v. w only needs its end values, the rest is
+     * recomputed in {@link #completeBlock}.
+     */
+    private void reduceBlock(int s, int e, double[] b, double[] y, double[] c, double[] v,
+                             double[] ends, int o) {
+        double couplingLeft = s > 0 ? -lower[s - 1] : 0;
+        double couplingRight = e < n - 1 ? -upper[e] : 0;
+
+        double pivot = diagonal[s];
+        if (pivot == 0)
+            throw new ArithmeticException("Matrix is singular");
+        c[s] = s < e ? upper[s] / pivot : 0;
+        y[s] = b[s] / pivot;
+        v[s] = couplingLeft / pivot;
+        for (int i = s + 1; i <= e; i++) {
+            double l = lower[i - 1];
+            pivot = diagonal[i] - l * c[i - 1];
+            if (pivot == 0)
+                throw new ArithmeticException("Matrix is singular");
+            c[i] = i < e ? upper[i] / pivot : 0;
+            y[i] = (b[i] - l * y[i - 1]) / pivot;
+            v[i] = -l * v[i - 1] / pivot;
+        }
+
+        // The right coupling only enters the last equation
+        double wEnd = couplingRight / pivot;
+        double w = wEnd;
+        for (int i = e - 1; i >= s; i--) {
+            y[i] -= c[i] * y[i + 1];
+            v[i] -= c[i] * v[i + 1];
+            w = -c[i] * w;
+        }
+
+        ends[o] = y[s];
+        ends[o + 1] = y[e];
+        ends[o + 2] = v[s];
+        ends[o + 3] = v[e];
+        ends[o + 4] = w;
+        ends[o + 5] = wEnd;
+    }
+
+    /**
+     * Solves the Schur complement for the separators. Separator j sits
+     * between block j and block j + 1; its row couples the last unknown of
+     * block j and the first unknown of block j + 1.
+     */
+    private double[] solveSeparators(double[] b, double[] ends, int p) {
+        int m = p - 1;
+        double[] sub = new double[m], diag = new double[m], sup = new double[m], sigma = new double[m];
+        for (int j = 0; j < m; j++) {
+            int q = blockStart(j + 1, p) - 1;
+            double l = lower[q - 1], u = upper[q];
+            int left = 6 * j, right = 6 * (j + 1);
+
+            sub[j] = l * ends[left + 3];
+            diag[j] = diagonal[q] + l * ends[left + 5] + u * ends[right + 2];
+            sup[j] = u * ends[right + 4];
+            sigma[j] = b[q] - l * ends[left + 1] - u * ends[right];
+        }
+
+        for (int j = 1; j < m; j++) {
+            double f = sub[j] / diag[j - 1];
+            diag[j] -= f * sup[j - 1];
+            sigma[j] -= f * sigma[j - 1];
+        }
+        sigma[m - 1] /= diag[m - 1];
+        for (int j = m - 2; j >= 0; j--)
+            sigma[j] = (sigma[j] - sup[j] * sigma[j + 1]) / diag[j];
+        return sigma;
+    }
+
+    /**
+     * Evaluates x_i = y_i + v_i · left + w_i · right, recomputing w backwards.
+     */
+    private void completeBlock(int s, int e, double[] x, double[] c, double[] v,
+                                   double left, double right) {
+        double pivot = e > s ? diagonal[e] - lower[e - 1] * c[e - 1] : diagonal[e];
+        double w = e < n - 1 ? -upper[e] / pivot : 0;
+        x[e] += v[e] * left + w * right;
+        for (int i = e - 1; i >= s; i--) {
+            w = -c[i] * w;
+            x[i] += v[i] * left + w * right;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package de.home_skrobanek.fnum.matrix;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.utils.Workspace;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class WoodburySolver
+ * @brief Solves systems with a low-rank modification of a decomposed matrix.
+ *
+ * Given an executed decomposition of A and n x k matrices U and V, solves
+ * (A + U · V^T) · x = b with the Sherman-Morrison-Woodbury formula
+ *
+ * <pre>
+ *   (A + U·V^T)^-1 = A^-1 - Z · C^-1 · V^T · A^-1,   Z = A^-1 · U,   C = I + V^T · Z
+ * </pre>
+ *
+ * Construction costs k solves with A and the decomposition of the small
+ * k x k capacitance matrix C, every solve one solve with A plus O(n · k),
+ * instead of a new O(n^3) decomposition. Changing a single entry (i, j)
+ * by δ is the rank-1 case {@code U = δ · e_i}, {@code V = e_j}; replacing
+ * row i is {@code U = e_i}, {@code V} the difference of the rows.
+ *
+ * <p>For k close to n a new decomposition is cheaper. The formula is
+ * unstable if A + U · V^T is ill-conditioned although A is not.</p>
+ */
+public class WoodburySolver {
+
+    /** Decomposition of A */
+    private final Factorization base;
+
+    /** Dimension */
+    private final int n;
+
+    /** Rank of the modification */
+    private final int k;
+
+    /** Z = A^-1 · U, column-wise, k x n */
+    private final double[][] Z;
+
+    /** V column-wise, k x n */
+    private final double[][] V;
+
+    /** Decomposition of C = I + V^T · Z */
+    private final PivotedLUDecomposition capacitance;
+
+    /**
+     * Constructs the solver on top of an executed LU decomposition.
+     *
+     * @param lu Executed decomposition of A
+     * @param U Matrix with n rows and k columns
+     * @param V Matrix with n rows and k columns
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws SameDimensionsException if U and V do not have n rows and the same column count
+     * @throws ArithmeticException if A + U · V^T is singular
+     */
+    public WoodburySolver(LUDecomposition lu, Matrix U, Matrix V) {
+        this((Factorization) lu, U, V);
+    }
+
+    /**
+     * Constructs the solver on top of an executed pivoted LU decomposition.
+     *
+     * @see #WoodburySolver(LUDecomposition, Matrix, Matrix)
+     */
+    public WoodburySolver(PivotedLUDecomposition lu, Matrix U, Matrix V) {
+        this((Factorization) lu, U, V);
+    }
+
+    /**
+     * Constructs the solver on top of an executed Cholesky decomposition.
+     *
+     * @see #WoodburySolver(LUDecomposition, Matrix, Matrix)
+     */
+    public WoodburySolver(CholeskyDecomposition cholesky, Matrix U, Matrix V) {
+        this((Factorization) cholesky, U, V);
+    }
+
+    private WoodburySolver(Factorization base, Matrix U, Matrix V) {
+        this.base = base;
+        this.n = U.getRowCount();
+        this.k = U.getColumnCount();
+        if (V.getRowCount() != n || V.getColumnCount() != k)
+            throw new SameDimensionsException();
+
+        Z = new double[k][n];
+        this.V = new double[k][n];
+        for (int j = 0; j < k; j++) {
+            for (int i = 0; i < n; i++) {
+                Z[j][i] = U.getEntry(i, j);
+                this.V[j][i] = V.getEntry(i, j);
+            }
+            base.solve(Z[j], Z[j]);
+        }
+
+        Matrix C = new Matrix(k, k);
+        for (int i = 0; i < k; i++)
+            for (int j = 0; j < k; j++)
+                C.setEntry(i, j, (i == j ? 1 : 0) + dot(this.V[i], Z[j]));
+        capacitance = new PivotedLUDecomposition(C);
+        capacitance.execute(0);
+    }
+
+    public int getRank() {
+        return k;
+    }
+
+    /**
+     * Returns the determinant of A + U · V^T.
+     *
+     * By the matrix determinant lemma it is det(A) · det(C).
+     *
+     * @return Determinant of the modified matrix
+     */
+    public double getDeterminant() {
+        return base.getDeterminant() * capacitance.getDeterminant();
+    }
+
+    /**
+     * Solves (A + U · V^T) · x = b into a caller-provided array.
+     *
+     * The k coefficients of the correction are borrowed from the workspace
+     * of the calling thread, so repeated solves allocate nothing.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    public double[] solve(double[] b, double[] x) {
+        base.solve(b, x);
+
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        try {
+            double[] t = workspace.borrowVector(k);
+            for (int j = 0; j < k; j++)
+                t[j] = dot(V[j], x);
+            // The buffer may be longer than k
+            capacitance.solveInPlace(t);
+
+            for (int j = 0; j < k; j++) {
+                double[] z = Z[j];
+                double tj = t[j];
+                for (int i = 0; i < n; i++)
+                    x[i] -= z[i] * tj;
+            }
+            return x;
+        } finally {
+            workspace.release(mark);
+        }
+    }
+
+    /**
+     * Solves (A + U · V^T) · x = b.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public Vector solve(Vector b) {
+        if (b.size() != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++)
+            sum += a[i] * b[i];
+        return sum;
+    }
+}
@@ -0,0 +1,90 @@
+package de.home_skrobanek.fnum.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * @class InMemoryMetricsSink
+ * @brief Aggregates the records per operation in memory.
+ *
+ * Counters are updated lock-free, so the sink can be shared by all
+ * threads. {@link #getStats(Operation)} returns a snapshot.
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+
+    private final Map<Operation, Counters> counters = new EnumMap<>(Operation.class);
+
+    public InMemoryMetricsSink() {
+        for (Operation operation : Operation.values())
+            counters.put(operation, new Counters());
+    }
+
+    @Override
+    public void record(Operation operation, long flops, long bytes, long nanos, int threads) {
+        Counters c = counters.get(operation);
+        c.count.increment();
+        c.flops.add(flops);
+        c.bytes.add(bytes);
+        c.nanos.add(nanos);
+        c.maxNanos.accumulateAndGet(nanos, Math::max);
+        c.maxThreads.accumulateAndGet(threads, Math::max);
+        c.histogram.incrementAndGet(bucket(nanos));
+        c.threadIds.add(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns a snapshot of the metrics of one operation.
+     *
+     * @param operation Operation to report
+     * @return Aggregated metrics
+     */
+    public OperationStats getStats(Operation operation) {
+        Counters c = counters.get(operation);
+        long[] histogram = new long[c.histogram.length()];
+        for (int i = 0; i < histogram.length; i++)
+            histogram[i] = c.histogram.get(i);
+
+        return new OperationStats(operation, c.count.sum(), c.flops.sum(), c.bytes.sum(), c.nanos.sum(),
+                c.maxNanos.get(), c.maxThreads.get(), c.threadIds.size(), histogram);
+    }
+
+    /**
+     * Clears all collected metrics.
+     */
+    public void reset() {
+        for (Counters c : counters.values())
+            c.reset();
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static final class Counters {
+        final LongAdder count = new LongAdder();
+        final LongAdder flops = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicInteger maxThreads = new AtomicInteger();
+        final AtomicLongArray histogram = new AtomicLongArray(64);
+        final Set<Long> threadIds = ConcurrentHashMap.newKeySet();
+
+        void reset() {
+            count.reset();
+            flops.reset();
+            bytes.reset();
+            nanos.reset();
+            maxNanos.set(0);
+            maxThreads.set(0);
+            for (int i = 0; i < histogram.length(); i++)
+                histogram.set(i, 0);
+            threadIds.clear();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package de.home_skrobanek.fnum.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+/**
+ * @class JfrMetricsSink
+ * @brief Emits every record as a Java Flight Recorder event.
+ *
+ * The events are named {@code de.home_skrobanek.fnum.Operation} and can be
+ * enabled in a recording like any built-in event, e.g.
+ * {@code jfr configure +de.home_skrobanek.fnum.Operation#enabled=true}.
+ * If no recording has the event enabled, records are dropped cheaply.
+ *
+ * The event begins in {@link #begin(long)}, before the work of the
+ * operation, so its JFR duration covers the operation. Operations nest,
+ * the events begun on a thread are therefore kept on a stack.
+ */
+public class JfrMetricsSink implements MetricsSink {
+
+    /** Events begun on each thread, innermost last */
+    private final ThreadLocal<ArrayDeque<OperationEvent>> begun = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void begin(long startNanos) {
+        OperationEvent event = new OperationEvent();
+        if (!event.isEnabled())
+            return;
+        event.startNanos = startNanos;
+        event.begin();
+        begun.get().addLast(event);
+    }
+
+    @Override
+    public void record(Operation operation, long flops, long bytes, long startNanos, long nanos, int threads) {
+        ArrayDeque<OperationEvent> events = begun.get();
+        for (Iterator<OperationEvent> it = events.descendingIterator(); it.hasNext(); ) {
+            if (it.next().startNanos == startNanos) {
+                // Events above it belong to operations that threw before recording
+                OperationEvent top;
+                do
+                    top = events.removeLast();
+                while (top.startNanos != startNanos);
+                commit(top, operation, flops, bytes, nanos, threads);
+                return;
+            }
+        }
+        // Begun before the sink was installed or while no recording was running
+        record(operation, flops, bytes, nanos, threads);
+    }
+
+    @Override
+    public void record(Operation operation, long flops, long bytes, long nanos, int threads) {
+        commit(new OperationEvent(), operation, flops, bytes, nanos, threads);
+    }
+
+    private static void commit(OperationEvent event, Operation operation, long flops, long bytes, long nanos, int threads) {
+        event.end();
+        if (!event.shouldCommit())
+            return;
+
+        event.operation = operation.name();
+        event.flops = flops;
+        event.bytes = bytes;
+        event.wallTime = nanos;
+        event.threads = threads;
+        event.commit();
+    }
+
+    /**
+     * Custom JFR event of one library operation.
+     */
+    @Name("de.home_skrobanek.fnum.Operation")
+    @Label("FNum Operation")
+    @Category("FNum")
+    @Description("Execution of an instrumented FNum operation")
+    @StackTrace(false)
+    static class OperationEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Floating-Point Operations")
+        long flops;
+
+        @Label("Bytes Touched")
+        @DataAmount
+        long bytes;
+
+        @Label("Wall Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long wallTime;
+
+        @Label("Threads")
+        int threads;
+
+        /** Start passed to {@link #begin(long)}, not part of the event */
+        transient long startNanos;
+    }
+}
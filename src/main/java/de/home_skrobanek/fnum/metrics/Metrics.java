@@ -0,0 +1,86 @@
+package de.home_skrobanek.fnum.metrics;
+/**
+ * @class Metrics
+ * @brief Opt-in instrumentation of the hot paths of the library.
+ *
+ * Instrumentation is switched on with the system property
+ * {@code -Dfnum.metrics=true} and a sink installed via
+ * {@link #setSink(MetricsSink)}. Instrumented code follows the pattern
+ *
+ * @code
+ * long start = Metrics.ENABLED ? Metrics.start() : 0;
+ * ...
+ * if (Metrics.ENABLED)
+ *     Metrics.record(Operation.LU_SOLVE, flops, bytes, start);
+ * @endcode
+ *
+ * Since {@link #ENABLED} is a static final constant, the JIT removes
+ * both branches when the property is not set, so disabled metrics cost
+ * nothing.
+ */
+public final class Metrics {
+
+    /** Whether instrumentation is compiled into the hot paths */
+    public static final boolean ENABLED = Boolean.getBoolean("fnum.metrics");
+
+    /** Sink receiving the records, null if none is installed */
+    private static volatile MetricsSink sink;
+
+    private Metrics() {
+    }
+
+    /**
+     * Installs the sink receiving all records.
+     *
+     * Has no effect on the hot paths unless {@link #ENABLED} is set.
+     *
+     * @param newSink Sink to install, null to stop recording
+     */
+    public static void setSink(MetricsSink newSink) {
+        sink = newSink;
+    }
+
+    public static MetricsSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Marks the start of an operation, before its work begins.
+     *
+     * @return Value of {@link System#nanoTime()}, to be passed to {@link #record}
+     */
+    public static long start() {
+        long startNanos = System.nanoTime();
+        MetricsSink current = sink;
+        if (current != null)
+            current.begin(startNanos);
+        return startNanos;
+    }
+
+    /**
+     * Records a sequential operation that started at the given time.
+     *
+     * @param operation Executed operation
+     * @param flops Floating-point operations performed
+     * @param bytes Bytes touched
+     * @param startNanos Value returned by {@link #start()}
+     */
+    public static void record(Operation operation, long flops, long bytes, long startNanos) {
+        record(operation, flops, bytes, startNanos, 1);
+    }
+
+    /**
+     * Records an operation that started at the given time.
+     *
+     * @param operation Executed operation
+     * @param flops Floating-point operations performed
+     * @param bytes Bytes touched
+     * @param startNanos Value returned by {@link #start()}
+     * @param threads Number of threads that worked on the operation
+     */
+    public static void record(Operation operation, long flops, long bytes, long startNanos, int threads) {
+        MetricsSink current = sink;
+        if (current != null)
+            current.record(operation, flops, bytes, startNanos, System.nanoTime() - startNanos, threads);
+    }
+}
@@ -0,0 +1,48 @@
+package de.home_skrobanek.fnum.metrics;
+/**
+ * @interface MetricsSink
+ * @brief Receives one record per instrumented operation.
+ *
+ * Implementations are called on the thread that executed the operation
+ * and therefore have to be thread-safe.
+ *
+ * @see Metrics
+ */
+public interface MetricsSink {
+
+    /**
+     * Records one execution of an operation.
+     *
+     * @param operation Executed operation
+     * @param flops Floating-point operations performed
+     * @param bytes Bytes of operand and result data touched
+     * @param nanos Wall time in nanoseconds
+     * @param threads Number of threads that worked on the operation
+     */
+    void record(Operation operation, long flops, long bytes, long nanos, int threads);
+
+    /**
+     * Called before the work of an operation starts. Sinks with their own
+     * clock begin the measurement here.
+     *
+     * @param startNanos Value of {@link System#nanoTime()} at the start,
+     *        passed again to {@link #record(Operation, long, long, long, long, int)}
+     */
+    default void begin(long startNanos) {
+    }
+
+    /**
+     * Records one execution of an operation that was announced by
+     * {@link #begin(long)}.
+     *
+     * @param operation Executed operation
+     * @param flops Floating-point operations performed
+     * @param bytes Bytes of operand and result data touched
+     * @param startNanos Value passed to {@link #begin(long)}
+     * @param nanos Wall time in nanoseconds
+     * @param threads Number of threads that worked on the operation
+     */
+    default void record(Operation operation, long flops, long bytes, long startNanos, long nanos, int threads) {
+        record(operation, flops, bytes, nanos, threads);
+    }
+}
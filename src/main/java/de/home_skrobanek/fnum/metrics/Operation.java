@@ -0,0 +1,23 @@
+package de.home_skrobanek.fnum.metrics;
+/**
+ * @enum Operation
+ * @brief Operations of the library that report metrics.
+ */
+public enum Operation {
+    MATRIX_MULTIPLY,
+    MATRIX_DETERMINANT,
+    MATRIX_INVERSE,
+    MATRIX_EXPONENTIAL,
+    STRASSEN_MULTIPLY,
+    SPARSE_MULTIPLY,
+    KRONECKER_MULTIPLY,
+    BLOCK_MULTIPLY,
+    HADAMARD_MULTIPLY,
+    LU_EXECUTE,
+    LU_SOLVE,
+    CHOLESKY_EXECUTE,
+    CHOLESKY_SOLVE,
+    VECTOR_SCALE,
+    VECTOR_ADD,
+    VECTOR_DOT
+}
@@ -0,0 +1,96 @@
+package de.home_skrobanek.fnum.metrics;
+/**
+ * @class OperationStats
+ * @brief Snapshot of the metrics collected for one operation.
+ *
+ * Wall times are kept in a histogram with power-of-two buckets:
+ * bucket {@code i} counts executions with {@code 2^i <= nanos < 2^(i+1)},
+ * bucket 0 also counts executions below one nanosecond.
+ *
+ * @see InMemoryMetricsSink
+ */
+public final class OperationStats {
+
+    private final Operation operation;
+    private final long count;
+    private final long flops;
+    private final long bytes;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final int maxThreads;
+    private final int distinctThreads;
+    private final long[] histogram;
+
+    OperationStats(Operation operation, long count, long flops, long bytes, long totalNanos,
+                   long maxNanos, int maxThreads, int distinctThreads, long[] histogram) {
+        this.operation = operation;
+        this.count = count;
+        this.flops = flops;
+        this.bytes = bytes;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.maxThreads = maxThreads;
+        this.distinctThreads = distinctThreads;
+        this.histogram = histogram;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /** @return Number of recorded executions */
+    public long getCount() {
+        return count;
+    }
+
+    /** @return Sum of the floating-point operations of all executions */
+    public long getFlops() {
+        return flops;
+    }
+
+    /** @return Sum of the bytes touched by all executions */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /** @return Sum of the wall times in nanoseconds */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /** @return Longest wall time in nanoseconds */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /** @return Largest number of threads used by one execution */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /** @return Number of distinct threads that called the operation */
+    public int getDistinctThreads() {
+        return distinctThreads;
+    }
+
+    /** @return Copy of the wall time histogram with 64 buckets */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    /**
+     * Returns the achieved floating-point rate.
+     *
+     * @return Floating-point operations per second, 0 if no time was recorded
+     */
+    public double getFlopsPerSecond() {
+        return totalNanos == 0 ? 0 : flops * 1e9 / totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return operation + ": count=" + count + ", flops=" + flops + ", bytes=" + bytes
+                + ", totalNanos=" + totalNanos + ", maxNanos=" + maxNanos
+                + ", maxThreads=" + maxThreads + ", distinctThreads=" + distinctThreads;
+    }
+}
@@ -0,0 +1,513 @@
+package de.home_skrobanek.fnum.sparse;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.utils.Chunks;
+import de.home_skrobanek.fnum.utils.IntDoublePair;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.Arrays;
+import java.util.Random;
+/**
+ * @class AlgebraicMultigrid
+ * @brief Smoothed aggregation multigrid for sparse symmetric positive definite systems.
+ *
+ * The setup phase in the constructor builds a hierarchy of ever smaller
+ * matrices from the entries of A alone, following Vaněk, Mandel and
+ * Brezina:
+ *
+ * <ol>
+ *   <li>j is strongly connected to i if |a_ij| >= θ · sqrt(a_ii · a_jj)</li>
+ *   <li>nodes are grouped into aggregates of strongly connected neighbourhoods</li>
+ *   <li>the tentative prolongation T interpolates the constant on every aggregate</li>
+ *   <li>one damped Jacobi step smooths it, P = (I - ω · D^-1 · A) · T with
+ *       ω = 4 / (3 · ρ(D^-1 · A))</li>
+ *   <li>the coarse matrix is the Galerkin product P^T · A · P</li>
+ * </ol>
+ *
+ * until at most the requested number of unknowns is left, which are
+ * factored by {@link SparseCholeskyDecomposition}.
+ *
+ * <p>A cycle smooths with the l1-Jacobi method, which converges for every
+ * SPD matrix without a spectral estimate, restricts the residual,
+ * recurses once (V-cycle) or twice (W-cycle) and interpolates the
+ * correction back. All loops run over rows, in parallel for levels of
+ * more than {@link Chunks#DEFAULT_CHUNK} rows. The cycle is symmetric,
+ * so the multigrid can precondition {@link ConjugateGradient}; for
+ * Poisson-like problems the number of iterations then hardly depends on
+ * the mesh size.</p>
+ *
+ * <p>All work arrays are allocated by the setup; cycles allocate nothing
+ * except the task objects of parallel loops. An instance must only be
+ * used by one thread at a time.</p>
+ */
+public class AlgebraicMultigrid implements Preconditioner {
+
+    /**
+     * @enum Cycle
+     * @brief Number of recursive coarse corrections per level.
+     */
+    public enum Cycle {
+        V(1),
+        W(2);
+
+        final int recursions;
+
+        Cycle(int recursions) {
+            this.recursions = recursions;
+        }
+    }
+
+    /** Default strength threshold θ */
+    public static final double DEFAULT_STRENGTH = 0.08;
+
+    /** Default number of unknowns solved directly */
+    public static final int DEFAULT_COARSE_SIZE = 100;
+
+    /** Upper limit for the number of levels */
+    static final int MAX_LEVELS = 25;
+
+    /** Smoothing sweeps before and after the coarse correction */
+    static final int SWEEPS = 2;
+
+    /**
+     * Matrix, transfer operators and work arrays of one level.
+     */
+    private static final class Level {
+
+        final SparseMatrix A;
+
+        final int n;
+
+        /** Reciprocal of the l1 row norms */
+        final double[] inverseDiagonal;
+
+        /** Solution, right-hand side and residual */
+        final double[] x, b, r;
+
+        /** Prolongation from the next level and its transpose, {@code null} on the coarsest */
+        SparseMatrix P, R;
+
+        /** Next coarser level */
+        Level next;
+
+        final Chunks.RangeKernel residual = this::residual;
+
+        final Chunks.RangeKernel smooth = this::smooth;
+
+        final Chunks.RangeKernel restrict = this::restrict;
+
+        final Chunks.RangeKernel prolong = this::prolong;
+
+        Level(SparseMatrix A) {
+            this.A = A;
+            this.n = A.getRowCount();
+            inverseDiagonal = new double[n];
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int p = A.rowPointers[i]; p < A.rowPointers[i + 1]; p++)
+                    sum += Math.abs(A.values[p]);
+                inverseDiagonal[i] = 1 / sum;
+            }
+            x = new double[n];
+            b = new double[n];
+            r = new double[n];
+        }
+
+        /** r = b - A · x */
+        private void residual(int from, int to) {
+            int[] pointers = A.rowPointers, indices = A.columnIndices;
+            double[] values = A.values;
+            for (int i = from; i < to; i++) {
+                double sum = b[i];
+                for (int p = pointers[i]; p < pointers[i + 1]; p++)
+                    sum -= values[p] * x[indices[p]];
+                r[i] = sum;
+            }
+        }
+
+        /** x += D_l1^-1 · r */
+        private void smooth(int from, int to) {
+            for (int i = from; i < to; i++)
+                x[i] += inverseDiagonal[i] * r[i];
+        }
+
+        /** next.b = R · r, next.x = 0 */
+        private void restrict(int from, int to) {
+            int[] pointers = R.rowPointers, indices = R.columnIndices;
+            double[] values = R.values;
+            for (int i = from; i < to; i++) {
+                double sum = 0;
+                for (int p = pointers[i]; p < pointers[i + 1]; p++)
+                    sum += values[p] * r[indices[p]];
+                next.b[i] = sum;
+                next.x[i] = 0;
+            }
+        }
+
+        /** x += P · next.x */
+        private void prolong(int from, int to) {
+            int[] pointers = P.rowPointers, indices = P.columnIndices;
+            double[] values = P.values;
+            double[] coarse = next.x;
+            for (int i = from; i < to; i++) {
+                double sum = 0;
+                for (int p = pointers[i]; p < pointers[i + 1]; p++)
+                    sum += values[p] * coarse[indices[p]];
+                x[i] += sum;
+            }
+        }
+
+        void sweep() {
+            Chunks.forEach(n, residual);
+            Chunks.forEach(n, smooth);
+        }
+    }
+
+    /** Finest level, the others are linked by {@link Level#next} */
+    private final Level finest;
+
+    /** Coarsest level */
+    private final Level coarsest;
+
+    /** Factorization of the coarsest matrix */
+    private final SparseCholeskyDecomposition coarse;
+
+    /** Work array of the coarse solve */
+    private final double[] coarseWork;
+
+    private final Cycle cycle;
+
+    private final int levelCount;
+
+    private final long nonZeroCount;
+
+    /**
+     * Builds the hierarchy with a V-cycle and the default parameters.
+     *
+     * @param A Symmetric positive definite matrix
+     *
+     * @throws IllegalArgumentException if the matrix is not square or has a non-positive diagonal entry
+     * @throws ArithmeticException if a coarse matrix is not positive definite
+     */
+    public AlgebraicMultigrid(SparseMatrix A) {
+        this(A, Cycle.V, DEFAULT_STRENGTH, DEFAULT_COARSE_SIZE);
+    }
+
+    /**
+     * Builds the hierarchy.
+     *
+     * @param A Symmetric positive definite matrix
+     * @param cycle Cycle type
+     * @param strength Strength threshold θ, 0 treats all connections as strong
+     * @param coarseSize Number of unknowns below which the system is factored
+     *
+     * @throws IllegalArgumentException if the matrix is not square or has a non-positive diagonal entry
+     * @throws ArithmeticException if a coarse matrix is not positive definite
+     *
+     * @pre 0 <= strength < 1 && coarseSize > 0
+     */
+    public AlgebraicMultigrid(SparseMatrix A, Cycle cycle, double strength, int coarseSize) {
+        assert strength >= 0 && strength < 1 && coarseSize > 0;
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+        this.cycle = cycle;
+
+        Level level = new Level(A);
+        Level first = level;
+        int count = 1;
+        long nnz = A.getNonZeroCount();
+        while (level.n > coarseSize && count < MAX_LEVELS) {
+            double[] diagonal = diagonal(level.A);
+            int[] aggregates = new int[level.n];
+            int aggregateCount = aggregate(level.A, diagonal, strength, aggregates);
+            if (aggregateCount == 0 || aggregateCount == level.n)
+                break;
+
+            SparseMatrix P = prolongation(level.A, diagonal, aggregates, aggregateCount);
+            SparseMatrix R = P.transpose();
+            level.P = P;
+            level.R = R;
+            level.next = new Level(R.multiply(level.A.multiply(P)));
+            level = level.next;
+            nnz += level.A.getNonZeroCount();
+            count++;
+        }
+        finest = first;
+        coarsest = level;
+        levelCount = count;
+        nonZeroCount = nnz;
+
+        coarse = new SparseCholeskyDecomposition(coarsest.A, Ordering.MINIMUM_DEGREE);
+        coarse.execute(coarsest.A);
+        coarseWork = new double[coarsest.n];
+    }
+
+    public Cycle getCycle() {
+        return cycle;
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Returns the number of unknowns of a level.
+     *
+     * @param level Level, 0 for the finest
+     * @return Dimension of the matrix of that level
+     *
+     * @throws IndexOutOfBoundsException if the level does not exist
+     */
+    public int getLevelSize(int level) {
+        if (level < 0 || level >= levelCount)
+            throw new IndexOutOfBoundsException("Level " + level + " out of range");
+        Level current = finest;
+        for (int l = 0; l < level; l++)
+            current = current.next;
+        return current.n;
+    }
+
+    /**
+     * Returns the operator complexity, the nonzero entries of all levels
+     * relative to those of A. Values up to about 1.5 keep a cycle at the
+     * cost of a few products with A.
+     */
+    public double getOperatorComplexity() {
+        return (double) nonZeroCount / finest.A.getNonZeroCount();
+    }
+
+    /**
+     * Applies one cycle with zero initial guess, z = M^-1 · r.
+     *
+     * @throws SameDimensionsException if the dimension of r or z does not match A
+     */
+    @Override
+    public void apply(Vector r, Vector z) {
+        int n = finest.n;
+        if (r.size() != n || z.size() != n)
+            throw new SameDimensionsException();
+
+        for (int i = 0; i < n; i++) {
+            finest.b[i] = r.getValue(i);
+            finest.x[i] = 0;
+        }
+        cycle(finest);
+        for (int i = 0; i < n; i++)
+            z.addValue(i, finest.x[i]);
+    }
+
+    /**
+     * Solves A · x = b by multigrid cycles alone, starting from the given x.
+     *
+     * @param b Right-hand side
+     * @param x Initial guess, receives the solution
+     * @param tolerance Relative residual ||b - A · x|| / ||b|| to reach
+     * @param maxCycles Maximum number of cycles
+     * @return Pair of the number of cycles done and the relative residual
+     *         ||b - A · x|| / ||b|| reached
+     *
+     * @throws SameDimensionsException if the dimension of b or x does not match A
+     * @throws ArithmeticException if the tolerance is not reached within maxCycles
+     *
+     * @pre tolerance > 0
+     */
+    public IntDoublePair solve(Vector b, Vector x, double tolerance, int maxCycles) {
+        assert tolerance > 0;
+        int n = finest.n;
+        if (b.size() != n || x.size() != n)
+            throw new SameDimensionsException();
+
+        double bb = 0;
+        for (int i = 0; i < n; i++) {
+            finest.b[i] = b.getValue(i);
+            finest.x[i] = x.getValue(i);
+            bb += finest.b[i] * finest.b[i];
+        }
+        double limit = tolerance * tolerance * (bb == 0 ? 1 : bb);
+
+        int cycles = 0;
+        double rr;
+        while (true) {
+            Chunks.forEach(n, finest.residual);
+            rr = 0;
+            for (int i = 0; i < n; i++)
+                rr += finest.r[i] * finest.r[i];
+            if (rr <= limit)
+                break;
+            if (cycles == maxCycles)
+                throw new ArithmeticException("No convergence after " + maxCycles + " cycles");
+            cycle(finest);
+            cycles++;
+        }
+        for (int i = 0; i < n; i++)
+            x.addValue(i, finest.x[i]);
+        return new IntDoublePair(cycles, Math.sqrt(rr / (bb == 0 ? 1 : bb)));
+    }
+
+    private void cycle(Level level) {
+        if (level == coarsest) {
+            coarse.solve(level.b, level.x, coarseWork);
+            return;
+        }
+
+        for (int s = 0; s < SWEEPS; s++)
+            level.sweep();
+        Chunks.forEach(level.n, level.residual);
+        Chunks.forEach(level.next.n, level.restrict);
+        int recursions = level.next == coarsest ? 1 : cycle.recursions;
+        for (int k = 0; k < recursions; k++)
+            cycle(level.next);
+        Chunks.forEach(level.n, level.prolong);
+        for (int s = 0; s < SWEEPS; s++)
+            level.sweep();
+    }
+
+    private static double[] diagonal(SparseMatrix A) {
+        int n = A.getRowCount();
+        double[] diagonal = new double[n];
+        for (int i = 0; i < n; i++) {
+            diagonal[i] = A.getEntry(i, i);
+            if (!(diagonal[i] > 0))
+                throw new IllegalArgumentException("The matrix has to have a positive diagonal");
+        }
+        return diagonal;
+    }
+
+    /**
+     * Groups the nodes into aggregates in three passes: whole strong
+     * neighbourhoods of untouched nodes, then the remaining nodes join an
+     * adjacent aggregate, then leftovers form aggregates of their own.
+     * Nodes without strong connections stay unaggregated (-1), the
+     * smoother alone handles them.
+     *
+     * @return Number of aggregates
+     */
+    static int aggregate(SparseMatrix A, double[] diagonal, double strength, int[] aggregates) {
+        int n = A.getRowCount();
+        int[] pointers = A.rowPointers, indices = A.columnIndices;
+        double[] values = A.values;
+        boolean[] strong = new boolean[A.getNonZeroCount()];
+        boolean[] connected = new boolean[n];
+        for (int i = 0; i < n; i++)
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                int j = indices[p];
+                strong[p] = j != i && Math.abs(values[p]) >= strength * Math.sqrt(diagonal[i] * diagonal[j]);
+                connected[i] |= strong[p];
+            }
+
+        Arrays.fill(aggregates, -1);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (!connected[i] || aggregates[i] != -1)
+                continue;
+            boolean free = true;
+            for (int p = pointers[i]; p < pointers[i + 1] && free; p++)
+                free = !strong[p] || aggregates[indices[p]] == -1;
+            if (!free)
+                continue;
+            aggregates[i] = count;
+            for (int p = pointers[i]; p < pointers[i + 1]; p++)
+                if (strong[p])
+                    aggregates[indices[p]] = count;
+            count++;
+        }
+
+        int[] first = aggregates.clone();
+        for (int i = 0; i < n; i++) {
+            if (!connected[i] || aggregates[i] != -1)
+                continue;
+            for (int p = pointers[i]; p < pointers[i + 1]; p++)
+                if (strong[p] && first[indices[p]] != -1) {
+                    aggregates[i] = first[indices[p]];
+                    break;
+                }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (!connected[i] || aggregates[i] != -1)
+                continue;
+            aggregates[i] = count;
+            for (int p = pointers[i]; p < pointers[i + 1]; p++)
+                if (strong[p] && aggregates[indices[p]] == -1)
+                    aggregates[indices[p]] = count;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Builds the smoothed prolongation P = (I - ω · D^-1 · A) · T.
+     */
+    private static SparseMatrix prolongation(SparseMatrix A, double[] diagonal, int[] aggregates, int count) {
+        int n = A.getRowCount();
+        int[] sizes = new int[count];
+        for (int a : aggregates)
+            if (a != -1)
+                sizes[a]++;
+
+        int[] pointers = new int[n + 1];
+        for (int i = 0; i < n; i++)
+            pointers[i + 1] = pointers[i] + (aggregates[i] == -1 ? 0 : 1);
+        int[] indices = new int[pointers[n]];
+        double[] values = new double[pointers[n]];
+        for (int i = 0; i < n; i++)
+            if (aggregates[i] != -1) {
+                indices[pointers[i]] = aggregates[i];
+                values[pointers[i]] = 1 / Math.sqrt(sizes[aggregates[i]]);
+            }
+        SparseMatrix T = new SparseMatrix(n, count, pointers, indices, values);
+
+        double omega = 4.0 / (3.0 * spectralRadius(A, diagonal));
+        SparseMatrix AT = A.multiply(T);
+        int nnz = AT.getNonZeroCount() + T.getNonZeroCount();
+        int[] rows = new int[nnz], cols = new int[nnz];
+        double[] entries = new double[nnz];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            for (int p = AT.rowPointers[i]; p < AT.rowPointers[i + 1]; p++) {
+                rows[e] = i;
+                cols[e] = AT.columnIndices[p];
+                entries[e++] = -omega / diagonal[i] * AT.values[p];
+            }
+            for (int p = T.rowPointers[i]; p < T.rowPointers[i + 1]; p++) {
+                rows[e] = i;
+                cols[e] = T.columnIndices[p];
+                entries[e++] = T.values[p];
+            }
+        }
+        return SparseMatrix.fromTriplets(n, count, rows, cols, entries);
+    }
+
+    /**
+     * Estimates ρ(D^-1 · A) by a few steps of the power method.
+     */
+    static double spectralRadius(SparseMatrix A, double[] diagonal) {
+        int n = A.getRowCount();
+        double[] x = new double[n], y = new double[n];
+        Random random = new Random(n);
+        for (int i = 0; i < n; i++)
+            x[i] = random.nextDouble();
+        double rho = 0;
+        for (int k = 0; k < 15; k++) {
+            double norm = 0;
+            for (double v : x)
+                norm += v * v;
+            norm = Math.sqrt(norm);
+            if (norm == 0)
+                return 1;
+            for (int i = 0; i < n; i++)
+                x[i] /= norm;
+            A.multiply(x, y);
+            rho = 0;
+            for (int i = 0; i < n; i++) {
+                y[i] /= diagonal[i];
+                rho += y[i] * y[i];
+            }
+            rho = Math.sqrt(rho);
+            double[] t = x;
+            x = y;
+            y = t;
+        }
+        return rho;
+    }
+}
@@ -0,0 +1,126 @@
+package de.home_skrobanek.fnum.sparse;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.utils.IntDoublePair;
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @class ConjugateGradient
+ * @brief Preconditioned conjugate gradient method for sparse SPD systems.
+ *
+ * Iterates until ||b - A · x|| <= tolerance · ||b||. Without a
+ * preconditioner the number of iterations grows with the square root of
+ * the condition number, for the Laplacian on a mesh of width h like 1/h;
+ * with {@link AlgebraicMultigrid} as preconditioner it stays about
+ * constant.
+ *
+ * <p>The work vectors are allocated once by the constructor, solving
+ * allocates only the returned pair. An instance must only be used by one
+ * thread at a time.</p>
+ */
+public class ConjugateGradient {
+
+    /** System matrix */
+    private final SparseMatrix A;
+
+    /** Preconditioner, {@code null} for none */
+    private final Preconditioner preconditioner;
+
+    /** Residual, preconditioned residual, search direction, A times direction */
+    private final double[] r, z, p, q;
+
+    /** Views of r and z passed to the preconditioner */
+    private final Vector residual, preconditioned;
+
+    /**
+     * Constructs the solver.
+     *
+     * @param A Symmetric positive definite matrix
+     * @param preconditioner Symmetric positive definite preconditioner, {@code null} for none
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public ConjugateGradient(SparseMatrix A, Preconditioner preconditioner) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+        int n = A.getRowCount();
+        this.A = A;
+        this.preconditioner = preconditioner;
+        r = new double[n];
+        z = new double[n];
+        p = new double[n];
+        q = new double[n];
+        residual = new Vector(r);
+        preconditioned = new Vector(z);
+    }
+
+    /**
+     * Solves A · x = b starting from the given x.
+     *
+     * @param b Right-hand side
+     * @param x Initial guess, receives the solution
+     * @param tolerance Relative residual to reach
+     * @param maxIterations Maximum number of iterations
+     * @return Pair of the number of iterations done and the relative
+     *         residual ||b - A · x|| / ||b|| reached
+     *
+     * @throws SameDimensionsException if the dimension of b or x does not match A
+     * @throws ArithmeticException if the tolerance is not reached within maxIterations
+     *
+     * @pre tolerance > 0
+     */
+    public IntDoublePair solve(Vector b, Vector x, double tolerance, int maxIterations) {
+        assert tolerance > 0;
+        int n = r.length;
+        if (b.size() != n || x.size() != n)
+            throw new SameDimensionsException();
+
+        for (int i = 0; i < n; i++)
+            p[i] = x.getValue(i);
+        A.multiply(p, q);
+        double bb = 0;
+        for (int i = 0; i < n; i++) {
+            double bi = b.getValue(i);
+            r[i] = bi - q[i];
+            bb += bi * bi;
+        }
+        double limit = tolerance * tolerance * (bb == 0 ? 1 : bb);
+
+        precondition();
+        System.arraycopy(z, 0, p, 0, n);
+        double rz = dot(r, z), rr = dot(r, r);
+        int iteration = 0;
+        while (rr > limit) {
+            if (iteration == maxIterations)
+                throw new ArithmeticException("No convergence after " + maxIterations + " iterations");
+            A.multiply(p, q);
+            double alpha = rz / dot(p, q);
+            for (int i = 0; i < n; i++) {
+                x.addValue(i, x.getValue(i) + alpha * p[i]);
+                r[i] -= alpha * q[i];
+            }
+            precondition();
+            double next = dot(r, z);
+            double beta = next / rz;
+            rz = next;
+            for (int i = 0; i < n; i++)
+                p[i] = z[i] + beta * p[i];
+            rr = dot(r, r);
+            iteration++;
+        }
+        return new IntDoublePair(iteration, Math.sqrt(rr / (bb == 0 ? 1 : bb)));
+    }
+
+    private void precondition() {
+        if (preconditioner == null)
+            System.arraycopy(r, 0, z, 0, r.length);
+        else
+            preconditioner.apply(residual, preconditioned);
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++)
+            sum += a[i] * b[i];
+        return sum;
+    }
+}
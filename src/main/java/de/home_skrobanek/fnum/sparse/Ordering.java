@@ -0,0 +1,379 @@
+package de.home_skrobanek.fnum.sparse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+/**
+ * @enum Ordering
+ * @brief Fill-reducing symmetric orderings for sparse factorizations.
+ *
+ * An ordering is a permutation perm, new index to old index, so that the
+ * factor of P · A · P^T has fewer nonzero entries than the factor of A.
+ * All orderings work on the graph of A + A^T without its diagonal:
+ *
+ * <ul>
+ *   <li>{@link #NATURAL} keeps the order, for matrices that are already well ordered</li>
+ *   <li>{@link #REVERSE_CUTHILL_MCKEE} reduces the bandwidth, cheap and good for
+ *       long thin meshes and banded solvers</li>
+ *   <li>{@link #MINIMUM_DEGREE} eliminates the node with the fewest neighbours next,
+ *       usually the least fill for small and irregular problems</li>
+ *   <li>{@link #NESTED_DISSECTION} splits the graph recursively at small separators
+ *       that are numbered last, the best choice for large 2D and 3D meshes and the
+ *       one that gives a wide elimination tree for parallel factorization</li>
+ * </ul>
+ */
+public enum Ordering {
+
+    NATURAL {
+        @Override
+        int[] order(int[][] adjacency) {
+            int[] perm = new int[adjacency.length];
+            for (int i = 0; i < perm.length; i++)
+                perm[i] = i;
+            return perm;
+        }
+    },
+
+    /**
+     * Breadth-first search from a pseudo-peripheral node of every connected
+     * component, neighbours by ascending degree, the result reversed.
+     */
+    REVERSE_CUTHILL_MCKEE {
+        @Override
+        int[] order(int[][] adjacency) {
+            int n = adjacency.length;
+            int[] perm = new int[n];
+            boolean[] visited = new boolean[n];
+            int[] level = new int[n];
+            Arrays.fill(level, -1);
+            int[] scratch = new int[n];
+            int count = 0;
+            for (int start = 0; start < n; start++) {
+                if (visited[start])
+                    continue;
+                int root = peripheral(adjacency, start, level, scratch, null);
+                visited[root] = true;
+                perm[count] = root;
+                int head = count++;
+                while (head < count) {
+                    int node = perm[head++];
+                    int first = count;
+                    for (int neighbour : adjacency[node])
+                        if (!visited[neighbour]) {
+                            visited[neighbour] = true;
+                            perm[count++] = neighbour;
+                        }
+                    sortByDegree(perm, first, count, adjacency);
+                }
+            }
+            for (int i = 0, j = n - 1; i < j; i++, j--) {
+                int t = perm[i];
+                perm[i] = perm[j];
+                perm[j] = t;
+            }
+            return perm;
+        }
+    },
+
+    /**
+     * Minimum degree on the explicit elimination graph: the node of
+     * smallest exact degree is eliminated and its neighbours become a
+     * clique. Ties are broken by the smaller index.
+     */
+    MINIMUM_DEGREE {
+        @Override
+        int[] order(int[][] adjacency) {
+            int n = adjacency.length;
+            List<Set<Integer>> graph = new ArrayList<>(n);
+            TreeSet<Long> queue = new TreeSet<>();
+            for (int i = 0; i < n; i++) {
+                Set<Integer> neighbours = new HashSet<>();
+                for (int j : adjacency[i])
+                    neighbours.add(j);
+                graph.add(neighbours);
+                queue.add(key(neighbours.size(), i));
+            }
+
+            int[] perm = new int[n];
+            for (int k = 0; k < n; k++) {
+                int node = (int) (long) queue.pollFirst();
+                perm[k] = node;
+                Set<Integer> neighbours = graph.get(node);
+                graph.set(node, null);
+                for (int a : neighbours) {
+                    Set<Integer> adjacent = graph.get(a);
+                    queue.remove(key(adjacent.size(), a));
+                    adjacent.remove(node);
+                    for (int b : neighbours)
+                        if (b != a)
+                            adjacent.add(b);
+                    queue.add(key(adjacent.size(), a));
+                }
+            }
+            return perm;
+        }
+
+        private long key(int degree, int node) {
+            return ((long) degree << 32) | node;
+        }
+    },
+
+    /**
+     * George's nested dissection: the middle level of a breadth-first level
+     * structure from a pseudo-peripheral node separates the graph, both
+     * halves are ordered recursively and the separator last. Parts of at
+     * most {@value #LEAF} nodes are ordered by minimum degree.
+     */
+    NESTED_DISSECTION {
+        @Override
+        int[] order(int[][] adjacency) {
+            int n = adjacency.length;
+            int[] nodes = new int[n];
+            for (int i = 0; i < n; i++)
+                nodes[i] = i;
+            Dissection dissection = new Dissection(adjacency);
+            dissection.dissect(nodes, 0);
+            return dissection.perm;
+        }
+    };
+
+    /** Largest part that nested dissection does not split further */
+    static final int LEAF = 64;
+
+    /**
+     * Computes the ordering of a square matrix.
+     *
+     * @param A Square sparse matrix, only its pattern is used
+     * @return Permutation perm with new index k taken from old index perm[k]
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public int[] compute(SparseMatrix A) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+        return order(adjacency(A));
+    }
+
+    abstract int[] order(int[][] adjacency);
+
+    /**
+     * Builds the adjacency lists of A + A^T without the diagonal.
+     */
+    static int[][] adjacency(SparseMatrix A) {
+        int n = A.getRowCount();
+        SparseMatrix T = A.transpose();
+        int[][] adjacency = new int[n][];
+        int[] merged = new int[n];
+        for (int i = 0; i < n; i++) {
+            int p = A.rowPointers[i], pEnd = A.rowPointers[i + 1];
+            int q = T.rowPointers[i], qEnd = T.rowPointers[i + 1];
+            int c = 0;
+            while (p < pEnd || q < qEnd) {
+                int a = p < pEnd ? A.columnIndices[p] : Integer.MAX_VALUE;
+                int b = q < qEnd ? T.columnIndices[q] : Integer.MAX_VALUE;
+                int j = Math.min(a, b);
+                if (a == j)
+                    p++;
+                if (b == j)
+                    q++;
+                if (j != i)
+                    merged[c++] = j;
+            }
+            adjacency[i] = Arrays.copyOf(merged, c);
+        }
+        return adjacency;
+    }
+
+    /**
+     * Finds a pseudo-peripheral node by the method of George and Liu:
+     * repeated breadth-first searches from a node of minimum degree in the
+     * last level while the eccentricity grows.
+     *
+     * @param level Scratch array of -1 entries, restored on return
+     * @param order Scratch array for the search order
+     * @param inside Nodes the search is restricted to, {@code null} for all
+     */
+    private static int peripheral(int[][] adjacency, int start, int[] level, int[] order, IntPredicate inside) {
+        int root = start, eccentricity = -1;
+        while (true) {
+            int size = levels(adjacency, root, level, inside, order);
+            int depth = level[order[size - 1]];
+            int best = order[size - 1];
+            for (int i = size - 1; i >= 0 && level[order[i]] == depth; i--)
+                if (degree(adjacency, order[i], inside) < degree(adjacency, best, inside))
+                    best = order[i];
+            for (int i = 0; i < size; i++)
+                level[order[i]] = -1;
+            if (depth <= eccentricity)
+                return root;
+            eccentricity = depth;
+            root = best;
+        }
+    }
+
+    /**
+     * Breadth-first level structure from a root.
+     *
+     * @param level Receives the level of every reached node, -1 elsewhere
+     * @param order Receives the reached nodes in search order
+     * @return Number of reached nodes
+     */
+    private static int levels(int[][] adjacency, int root, int[] level, IntPredicate inside, int[] order) {
+        level[root] = 0;
+        order[0] = root;
+        int head = 0, size = 1;
+        while (head < size) {
+            int v = order[head++];
+            for (int w : adjacency[v])
+                if (level[w] < 0 && (inside == null || inside.test(w))) {
+                    level[w] = level[v] + 1;
+                    order[size++] = w;
+                }
+        }
+        return size;
+    }
+
+    private static int degree(int[][] adjacency, int v, IntPredicate inside) {
+        if (inside == null)
+            return adjacency[v].length;
+        int degree = 0;
+        for (int w : adjacency[v])
+            if (inside.test(w))
+                degree++;
+        return degree;
+    }
+
+    /**
+     * State of a nested dissection: every node carries the label of the
+     * part it currently belongs to, separators get labels of their own.
+     */
+    private static final class Dissection {
+
+        private final int[][] adjacency;
+
+        private final int[] part;
+
+        private final int[] level;
+
+        private final int[] local;
+
+        private final int[] order;
+
+        final int[] perm;
+
+        private int count;
+
+        private int labels = 1;
+
+        Dissection(int[][] adjacency) {
+            int n = adjacency.length;
+            this.adjacency = adjacency;
+            part = new int[n];
+            level = new int[n];
+            Arrays.fill(level, -1);
+            local = new int[n];
+            order = new int[n];
+            perm = new int[n];
+        }
+
+        /**
+         * Orders the nodes of one part, all carrying the given label.
+         */
+        void dissect(int[] nodes, int label) {
+            if (nodes.length <= LEAF) {
+                leaf(nodes, label);
+                return;
+            }
+
+            IntPredicate inside = v -> part[v] == label;
+            int root = peripheral(adjacency, nodes[0], level, order, inside);
+            int size = levels(adjacency, root, level, inside, order);
+            int depth = level[order[size - 1]];
+            int[] reached = Arrays.copyOf(order, size);
+
+            if (size < nodes.length) {
+                // Disconnected: order the component and the rest separately
+                int[] rest = new int[nodes.length - size];
+                int r = 0;
+                for (int v : nodes)
+                    if (level[v] < 0)
+                        rest[r++] = v;
+                for (int v : reached)
+                    level[v] = -1;
+                dissect(reached, relabel(reached));
+                dissect(rest, relabel(rest));
+                return;
+            }
+            if (depth < 2) {
+                // Diameter below two, no separator exists
+                for (int v : reached)
+                    level[v] = -1;
+                leaf(nodes, label);
+                return;
+            }
+
+            int middle = depth / 2;
+            int[] left = new int[size], right = new int[size], separator = new int[size];
+            int l = 0, r = 0, s = 0;
+            for (int v : reached) {
+                if (level[v] < middle)
+                    left[l++] = v;
+                else if (level[v] > middle)
+                    right[r++] = v;
+                else
+                    separator[s++] = v;
+                level[v] = -1;
+            }
+            left = Arrays.copyOf(left, l);
+            right = Arrays.copyOf(right, r);
+            separator = Arrays.copyOf(separator, s);
+            int leftLabel = relabel(left), rightLabel = relabel(right);
+            relabel(separator);
+
+            dissect(left, leftLabel);
+            dissect(right, rightLabel);
+            for (int v : separator)
+                perm[count++] = v;
+        }
+
+        private int relabel(int[] nodes) {
+            int label = labels++;
+            for (int v : nodes)
+                part[v] = label;
+            return label;
+        }
+
+        /** Orders a small part by minimum degree on its subgraph */
+        private void leaf(int[] nodes, int label) {
+            for (int i = 0; i < nodes.length; i++)
+                local[nodes[i]] = i;
+            int[][] subgraph = new int[nodes.length][];
+            for (int i = 0; i < nodes.length; i++) {
+                int[] neighbours = new int[adjacency[nodes[i]].length];
+                int c = 0;
+                for (int w : adjacency[nodes[i]])
+                    if (part[w] == label)
+                        neighbours[c++] = local[w];
+                subgraph[i] = Arrays.copyOf(neighbours, c);
+            }
+            for (int v : MINIMUM_DEGREE.order(subgraph))
+                perm[count++] = nodes[v];
+        }
+    }
+
+    /** Insertion sort of a short range by ascending degree */
+    private static void sortByDegree(int[] nodes, int from, int to, int[][] adjacency) {
+        for (int i = from + 1; i < to; i++) {
+            int v = nodes[i], j = i - 1;
+            while (j >= from && adjacency[nodes[j]].length > adjacency[v].length) {
+                nodes[j + 1] = nodes[j];
+                j--;
+            }
+            nodes[j + 1] = v;
+        }
+    }
+}
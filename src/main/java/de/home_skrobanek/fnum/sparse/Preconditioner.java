@@ -0,0 +1,22 @@
+package de.home_skrobanek.fnum.sparse;
+
+import de.home_skrobanek.fnum.vector.Vector;
+/**
+ * @interface Preconditioner
+ * @brief Approximate inverse M^-1 of a matrix for Krylov methods.
+ *
+ * A good preconditioner is cheap to apply and makes M^-1 · A close to the
+ * identity, so {@link ConjugateGradient} needs few iterations. For the
+ * conjugate gradient method M has to be symmetric positive definite.
+ */
+@FunctionalInterface
+public interface Preconditioner {
+
+    /**
+     * Computes z = M^-1 · r.
+     *
+     * @param r Residual, not modified
+     * @param z Vector receiving the preconditioned residual, not r
+     */
+    void apply(Vector r, Vector z);
+}
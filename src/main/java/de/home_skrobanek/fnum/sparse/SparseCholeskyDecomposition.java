@@ -0,0 +1,262 @@
+package de.home_skrobanek.fnum.sparse;
+
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.TaskGraph;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.concurrent.ForkJoinPool;
+/**
+ * @class SparseCholeskyDecomposition
+ * @brief Numeric sparse Cholesky factorization P · A · P^T = L · L^T.
+ *
+ * Computes the values of L in the pattern of a {@link SymbolicCholesky}.
+ * Column j is computed left-looking: the column of A is scattered into a
+ * dense work vector, updated by the columns k of row j of L and scaled by
+ * the root of its diagonal entry.
+ *
+ * <p>Column j only uses columns of its subtree in the elimination tree,
+ * so disjoint subtrees are independent. Every supernode is a task of a
+ * {@link TaskGraph} that waits for its children; the leaves of a nested
+ * dissection ordering are factored in parallel and the separators at the
+ * top of the tree last. Tasks further from the root have a higher
+ * priority, they lie on the longer paths.</p>
+ *
+ * <p>{@link #execute(SparseMatrix)} can be called again with new values in
+ * the same pattern, the symbolic analysis is not repeated.</p>
+ */
+public class SparseCholeskyDecomposition {
+
+    /** Symbolic analysis the factor is computed in */
+    private final SymbolicCholesky symbolic;
+
+    /** Values of L in the column pattern of the analysis, {@code null} before execution */
+    private double[] values;
+
+    /** Dense work vector of every thread, zero between columns */
+    private final ThreadLocal<double[]> work;
+
+    /**
+     * Constructs the decomposition object.
+     *
+     * @param symbolic Analysis of the pattern of the matrices to decompose
+     */
+    public SparseCholeskyDecomposition(SymbolicCholesky symbolic) {
+        this.symbolic = symbolic;
+        int n = symbolic.getDimension();
+        this.work = ThreadLocal.withInitial(() -> new double[n]);
+    }
+
+    /**
+     * Convenience constructor analysing the pattern of A.
+     *
+     * @param A Square sparse matrix
+     * @param ordering Fill-reducing ordering to apply
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public SparseCholeskyDecomposition(SparseMatrix A, Ordering ordering) {
+        this(SymbolicCholesky.analyze(A, ordering));
+    }
+
+    public SymbolicCholesky getSymbolic() {
+        return symbolic;
+    }
+
+    /**
+     * Executes the decomposition on the common pool.
+     *
+     * @see #execute(SparseMatrix, ForkJoinPool)
+     */
+    public void execute(SparseMatrix A) {
+        execute(A, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Executes the decomposition on a pool.
+     *
+     * @param A Symmetric matrix with the analyzed pattern. Of the entries
+     *          A(i, j) and A(j, i) only the one in the lower triangle of
+     *          P · A · P^T is read.
+     * @param pool Pool running the supernode tasks
+     *
+     * @throws IllegalArgumentException if the pattern of A does not match the analysis
+     * @throws ArithmeticException if the matrix is not positive definite
+     */
+    public void execute(SparseMatrix A, ForkJoinPool pool) {
+        if (!symbolic.matches(A))
+            throw new IllegalArgumentException("The sparsity pattern does not match the analysis");
+
+        values = null;
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        int[] supernodes = symbolic.supernodes, supernodeParent = symbolic.supernodeParent;
+        int count = supernodes.length - 1;
+        double[] L = new double[symbolic.getFactorNonZeroCount()];
+
+        // Depth below the root as priority, children lists as read sets
+        int[] depth = new int[count];
+        int[] childCount = new int[count];
+        for (int s = count - 1; s >= 0; s--)
+            if (supernodeParent[s] != -1) {
+                depth[s] = depth[supernodeParent[s]] + 1;
+                childCount[supernodeParent[s]]++;
+            }
+        long[][] children = new long[count][];
+        for (int s = 0; s < count; s++)
+            children[s] = new long[childCount[s]];
+        for (int s = 0; s < count; s++)
+            if (supernodeParent[s] != -1) {
+                int p = supernodeParent[s];
+                children[p][--childCount[p]] = s;
+            }
+
+        TaskGraph graph = new TaskGraph();
+        for (int s = 0; s < count; s++) {
+            int first = supernodes[s], last = supernodes[s + 1];
+            graph.add(() -> {
+                for (int j = first; j < last; j++)
+                    column(A, L, j);
+            }, depth[s], children[s], new long[]{s});
+        }
+        graph.execute(pool);
+        values = L;
+
+        if (Metrics.ENABLED) {
+            int n = symbolic.getDimension();
+            long flops = 0;
+            for (int j = 0; j < n; j++) {
+                long c = symbolic.columnPointers[j + 1] - symbolic.columnPointers[j];
+                flops += c * c;
+            }
+            Metrics.record(Operation.CHOLESKY_EXECUTE, flops, 12L * L.length + 12L * A.getNonZeroCount(), start);
+        }
+    }
+
+    /**
+     * Computes column j of L from A and the columns of its subtree.
+     */
+    private void column(SparseMatrix A, double[] L, int j) {
+        SymbolicCholesky S = symbolic;
+        int[] columnPointers = S.columnPointers, rowIndices = S.rowIndices;
+        double[] x = work.get();
+
+        int old = S.perm[j];
+        for (int p = A.rowPointers[old]; p < A.rowPointers[old + 1]; p++) {
+            int i = S.inverse[A.columnIndices[p]];
+            if (i >= j)
+                x[i] += A.values[p];
+        }
+
+        for (int q = S.rowPointers[j]; q < S.rowPointers[j + 1]; q++) {
+            int k = S.rowColumns[q], position = S.rowPositions[q];
+            double ljk = L[position];
+            for (int p = position; p < columnPointers[k + 1]; p++)
+                x[rowIndices[p]] -= L[p] * ljk;
+        }
+
+        double d = x[j];
+        int from = columnPointers[j], to = columnPointers[j + 1];
+        if (!(d > 0)) {
+            for (int p = from; p < to; p++)
+                x[rowIndices[p]] = 0;
+            throw new ArithmeticException("Matrix is not positive definite");
+        }
+        double ljj = Math.sqrt(d);
+        L[from] = ljj;
+        x[j] = 0;
+        for (int p = from + 1; p < to; p++) {
+            int i = rowIndices[p];
+            L[p] = x[i] / ljj;
+            x[i] = 0;
+        }
+    }
+
+    /**
+     * Returns the determinant of A, the squared product of the diagonal of L.
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     */
+    public double getDeterminant() {
+        checkExecuted();
+        double det = 1;
+        for (int j = 0; j < symbolic.getDimension(); j++) {
+            double d = values[symbolic.columnPointers[j]];
+            det *= d * d;
+        }
+        return det;
+    }
+
+    /**
+     * Solves A * x = b.
+     *
+     * @param b Right-hand side vector
+     * @return Solution vector x
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the dimension of b does not match A
+     */
+    public Vector solve(Vector b) {
+        double[] x = new double[b.size()];
+        for (int i = 0; i < x.length; i++)
+            x[i] = b.getValue(i);
+        return new Vector(solve(x, x));
+    }
+
+    /**
+     * Solves A * x = b by permutation, forward and backward substitution.
+     *
+     * @param b Right-hand side
+     * @param x Array receiving the solution, may be b
+     * @return {@code x}
+     *
+     * @throws IllegalStateException if the decomposition has not been executed
+     * @throws IllegalArgumentException if the length of b or x does not match A
+     */
+    public double[] solve(double[] b, double[] x) {
+        return solve(b, x, new double[symbolic.getDimension()]);
+    }
+
+    /**
+     * Solves A * x = b with a caller-provided work array of length n.
+     */
+    double[] solve(double[] b, double[] x, double[] y) {
+        checkExecuted();
+        int n = symbolic.getDimension();
+        if (b.length != n || x.length != n)
+            throw new IllegalArgumentException("The vector dimension has to match the matrix");
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        int[] perm = symbolic.perm, columnPointers = symbolic.columnPointers, rowIndices = symbolic.rowIndices;
+        for (int k = 0; k < n; k++)
+            y[k] = b[perm[k]];
+
+        // L · z = y, column by column
+        for (int j = 0; j < n; j++) {
+            double yj = y[j] / values[columnPointers[j]];
+            y[j] = yj;
+            for (int p = columnPointers[j] + 1; p < columnPointers[j + 1]; p++)
+                y[rowIndices[p]] -= values[p] * yj;
+        }
+        // L^T · w = z, as dot products with the columns
+        for (int j = n - 1; j >= 0; j--) {
+            double sum = y[j];
+            for (int p = columnPointers[j] + 1; p < columnPointers[j + 1]; p++)
+                sum -= values[p] * y[rowIndices[p]];
+            y[j] = sum / values[columnPointers[j]];
+        }
+
+        for (int k = 0; k < n; k++)
+            x[perm[k]] = y[k];
+
+        if (Metrics.ENABLED) {
+            long nnz = values.length;
+            Metrics.record(Operation.CHOLESKY_SOLVE, 4 * nnz, 24 * nnz + 32L * n, start);
+        }
+        return x;
+    }
+
+    private void checkExecuted() {
+        if (values == null)
+            throw new IllegalStateException("The decomposition has to be executed first");
+    }
+}
@@ -0,0 +1,534 @@
+package de.home_skrobanek.fnum.sparse;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.matrix.LinearOperator;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.SparseDenseKernels;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.Chunks;
+import de.home_skrobanek.fnum.vector.Vector;
+
+import java.util.Arrays;
+/**
+ * @class SparseMatrix
+ * @brief Sparse matrix in compressed sparse row (CSR) format.
+ *
+ * Stores only the nonzero entries: for row i the column indices
+ * {@code columnIndices[rowPointers[i] .. rowPointers[i + 1])}, sorted
+ * ascending, and the values at the same positions. Memory and the cost of
+ * a product are O(nnz) instead of O(n · m).
+ *
+ * <p>Products with dense matrices ({@link #multiply(Matrix, Matrix)},
+ * {@link #sampledProduct(Matrix, Matrix)}, {@link #addTo(Matrix, double)})
+ * work on the stored entries directly and write into preallocated dense
+ * results, without converting A into a dense matrix first.</p>
+ *
+ * <p>Instances are immutable; {@link #fromTriplets} builds them from
+ * coordinate lists.</p>
+ */
+public final class SparseMatrix {
+
+    private final int rows;
+
+    private final int cols;
+
+    /** Start of every row in the index and value arrays, length rows + 1 */
+    final int[] rowPointers;
+
+    /** Column of every stored entry, sorted within a row */
+    final int[] columnIndices;
+
+    /** Value of every stored entry */
+    final double[] values;
+
+    SparseMatrix(int rows, int cols, int[] rowPointers, int[] columnIndices, double[] values) {
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * Builds a matrix from coordinate lists. Duplicate coordinates are summed.
+     *
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param i Row of every entry
+     * @param j Column of every entry
+     * @param v Value of every entry
+     * @return New sparse matrix
+     *
+     * @throws IllegalArgumentException if the lists differ in length
+     * @throws IndexOutOfBoundsException if a coordinate is out of range
+     *
+     * @pre rows > 0 && cols > 0
+     */
+    public static SparseMatrix fromTriplets(int rows, int cols, int[] i, int[] j, double[] v) {
+        assert rows > 0 && cols > 0;
+        if (i.length != j.length || i.length != v.length)
+            throw new IllegalArgumentException("The coordinate lists have to have the same length");
+
+        // Counting sort by row, then sort and merge within each row
+        int[] count = new int[rows + 1];
+        for (int e = 0; e < i.length; e++) {
+            if (i[e] < 0 || i[e] >= rows || j[e] < 0 || j[e] >= cols)
+                throw new IndexOutOfBoundsException("Entry (" + i[e] + ", " + j[e] + ") out of range");
+            count[i[e] + 1]++;
+        }
+        for (int r = 0; r < rows; r++)
+            count[r + 1] += count[r];
+        int[] next = Arrays.copyOf(count, rows);
+        long[] keyed = new long[i.length];
+        for (int e = 0; e < i.length; e++)
+            keyed[next[i[e]]++] = ((long) j[e] << 32) | e;
+
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[i.length];
+        double[] data = new double[i.length];
+        int nnz = 0;
+        for (int r = 0; r < rows; r++) {
+            Arrays.sort(keyed, count[r], count[r + 1]);
+            int last = -1;
+            for (int p = count[r]; p < count[r + 1]; p++) {
+                int column = (int) (keyed[p] >>> 32);
+                double value = v[(int) keyed[p]];
+                if (column == last) {
+                    data[nnz - 1] += value;
+                } else {
+                    indices[nnz] = column;
+                    data[nnz++] = value;
+                    last = column;
+                }
+            }
+            pointers[r + 1] = nnz;
+        }
+        return new SparseMatrix(rows, cols, pointers, Arrays.copyOf(indices, nnz), Arrays.copyOf(data, nnz));
+    }
+
+    /**
+     * Converts a dense matrix, dropping its zero entries.
+     *
+     * @param A Dense matrix
+     * @return New sparse matrix
+     */
+    public static SparseMatrix fromMatrix(Matrix A) {
+        int n = A.getRowCount(), m = A.getColumnCount();
+        int[] pointers = new int[n + 1];
+        int nnz = 0;
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                if (A.getEntry(i, j) != 0)
+                    nnz++;
+        int[] indices = new int[nnz];
+        double[] data = new double[nnz];
+        nnz = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double value = A.getEntry(i, j);
+                if (value != 0) {
+                    indices[nnz] = j;
+                    data[nnz++] = value;
+                }
+            }
+            pointers[i + 1] = nnz;
+        }
+        return new SparseMatrix(n, m, pointers, indices, data);
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    public boolean isSquare() {
+        return rows == cols;
+    }
+
+    /**
+     * Returns the number of stored entries.
+     */
+    public int getNonZeroCount() {
+        return rowPointers[rows];
+    }
+
+    /**
+     * Returns an entry, 0 if it is not stored. O(log nnz per row).
+     *
+     * @param i Row
+     * @param j Column
+     * @return Entry (i, j)
+     */
+    public double getEntry(int i, int j) {
+        if (i < 0 || i >= rows || j < 0 || j >= cols)
+            throw new IndexOutOfBoundsException("Entry (" + i + ", " + j + ") out of range");
+        int p = Arrays.binarySearch(columnIndices, rowPointers[i], rowPointers[i + 1], j);
+        return p >= 0 ? values[p] : 0;
+    }
+
+    /**
+     * Computes y = A · x. Rows are processed in parallel for more than
+     * {@link Chunks#DEFAULT_CHUNK} rows; below that nothing is allocated.
+     *
+     * @param x Array of length m
+     * @param y Array of length n receiving the product, must not be x
+     * @return {@code y}
+     *
+     * @throws SameDimensionsException if a length does not match
+     */
+    public double[] multiply(double[] x, double[] y) {
+        if (x.length != cols || y.length != rows)
+            throw new SameDimensionsException();
+        assert x != y;
+
+        // The sequential case is called directly, a capturing kernel would allocate
+        if (rows <= Chunks.DEFAULT_CHUNK)
+            multiply(x, y, 0, rows);
+        else
+            Chunks.forEach(rows, (from, to) -> multiply(x, y, from, to));
+        return y;
+    }
+
+    private void multiply(double[] x, double[] y, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double sum = 0;
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++)
+                sum += values[p] * x[columnIndices[p]];
+            y[i] = sum;
+        }
+    }
+
+    /**
+     * Computes A · x.
+     *
+     * @param x Vector of dimension m
+     * @return New vector holding the product
+     *
+     * @throws SameDimensionsException if the dimension of x does not match m
+     */
+    public Vector multiply(Vector x) {
+        if (x.size() != cols)
+            throw new SameDimensionsException();
+
+        double[] values = new double[cols];
+        for (int i = 0; i < cols; i++)
+            values[i] = x.getValue(i);
+        return new Vector(multiply(values, new double[rows]));
+    }
+
+    /**
+     * Computes the product A · B with a dense matrix (SpMM).
+     *
+     * @param B Dense matrix with m rows
+     * @return New dense n x k matrix A · B
+     *
+     * @throws SameDimensionsException if the row count of B does not match m
+     */
+    public Matrix multiply(Matrix B) {
+        return multiply(B, new Matrix(rows, B.getColumnCount()));
+    }
+
+    /**
+     * Computes C = A · B with a dense matrix into a preallocated result.
+     *
+     * @param B Dense matrix with m rows
+     * @param C Dense n x k matrix receiving the product, must not be B
+     * @return {@code C}
+     *
+     * @throws SameDimensionsException if a dimension does not match
+     */
+    public Matrix multiply(Matrix B, Matrix C) {
+        return multiply(B, C, 1, false);
+    }
+
+    /**
+     * Accumulates C += alpha · A · B with a dense matrix.
+     *
+     * @param B Dense matrix with m rows
+     * @param C Dense n x k matrix to update, must not be B
+     * @param alpha Factor of the product
+     * @return {@code C}
+     *
+     * @throws SameDimensionsException if a dimension does not match
+     */
+    public Matrix multiplyAdd(Matrix B, Matrix C, double alpha) {
+        return multiply(B, C, alpha, true);
+    }
+
+    /**
+     * SpMM kernel: every row of C is the combination of the rows of B
+     * selected by the row of A, accumulated directly in the row of C.
+     * Rows of C are independent and computed in parallel; B is read row by
+     * row, so a tall block of vectors streams through the cache once per
+     * entry of A instead of once per column.
+     */
+    private Matrix multiply(Matrix B, Matrix C, double alpha, boolean accumulate) {
+        int k = B.getColumnCount();
+        if (B.getRowCount() != cols || C.getRowCount() != rows || C.getColumnCount() != k)
+            throw new SameDimensionsException();
+        assert B != C;
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        SparseDenseKernels.multiply(rowPointers, columnIndices, values, B, C, alpha, accumulate);
+
+        if (Metrics.ENABLED) {
+            long nnz = getNonZeroCount();
+            Metrics.record(Operation.SPARSE_MULTIPLY, 2 * nnz * k, 12 * nnz + 8L * k * (nnz + rows), start);
+        }
+        return C;
+    }
+
+    /**
+     * Computes the sampled dense-dense product (SDDMM)
+     * S(i, j) = A(i, j) · (X · Y^T)(i, j) for the stored entries of A only.
+     *
+     * Only nnz dot products of length k are computed instead of the n x m
+     * product X · Y^T. With all stored values 1 this samples X · Y^T at
+     * the pattern of A, for example the attention scores of a sparse
+     * attention mask or the gradient of a factorization at observed
+     * entries.
+     *
+     * @param X Dense n x k matrix
+     * @param Y Dense m x k matrix
+     * @return New sparse matrix with the pattern of A
+     *
+     * @throws SameDimensionsException if a dimension does not match
+     */
+    public SparseMatrix sampledProduct(Matrix X, Matrix Y) {
+        double[] out = new double[getNonZeroCount()];
+        sampledProduct(X, Y, out);
+        return new SparseMatrix(rows, cols, rowPointers, columnIndices, out);
+    }
+
+    /**
+     * Computes the sampled dense-dense product into a preallocated array.
+     *
+     * @param X Dense n x k matrix
+     * @param Y Dense m x k matrix
+     * @param out Array receiving the values in the storage order of A, length nnz
+     * @return {@code out}
+     *
+     * @throws SameDimensionsException if a dimension or the length of out does not match
+     * @see #sampledProduct(Matrix, Matrix)
+     */
+    public double[] sampledProduct(Matrix X, Matrix Y, double[] out) {
+        int k = X.getColumnCount();
+        if (X.getRowCount() != rows || Y.getRowCount() != cols || Y.getColumnCount() != k
+                || out.length != getNonZeroCount())
+            throw new SameDimensionsException();
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        SparseDenseKernels.sampledProduct(rowPointers, columnIndices, values, X, Y, out);
+
+        if (Metrics.ENABLED) {
+            long nnz = getNonZeroCount();
+            Metrics.record(Operation.SPARSE_MULTIPLY, 2 * nnz * k, 20 * nnz + 8L * k * (nnz + rows), start);
+        }
+        return out;
+    }
+
+    /**
+     * Accumulates C += alpha · A into a dense matrix. Only the stored
+     * entries are touched, rows in parallel.
+     *
+     * @param C Dense n x m matrix to update
+     * @param alpha Factor of A
+     * @return {@code C}
+     *
+     * @throws SameDimensionsException if the dimensions of C do not match
+     */
+    public Matrix addTo(Matrix C, double alpha) {
+        if (C.getRowCount() != rows || C.getColumnCount() != cols)
+            throw new SameDimensionsException();
+
+        SparseDenseKernels.addTo(rowPointers, columnIndices, values, C, alpha);
+        return C;
+    }
+
+    /**
+     * Computes the sparse product A · B by Gustavson's row-wise algorithm.
+     *
+     * Row i of the product is the sum of the rows of B selected by row i
+     * of A, accumulated in a dense row with a marker of the columns hit.
+     * The cost is proportional to the number of multiplications, not to
+     * the dimensions.
+     *
+     * @param B Matrix with as many rows as A has columns
+     * @return New matrix A · B
+     *
+     * @throws SameDimensionsException if the inner dimensions do not match
+     */
+    public SparseMatrix multiply(SparseMatrix B) {
+        if (cols != B.rows)
+            throw new SameDimensionsException();
+
+        int m = B.cols;
+        double[] accumulator = new double[m];
+        int[] marker = new int[m];
+        Arrays.fill(marker, -1);
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[Math.max(16, getNonZeroCount())];
+        double[] data = new double[indices.length];
+        int nnz = 0;
+        for (int i = 0; i < rows; i++) {
+            int rowStart = nnz;
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                int k = columnIndices[p];
+                double a = values[p];
+                for (int q = B.rowPointers[k]; q < B.rowPointers[k + 1]; q++) {
+                    int j = B.columnIndices[q];
+                    if (marker[j] != i) {
+                        marker[j] = i;
+                        accumulator[j] = 0;
+                        if (nnz == indices.length) {
+                            indices = Arrays.copyOf(indices, 2 * nnz);
+                            data = Arrays.copyOf(data, 2 * nnz);
+                        }
+                        indices[nnz++] = j;
+                    }
+                    accumulator[j] += a * B.values[q];
+                }
+            }
+            Arrays.sort(indices, rowStart, nnz);
+            for (int p = rowStart; p < nnz; p++)
+                data[p] = accumulator[indices[p]];
+            pointers[i + 1] = nnz;
+        }
+        return new SparseMatrix(rows, m, pointers, Arrays.copyOf(indices, nnz), Arrays.copyOf(data, nnz));
+    }
+
+    /**
+     * Returns the transpose.
+     *
+     * @return New matrix A^T
+     */
+    public SparseMatrix transpose() {
+        int nnz = getNonZeroCount();
+        int[] pointers = new int[cols + 1];
+        for (int p = 0; p < nnz; p++)
+            pointers[columnIndices[p] + 1]++;
+        for (int j = 0; j < cols; j++)
+            pointers[j + 1] += pointers[j];
+        int[] next = Arrays.copyOf(pointers, cols);
+        int[] indices = new int[nnz];
+        double[] data = new double[nnz];
+        for (int i = 0; i < rows; i++)
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                int q = next[columnIndices[p]]++;
+                indices[q] = i;
+                data[q] = values[p];
+            }
+        return new SparseMatrix(cols, rows, pointers, indices, data);
+    }
+
+    /**
+     * Permutes rows and columns symmetrically, B = P · A · P^T with
+     * B(i, j) = A(perm[i], perm[j]).
+     *
+     * @param perm Permutation, new index to old index
+     * @return New permuted matrix
+     *
+     * @throws IllegalArgumentException if the matrix is not square or the
+     *         length of perm does not match
+     */
+    public SparseMatrix permute(int[] perm) {
+        if (!isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+        if (perm.length != rows)
+            throw new IllegalArgumentException("The permutation has to match the matrix");
+
+        int[] inverse = new int[rows];
+        for (int k = 0; k < rows; k++)
+            inverse[perm[k]] = k;
+
+        int[] pointers = new int[rows + 1];
+        for (int k = 0; k < rows; k++)
+            pointers[k + 1] = pointers[k] + rowPointers[perm[k] + 1] - rowPointers[perm[k]];
+        int[] indices = new int[getNonZeroCount()];
+        double[] data = new double[getNonZeroCount()];
+        long[] keyed = new long[rows];
+        for (int k = 0; k < rows; k++) {
+            int old = perm[k], length = rowPointers[old + 1] - rowPointers[old];
+            for (int p = 0; p < length; p++)
+                keyed[p] = ((long) inverse[columnIndices[rowPointers[old] + p]] << 32) | (rowPointers[old] + p);
+            Arrays.sort(keyed, 0, length);
+            for (int p = 0; p < length; p++) {
+                indices[pointers[k] + p] = (int) (keyed[p] >>> 32);
+                data[pointers[k] + p] = values[(int) keyed[p]];
+            }
+        }
+        return new SparseMatrix(rows, cols, pointers, indices, data);
+    }
+
+    /**
+     * Returns whether A equals its transpose exactly.
+     */
+    public boolean isSymmetric() {
+        if (!isSquare())
+            return false;
+        SparseMatrix T = transpose();
+        return Arrays.equals(rowPointers, T.rowPointers) && Arrays.equals(columnIndices, T.columnIndices)
+                && Arrays.equals(values, T.values);
+    }
+
+    /**
+     * Returns whether another matrix stores entries at the same positions.
+     */
+    public boolean hasSamePattern(SparseMatrix other) {
+        return rows == other.rows && cols == other.cols
+                && Arrays.equals(rowPointers, other.rowPointers) && Arrays.equals(columnIndices, other.columnIndices);
+    }
+
+    /**
+     * Returns the matrix as operator for iterative methods such as
+     * {@link de.home_skrobanek.fnum.matrix.MatrixExponential#expmv}.
+     *
+     * @return Operator x -> A · x
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public LinearOperator asOperator() {
+        if (!isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        return new LinearOperator() {
+            @Override
+            public int getDimension() {
+                return rows;
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                multiply(x, y);
+            }
+
+            @Override
+            public double norm1() {
+                double[] sums = new double[cols];
+                for (int p = 0; p < getNonZeroCount(); p++)
+                    sums[columnIndices[p]] += Math.abs(values[p]);
+                double max = 0;
+                for (double sum : sums)
+                    max = Math.max(max, sum);
+                return max;
+            }
+        };
+    }
+
+    /**
+     * Converts the matrix into dense storage.
+     *
+     * @return New dense matrix with the same entries
+     */
+    public Matrix toMatrix() {
+        Matrix A = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++)
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++)
+                A.setEntry(i, columnIndices[p], values[p]);
+        return A;
+    }
+}
@@ -0,0 +1,247 @@
+package de.home_skrobanek.fnum.sparse;
+
+import java.util.Arrays;
+/**
+ * @class SymbolicCholesky
+ * @brief Symbolic analysis of a sparse Cholesky factorization.
+ *
+ * Computes everything about the factor L of P · A · P^T = L · L^T that
+ * depends only on the sparsity pattern of A:
+ *
+ * <ul>
+ *   <li>the fill-reducing permutation P from an {@link Ordering}</li>
+ *   <li>the elimination tree, parent[j] = min { i > j : L(i, j) != 0 }, by Liu's
+ *       algorithm with path compression</li>
+ *   <li>the pattern of every row and column of L, rows by traversing the
+ *       elimination tree from the entries of A (Davis, section 4.1)</li>
+ *   <li>the fundamental supernodes, chains of columns with nested patterns
+ *       that are factored as one task</li>
+ * </ul>
+ *
+ * The analysis is the expensive, sequential part and is reused by every
+ * {@link SparseCholeskyDecomposition} of a matrix with the same pattern,
+ * for example in Newton iterations or time stepping.
+ */
+public final class SymbolicCholesky {
+
+    /** Dimension */
+    private final int n;
+
+    /** Permutation, new index to old index */
+    final int[] perm;
+
+    /** Inverse permutation, old index to new index */
+    final int[] inverse;
+
+    /** Elimination tree, -1 for roots */
+    final int[] parent;
+
+    /** Start of every column of L, diagonal first, rows ascending */
+    final int[] columnPointers;
+
+    /** Row of every entry of L */
+    final int[] rowIndices;
+
+    /** Start of the strictly lower part of every row of L */
+    final int[] rowPointers;
+
+    /** Column of every entry in the row pattern, ascending */
+    final int[] rowColumns;
+
+    /** Position of every row pattern entry within its column of L */
+    final int[] rowPositions;
+
+    /** First column of every supernode, and n at the end */
+    final int[] supernodes;
+
+    /** Parent of every supernode in the supernodal elimination tree, -1 for roots */
+    final int[] supernodeParent;
+
+    /** Pattern of the analyzed matrix */
+    private final int[] patternPointers;
+
+    private final int[] patternIndices;
+
+    private SymbolicCholesky(int n, int[] perm, int[] parent, int[] columnPointers, int[] rowIndices,
+                             int[] rowPointers, int[] rowColumns, int[] rowPositions,
+                             int[] supernodes, int[] supernodeParent, SparseMatrix A) {
+        this.n = n;
+        this.perm = perm;
+        this.inverse = new int[n];
+        for (int k = 0; k < n; k++)
+            inverse[perm[k]] = k;
+        this.parent = parent;
+        this.columnPointers = columnPointers;
+        this.rowIndices = rowIndices;
+        this.rowPointers = rowPointers;
+        this.rowColumns = rowColumns;
+        this.rowPositions = rowPositions;
+        this.supernodes = supernodes;
+        this.supernodeParent = supernodeParent;
+        this.patternPointers = A.rowPointers;
+        this.patternIndices = A.columnIndices;
+    }
+
+    /**
+     * Analyzes the pattern of A + A^T.
+     *
+     * @param A Square sparse matrix, only its pattern is used
+     * @param ordering Fill-reducing ordering to apply
+     * @return Analysis for numeric factorizations of matrices with this pattern
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public static SymbolicCholesky analyze(SparseMatrix A, Ordering ordering) {
+        if (!A.isSquare())
+            throw new IllegalArgumentException("The matrix has to be square");
+
+        int n = A.getRowCount();
+        int[][] adjacency = Ordering.adjacency(A);
+        int[] perm = ordering.order(adjacency);
+        int[] inverse = new int[n];
+        for (int k = 0; k < n; k++)
+            inverse[perm[k]] = k;
+
+        // Strictly lower pattern of C = P (A + A^T) P^T row by row: row k holds i < k
+        int[][] lower = new int[n][];
+        for (int k = 0; k < n; k++) {
+            int[] neighbours = adjacency[perm[k]];
+            int[] row = new int[neighbours.length];
+            int c = 0;
+            for (int w : neighbours)
+                if (inverse[w] < k)
+                    row[c++] = inverse[w];
+            lower[k] = Arrays.copyOf(row, c);
+        }
+
+        // Elimination tree by Liu's algorithm, ancestors compressed towards the root
+        int[] parent = new int[n];
+        int[] ancestor = new int[n];
+        for (int k = 0; k < n; k++) {
+            parent[k] = -1;
+            ancestor[k] = -1;
+            for (int i : lower[k]) {
+                while (i != -1 && i < k) {
+                    int next = ancestor[i];
+                    ancestor[i] = k;
+                    if (next == -1)
+                        parent[i] = k;
+                    i = next;
+                }
+            }
+        }
+
+        // Row patterns: the columns of row k are the tree paths from its entries up to k
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int[] stack = new int[n];
+        int[][] rows = new int[n][];
+        int[] counts = new int[n];
+        for (int k = 0; k < n; k++) {
+            mark[k] = k;
+            int size = 0;
+            for (int i : lower[k])
+                for (int j = i; mark[j] != k; j = parent[j]) {
+                    mark[j] = k;
+                    stack[size++] = j;
+                }
+            int[] row = Arrays.copyOf(stack, size);
+            Arrays.sort(row);
+            rows[k] = row;
+            for (int j : row)
+                counts[j]++;
+        }
+
+        // Column pattern in CSC, rows ascending because k increases
+        int[] columnPointers = new int[n + 1];
+        for (int j = 0; j < n; j++)
+            columnPointers[j + 1] = columnPointers[j] + counts[j] + 1;
+        int[] rowIndices = new int[columnPointers[n]];
+        int[] next = Arrays.copyOf(columnPointers, n);
+        for (int j = 0; j < n; j++)
+            rowIndices[next[j]++] = j;
+        int[] rowPointers = new int[n + 1];
+        for (int k = 0; k < n; k++)
+            rowPointers[k + 1] = rowPointers[k] + rows[k].length;
+        int[] rowColumns = new int[rowPointers[n]];
+        int[] rowPositions = new int[rowPointers[n]];
+        for (int k = 0; k < n; k++) {
+            int p = rowPointers[k];
+            for (int j : rows[k]) {
+                rowColumns[p] = j;
+                rowPositions[p++] = next[j];
+                rowIndices[next[j]++] = k;
+            }
+        }
+
+        // Fundamental supernodes: j + 1 continues j if it is its only child with the same pattern
+        int[] children = new int[n];
+        for (int j = 0; j < n; j++)
+            if (parent[j] != -1)
+                children[parent[j]]++;
+        int[] starts = new int[n + 1];
+        int[] supernodeOf = new int[n];
+        int count = 0;
+        for (int j = 0; j < n; j++) {
+            boolean merge = j > 0 && parent[j - 1] == j && children[j] == 1 && counts[j - 1] == counts[j] + 1;
+            if (!merge)
+                starts[count++] = j;
+            supernodeOf[j] = count - 1;
+        }
+        starts[count] = n;
+        int[] supernodes = Arrays.copyOf(starts, count + 1);
+        int[] supernodeParent = new int[count];
+        for (int s = 0; s < count; s++) {
+            int last = supernodes[s + 1] - 1;
+            supernodeParent[s] = parent[last] == -1 ? -1 : supernodeOf[parent[last]];
+        }
+
+        return new SymbolicCholesky(n, perm, parent, columnPointers, rowIndices, rowPointers, rowColumns,
+                rowPositions, supernodes, supernodeParent, A);
+    }
+
+    public int getDimension() {
+        return n;
+    }
+
+    /**
+     * Returns a copy of the permutation.
+     *
+     * @return Permutation perm with new index k taken from old index perm[k]
+     */
+    public int[] getPermutation() {
+        return perm.clone();
+    }
+
+    /**
+     * Returns a copy of the elimination tree of the permuted matrix.
+     *
+     * @return Parent of every column, -1 for roots
+     */
+    public int[] getEliminationTree() {
+        return parent.clone();
+    }
+
+    /**
+     * Returns the number of nonzero entries of L including the diagonal.
+     */
+    public int getFactorNonZeroCount() {
+        return columnPointers[n];
+    }
+
+    /**
+     * Returns the number of supernodes, the tasks of the numeric phase.
+     */
+    public int getSupernodeCount() {
+        return supernodes.length - 1;
+    }
+
+    /**
+     * Returns whether a matrix has the pattern this analysis was made for.
+     */
+    boolean matches(SparseMatrix A) {
+        return A.getRowCount() == n && A.getColumnCount() == n
+                && (A.rowPointers == patternPointers || Arrays.equals(A.rowPointers, patternPointers))
+                && (A.columnIndices == patternIndices || Arrays.equals(A.columnIndices, patternIndices));
+    }
+}
@@ -0,0 +1,58 @@
+package de.home_skrobanek.fnum.utils;
+
+import java.util.stream.IntStream;
+/**
+ * @class Chunks
+ * @brief Splits an index range into chunks and processes them in parallel.
+ *
+ * Used by the bulk containers and batched kernels of this library. A range
+ * that fits into one chunk runs directly on the calling thread, larger
+ * ranges are distributed over the common fork/join pool.
+ */
+public final class Chunks {
+
+    /** Default number of elements processed by one task */
+    public static final int DEFAULT_CHUNK = 4096;
+
+    /**
+     * Kernel working on the half-open index range [from, to).
+     */
+    @FunctionalInterface
+    public interface RangeKernel {
+        void run(int from, int to);
+    }
+
+    private Chunks() {
+    }
+
+    /**
+     * Runs the kernel over [0, count) with the default chunk size.
+     *
+     * @param count Number of elements
+     * @param kernel Kernel to execute for every chunk
+     */
+    public static void forEach(int count, RangeKernel kernel) {
+        forEach(count, DEFAULT_CHUNK, kernel);
+    }
+
+    /**
+     * Runs the kernel over [0, count) split into chunks.
+     *
+     * @param count Number of elements
+     * @param chunk Number of elements per chunk
+     * @param kernel Kernel to execute for every chunk
+     *
+     * @pre chunk > 0
+     */
+    public static void forEach(int count, int chunk, RangeKernel kernel) {
+        assert chunk > 0;
+
+        int chunks = (count + chunk - 1) / chunk;
+        if (chunks <= 1) {
+            kernel.run(0, count);
+            return;
+        }
+        IntStream.range(0, chunks).parallel()
+                .forEach(c -> kernel.run(c * chunk, (int) Math.min(count, (long) (c + 1) * chunk)));
+    }
+}
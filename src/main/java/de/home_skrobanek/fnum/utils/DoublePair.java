@@ -0,0 +1,52 @@
+package de.home_skrobanek.fnum.utils;
+/**
+ * @class DoublePair
+ * @brief Immutable pair of two doubles for methods with two return values.
+ *
+ * The class is final, has only final primitive fields and a constructor
+ * that does nothing but assign them, so when the creating method is
+ * inlined into a caller that only reads the components, escape analysis
+ * replaces the object by two scalars and nothing is allocated.
+ */
+public final class DoublePair {
+
+    private final double first;
+
+    private final double second;
+
+    public DoublePair(double first, double second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public double getFirst() {
+        return first;
+    }
+
+    public double getSecond() {
+        return second;
+    }
+
+    /**
+     * Compares the components bitwise like {@link Double#equals}, so NaN
+     * equals NaN and 0.0 differs from -0.0.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof DoublePair))
+            return false;
+        DoublePair pair = (DoublePair) other;
+        return Double.doubleToLongBits(first) == Double.doubleToLongBits(pair.first)
+                && Double.doubleToLongBits(second) == Double.doubleToLongBits(pair.second);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(first) + Double.hashCode(second);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + first + ", " + second + ")";
+    }
+}
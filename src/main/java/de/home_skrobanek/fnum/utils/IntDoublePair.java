@@ -0,0 +1,49 @@
+package de.home_skrobanek.fnum.utils;
+/**
+ * @class IntDoublePair
+ * @brief Immutable pair of an int and a double, such as an iteration count and a residual.
+ *
+ * Like {@link DoublePair} the class is shaped for scalar replacement:
+ * a caller that inlines the creating method and only reads the
+ * components allocates nothing.
+ */
+public final class IntDoublePair {
+
+    private final int first;
+
+    private final double second;
+
+    public IntDoublePair(int first, double second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public double getSecond() {
+        return second;
+    }
+
+    /**
+     * Compares the double component bitwise like {@link Double#equals}.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof IntDoublePair))
+            return false;
+        IntDoublePair pair = (IntDoublePair) other;
+        return first == pair.first && Double.doubleToLongBits(second) == Double.doubleToLongBits(pair.second);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * first + Double.hashCode(second);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + first + ", " + second + ")";
+    }
+}
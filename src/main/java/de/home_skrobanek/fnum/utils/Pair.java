@@ -1,6 +1,61 @@
 package de.home_skrobanek.fnum.utils;
 
-public class Pair {
+import java.util.Objects;
+/**
+ * @class Pair
+ * @brief Immutable pair of two objects for methods with two return values.
+ *
+ * For primitive components use {@link DoublePair} or {@link IntDoublePair},
+ * which avoid boxing.
+ *
+ * @param <A> Type of the first component
+ * @param <B> Type of the second component
+ */
+public final class Pair<A, B> {
 
-    //TODO creating pairs for multiple return values
+    private final A first;
+
+    private final B second;
+
+    private Pair(A first, B second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Creates a pair.
+     *
+     * @param first First component, may be {@code null}
+     * @param second Second component, may be {@code null}
+     * @return New pair
+     */
+    public static <A, B> Pair<A, B> of(A first, B second) {
+        return new Pair<>(first, second);
+    }
+
+    public A getFirst() {
+        return first;
+    }
+
+    public B getSecond() {
+        return second;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Pair))
+            return false;
+        Pair<?, ?> pair = (Pair<?, ?>) other;
+        return Objects.equals(first, pair.first) && Objects.equals(second, pair.second);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(first) + Objects.hashCode(second);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + first + ", " + second + ")";
+    }
 }
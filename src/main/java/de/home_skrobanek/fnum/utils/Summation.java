@@ -0,0 +1,194 @@
+package de.home_skrobanek.fnum.utils;
+/**
+ * @enum Summation
+ * @brief Strategies for sums and dot products of floating-point numbers.
+ *
+ * The strategies trade speed for accuracy. With unit roundoff u and
+ * condition number {@code cond = Σ|x_i| / |Σ x_i|} of the sum, the
+ * relative error is bounded by about
+ *
+ * <pre>
+ *   NAIVE      (n - 1) · u · cond
+ *   PAIRWISE   (log2(n / 32) + 32) · u · cond
+ *   NEUMAIER   u + 2 · u · n · u · cond
+ *   DOT2       u + n^2 · u^2 · cond
+ * </pre>
+ *
+ * so NEUMAIER and DOT2 are as accurate as the rounded exact result unless
+ * the sum is ill-conditioned to about 1/u, and DOT2 stays accurate up to
+ * cond ≈ 1/u². For dot products NEUMAIER compensates only the additions,
+ * DOT2 also the rounding of every product, using {@link Math#fma}.
+ *
+ * <p>Measured on one core for n = 2^20 (ns per element, sum / dot):
+ * NAIVE 0.7 / 0.8, PAIRWISE 0.6 / 0.7, NEUMAIER 1.1 / 1.3, DOT2 1.4 / 1.8.
+ * PAIRWISE is slightly faster than NAIVE because its independent
+ * accumulators do not wait for the previous addition. SummationBenchmark,
+ * run by {@code mvn test -Pbenchmark}, publishes these figures together
+ * with the error for ill-conditioned data as test report entries.</p>
+ */
+public enum Summation {
+
+    /**
+     * Left to right, one accumulator. Reproduces the results of the
+     * loops written without a strategy.
+     */
+    NAIVE {
+        @Override
+        public double sum(double[] x, int from, int to) {
+            double s = 0;
+            for (int i = from; i < to; i++)
+                s += x[i];
+            return s;
+        }
+
+        @Override
+        public double dot(double[] x, double[] y, int from, int to) {
+            double s = 0;
+            for (int i = from; i < to; i++)
+                s += x[i] * y[i];
+            return s;
+        }
+    },
+
+    /**
+     * Blocks of {@value #BLOCK} elements are summed with four independent
+     * accumulators, the block sums are added pairwise. The error grows
+     * with log n instead of n at no extra work.
+     */
+    PAIRWISE {
+        @Override
+        public double sum(double[] x, int from, int to) {
+            if (to - from <= BLOCK) {
+                double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+                int i = from;
+                for (; i + 3 < to; i += 4) {
+                    s0 += x[i];
+                    s1 += x[i + 1];
+                    s2 += x[i + 2];
+                    s3 += x[i + 3];
+                }
+                for (; i < to; i++)
+                    s0 += x[i];
+                return (s0 + s1) + (s2 + s3);
+            }
+            int mid = from + split(to - from);
+            return sum(x, from, mid) + sum(x, mid, to);
+        }
+
+        @Override
+        public double dot(double[] x, double[] y, int from, int to) {
+            if (to - from <= BLOCK) {
+                double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+                int i = from;
+                for (; i + 3 < to; i += 4) {
+                    s0 += x[i] * y[i];
+                    s1 += x[i + 1] * y[i + 1];
+                    s2 += x[i + 2] * y[i + 2];
+                    s3 += x[i + 3] * y[i + 3];
+                }
+                for (; i < to; i++)
+                    s0 += x[i] * y[i];
+                return (s0 + s1) + (s2 + s3);
+            }
+            int mid = from + split(to - from);
+            return dot(x, y, from, mid) + dot(x, y, mid, to);
+        }
+    },
+
+    /**
+     * Kahan's compensated summation in Neumaier's variant: the rounding
+     * error of every addition is collected in a second accumulator, also
+     * when the addend is larger than the running sum.
+     */
+    NEUMAIER {
+        @Override
+        public double sum(double[] x, int from, int to) {
+            double s = 0, c = 0;
+            for (int i = from; i < to; i++) {
+                double v = x[i];
+                double t = s + v;
+                c += Math.abs(s) >= Math.abs(v) ? (s - t) + v : (v - t) + s;
+                s = t;
+            }
+            return s + c;
+        }
+
+        @Override
+        public double dot(double[] x, double[] y, int from, int to) {
+            double s = 0, c = 0;
+            for (int i = from; i < to; i++) {
+                double v = x[i] * y[i];
+                double t = s + v;
+                c += Math.abs(s) >= Math.abs(v) ? (s - t) + v : (v - t) + s;
+                s = t;
+            }
+            return s + c;
+        }
+    },
+
+    /**
+     * Sum2 and Dot2 of Ogita, Rump and Oishi: error-free transformations
+     * (Knuth's TwoSum, TwoProduct by {@link Math#fma}) split every
+     * operation into result and exact error, the errors are summed
+     * separately. The result is as accurate as if computed in twice the
+     * working precision and then rounded. Branch-free.
+     */
+    DOT2 {
+        @Override
+        public double sum(double[] x, int from, int to) {
+            double s = 0, c = 0;
+            for (int i = from; i < to; i++) {
+                double v = x[i];
+                double t = s + v;
+                double z = t - s;
+                c += (s - (t - z)) + (v - z);
+                s = t;
+            }
+            return s + c;
+        }
+
+        @Override
+        public double dot(double[] x, double[] y, int from, int to) {
+            double s = 0, c = 0;
+            for (int i = from; i < to; i++) {
+                double p = x[i] * y[i];
+                double e = Math.fma(x[i], y[i], -p);
+                double t = s + p;
+                double z = t - s;
+                c += ((s - (t - z)) + (p - z)) + e;
+                s = t;
+            }
+            return s + c;
+        }
+    };
+
+    /** Largest range summed directly by {@link #PAIRWISE} */
+    static final int BLOCK = 128;
+
+    /**
+     * Sums a range of an array.
+     *
+     * @param x Summands
+     * @param from First index, inclusive
+     * @param to Last index, exclusive
+     * @return Sum of x[from..to)
+     */
+    public abstract double sum(double[] x, int from, int to);
+
+    /**
+     * Computes the dot product of two arrays over the same range.
+     *
+     * @param x First factor
+     * @param y Second factor
+     * @param from First index, inclusive
+     * @param to Last index, exclusive
+     * @return Sum of x[i] · y[i] over [from, to)
+     */
+    public abstract double dot(double[] x, double[] y, int from, int to);
+
+    /** Splits a range into halves, the first a multiple of the block size */
+    private static int split(int length) {
+        int blocks = (length + BLOCK - 1) / BLOCK;
+        return blocks / 2 * BLOCK;
+    }
+}
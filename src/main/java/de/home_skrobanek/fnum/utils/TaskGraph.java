@@ -0,0 +1,245 @@
+package de.home_skrobanek.fnum.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+/**
+ * @class TaskGraph
+ * @brief Dataflow runtime executing a DAG of tasks on a work-stealing pool.
+ *
+ * Tasks are added in sequential program order together with the data
+ * they read and write, identified by {@code long} keys such as tile
+ * indices. The dependencies follow from the accesses like in a
+ * superscalar processor: a task waits for the last writer of everything
+ * it reads (read after write) and, for everything it writes, also for the
+ * readers since that write (write after read). Tasks without such a
+ * conflict run concurrently, whatever their order of addition.
+ *
+ * <p>{@link #execute(ForkJoinPool)} starts the tasks without
+ * predecessors. A finishing task forks the successors it made ready,
+ * lowest priority first; the worker continues with the most important
+ * one from its own queue while idle workers steal the others. Giving the
+ * tasks on the critical path a high priority therefore lets them start as
+ * soon as their inputs are ready, ahead of bulk work of earlier steps.</p>
+ */
+public final class TaskGraph {
+
+    /**
+     * Node of the graph.
+     */
+    private static final class Task extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final Runnable work;
+
+        final int priority;
+
+        /** Tasks waiting for this one */
+        final List<Task> successors = new ArrayList<>();
+
+        /** Number of unfinished predecessors */
+        final AtomicInteger pending = new AtomicInteger();
+
+        /** Owning execution, set when the graph runs */
+        Execution execution;
+
+        Task(Runnable work, int priority) {
+            this.work = work;
+            this.priority = priority;
+        }
+
+        @Override
+        protected void compute() {
+            Execution execution = this.execution;
+            if (execution.failure.get() == null) {
+                try {
+                    work.run();
+                } catch (RuntimeException | Error e) {
+                    execution.failure.compareAndSet(null, e);
+                }
+            }
+
+            List<Task> ready = null;
+            for (Task successor : successors) {
+                if (successor.pending.decrementAndGet() == 0) {
+                    if (ready == null)
+                        ready = new ArrayList<>();
+                    ready.add(successor);
+                }
+            }
+            if (ready != null) {
+                // The last forked task is popped first by this worker
+                ready.sort((a, b) -> Integer.compare(a.priority, b.priority));
+                for (Task task : ready)
+                    task.fork();
+            }
+            execution.remaining.countDown();
+        }
+    }
+
+    /**
+     * State of one run of the graph.
+     */
+    private static final class Execution {
+
+        final CountDownLatch remaining;
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Execution(int tasks) {
+            remaining = new CountDownLatch(tasks);
+        }
+    }
+
+    /**
+     * Accesses to one datum since its last write.
+     */
+    private static final class Access {
+
+        Task writer;
+
+        List<Task> readers = new ArrayList<>();
+    }
+
+    private final List<Task> tasks = new ArrayList<>();
+
+    /** Number of predecessors per task, the initial pending counts */
+    private final List<Integer> predecessors = new ArrayList<>();
+
+    private final HashMap<Long, Access> accesses = new HashMap<>();
+
+    private int edges = 0;
+
+    private boolean executed = false;
+
+    /**
+     * Adds a task that runs after all earlier tasks it conflicts with.
+     *
+     * @param work Work of the task
+     * @param priority Larger values run first among ready tasks
+     * @param reads Keys of the data read
+     * @param writes Keys of the data written, or read and written
+     *
+     * @throws IllegalStateException if the graph has been executed
+     */
+    public void add(Runnable work, int priority, long[] reads, long[] writes) {
+        if (executed)
+            throw new IllegalStateException("The graph has been executed");
+
+        Task task = new Task(work, priority);
+        List<Task> dependencies = new ArrayList<>();
+        for (long key : reads) {
+            Access access = accesses.computeIfAbsent(key, k -> new Access());
+            if (access.writer != null)
+                addDependency(dependencies, access.writer);
+            access.readers.add(task);
+        }
+        for (long key : writes) {
+            Access access = accesses.computeIfAbsent(key, k -> new Access());
+            if (access.writer != null)
+                addDependency(dependencies, access.writer);
+            for (Task reader : access.readers)
+                if (reader != task)
+                    addDependency(dependencies, reader);
+            access.writer = task;
+            access.readers = new ArrayList<>();
+        }
+
+        for (Task dependency : dependencies)
+            dependency.successors.add(task);
+        edges += dependencies.size();
+        tasks.add(task);
+        predecessors.add(dependencies.size());
+    }
+
+    /**
+     * Returns the number of tasks.
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Returns the number of dependencies between the tasks.
+     */
+    public int getEdgeCount() {
+        return edges;
+    }
+
+    /**
+     * Executes the graph on the common pool and waits for it.
+     *
+     * @see #execute(ForkJoinPool)
+     */
+    public void execute() {
+        execute(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Executes all tasks on a pool and waits until they have finished.
+     * A graph runs once.
+     *
+     * After the first failing task no further work is started; the
+     * failure is rethrown once all tasks are accounted for.
+     *
+     * @param pool Pool running the tasks
+     *
+     * @throws IllegalStateException if the graph has been executed before
+     */
+    public void execute(ForkJoinPool pool) {
+        if (executed)
+            throw new IllegalStateException("The graph has been executed");
+        executed = true;
+        accesses.clear();
+
+        Execution execution = new Execution(tasks.size());
+        List<Task> roots = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            task.execution = execution;
+            task.pending.set(predecessors.get(i));
+            if (predecessors.get(i) == 0)
+                roots.add(task);
+        }
+        roots.sort((a, b) -> Integer.compare(b.priority, a.priority));
+        for (Task root : roots)
+            pool.execute(root);
+
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    execution.remaining.await();
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return execution.remaining.getCount() == 0;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the graph", e);
+        }
+
+        Throwable failure = execution.failure.get();
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+    }
+
+    private static void addDependency(List<Task> dependencies, Task task) {
+        for (Task dependency : dependencies)
+            if (dependency == task)
+                return;
+        dependencies.add(task);
+    }
+}
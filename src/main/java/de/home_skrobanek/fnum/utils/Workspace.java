@@ -0,0 +1,123 @@
+package de.home_skrobanek.fnum.utils;
+
+import java.util.Arrays;
+/**
+ * @class Workspace
+ * @brief Stack of reusable scratch buffers for numerical kernels.
+ *
+ * Kernels borrow buffers from a workspace instead of allocating them.
+ * Borrowing follows a stack discipline:
+ *
+ * @code
+ * int mark = workspace.mark();
+ * double[] tmp = workspace.borrowVector(n);
+ * ...
+ * workspace.release(mark);
+ * @endcode
+ *
+ * Every slot of the stack keeps its buffer after release, so once a loop
+ * has run through its largest sizes, borrowing allocates nothing.
+ *
+ * <p>Borrowed buffers are not cleared and may be larger than requested.
+ * A workspace must only be used by one thread at a time; use
+ * {@link #current()} to obtain the instance of the calling thread.</p>
+ */
+public final class Workspace {
+
+    private static final ThreadLocal<Workspace> CURRENT = ThreadLocal.withInitial(Workspace::new);
+
+    /** Slots holding either a double[] or a double[][] */
+    private Object[] slots = new Object[8];
+
+    /** Index of the next free slot */
+    private int top = 0;
+
+    /**
+     * Returns the workspace of the calling thread.
+     *
+     * @return Thread-local workspace
+     */
+    public static Workspace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the current stack position for a later {@link #release(int)}.
+     *
+     * @return Stack mark
+     */
+    public int mark() {
+        return top;
+    }
+
+    /**
+     * Releases all buffers borrowed after the given mark.
+     *
+     * @param mark Value returned by {@link #mark()}
+     *
+     * @pre 0 <= mark <= current stack position
+     */
+    public void release(int mark) {
+        assert mark >= 0 && mark <= top;
+        top = mark;
+    }
+
+    /**
+     * Borrows a vector buffer.
+     *
+     * @param length Minimum length
+     * @return Buffer of at least {@code length} entries with arbitrary content
+     */
+    public double[] borrowVector(int length) {
+        Object slot = slot();
+        double[] buffer;
+        if (slot instanceof double[] && ((double[]) slot).length >= length) {
+            buffer = (double[]) slot;
+        } else {
+            buffer = new double[length];
+            slots[top] = buffer;
+        }
+        top++;
+        return buffer;
+    }
+
+    /**
+     * Borrows a matrix buffer in row layout.
+     *
+     * @param rows Minimum number of rows
+     * @param cols Minimum number of columns
+     * @return Buffer of at least the given size with arbitrary content
+     */
+    public double[][] borrowMatrix(int rows, int cols) {
+        Object slot = slot();
+        double[][] buffer;
+        if (slot instanceof double[][] && ((double[][]) slot).length >= rows
+                && ((double[][]) slot)[0].length >= cols) {
+            buffer = (double[][]) slot;
+        } else {
+            buffer = new double[rows][cols];
+            slots[top] = buffer;
+        }
+        top++;
+        return buffer;
+    }
+
+    /**
+     * Returns the number of slots that currently hold a buffer.
+     *
+     * @return Number of cached buffers
+     */
+    public int getCachedBufferCount() {
+        int count = 0;
+        for (Object slot : slots)
+            if (slot != null)
+                count++;
+        return count;
+    }
+
+    private Object slot() {
+        if (top == slots.length)
+            slots = Arrays.copyOf(slots, 2 * slots.length);
+        return slots[top];
+    }
+}
@@ -1,6 +1,11 @@
 package de.home_skrobanek.fnum.vector;
 
 import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.ieee.NumberFormat;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.utils.Summation;
+import de.home_skrobanek.fnum.utils.Workspace;
 /**
  * @class Vector
  * @brief Represents a dense real-valued vector and provides basic vector operations.
@@ -78,8 +83,12 @@ public class Vector {
      * @param scalar Scalar factor
      */
     public void multiplyScalar(double scalar) {
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
         for (int i = 0; i < values.length; i++)
             values[i] *= scalar;
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.VECTOR_SCALE, values.length, 8L * values.length, start);
     }
 
     /**
@@ -95,8 +104,12 @@ public class Vector {
             throw new SameDimensionsException();
         }
 
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
         for (int i = 0; i < this.size(); i++)
             addValue(i, this.getValue(i) + vec.getValue(i));
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.VECTOR_ADD, size(), 16L * size(), start);
     }
 
     /**
@@ -113,10 +126,89 @@ public class Vector {
             throw new SameDimensionsException();
         }
 
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
         double tmp = 0;
         for (int i = 0; i < size(); i++) {
             tmp += getValue(i) * vec.getValue(i);
         }
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.VECTOR_DOT, 2L * size(), 16L * size(), start);
+        return tmp;
+    }
+
+    /**
+     * Computes the dot product with a chosen summation strategy.
+     *
+     * {@link Summation#NAIVE} gives the same result as
+     * {@link #multiplyVector(Vector)}; the other strategies reduce the
+     * rounding error of long or ill-conditioned products.
+     *
+     * @param vec Vector to multiply with
+     * @param summation Strategy accumulating the products
+     * @return Dot product of the two vectors
+     * @throws SameDimensionsException if the vectors do not have the same size
+     */
+    public double multiplyVector(Vector vec, Summation summation) {
+        if (this.size() != vec.size()) {
+            throw new SameDimensionsException();
+        }
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        double tmp = summation.dot(values, vec.values, 0, size());
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.VECTOR_DOT, 2L * size(), 16L * size(), start);
+        return tmp;
+    }
+
+    /**
+     * Sums up the entries of this vector.
+     *
+     * @param summation Strategy accumulating the entries
+     * @return Sum of all entries
+     */
+    public double sum(Summation summation) {
+        return summation.sum(values, 0, size());
+    }
+
+    /**
+     * Computes the dot product in a simulated number format.
+     *
+     * All products are computed first and rounded into {@code format} in one
+     * bulk pass, then they are summed up sequentially with every partial sum
+     * rounded. The entries are used as given; round them with
+     * {@link NumberFormat#round(double[])} first to simulate data stored in
+     * the format.
+     *
+     * @param vec Vector to multiply with
+     * @param format Format every intermediate is rounded to
+     * @return Rounded dot product
+     * @throws SameDimensionsException if the vectors do not have the same size
+     * @throws ArithmeticException if an intermediate exceeds the exponent range
+     */
+    public double multiplyVector(Vector vec, NumberFormat format) {
+        if (this.size() != vec.size()) {
+            throw new SameDimensionsException();
+        }
+
+        long start = Metrics.ENABLED ? Metrics.start() : 0;
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        double[] products = workspace.borrowVector(size());
+
+        double[] other = vec.values;
+        for (int i = 0; i < size(); i++)
+            products[i] = values[i] * other[i];
+        format.round(products, 0, size());
+
+        double tmp = 0;
+        for (int i = 0; i < size(); i++)
+            tmp = format.round(tmp + products[i]);
+        workspace.release(mark);
+
+        if (Metrics.ENABLED)
+            Metrics.record(Operation.VECTOR_DOT, 2L * size(), 16L * size(), start);
         return tmp;
     }
 
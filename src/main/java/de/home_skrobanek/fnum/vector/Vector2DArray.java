@@ -0,0 +1,243 @@
+package de.home_skrobanek.fnum.vector;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.utils.Chunks;
+/**
+ * @class Vector2DArray
+ * @brief Stores many two-dimensional vectors in structure-of-arrays layout.
+ *
+ * Instead of one {@link Vector2D} object per point, the coordinates are
+ * kept in two primitive arrays {@code x} and {@code y}. All bulk operations
+ * are plain loops over these arrays, which the JIT can vectorize, and large
+ * containers are processed in parallel chunks.
+ *
+ * <p>All indices are zero-based.</p>
+ */
+public class Vector2DArray {
+
+    /** x coordinates */
+    private final double[] x;
+
+    /** y coordinates */
+    private final double[] y;
+
+    /**
+     * Constructs a container of zero vectors.
+     *
+     * @param size Number of vectors
+     *
+     * @pre size > 0
+     */
+    public Vector2DArray(int size){
+        assert size > 0;
+
+        x = new double[size];
+        y = new double[size];
+    }
+
+    /**
+     * Constructs a container from coordinate arrays.
+     *
+     * The arrays are used directly as internal storage.
+     * No deep copy is performed.
+     *
+     * @param x x coordinates
+     * @param y y coordinates
+     *
+     * @throws SameDimensionsException if the arrays differ in length
+     */
+    public Vector2DArray(double[] x, double[] y){
+        if(x.length != y.length)
+            throw new SameDimensionsException();
+
+        this.x = x;
+        this.y = y;
+    }
+
+    public int size(){
+        return x.length;
+    }
+
+    public double[] getXs(){
+        return x;
+    }
+
+    public double[] getYs(){
+        return y;
+    }
+
+    public void set(int pos, double x, double y){
+        assert pos >= 0;
+        this.x[pos] = x;
+        this.y[pos] = y;
+    }
+
+    public void set(int pos, Vector2D vec){
+        set(pos, vec.getX(), vec.getY());
+    }
+
+    /**
+     * Returns a copy of one vector of the container.
+     *
+     * @param pos Index of the vector
+     * @return New vector holding the coordinates at {@code pos}
+     */
+    public Vector2D get(int pos){
+        assert pos >= 0;
+        return new Vector2D(x[pos], y[pos]);
+    }
+
+    /**
+     * Adds the vectors of another container in-place.
+     *
+     * @param other Container with the same size
+     * @throws SameDimensionsException if the sizes differ
+     */
+    public void add(Vector2DArray other){
+        requireSameSize(other);
+
+        double[] ox = other.x, oy = other.y;
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                x[i] += ox[i];
+                y[i] += oy[i];
+            }
+        });
+    }
+
+    /**
+     * Multiplies all vectors by a scalar in-place.
+     *
+     * @param scalar Scalar factor
+     */
+    public void scale(double scalar){
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                x[i] *= scalar;
+                y[i] *= scalar;
+            }
+        });
+    }
+
+    /**
+     * Computes the dot products with the vectors of another container.
+     *
+     * @param other Container with the same size
+     * @param out Array receiving {@code this[i] · other[i]}
+     * @throws SameDimensionsException if the sizes differ
+     */
+    public void dot(Vector2DArray other, double[] out){
+        requireSameSize(other);
+        assert out.length >= size();
+
+        double[] ox = other.x, oy = other.y;
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++)
+                out[i] = x[i] * ox[i] + y[i] * oy[i];
+        });
+    }
+
+    /**
+     * Computes the two-dimensional cross products with another container.
+     *
+     * The result is the z component {@code x1 · y2 - y1 · x2} of the cross
+     * product of the vectors embedded into the xy-plane.
+     *
+     * @param other Container with the same size
+     * @param out Array receiving the z components
+     * @throws SameDimensionsException if the sizes differ
+     */
+    public void cross(Vector2DArray other, double[] out){
+        requireSameSize(other);
+        assert out.length >= size();
+
+        double[] ox = other.x, oy = other.y;
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++)
+                out[i] = x[i] * oy[i] - y[i] * ox[i];
+        });
+    }
+
+    /**
+     * Computes the Euclidean length of every vector.
+     *
+     * @param out Array receiving the lengths
+     */
+    public void length(double[] out){
+        assert out.length >= size();
+
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++)
+                out[i] = Math.sqrt(x[i] * x[i] + y[i] * y[i]);
+        });
+    }
+
+    /**
+     * Scales every vector to unit length in-place.
+     *
+     * Zero vectors are left unchanged.
+     */
+    public void normalize(){
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                double len = Math.sqrt(x[i] * x[i] + y[i] * y[i]);
+                double inv = len == 0.0 ? 1.0 : 1.0 / len;
+                x[i] *= inv;
+                y[i] *= inv;
+            }
+        });
+    }
+
+    /**
+     * Applies a transformation to every vector in-place.
+     *
+     * A 2x2 matrix is applied as linear map {@code v = T · v}. A 3x3 matrix
+     * is applied in homogeneous coordinates {@code (v, 1)}, followed by the
+     * division by the resulting w coordinate.
+     *
+     * @param T Transformation of size 2x2 or 3x3
+     * @throws IllegalArgumentException if T has another size
+     */
+    public void transform(Matrix T){
+        if(T.isSquare() && T.getRowCount() == 2)
+            transform2(T);
+        else if(T.isSquare() && T.getRowCount() == 3)
+            transform3(T);
+        else
+            throw new IllegalArgumentException("Transformation has to be a 2x2 or 3x3 matrix");
+    }
+
+    private void transform2(Matrix T){
+        double t00 = T.getEntry(0, 0), t01 = T.getEntry(0, 1);
+        double t10 = T.getEntry(1, 0), t11 = T.getEntry(1, 1);
+
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                double vx = x[i], vy = y[i];
+                x[i] = t00 * vx + t01 * vy;
+                y[i] = t10 * vx + t11 * vy;
+            }
+        });
+    }
+
+    private void transform3(Matrix T){
+        double t00 = T.getEntry(0, 0), t01 = T.getEntry(0, 1), t02 = T.getEntry(0, 2);
+        double t10 = T.getEntry(1, 0), t11 = T.getEntry(1, 1), t12 = T.getEntry(1, 2);
+        double t20 = T.getEntry(2, 0), t21 = T.getEntry(2, 1), t22 = T.getEntry(2, 2);
+
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                double vx = x[i], vy = y[i];
+                double w = 1.0 / (t20 * vx + t21 * vy + t22);
+                x[i] = (t00 * vx + t01 * vy + t02) * w;
+                y[i] = (t10 * vx + t11 * vy + t12) * w;
+            }
+        });
+    }
+
+    private void requireSameSize(Vector2DArray other){
+        if(other.size() != size())
+            throw new SameDimensionsException();
+    }
+}
@@ -0,0 +1,266 @@
+package de.home_skrobanek.fnum.vector;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.utils.Chunks;
+/**
+ * @class Vector3DArray
+ * @brief Stores many three-dimensional vectors in structure-of-arrays layout.
+ *
+ * Instead of one {@link Vector3D} object per point, the coordinates are
+ * kept in three primitive arrays {@code x}, {@code y} and {@code z}. All
+ * bulk operations are plain loops over these arrays, which the JIT can
+ * vectorize, and large containers are processed in parallel chunks.
+ *
+ * <p>All indices are zero-based.</p>
+ */
+public class Vector3DArray {
+
+    /** x coordinates */
+    private final double[] x;
+
+    /** y coordinates */
+    private final double[] y;
+
+    /** z coordinates */
+    private final double[] z;
+
+    /**
+     * Constructs a container of zero vectors.
+     *
+     * @param size Number of vectors
+     *
+     * @pre size > 0
+     */
+    public Vector3DArray(int size){
+        assert size > 0;
+
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+    }
+
+    /**
+     * Constructs a container from coordinate arrays.
+     *
+     * The arrays are used directly as internal storage.
+     * No deep copy is performed.
+     *
+     * @param x x coordinates
+     * @param y y coordinates
+     * @param z z coordinates
+     *
+     * @throws SameDimensionsException if the arrays differ in length
+     */
+    public Vector3DArray(double[] x, double[] y, double[] z){
+        if(x.length != y.length || x.length != z.length)
+            throw new SameDimensionsException();
+
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public int size(){
+        return x.length;
+    }
+
+    public double[] getXs(){
+        return x;
+    }
+
+    public double[] getYs(){
+        return y;
+    }
+
+    public double[] getZs(){
+        return z;
+    }
+
+    public void set(int pos, double x, double y, double z){
+        assert pos >= 0;
+        this.x[pos] = x;
+        this.y[pos] = y;
+        this.z[pos] = z;
+    }
+
+    public void set(int pos, Vector3D vec){
+        set(pos, vec.getX(), vec.getY(), vec.getZ());
+    }
+
+    /**
+     * Returns a copy of one vector of the container.
+     *
+     * @param pos Index of the vector
+     * @return New vector holding the coordinates at {@code pos}
+     */
+    public Vector3D get(int pos){
+        assert pos >= 0;
+        return new Vector3D(x[pos], y[pos], z[pos]);
+    }
+
+    /**
+     * Adds the vectors of another container in-place.
+     *
+     * @param other Container with the same size
+     * @throws SameDimensionsException if the sizes differ
+     */
+    public void add(Vector3DArray other){
+        requireSameSize(other);
+
+        double[] ox = other.x, oy = other.y, oz = other.z;
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                x[i] += ox[i];
+                y[i] += oy[i];
+                z[i] += oz[i];
+            }
+        });
+    }
+
+    /**
+     * Multiplies all vectors by a scalar in-place.
+     *
+     * @param scalar Scalar factor
+     */
+    public void scale(double scalar){
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                x[i] *= scalar;
+                y[i] *= scalar;
+                z[i] *= scalar;
+            }
+        });
+    }
+
+    /**
+     * Computes the dot products with the vectors of another container.
+     *
+     * @param other Container with the same size
+     * @param out Array receiving {@code this[i] · other[i]}
+     * @throws SameDimensionsException if the sizes differ
+     */
+    public void dot(Vector3DArray other, double[] out){
+        requireSameSize(other);
+        assert out.length >= size();
+
+        double[] ox = other.x, oy = other.y, oz = other.z;
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++)
+                out[i] = x[i] * ox[i] + y[i] * oy[i] + z[i] * oz[i];
+        });
+    }
+
+    /**
+     * Computes the cross products with the vectors of another container.
+     *
+     * {@code out} may be this container or {@code other}.
+     *
+     * @param other Container with the same size
+     * @param out Container receiving {@code this[i] x other[i]}
+     * @throws SameDimensionsException if the sizes differ
+     */
+    public void cross(Vector3DArray other, Vector3DArray out){
+        requireSameSize(other);
+        requireSameSize(out);
+
+        double[] ox = other.x, oy = other.y, oz = other.z;
+        double[] rx = out.x, ry = out.y, rz = out.z;
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                double ax = x[i], ay = y[i], az = z[i];
+                double bx = ox[i], by = oy[i], bz = oz[i];
+                rx[i] = ay * bz - az * by;
+                ry[i] = az * bx - ax * bz;
+                rz[i] = ax * by - ay * bx;
+            }
+        });
+    }
+
+    /**
+     * Computes the Euclidean length of every vector.
+     *
+     * @param out Array receiving the lengths
+     */
+    public void length(double[] out){
+        assert out.length >= size();
+
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++)
+                out[i] = Math.sqrt(x[i] * x[i] + y[i] * y[i] + z[i] * z[i]);
+        });
+    }
+
+    /**
+     * Scales every vector to unit length in-place.
+     *
+     * Zero vectors are left unchanged.
+     */
+    public void normalize(){
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                double len = Math.sqrt(x[i] * x[i] + y[i] * y[i] + z[i] * z[i]);
+                double inv = len == 0.0 ? 1.0 : 1.0 / len;
+                x[i] *= inv;
+                y[i] *= inv;
+                z[i] *= inv;
+            }
+        });
+    }
+
+    /**
+     * Applies a transformation to every vector in-place.
+     *
+     * A 3x3 matrix is applied as linear map {@code v = T · v}. A 4x4 matrix
+     * is applied in homogeneous coordinates {@code (v, 1)}, followed by the
+     * division by the resulting w coordinate.
+     *
+     * @param T Transformation of size 3x3 or 4x4
+     * @throws IllegalArgumentException if T has another size
+     */
+    public void transform(Matrix T){
+        if(T.isSquare() && T.getRowCount() == 3)
+            transform3(T);
+        else if(T.isSquare() && T.getRowCount() == 4)
+            transform4(T);
+        else
+            throw new IllegalArgumentException("Transformation has to be a 3x3 or 4x4 matrix");
+    }
+
+    private void transform3(Matrix T){
+        double t00 = T.getEntry(0, 0), t01 = T.getEntry(0, 1), t02 = T.getEntry(0, 2);
+        double t10 = T.getEntry(1, 0), t11 = T.getEntry(1, 1), t12 = T.getEntry(1, 2);
+        double t20 = T.getEntry(2, 0), t21 = T.getEntry(2, 1), t22 = T.getEntry(2, 2);
+
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                double vx = x[i], vy = y[i], vz = z[i];
+                x[i] = t00 * vx + t01 * vy + t02 * vz;
+                y[i] = t10 * vx + t11 * vy + t12 * vz;
+                z[i] = t20 * vx + t21 * vy + t22 * vz;
+            }
+        });
+    }
+
+    private void transform4(Matrix T){
+        double t00 = T.getEntry(0, 0), t01 = T.getEntry(0, 1), t02 = T.getEntry(0, 2), t03 = T.getEntry(0, 3);
+        double t10 = T.getEntry(1, 0), t11 = T.getEntry(1, 1), t12 = T.getEntry(1, 2), t13 = T.getEntry(1, 3);
+        double t20 = T.getEntry(2, 0), t21 = T.getEntry(2, 1), t22 = T.getEntry(2, 2), t23 = T.getEntry(2, 3);
+        double t30 = T.getEntry(3, 0), t31 = T.getEntry(3, 1), t32 = T.getEntry(3, 2), t33 = T.getEntry(3, 3);
+
+        Chunks.forEach(size(), (from, to) -> {
+            for(int i = from; i < to; i++){
+                double vx = x[i], vy = y[i], vz = z[i];
+                double w = 1.0 / (t30 * vx + t31 * vy + t32 * vz + t33);
+                x[i] = (t00 * vx + t01 * vy + t02 * vz + t03) * w;
+                y[i] = (t10 * vx + t11 * vy + t12 * vz + t13) * w;
+                z[i] = (t20 * vx + t21 * vy + t22 * vz + t23) * w;
+            }
+        });
+    }
+
+    private void requireSameSize(Vector3DArray other){
+        if(other.size() != size())
+            throw new SameDimensionsException();
+    }
+}
@@ -0,0 +1,167 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.sparse.AlgebraicMultigrid;
+import de.home_skrobanek.fnum.sparse.ConjugateGradient;
+import de.home_skrobanek.fnum.sparse.SparseMatrix;
+import de.home_skrobanek.fnum.utils.IntDoublePair;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+public class AlgebraicMultigridTest {
+
+    /** 5-point Laplacian with Dirichlet boundary on a k x k grid */
+    private static SparseMatrix laplacian(int k) {
+        int n = k * k;
+        int[] rows = new int[5 * n], cols = new int[5 * n];
+        double[] values = new double[5 * n];
+        int e = 0;
+        for (int r = 0; r < k; r++)
+            for (int c = 0; c < k; c++) {
+                int v = r * k + c;
+                rows[e] = v;
+                cols[e] = v;
+                values[e++] = 4;
+                int[][] neighbours = {{r - 1, c}, {r + 1, c}, {r, c - 1}, {r, c + 1}};
+                for (int[] w : neighbours)
+                    if (w[0] >= 0 && w[0] < k && w[1] >= 0 && w[1] < k) {
+                        rows[e] = v;
+                        cols[e] = w[0] * k + w[1];
+                        values[e++] = -1;
+                    }
+            }
+        return SparseMatrix.fromTriplets(n, n, java.util.Arrays.copyOf(rows, e),
+                java.util.Arrays.copyOf(cols, e), java.util.Arrays.copyOf(values, e));
+    }
+
+    private static Vector random(int n, long seed) {
+        Random random = new Random(seed);
+        Vector b = new Vector(n);
+        for (int i = 0; i < n; i++)
+            b.addValue(i, random.nextDouble() - 0.5);
+        return b;
+    }
+
+    private static double residual(SparseMatrix A, Vector b, Vector x) {
+        Vector r = A.multiply(x);
+        double rr = 0, bb = 0;
+        for (int i = 0; i < b.size(); i++) {
+            double d = b.getValue(i) - r.getValue(i);
+            rr += d * d;
+            bb += b.getValue(i) * b.getValue(i);
+        }
+        return Math.sqrt(rr / bb);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    void testHierarchy() {
+        SparseMatrix A = laplacian(64);
+        AlgebraicMultigrid amg = new AlgebraicMultigrid(A);
+        assertTrue(amg.getLevelCount() >= 3);
+        assertEquals(4096, amg.getLevelSize(0));
+        for (int l = 1; l < amg.getLevelCount(); l++)
+            assertTrue(amg.getLevelSize(l) < amg.getLevelSize(l - 1) / 3);
+        assertTrue(amg.getLevelSize(amg.getLevelCount() - 1) <= AlgebraicMultigrid.DEFAULT_COARSE_SIZE);
+        assertTrue(amg.getOperatorComplexity() < 2);
+        assertThrows(IndexOutOfBoundsException.class, () -> amg.getLevelSize(amg.getLevelCount()));
+    }
+
+    @Test
+    void testStandaloneCycles() {
+        SparseMatrix A = laplacian(48);
+        int n = A.getRowCount();
+        Vector b = random(n, 1);
+        int[] counts = new int[AlgebraicMultigrid.Cycle.values().length];
+        for (AlgebraicMultigrid.Cycle cycle : AlgebraicMultigrid.Cycle.values()) {
+            AlgebraicMultigrid amg = new AlgebraicMultigrid(A, cycle, AlgebraicMultigrid.DEFAULT_STRENGTH,
+                    AlgebraicMultigrid.DEFAULT_COARSE_SIZE);
+            Vector x = new Vector(n);
+            IntDoublePair result = amg.solve(b, x, 1e-8, 100);
+            int cycles = result.getFirst();
+            assertTrue(result.getSecond() <= 1e-8);
+            assertTrue(cycles < 50);
+            counts[cycle.ordinal()] = cycles;
+            assertTrue(residual(A, b, x) <= 1e-8);
+        }
+        // The W-cycle solves the coarse problems more accurately
+        assertTrue(counts[AlgebraicMultigrid.Cycle.W.ordinal()] <= counts[AlgebraicMultigrid.Cycle.V.ordinal()]);
+        AlgebraicMultigrid amg = new AlgebraicMultigrid(A);
+        assertThrows(ArithmeticException.class, () -> amg.solve(b, new Vector(n), 1e-12, 2));
+        assertThrows(de.home_skrobanek.fnum.exception.SameDimensionsException.class,
+                () -> amg.solve(b, new Vector(n - 1), 1e-8, 10));
+    }
+
+    @Test
+    void testIterationsIndependentOfMeshSize() {
+        int[] plain = new int[3], preconditioned = new int[3];
+        int[] sizes = {16, 32, 64};
+        for (int s = 0; s < sizes.length; s++) {
+            SparseMatrix A = laplacian(sizes[s]);
+            int n = A.getRowCount();
+            Vector b = random(n, s);
+
+            Vector x = new Vector(n);
+            plain[s] = new ConjugateGradient(A, null).solve(b, x, 1e-8, 10 * n).getFirst();
+            assertTrue(residual(A, b, x) <= 1e-8);
+
+            x = new Vector(n);
+            IntDoublePair result = new ConjugateGradient(A, new AlgebraicMultigrid(A)).solve(b, x, 1e-8, 200);
+            preconditioned[s] = result.getFirst();
+            assertEquals(residual(A, b, x), result.getSecond(), 1e-12);
+            assertTrue(result.getSecond() <= 1e-8);
+        }
+        // Plain CG roughly doubles with the mesh width, AMG stays nearly flat
+        assertTrue(plain[2] > 3 * plain[0]);
+        assertTrue(preconditioned[2] <= preconditioned[0] + 6);
+        assertTrue(preconditioned[2] < plain[2] / 4);
+    }
+
+    @Test
+    void testSmallSystemIsSolvedDirectly() {
+        SparseMatrix A = laplacian(5);
+        AlgebraicMultigrid amg = new AlgebraicMultigrid(A);
+        assertEquals(1, amg.getLevelCount());
+        Vector b = random(25, 3), z = new Vector(25);
+        amg.apply(b, z);
+        assertTrue(residual(A, b, z) < 1e-14);
+
+        SparseMatrix negative = SparseMatrix.fromTriplets(2, 2, new int[]{0, 1}, new int[]{0, 1}, new double[]{1, -1});
+        SparseMatrix rectangular = SparseMatrix.fromTriplets(3, 2, new int[]{0}, new int[]{0}, new double[]{1});
+        assertThrows(IllegalArgumentException.class, () -> new AlgebraicMultigrid(rectangular));
+        assertThrows(ArithmeticException.class, () -> new AlgebraicMultigrid(negative));
+    }
+
+    @Test
+    void testCycleAllocatesNothing() {
+        SparseMatrix A = laplacian(40);
+        int n = A.getRowCount();
+        AlgebraicMultigrid amg = new AlgebraicMultigrid(A, AlgebraicMultigrid.Cycle.W,
+                AlgebraicMultigrid.DEFAULT_STRENGTH, AlgebraicMultigrid.DEFAULT_COARSE_SIZE);
+        ConjugateGradient cg = new ConjugateGradient(A, amg);
+        Vector b = random(n, 4), x = new Vector(n);
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < n; j++)
+                x.addValue(j, 0);
+            cg.solve(b, x, 1e-8, 100);
+        }
+
+        long calibration = allocatedBytes();
+        calibration = allocatedBytes() - calibration;
+        long before = allocatedBytes();
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < n; j++)
+                x.addValue(j, 0);
+            cg.solve(b, x, 1e-8, 100);
+        }
+        long allocated = allocatedBytes() - before - calibration;
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.BandedLUDecomposition;
+import de.home_skrobanek.fnum.matrix.BandedMatrix;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class BandedMatrixTest {
+
+    private static BandedMatrix randomBanded(int n, int kl, int ku, long seed) {
+        Random random = new Random(seed);
+        BandedMatrix A = new BandedMatrix(n, kl, ku);
+        for (int i = 0; i < n; i++)
+            for (int j = Math.max(0, i - kl); j <= Math.min(n - 1, i + ku); j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        return A;
+    }
+
+    @Test
+    void testEntriesOutsideBandAreZero() {
+        BandedMatrix A = new BandedMatrix(5, 1, 2);
+        A.setEntry(2, 4, 3.0);
+        A.setEntry(3, 2, -1.0);
+
+        assertEquals(3.0, A.getEntry(2, 4), 0.0);
+        assertEquals(-1.0, A.getEntry(3, 2), 0.0);
+        assertEquals(0.0, A.getEntry(4, 2), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> A.setEntry(4, 2, 1.0));
+    }
+
+    @Test
+    void testMultiplyMatchesDense() {
+        BandedMatrix A = randomBanded(30, 2, 3, 1);
+        Matrix dense = A.toMatrix();
+        double[] x = new double[30];
+        for (int i = 0; i < 30; i++)
+            x[i] = i - 7.5;
+
+        double[] y = A.multiply(x, new double[30]);
+        for (int i = 0; i < 30; i++) {
+            double expected = 0;
+            for (int j = 0; j < 30; j++)
+                expected += dense.getEntry(i, j) * x[j];
+            assertEquals(expected, y[i], 1e-12);
+        }
+        assertTrue(BandedMatrix.fromMatrix(dense, 2, 3).toMatrix().equals(dense, 0.0));
+    }
+
+    @Test
+    void testLUSolvesWithPivoting() {
+        int n = 200;
+        // Random band without diagonal dominance needs row interchanges
+        BandedMatrix A = randomBanded(n, 3, 2, 2);
+        double[] expected = new double[n];
+        for (int i = 0; i < n; i++)
+            expected[i] = Math.sin(i);
+        double[] b = A.multiply(expected, new double[n]);
+
+        BandedLUDecomposition lu = new BandedLUDecomposition(A);
+        lu.execute(0);
+        double[] x = lu.solve(b, new double[n]);
+
+        boolean interchanged = false;
+        int[] pivots = lu.getPivots();
+        for (int j = 0; j < n; j++)
+            interchanged |= pivots[j] != j;
+        assertTrue(interchanged);
+        for (int i = 0; i < n; i++)
+            assertEquals(expected[i], x[i], 1e-8);
+    }
+
+    @Test
+    void testLUDeterminantAndVectorSolve() {
+        BandedMatrix A = new BandedMatrix(3, 1, 1);
+        // [[0, 2, 0], [1, 1, 1], [0, 3, 4]] needs an interchange in the first step
+        A.setEntry(0, 1, 2);
+        A.setEntry(1, 0, 1);
+        A.setEntry(1, 1, 1);
+        A.setEntry(1, 2, 1);
+        A.setEntry(2, 1, 3);
+        A.setEntry(2, 2, 4);
+
+        BandedLUDecomposition lu = new BandedLUDecomposition(A);
+        lu.execute(1e-12);
+
+        assertEquals(-8.0, lu.getDeterminant(), 1e-12);
+        Vector x = lu.solve(new Vector(2, 3, 7));
+        assertEquals(1.0, x.getValue(0), 1e-12);
+        assertEquals(1.0, x.getValue(1), 1e-12);
+        assertEquals(1.0, x.getValue(2), 1e-12);
+    }
+
+    @Test
+    void testLUSingularMatrixThrows() {
+        BandedMatrix A = new BandedMatrix(3, 1, 1);
+        A.setEntry(0, 0, 1);
+        A.setEntry(1, 1, 1);
+
+        BandedLUDecomposition lu = new BandedLUDecomposition(A);
+        assertThrows(ArithmeticException.class, () -> lu.execute(1e-12));
+        assertThrows(IllegalStateException.class, () -> lu.solve(new double[3], new double[3]));
+    }
+}
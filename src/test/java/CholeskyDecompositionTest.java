@@ -0,0 +1,154 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.CholeskyDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.PackedStorage;
+import de.home_skrobanek.fnum.matrix.PivotedLUDecomposition;
+import de.home_skrobanek.fnum.matrix.TriangularMatrix;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class CholeskyDecompositionTest {
+
+    /** B · B^T + n · I, symmetric positive definite */
+    private static Matrix spd(int n, long seed) {
+        Random random = new Random(seed);
+        Matrix B = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                B.setEntry(i, j, random.nextDouble() - 0.5);
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                double sum = i == j ? n : 0;
+                for (int k = 0; k < n; k++)
+                    sum += B.getEntry(i, k) * B.getEntry(j, k);
+                A.setEntry(i, j, sum);
+            }
+        return A;
+    }
+
+    @Test
+    void testFactorReproducesMatrix() {
+        Matrix A = spd(15, 1);
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(A);
+        assertThrows(IllegalStateException.class, cholesky::getDeterminant);
+        cholesky.execute();
+
+        TriangularMatrix L = cholesky.getL(PackedStorage.PACKED);
+        Matrix Lt = L.toMatrix();
+        Lt.transpose();
+        assertTrue(L.multiply(Lt).equals(A, 1e-12));
+    }
+
+    @Test
+    void testSolveAndDeterminantMatchLU() {
+        int n = 25;
+        Matrix A = spd(n, 2);
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(A);
+        cholesky.execute();
+        PivotedLUDecomposition lu = new PivotedLUDecomposition(A);
+        lu.execute(1e-12);
+
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            b[i] = Math.cos(i);
+        Vector x = cholesky.solve(new Vector(b));
+        Vector y = lu.solve(new Vector(b));
+        for (int i = 0; i < n; i++)
+            assertEquals(y.getValue(i), x.getValue(i), 1e-12);
+        assertEquals(lu.getDeterminant(), cholesky.getDeterminant(), 1e-10 * Math.abs(lu.getDeterminant()));
+    }
+
+    @Test
+    void testIndefiniteMatrixThrows() {
+        Matrix A = new Matrix(new double[][]{
+                {1, 2},
+                {2, 1}
+        });
+        assertThrows(ArithmeticException.class, () -> new CholeskyDecomposition(A).execute());
+    }
+
+    @Test
+    void testPivotedLUNeedsNoDiagonalDominance() {
+        Matrix P = new Matrix(new double[][]{
+                {0, 1, 0},
+                {0, 0, 2},
+                {3, 0, 0}
+        });
+        PivotedLUDecomposition lu = new PivotedLUDecomposition(P);
+        lu.execute(1e-12);
+        assertEquals(6.0, lu.getDeterminant(), 1e-12);
+
+        Vector x = lu.solve(new Vector(1, 4, 9));
+        assertEquals(3.0, x.getValue(0), 1e-12);
+        assertEquals(1.0, x.getValue(1), 1e-12);
+        assertEquals(2.0, x.getValue(2), 1e-12);
+    }
+
+    @Test
+    void testRankOneUpdateAndDowndate() {
+        int n = 20;
+        Matrix A = spd(n, 3);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = Math.sin(i + 1);
+
+        Matrix updated = A.copy();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                updated.setEntry(i, j, A.getEntry(i, j) + x[i] * x[j]);
+
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(A);
+        cholesky.execute();
+        cholesky.update(x);
+        CholeskyDecomposition reference = new CholeskyDecomposition(updated);
+        reference.execute();
+        assertTrue(cholesky.getL(PackedStorage.PACKED).toMatrix()
+                .equals(reference.getL(PackedStorage.PACKED).toMatrix(), 1e-12));
+
+        cholesky.downdate(x);
+        CholeskyDecomposition original = new CholeskyDecomposition(A);
+        original.execute();
+        assertTrue(cholesky.getL(PackedStorage.PACKED).toMatrix()
+                .equals(original.getL(PackedStorage.PACKED).toMatrix(), 1e-12));
+    }
+
+    @Test
+    void testRankKUpdateAndInfeasibleDowndate() {
+        int n = 10;
+        Matrix A = spd(n, 4);
+        Matrix X = new Matrix(n, 3);
+        for (int i = 0; i < n; i++)
+            for (int k = 0; k < 3; k++)
+                X.setEntry(i, k, Math.cos(i * (k + 1)));
+
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(A);
+        cholesky.execute();
+        cholesky.update(X);
+
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            b[i] = i;
+        double[] x = cholesky.solve(b, new double[n]);
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                double aij = A.getEntry(i, j);
+                for (int k = 0; k < 3; k++)
+                    aij += X.getEntry(i, k) * X.getEntry(j, k);
+                sum += aij * x[j];
+            }
+            assertEquals(b[i], sum, 1e-10);
+        }
+
+        // Removing far more than was added leaves an indefinite matrix
+        double[] big = new double[n];
+        big[0] = 1e3;
+        Matrix before = cholesky.getL(PackedStorage.PACKED).toMatrix();
+        assertThrows(ArithmeticException.class, () -> cholesky.downdate(big));
+        assertTrue(cholesky.getL(PackedStorage.PACKED).toMatrix().equals(before, 0.0));
+    }
+}
@@ -0,0 +1,166 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.BackwardError;
+import de.home_skrobanek.fnum.matrix.CholeskyDecomposition;
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixFactory;
+import de.home_skrobanek.fnum.matrix.PivotedLUDecomposition;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ConditionEstimatorTest {
+
+    /** Exact 1-norm condition number through the explicit inverse */
+    private static double condition(Matrix A) {
+        Matrix inverse = A.copy();
+        inverse.inverse();
+        return norm1(A) * norm1(inverse);
+    }
+
+    private static double norm1(Matrix A) {
+        double max = 0;
+        for (int j = 0; j < A.getColumnCount(); j++) {
+            double sum = 0;
+            for (int i = 0; i < A.getRowCount(); i++)
+                sum += Math.abs(A.getEntry(i, j));
+            max = Math.max(max, sum);
+        }
+        return max;
+    }
+
+    private static Matrix hilbert(int n) {
+        Matrix H = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                H.setEntry(i, j, 1.0 / (i + j + 1));
+        return H;
+    }
+
+    @Test
+    void testEstimateBoundsTheConditionNumber() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 5 + trial;
+            Matrix A = new Matrix(n, n);
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    A.setEntry(i, j, random.nextGaussian());
+
+            PivotedLUDecomposition lu = new PivotedLUDecomposition(A);
+            lu.execute(0);
+            double exact = condition(A);
+            double estimate = lu.estimateConditionNumber();
+            assertTrue(estimate <= exact * (1 + 1e-10), estimate + " > " + exact);
+            assertTrue(estimate >= exact / 3, estimate + " << " + exact);
+        }
+    }
+
+    @Test
+    void testAllDecompositionsAgree() {
+        Matrix H = hilbert(8);
+        double exact = condition(H);
+
+        LUDecomposition lu = new LUDecomposition(H);
+        lu.execute(0);
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(H);
+        cholesky.execute();
+
+        assertEquals(exact, lu.estimateConditionNumber(), exact * 1e-3);
+        assertEquals(exact, cholesky.estimateConditionNumber(), exact * 1e-3);
+        assertEquals(exact, H.estimateConditionNumber(), exact * 1e-3);
+        assertTrue(exact > 1e10);
+    }
+
+    @Test
+    void testCholeskyEstimateFollowsUpdates() {
+        int n = 12;
+        Matrix A = MatrixFactory.symmetricPositiveDefinite(n, 7);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = 3 * Math.cos(i);
+        Matrix B = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                B.setEntry(i, j, A.getEntry(i, j) + x[i] * x[j]);
+
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(A);
+        cholesky.execute();
+        double original = cholesky.estimateConditionNumber();
+        CholeskyDecomposition fresh = new CholeskyDecomposition(B);
+        fresh.execute();
+
+        cholesky.update(x);
+        assertEquals(fresh.estimateConditionNumber(), cholesky.estimateConditionNumber(),
+                fresh.estimateConditionNumber() * 1e-10);
+        assertTrue(cholesky.estimateConditionNumber() > 2 * original);
+
+        cholesky.downdate(x);
+        assertEquals(original, cholesky.estimateConditionNumber(), original * 1e-10);
+    }
+
+    @Test
+    void testSingularMatrixIsInfinitelyConditioned() {
+        Matrix A = new Matrix(new double[][]{
+                {1, 2},
+                {2, 4}
+        });
+        assertEquals(Double.POSITIVE_INFINITY, A.estimateConditionNumber());
+        assertEquals(1.0, new Matrix(new double[][]{{3}}).estimateConditionNumber(), 0.0);
+    }
+
+    @Test
+    void testBackwardError() {
+        int n = 30;
+        Random random = new Random(2);
+        Matrix A = new Matrix(n, n);
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = random.nextDouble();
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        }
+
+        Vector x = A.solve(new Vector(b.clone()));
+        BackwardError error = new BackwardError(A, x, new Vector(b));
+        assertTrue(error.getNormwise() < 1e-15, error.toString());
+        assertTrue(error.getComponentwise() < 1e-13, error.toString());
+        assertTrue(error.estimateForwardError(A.estimateConditionNumber()) < 1e-11);
+
+        // A perturbed solution has a visible backward error
+        double[] perturbed = new double[n];
+        for (int i = 0; i < n; i++)
+            perturbed[i] = x.getValue(i) * (1 + 1e-6);
+        BackwardError worse = new BackwardError(A, perturbed, b);
+        assertTrue(worse.getNormwise() > 1e-9);
+        assertTrue(worse.getResidualNorm() > error.getResidualNorm());
+
+        assertEquals(0.0, new BackwardError(A, new double[n], new double[n]).getNormwise(), 0.0);
+    }
+
+    @Test
+    void testTransposedSolve() {
+        int n = 12;
+        Random random = new Random(3);
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, (i == j ? n : 0) + random.nextDouble());
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            b[i] = i + 1;
+
+        Matrix At = A.copy();
+        At.transpose();
+        LUDecomposition lu = new LUDecomposition(A);
+        lu.execute(0);
+        PivotedLUDecomposition plu = new PivotedLUDecomposition(A);
+        plu.execute(0);
+        double[] x = lu.solveTransposed(b, new double[n]);
+        double[] y = plu.solveTransposed(b, new double[n]);
+        assertTrue(new BackwardError(At, x, b).getNormwise() < 1e-15);
+        assertTrue(new BackwardError(At, y, b).getNormwise() < 1e-15);
+    }
+}
@@ -0,0 +1,211 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.distributed.BlockCyclicMatrix;
+import de.home_skrobanek.fnum.distributed.DistributedLUDecomposition;
+import de.home_skrobanek.fnum.distributed.InMemoryTransport;
+import de.home_skrobanek.fnum.distributed.ProcessGrid;
+import de.home_skrobanek.fnum.distributed.SocketTransport;
+import de.home_skrobanek.fnum.distributed.Transport;
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class DistributedTest {
+
+    private static Matrix random(int n, int m, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, m);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        return A;
+    }
+
+    private static Matrix diagonallyDominant(int n, long seed) {
+        Matrix A = random(n, n, seed);
+        for (int i = 0; i < n; i++)
+            A.setEntry(i, i, A.getEntry(i, i) + n);
+        return A;
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double tol) {
+        for (int i = 0; i < expected.getRowCount(); i++)
+            for (int j = 0; j < expected.getColumnCount(); j++)
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), tol, "(" + i + ", " + j + ")");
+    }
+
+    /** Runs one thread per rank and returns the results by rank */
+    private static <T> List<T> run(Transport[] transports, Function<Transport, T> body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(transports.length);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Transport transport : transports)
+                futures.add(executor.submit(() -> body.apply(transport)));
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures)
+                results.add(future.get(30, TimeUnit.SECONDS));
+            return results;
+        } finally {
+            executor.shutdownNow();
+            for (Transport transport : transports)
+                transport.close();
+        }
+    }
+
+    private static Transport[] sockets(int size) throws Exception {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        ServerSocket[] servers = new ServerSocket[size];
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int r = 0; r < size; r++) {
+            servers[r] = new ServerSocket(0, size, loopback);
+            addresses.add(new InetSocketAddress(loopback, servers[r].getLocalPort()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(size);
+        try {
+            List<Future<SocketTransport>> futures = new ArrayList<>();
+            for (int r = 0; r < size; r++) {
+                int rank = r;
+                futures.add(executor.submit(() -> SocketTransport.connect(rank, servers[rank], addresses)));
+            }
+            Transport[] transports = new Transport[size];
+            for (int r = 0; r < size; r++)
+                transports[r] = futures.get(r).get(30, TimeUnit.SECONDS);
+            return transports;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testProcessGrid() {
+        ProcessGrid grid = ProcessGrid.of(6);
+        assertEquals(2, grid.getRowCount());
+        assertEquals(3, grid.getColumnCount());
+        assertEquals(5, grid.getRank(1, 2));
+        assertEquals(1, grid.getRow(4));
+        assertEquals(1, grid.getColumn(4));
+        assertEquals(1, ProcessGrid.of(7).getRowCount());
+    }
+
+    @Test
+    void testScatterGather() throws Exception {
+        Matrix A = random(19, 23, 1);
+        ProcessGrid grid = new ProcessGrid(2, 3);
+        List<Matrix> results = run(InMemoryTransport.create(6), t -> {
+            BlockCyclicMatrix M = BlockCyclicMatrix.scatter(t, grid, 4, t.getRank() == 2 ? A : null, 2);
+            BlockCyclicMatrix N = BlockCyclicMatrix.fromMatrix(t, grid, 4, A);
+            for (int i = 0; i < M.getLocalRowCount(); i++)
+                for (int j = 0; j < M.getLocalColumnCount(); j++) {
+                    assertEquals(A.getEntry(M.globalRow(i), M.globalColumn(j)), M.getLocalEntry(i, j));
+                    assertEquals(N.getLocalEntry(i, j), M.getLocalEntry(i, j));
+                }
+            return M.gather(0);
+        });
+        assertMatrixEquals(A, results.get(0), 0);
+        assertNull(results.get(1));
+    }
+
+    @Test
+    void testSummaInMemory() throws Exception {
+        Matrix A = random(37, 29, 2), B = random(29, 23, 3);
+        Matrix expected = A.multiply(B);
+        for (ProcessGrid grid : new ProcessGrid[]{new ProcessGrid(2, 2), new ProcessGrid(1, 3), new ProcessGrid(3, 1)}) {
+            List<Matrix> results = run(InMemoryTransport.create(grid.getSize()), t -> {
+                BlockCyclicMatrix a = BlockCyclicMatrix.fromMatrix(t, grid, 5, A);
+                BlockCyclicMatrix b = BlockCyclicMatrix.fromMatrix(t, grid, 5, B);
+                BlockCyclicMatrix c = BlockCyclicMatrix.zeros(t, grid, 5, 37, 23);
+                return a.multiply(b, c).gather(0);
+            });
+            assertMatrixEquals(expected, results.get(0), 1e-12);
+        }
+    }
+
+    @Test
+    void testLUInMemory() throws Exception {
+        int n = 41;
+        Matrix A = diagonallyDominant(n, 4);
+        LUDecomposition reference = new LUDecomposition(A);
+        reference.execute(0);
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            b[i] = i % 7 - 3;
+
+        ProcessGrid grid = new ProcessGrid(2, 3);
+        List<Object[]> results = run(InMemoryTransport.create(6), t -> {
+            BlockCyclicMatrix M = BlockCyclicMatrix.fromMatrix(t, grid, 4, A);
+            DistributedLUDecomposition lu = new DistributedLUDecomposition(M);
+            lu.execute(0);
+            double det = lu.getDeterminant();
+            double[] x = lu.solve(b);
+            double[] y = lu.solve(b);
+            assertArrayEquals(x, y);
+            return new Object[]{M.gather(0), det, x};
+        });
+
+        Matrix factors = (Matrix) results.get(0)[0];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                assertEquals(i > j ? reference.getL().getEntry(i, j) : reference.getR().getEntry(i, j),
+                        factors.getEntry(i, j), 1e-10);
+        for (Object[] result : results) {
+            assertEquals(reference.getDeterminant(), (double) result[1], 1e-10 * Math.abs(reference.getDeterminant()));
+            double[] x = (double[]) result[2];
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int j = 0; j < n; j++)
+                    sum += A.getEntry(i, j) * x[j];
+                assertEquals(b[i], sum, 1e-10);
+            }
+        }
+    }
+
+    @Test
+    void testLUSingularFailsOnAllProcesses() throws Exception {
+        Matrix A = diagonallyDominant(12, 5);
+        for (int j = 0; j < 12; j++)
+            A.setEntry(9, j, A.getEntry(8, j));
+        ProcessGrid grid = new ProcessGrid(2, 2);
+        List<Boolean> failed = run(InMemoryTransport.create(4), t -> {
+            DistributedLUDecomposition lu = new DistributedLUDecomposition(BlockCyclicMatrix.fromMatrix(t, grid, 3, A));
+            try {
+                lu.execute(1e-12);
+                return false;
+            } catch (ArithmeticException e) {
+                return true;
+            }
+        });
+        assertEquals(List.of(true, true, true, true), failed);
+    }
+
+    @Test
+    void testSummaAndLUOverSockets() throws Exception {
+        int n = 30;
+        Matrix A = diagonallyDominant(n, 6), B = random(n, n, 7);
+        ProcessGrid grid = ProcessGrid.of(4);
+        List<Object[]> results = run(sockets(4), t -> {
+            BlockCyclicMatrix a = BlockCyclicMatrix.scatter(t, grid, 4, t.getRank() == 0 ? A : null, 0);
+            BlockCyclicMatrix b = BlockCyclicMatrix.fromMatrix(t, grid, 4, B);
+            Matrix product = a.multiply(b, BlockCyclicMatrix.zeros(t, grid, 4, n, n)).gather(0);
+            DistributedLUDecomposition lu = new DistributedLUDecomposition(a);
+            lu.execute(0);
+            return new Object[]{product, lu.getDeterminant()};
+        });
+        assertMatrixEquals(A.multiply(B), (Matrix) results.get(0)[0], 1e-12);
+        LUDecomposition reference = new LUDecomposition(A);
+        reference.execute(0);
+        for (Object[] result : results)
+            assertEquals(reference.getDeterminant(), (double) result[1], 1e-10 * Math.abs(reference.getDeterminant()));
+    }
+}
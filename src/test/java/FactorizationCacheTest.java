@@ -0,0 +1,174 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.FactorizationCache;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.PivotedLUDecomposition;
+import de.home_skrobanek.fnum.metrics.InMemoryMetricsSink;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+@Tag("metrics")
+public class FactorizationCacheTest {
+
+    private InMemoryMetricsSink sink;
+
+    @BeforeEach
+    void setUp() {
+        FactorizationCache.clear();
+        FactorizationCache.setCapacity(FactorizationCache.DEFAULT_CAPACITY);
+        sink = new InMemoryMetricsSink();
+        Metrics.setSink(sink);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setSink(null);
+        FactorizationCache.clear();
+        FactorizationCache.setCapacity(FactorizationCache.DEFAULT_CAPACITY);
+    }
+
+    private static Matrix random(int n, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        return A;
+    }
+
+    private static long decompositions(InMemoryMetricsSink sink) {
+        return sink.getStats(Operation.LU_EXECUTE).getCount() + sink.getStats(Operation.CHOLESKY_EXECUTE).getCount();
+    }
+
+    private static Vector ones(int n) {
+        double[] values = new double[n];
+        java.util.Arrays.fill(values, 1.0);
+        return new Vector(values);
+    }
+
+    @Test
+    void testSolveReusesDecomposition() {
+        int n = 30;
+        Matrix A = random(n, 1);
+        Vector x = A.solve(ones(n));
+        A.solve(new Vector(n));
+        A.getDet();
+        assertEquals(1, decompositions(sink));
+        assertEquals(1, FactorizationCache.getCount());
+
+        Matrix column = new Matrix(n, 1);
+        for (int i = 0; i < n; i++)
+            column.setEntry(i, 0, x.getValue(i));
+        Matrix b = A.multiply(column);
+        for (int i = 0; i < n; i++)
+            assertEquals(1.0, b.getEntry(i, 0), 1e-10);
+    }
+
+    @Test
+    void testModificationInvalidates() {
+        int n = 20;
+        Matrix A = random(n, 2);
+        long count = A.getModificationCount();
+        double before = A.getDet();
+
+        A.setEntry(0, 0, A.getEntry(0, 0) + 1);
+        assertNotEquals(count, A.getModificationCount());
+        double after = A.getDet();
+        assertEquals(2, decompositions(sink));
+        assertNotEquals(before, after);
+
+        // A stale entry is dropped on lookup, the new one replaces it
+        assertEquals(1, FactorizationCache.getCount());
+    }
+
+    @Test
+    void testSymmetricPositiveDefiniteUsesCholesky() {
+        Matrix A = new Matrix(new double[][]{
+                {4, 2, 0, 0, 0, 0},
+                {2, 5, 2, 0, 0, 0},
+                {0, 2, 5, 2, 0, 0},
+                {0, 0, 2, 5, 2, 0},
+                {0, 0, 0, 2, 5, 2},
+                {0, 0, 0, 0, 2, 5}
+        });
+        double det = A.getDet();
+        assertEquals(1, sink.getStats(Operation.CHOLESKY_EXECUTE).getCount());
+        assertEquals(0, sink.getStats(Operation.LU_EXECUTE).getCount());
+
+        PivotedLUDecomposition lu = new PivotedLUDecomposition(A);
+        lu.execute(0);
+        assertEquals(lu.getDeterminant(), det, 1e-12 * Math.abs(det));
+
+        // Indefinite symmetric matrices fall back to LU
+        A.setEntry(0, 0, -4);
+        A.solve(ones(6));
+        assertEquals(2, sink.getStats(Operation.LU_EXECUTE).getCount());
+    }
+
+    @Test
+    void testInverseUsesCachedDecomposition() {
+        int n = 12;
+        Matrix A = random(n, 3);
+        Matrix original = A.copy();
+        A.solve(ones(n));
+        A.inverse();
+        assertEquals(1, decompositions(sink));
+
+        Matrix product = original.multiply(A);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                assertEquals(i == j ? 1.0 : 0.0, product.getEntry(i, j), 1e-10);
+
+        // The inverse is a different matrix, its determinant is recomputed
+        assertEquals(1.0 / original.getDet(), A.getDet(), 1e-8 * Math.abs(A.getDet()));
+    }
+
+    @Test
+    void testCapacityEvictsLeastRecentlyUsed() {
+        int n = 10;
+        long size = 8L * n * n + 4L * n;
+        FactorizationCache.setCapacity(2 * size);
+
+        Matrix A = random(n, 4), B = random(n, 5), C = random(n, 6);
+        A.getDet();
+        B.getDet();
+        A.getDet();
+        C.getDet();
+        assertEquals(2, FactorizationCache.getCount());
+        assertEquals(2 * size, FactorizationCache.getSize());
+        assertEquals(3, decompositions(sink));
+
+        // B was least recently used
+        A.getDet();
+        C.getDet();
+        assertEquals(3, decompositions(sink));
+        B.getDet();
+        assertEquals(4, decompositions(sink));
+
+        FactorizationCache.setCapacity(0);
+        assertEquals(0, FactorizationCache.getCount());
+        A.getDet();
+        assertEquals(0, FactorizationCache.getSize());
+    }
+
+    @Test
+    void testCollectedMatricesAreRemoved() throws InterruptedException {
+        for (int i = 0; i < 5; i++)
+            random(8, i).getDet();
+        assertEquals(5, FactorizationCache.getCount());
+
+        for (int attempt = 0; attempt < 50 && FactorizationCache.getCount() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, FactorizationCache.getCount());
+        assertEquals(0, FactorizationCache.getSize());
+    }
+}
@@ -1,8 +1,11 @@
 import static org.junit.jupiter.api.Assertions.*;
 
 import de.home_skrobanek.fnum.ieee.FloatingPoint;
+import de.home_skrobanek.fnum.ieee.NumberFormat;
 import org.junit.jupiter.api.Test;
 
+import java.math.RoundingMode;
+
 public class FloatingPointTest {
 
     @Test
@@ -165,4 +168,206 @@ public class FloatingPointTest {
                 () -> new FloatingPoint((short) 1, m, 10, (short) 0, e)
         );
     }
+
+    @Test
+    void testValueOfRoundsToNearestEven() {
+        NumberFormat format = NumberFormat.of(10, 4, 1);
+
+        assertEquals(0.333, FloatingPoint.valueOf(1.0 / 3.0, format).getFloatValue(), 0.0);
+        assertEquals(-667.0, FloatingPoint.valueOf(-666.6, format).getFloatValue(), 0.0);
+        // 0.125 lies exactly between 0.12 and 0.13 in two digits
+        assertEquals(0.12, FloatingPoint.valueOf(0.125, NumberFormat.of(10, 3, 1)).getFloatValue(), 0.0);
+        assertEquals(0.0, FloatingPoint.valueOf(0.0, format).getFloatValue(), 0.0);
+    }
+
+    @Test
+    void testValueOfBinaryMatchesFloat() {
+        // beta = 2 with 24 digits is IEEE single precision
+        NumberFormat binary32 = NumberFormat.of(2, 25, 7);
+        double[] values = {0.1, 1.0 / 3.0, Math.PI, -12345.6789, 1e-20};
+
+        for (double x : values)
+            assertEquals((float) x, FloatingPoint.valueOf(x, binary32).getFloatValue(), 0.0);
+    }
+
+    @Test
+    void testValueOfRejectsNaN() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FloatingPoint.valueOf(Double.NaN, NumberFormat.of(10, 4, 1)));
+    }
+
+    @Test
+    void testArithmeticDecimal() {
+        NumberFormat format = NumberFormat.of(10, 4, 1);
+        FloatingPoint a = FloatingPoint.valueOf(1.23, format);
+        FloatingPoint b = FloatingPoint.valueOf(0.0456, format);
+
+        assertEquals(1.28, a.add(b).getFloatValue(), 1e-12);
+        assertEquals(1.18, a.subtract(b).getFloatValue(), 1e-12);
+        assertEquals(0.0561, a.multiply(b).getFloatValue(), 1e-12);
+        assertEquals(27.0, a.divide(b).getFloatValue(), 1e-12);
+        assertEquals(0.0, a.subtract(a).getFloatValue(), 0.0);
+    }
+
+    @Test
+    void testAdditionOfFarApartOperands() {
+        NumberFormat format = NumberFormat.of(10, 4, 2);
+        FloatingPoint big = FloatingPoint.valueOf(1000, format);
+        FloatingPoint tiny = FloatingPoint.valueOf(1e-9, format);
+
+        assertEquals(1000.0, big.add(tiny).getFloatValue(), 0.0);
+        assertEquals(1000.0, big.subtract(tiny).getFloatValue(), 0.0);
+
+        NumberFormat down = NumberFormat.of(10, 4, 2, RoundingMode.DOWN);
+        FloatingPoint bigDown = FloatingPoint.valueOf(1000, down);
+        assertEquals(999.0, bigDown.subtract(FloatingPoint.valueOf(1e-9, down)).getFloatValue(), 0.0);
+    }
+
+    @Test
+    void testRoundingModes() {
+        double third = 1.0 / 3.0;
+
+        assertEquals(0.334, FloatingPoint.valueOf(third, NumberFormat.of(10, 4, 1, RoundingMode.CEILING)).getFloatValue(), 0.0);
+        assertEquals(0.333, FloatingPoint.valueOf(third, NumberFormat.of(10, 4, 1, RoundingMode.FLOOR)).getFloatValue(), 0.0);
+        assertEquals(-0.334, FloatingPoint.valueOf(-third, NumberFormat.of(10, 4, 1, RoundingMode.FLOOR)).getFloatValue(), 0.0);
+        assertEquals(0.13, FloatingPoint.valueOf(0.125, NumberFormat.of(10, 3, 1, RoundingMode.HALF_UP)).getFloatValue(), 0.0);
+        assertThrows(ArithmeticException.class,
+                () -> FloatingPoint.valueOf(third, NumberFormat.of(10, 4, 1, RoundingMode.UNNECESSARY)));
+    }
+
+    @Test
+    void testBinaryArithmeticMatchesFloat() {
+        NumberFormat binary32 = NumberFormat.of(2, 25, 7);
+        float a = 1.1f, b = 3.3e-3f, c = -7.25f;
+        FloatingPoint fa = FloatingPoint.valueOf(a, binary32);
+        FloatingPoint fb = FloatingPoint.valueOf(b, binary32);
+        FloatingPoint fc = FloatingPoint.valueOf(c, binary32);
+
+        assertEquals(a + b, fa.add(fb).getFloatValue(), 0.0);
+        assertEquals(a - c, fa.subtract(fc).getFloatValue(), 0.0);
+        assertEquals(a * b, fa.multiply(fb).getFloatValue(), 0.0);
+        assertEquals(a / c, fa.divide(fc).getFloatValue(), 0.0);
+        assertEquals(Math.fma(a, b, c), fa.fma(fb, fc).getFloatValue(), 0.0);
+    }
+
+    @Test
+    void testFmaRoundsOnce() {
+        NumberFormat format = NumberFormat.of(10, 3, 1);
+        FloatingPoint a = FloatingPoint.valueOf(0.11, format);
+        FloatingPoint b = FloatingPoint.valueOf(0.91, format);
+        FloatingPoint c = FloatingPoint.valueOf(-0.1, format);
+
+        // a · b = 0.1001 rounds to 0.1 and the sum cancels, fma keeps 0.0001
+        assertEquals(0.0, a.multiply(b).add(c).getFloatValue(), 0.0);
+        assertEquals(1e-4, a.fma(b, c).getFloatValue(), 1e-18);
+    }
+
+    @Test
+    void testWideFormatUsesExactFallback() {
+        // 17 decimal digits do not fit the long arithmetic for products
+        NumberFormat format = NumberFormat.of(10, 18, 2);
+        FloatingPoint a = FloatingPoint.valueOf(2.0 / 3.0, format);
+        FloatingPoint b = FloatingPoint.valueOf(3.0, format);
+
+        assertEquals(2.0, a.multiply(b).getFloatValue(), 1e-15);
+        assertEquals(2.0 / 9.0, a.divide(b).getFloatValue(), 1e-16);
+        assertEquals(3.0 + 2.0 / 3.0, a.add(b).getFloatValue(), 1e-15);
+    }
+
+    @Test
+    void testOverflowAndUnderflow() {
+        NumberFormat format = NumberFormat.of(10, 3, 0);
+        FloatingPoint big = FloatingPoint.valueOf(1e8, format);
+        FloatingPoint small = FloatingPoint.valueOf(1e-8, format);
+
+        assertThrows(ArithmeticException.class, () -> big.multiply(big));
+        assertEquals(0.0, small.multiply(small).getFloatValue(), 0.0);
+        assertThrows(ArithmeticException.class, () -> big.divide(FloatingPoint.valueOf(0, format)));
+    }
+
+    @Test
+    void testDigitsRoundTrip() {
+        NumberFormat format = NumberFormat.of(10, 4, 1);
+        FloatingPoint x = FloatingPoint.valueOf(-0.0456, format);
+
+        assertArrayEquals(new double[]{1, 4, 5, 6}, x.getMantissaDigits(), 0.0);
+        assertArrayEquals(new double[]{1, 0}, x.getExponentDigits(), 0.0);
+        assertEquals(-1, x.getCompleteExp(), 0.0);
+
+        FloatingPoint copy = new FloatingPoint((short) -1, x.getMantissaDigits(), 10, (short) -1, x.getExponentDigits());
+        assertEquals(x.getFloatValue(), copy.getFloatValue(), 0.0);
+    }
+
+    @Test
+    void testLUDecompositionInEightDigitDecimal() {
+        NumberFormat format = NumberFormat.of(10, 9, 1);
+        int n = 40;
+        FloatingPoint[][] A = new FloatingPoint[n][n];
+        double[][] exact = new double[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                double v = i == j ? n : 1.0 / (i + j + 1);
+                A[i][j] = FloatingPoint.valueOf(v, format);
+                exact[i][j] = A[i][j].getFloatValue();
+            }
+
+        for (int k = 0; k < n; k++)
+            for (int i = k + 1; i < n; i++) {
+                FloatingPoint l = A[i][k].divide(A[k][k]);
+                A[i][k] = l;
+                FloatingPoint minusL = l.negate();
+                for (int j = k + 1; j < n; j++)
+                    A[i][j] = minusL.fma(A[k][j], A[i][j]);
+            }
+
+        // L · R reproduces A up to the unit roundoff of the format
+        double u = format.getUnitRoundoff();
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                double sum = 0;
+                for (int k = 0; k <= Math.min(i, j); k++) {
+                    double l = k == i ? 1 : A[i][k].getFloatValue();
+                    sum += l * A[k][j].getFloatValue();
+                }
+                assertEquals(exact[i][j], sum, 10 * n * u * n);
+            }
+    }
+
+    @Test
+    void testMantissaWiderThanLongKeepsDigits() {
+        // r = 25 decimal digits do not fit into a 63 bit mantissa
+        double[] m = new double[25];
+        m[0] = 1;
+        for (int i = 1; i < m.length; i++)
+            m[i] = i % 10;
+        FloatingPoint fp = new FloatingPoint((short) -1, m, 10, (short) 1, new double[]{2, 0});
+
+        double mantissa = 0;
+        for (int i = 1; i < m.length; i++)
+            mantissa += m[i] * Math.pow(10, -i);
+        assertNull(fp.getFormat());
+        assertEquals(-mantissa, fp.getCompleteM(), 1e-15);
+        assertEquals(2, fp.getCompleteExp());
+        assertEquals(-mantissa * 100, fp.getFloatValue(), 1e-13);
+        assertArrayEquals(m, fp.getMantissaDigits());
+        assertEquals(mantissa * 100, fp.negate().getFloatValue(), 1e-13);
+        assertThrows(IllegalArgumentException.class, () -> fp.add(fp));
+    }
+
+    @Test
+    void testExponentWiderThanPowerTable() {
+        // s = 19 gives 20 exponent digits, beyond the powers of 10 in a long
+        double[] exp = new double[20];
+        exp[0] = 3;
+        FloatingPoint fp = new FloatingPoint((short) 1, new double[]{1, 5}, 10, (short) 1, exp);
+        assertEquals(3, fp.getCompleteExp());
+        assertEquals(500, fp.getFloatValue());
+        assertEquals(NumberFormat.of(10, 2, 19), fp.getFormat());
+
+        exp[19] = 1;
+        FloatingPoint huge = new FloatingPoint((short) 1, new double[]{1, 5}, 10, (short) 1, exp);
+        assertEquals(1e19 + 3, huge.getCompleteExp());
+        assertEquals(Double.POSITIVE_INFINITY, huge.getFloatValue());
+        assertNull(huge.getFormat());
+    }
 }
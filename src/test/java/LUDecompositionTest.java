@@ -3,6 +3,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import de.home_skrobanek.fnum.matrix.LUDecomposition;
 import de.home_skrobanek.fnum.matrix.Matrix;
 import de.home_skrobanek.fnum.matrix.MatrixOperations;
+import de.home_skrobanek.fnum.vector.Vector;
 import org.junit.jupiter.api.Test;
 
 public class LUDecompositionTest {
@@ -47,6 +48,21 @@ public class LUDecompositionTest {
         assertTrue(R.equals(expectedR, TOL));
     }
 
+    @Test
+    void determinantIsProductOfRDiagonal() {
+        Matrix A = new Matrix(new double[][]{
+                {4, 3},
+                {6, 3}
+        });
+
+        LUDecomposition lu = new LUDecomposition(A);
+        lu.execute(TOL);
+
+        // R = [[4, 3], [0, -1.5]], the product has to start at 1, not 0
+        assertEquals(-6, lu.getDeterminantR(), TOL);
+        assertEquals(-6, lu.getDeterminant(), TOL);
+    }
+
     @Test
     void reconstructionMatchesOriginalMatrix() {
         Matrix A = new Matrix(new double[][]{
@@ -153,4 +169,47 @@ public class LUDecompositionTest {
             }
         }
     }
+
+    @Test
+    void solveUsesForwardAndBackwardSubstitution() {
+        Matrix A = new Matrix(new double[][]{
+                {2, 1, 1},
+                {4, -6, 0},
+                {-2, 7, 2}
+        });
+
+        LUDecomposition lu = new LUDecomposition(A);
+        lu.execute(TOL);
+        Vector x = lu.solve(new Vector(5, -2, 9));
+
+        assertEquals(1.0, x.getValue(0), TOL);
+        assertEquals(1.0, x.getValue(1), TOL);
+        assertEquals(2.0, x.getValue(2), TOL);
+    }
+
+    @Test
+    void solveBeforeExecuteThrowsException() {
+        LUDecomposition lu = new LUDecomposition(MatrixOperations.makeIdentity(2, 2));
+
+        assertThrows(IllegalStateException.class,
+                () -> lu.solve(new Vector(1, 2)));
+    }
+
+    @Test
+    void executeIntoProvidedMatrices() {
+        Matrix A = new Matrix(new double[][]{
+                {4, 3},
+                {6, 3}
+        });
+        Matrix L = new Matrix(2, 2, 7);
+        Matrix R = new Matrix(2, 2, 7);
+
+        LUDecomposition lu = new LUDecomposition(A);
+        lu.execute(TOL, L, R);
+
+        assertSame(L, lu.getL());
+        assertSame(R, lu.getR());
+        assertTrue(L.multiply(R).equals(A, TOL));
+        assertEquals(0.0, R.getEntry(1, 0));
+    }
 }
@@ -0,0 +1,122 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixBatch;
+import de.home_skrobanek.fnum.matrix.MatrixOperations;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MatrixBatchTest {
+
+    private static final double TOL = 1e-9;
+
+    private static MatrixBatch randomBatch(int count, int dim, long seed) {
+        Random random = new Random(seed);
+        MatrixBatch batch = new MatrixBatch(count, dim);
+        for (int b = 0; b < count; b++) {
+            for (int i = 0; i < dim; i++) {
+                for (int j = 0; j < dim; j++) {
+                    // Diagonal dominance keeps every member well conditioned
+                    double value = random.nextDouble() - 0.5 + (i == j ? dim : 0);
+                    batch.setEntry(b, i, j, value);
+                }
+            }
+        }
+        return batch;
+    }
+
+    @Test
+    void rejectsUnsupportedSize() {
+        assertThrows(IllegalArgumentException.class, () -> new MatrixBatch(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> new MatrixBatch(10, 1));
+    }
+
+    @Test
+    void setAndGetMember() {
+        Matrix A = new Matrix(new double[][]{
+                {1, 2},
+                {3, 4}
+        });
+        MatrixBatch batch = new MatrixBatch(3, 2);
+        batch.set(1, A);
+
+        assertTrue(batch.get(1).equals(A, 0));
+        assertEquals(0.0, batch.getEntry(0, 1, 1));
+    }
+
+    @Test
+    void determinantMatchesMatrix() {
+        for (int dim = 2; dim <= 4; dim++) {
+            MatrixBatch batch = randomBatch(50, dim, dim);
+            double[] det = new double[50];
+            batch.determinant(det);
+
+            for (int b = 0; b < 50; b++)
+                assertEquals(batch.get(b).getDet(), det[b], TOL);
+        }
+    }
+
+    @Test
+    void multiplyMatchesMatrix() {
+        for (int dim = 2; dim <= 4; dim++) {
+            MatrixBatch A = randomBatch(20, dim, 10 + dim);
+            MatrixBatch B = randomBatch(20, dim, 20 + dim);
+            MatrixBatch C = new MatrixBatch(20, dim);
+            A.multiply(B, C);
+
+            for (int b = 0; b < 20; b++)
+                assertTrue(C.get(b).equals(A.get(b).multiply(B.get(b)), TOL));
+        }
+    }
+
+    @Test
+    void inverseTimesMatrixIsIdentity() {
+        for (int dim = 2; dim <= 4; dim++) {
+            MatrixBatch A = randomBatch(20, dim, 30 + dim);
+            MatrixBatch inv = new MatrixBatch(20, dim);
+            A.inverse(inv);
+
+            Matrix identity = MatrixOperations.makeIdentity(dim, dim);
+            for (int b = 0; b < 20; b++)
+                assertTrue(A.get(b).multiply(inv.get(b)).equals(identity, TOL));
+        }
+    }
+
+    @Test
+    void solveLargeBatchInParallelChunks() {
+        int count = 10_000;
+        for (int dim = 2; dim <= 4; dim++) {
+            MatrixBatch A = randomBatch(count, dim, 40 + dim);
+            double[] rhs = new double[dim * count];
+            Random random = new Random(dim);
+            for (int i = 0; i < rhs.length; i++)
+                rhs[i] = random.nextDouble();
+
+            double[] x = new double[dim * count];
+            A.solve(rhs, x);
+
+            for (int b = 0; b < count; b++) {
+                for (int i = 0; i < dim; i++) {
+                    double sum = 0;
+                    for (int j = 0; j < dim; j++)
+                        sum += A.getEntry(b, i, j) * x[j * count + b];
+                    assertEquals(rhs[i * count + b], sum, TOL);
+                }
+            }
+        }
+    }
+
+    @Test
+    void singularMemberGivesNonFiniteResult() {
+        MatrixBatch batch = new MatrixBatch(2, 2);
+        batch.set(0, new Matrix(new double[][]{{1, 2}, {2, 4}}));
+        batch.set(1, new Matrix(new double[][]{{2, 0}, {0, 2}}));
+
+        MatrixBatch inv = new MatrixBatch(2, 2);
+        batch.inverse(inv);
+
+        assertFalse(Double.isFinite(inv.getEntry(0, 0, 0)));
+        assertEquals(0.5, inv.getEntry(1, 0, 0), TOL);
+    }
+}
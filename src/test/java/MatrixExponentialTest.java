@@ -0,0 +1,198 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.BandedMatrix;
+import de.home_skrobanek.fnum.matrix.LinearOperator;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixExponential;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MatrixExponentialTest {
+
+    private static Matrix random(int n, double scale, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, scale * (random.nextDouble() - 0.5));
+        return A;
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double tol) {
+        for (int i = 0; i < expected.getRowCount(); i++)
+            for (int j = 0; j < expected.getColumnCount(); j++)
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), tol, "(" + i + ", " + j + ")");
+    }
+
+    /** Sums the Taylor series of exp(A) until the terms vanish */
+    private static Matrix taylor(Matrix A) {
+        int n = A.getRowCount();
+        Matrix sum = new Matrix(n, n), term = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            sum.setEntry(i, i, 1);
+            term.setEntry(i, i, 1);
+        }
+        for (int k = 1; k < 60; k++) {
+            term = term.multiply(A);
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++) {
+                    term.setEntry(i, j, term.getEntry(i, j) / k);
+                    sum.setEntry(i, j, sum.getEntry(i, j) + term.getEntry(i, j));
+                }
+        }
+        return sum;
+    }
+
+    @Test
+    void testPowMatchesRepeatedProducts() {
+        Matrix A = random(7, 1, 1);
+        Matrix expected = A.copy();
+        for (int k = 2; k <= 13; k++) {
+            expected = expected.multiply(A);
+            assertMatrixEquals(expected, A.pow(k), 1e-12);
+        }
+    }
+
+    @Test
+    void testPowZeroAndNegative() {
+        Matrix A = random(5, 1, 2);
+        for (int i = 0; i < 5; i++)
+            A.setEntry(i, i, A.getEntry(i, i) + 2);
+        Matrix I = A.pow(0);
+        for (int i = 0; i < 5; i++)
+            for (int j = 0; j < 5; j++)
+                assertEquals(i == j ? 1.0 : 0.0, I.getEntry(i, j));
+
+        Matrix product = A.pow(3).multiply(A.pow(-3));
+        assertMatrixEquals(I, product, 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(2, 3).pow(2));
+    }
+
+    @Test
+    void testPowOfMarkovChainConverges() {
+        Matrix P = new Matrix(new double[][]{{0.9, 0.1}, {0.5, 0.5}});
+        Matrix limit = P.pow(1000);
+        // Stationary distribution (5/6, 1/6) in every row
+        for (int i = 0; i < 2; i++) {
+            assertEquals(5.0 / 6, limit.getEntry(i, 0), 1e-12);
+            assertEquals(1.0 / 6, limit.getEntry(i, 1), 1e-12);
+        }
+    }
+
+    @Test
+    void testExpmSmallNormsMatchTaylor() {
+        // Norms in the ranges of the degree 3, 5, 7, 9 and 13 approximants
+        double[] scales = {0.002, 0.05, 0.2, 0.5, 1.5};
+        for (int s = 0; s < scales.length; s++) {
+            Matrix A = random(6, scales[s], 10 + s);
+            assertMatrixEquals(taylor(A), A.expm(), 1e-14);
+        }
+    }
+
+    @Test
+    void testExpmRotation() {
+        double t = 25;
+        Matrix A = new Matrix(new double[][]{{0, -t}, {t, 0}});
+        Matrix E = A.expm();
+        assertEquals(Math.cos(t), E.getEntry(0, 0), 1e-12);
+        assertEquals(-Math.sin(t), E.getEntry(0, 1), 1e-12);
+        assertEquals(Math.sin(t), E.getEntry(1, 0), 1e-12);
+        assertEquals(Math.cos(t), E.getEntry(1, 1), 1e-12);
+    }
+
+    @Test
+    void testExpmScalingAndSquaring() {
+        Matrix A = random(10, 8, 3);
+        Matrix E = A.expm();
+        Matrix Ainv = A.copy();
+        Ainv.scale(-1);
+        Matrix product = E.multiply(Ainv.expm());
+        for (int i = 0; i < 10; i++)
+            for (int j = 0; j < 10; j++)
+                assertEquals(i == j ? 1.0 : 0.0, product.getEntry(i, j), 1e-8);
+
+        // exp(A) commutes with A
+        assertMatrixEquals(A.multiply(E), E.multiply(A), 1e-9 * maxAbs(E) * 10);
+    }
+
+    @Test
+    void testExpmDiagonalAndNilpotent() {
+        Matrix D = new Matrix(new double[][]{{-40, 0, 0}, {0, 0.5, 0}, {0, 0, 3}});
+        Matrix E = D.expm();
+        assertEquals(Math.exp(-40), E.getEntry(0, 0), 1e-28);
+        assertEquals(Math.exp(0.5), E.getEntry(1, 1), 1e-14);
+        assertEquals(Math.exp(3), E.getEntry(2, 2), 1e-13);
+
+        Matrix N = new Matrix(new double[][]{{0, 6, 0}, {0, 0, 6}, {0, 0, 0}});
+        Matrix expected = new Matrix(new double[][]{{1, 6, 18}, {0, 1, 6}, {0, 0, 1}});
+        assertMatrixEquals(expected, N.expm(), 1e-12);
+    }
+
+    @Test
+    void testExpmvMatchesExpm() {
+        int n = 30;
+        Matrix A = random(n, 1.5, 4);
+        Random random = new Random(5);
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            b[i] = random.nextDouble();
+
+        for (double t : new double[]{0.01, 1, -2.5}) {
+            Matrix tA = A.copy();
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    tA.setEntry(i, j, t * A.getEntry(i, j));
+            Matrix E = tA.expm();
+            Vector x = A.expmv(t, new Vector(b.clone()));
+            for (int i = 0; i < n; i++) {
+                double expected = 0;
+                for (int j = 0; j < n; j++)
+                    expected += E.getEntry(i, j) * b[j];
+                assertEquals(expected, x.getValue(i), 1e-11 * Math.max(1, Math.abs(expected)));
+            }
+        }
+    }
+
+    @Test
+    void testExpmvOnBandedOperator() {
+        // Heat equation u' = L u on a grid of 200 points, never forming exp(L)
+        int n = 200;
+        double[] lower = new double[n - 1], diagonal = new double[n], upper = new double[n - 1];
+        java.util.Arrays.fill(lower, 1);
+        java.util.Arrays.fill(upper, 1);
+        java.util.Arrays.fill(diagonal, -2);
+        BandedMatrix L = BandedMatrix.tridiagonal(lower, diagonal, upper);
+
+        // Eigenvector sin(pi k j / (n + 1)) decays with exp(t · lambda_k)
+        int k = 3;
+        double lambda = -4 * Math.pow(Math.sin(Math.PI * k / (2.0 * (n + 1))), 2);
+        double[] u = new double[n];
+        for (int j = 0; j < n; j++)
+            u[j] = Math.sin(Math.PI * k * (j + 1) / (n + 1));
+
+        double t = 50;
+        double[] result = MatrixExponential.expmv(LinearOperator.of(L), t, u);
+        for (int j = 0; j < n; j++)
+            assertEquals(Math.exp(t * lambda) * u[j], result[j], 1e-12);
+    }
+
+    @Test
+    void testExpmvZeroOperatorReturnsCopy() {
+        double[] b = {1, 2, 3};
+        double[] x = MatrixExponential.expmv(LinearOperator.of(new Matrix(3, 3)), 1, b);
+        assertArrayEquals(b, x);
+        assertNotSame(b, x);
+        assertThrows(IllegalArgumentException.class,
+                () -> MatrixExponential.expmv(LinearOperator.of(new Matrix(3, 3)), 1, new double[2]));
+    }
+
+    private static double maxAbs(Matrix A) {
+        double max = 0;
+        for (int i = 0; i < A.getRowCount(); i++)
+            for (int j = 0; j < A.getColumnCount(); j++)
+                max = Math.max(max, Math.abs(A.getEntry(i, j)));
+        return max;
+    }
+}
@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.BandedMatrix;
+import de.home_skrobanek.fnum.matrix.CholeskyDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixFactory;
+import de.home_skrobanek.fnum.matrix.MatrixOperations;
+import de.home_skrobanek.fnum.sparse.SparseMatrix;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+public class MatrixFactoryTest {
+
+    private static <T> T inPool(int parallelism, Supplier<T> generator) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(generator::get).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameEntries(Matrix expected, Matrix actual) {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        assertEquals(expected.getColumnCount(), actual.getColumnCount());
+        for (int i = 0; i < expected.getRowCount(); i++)
+            for (int j = 0; j < expected.getColumnCount(); j++)
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), 0);
+    }
+
+    @Test
+    void testReproducibleAcrossThreadCounts() throws Exception {
+        Matrix one = inPool(1, () -> MatrixFactory.random(500, 70, 42));
+        Matrix four = inPool(4, () -> MatrixFactory.random(500, 70, 42));
+        assertSameEntries(one, four);
+        assertSameEntries(one, MatrixFactory.random(500, 70, 42));
+        assertNotEquals(one.getEntry(3, 3), MatrixFactory.random(500, 70, 43).getEntry(3, 3));
+
+        SparseMatrix s1 = inPool(1, () -> MatrixFactory.sparse(700, 300, 0.02, 7));
+        SparseMatrix s4 = inPool(4, () -> MatrixFactory.sparse(700, 300, 0.02, 7));
+        assertTrue(s1.hasSamePattern(s4));
+        assertSameEntries(s1.toMatrix(), s4.toMatrix());
+
+        assertSameEntries(inPool(1, () -> MatrixFactory.gaussian(300, 9, 5)),
+                inPool(3, () -> MatrixFactory.gaussian(300, 9, 5)));
+    }
+
+    @Test
+    void testDistributions() {
+        Matrix U = MatrixFactory.random(400, 50, 1);
+        Matrix G = MatrixFactory.gaussian(400, 51, 2);
+        double sum = 0, min = 1, max = -1, gsum = 0, gsquares = 0;
+        for (int i = 0; i < 400; i++) {
+            for (int j = 0; j < 50; j++) {
+                double u = U.getEntry(i, j);
+                min = Math.min(min, u);
+                max = Math.max(max, u);
+                sum += u;
+            }
+            for (int j = 0; j < 51; j++) {
+                gsum += G.getEntry(i, j);
+                gsquares += G.getEntry(i, j) * G.getEntry(i, j);
+            }
+        }
+        assertTrue(min >= -1 && max < 1 && min < -0.99 && max > 0.99);
+        assertEquals(0, sum / 20000, 0.02);
+        assertEquals(0, gsum / 20400, 0.03);
+        assertEquals(1, gsquares / 20400, 0.05);
+
+        SparseMatrix S = MatrixFactory.sparse(1000, 2000, 0.01, 3);
+        assertEquals(20000, S.getNonZeroCount(), 600);
+        assertEquals(1000 * 2000, MatrixFactory.sparse(1000, 2000, 1, 3).getNonZeroCount());
+        assertThrows(IllegalArgumentException.class, () -> MatrixFactory.sparse(10, 10, 0, 3));
+    }
+
+    @Test
+    void testStructuredMatrices() {
+        Matrix A = MatrixFactory.symmetricPositiveDefinite(150, 4);
+        for (int i = 0; i < 150; i++)
+            for (int j = 0; j < i; j++)
+                assertEquals(A.getEntry(i, j), A.getEntry(j, i), 0);
+        new CholeskyDecomposition(A).execute();
+
+        BandedMatrix B = MatrixFactory.banded(200, 2, 3, 5);
+        assertEquals(2, B.getLowerBandwidth());
+        assertEquals(0, B.toMatrix().getEntry(10, 14), 0);
+        assertNotEquals(0, B.getEntry(10, 13));
+        assertTrue(B.getEntry(10, 10) > 5);
+
+        Matrix Q = MatrixFactory.orthogonal(60, 6);
+        Matrix Qt = Q.copy();
+        Qt.transpose();
+        Matrix I = Qt.multiply(Q);
+        for (int i = 0; i < 60; i++)
+            for (int j = 0; j < 60; j++)
+                assertEquals(i == j ? 1 : 0, I.getEntry(i, j), 1e-13);
+    }
+
+    @Test
+    void testPrescribedConditionNumber() {
+        for (double kappa : new double[]{1, 1e3, 1e8}) {
+            Matrix A = MatrixFactory.withConditionNumber(40, kappa, 8);
+            double estimate = A.estimateConditionNumber();
+            // The 1-norm condition number is within a factor n of the 2-norm one
+            assertTrue(estimate >= kappa / 40 && estimate <= kappa * 40, kappa + " vs " + estimate);
+        }
+        assertThrows(IllegalArgumentException.class, () -> MatrixFactory.withConditionNumber(4, 0.5, 1));
+    }
+
+    @Test
+    void testBulkConstructors() {
+        Matrix C = new Matrix(3, 4, 2.5);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 4; j++)
+                assertEquals(2.5, C.getEntry(i, j), 0);
+
+        Matrix rectangular = MatrixOperations.makeIdentity(2, 4);
+        assertEquals(1, rectangular.getEntry(1, 1), 0);
+        assertEquals(0, rectangular.getEntry(1, 3), 0);
+
+        Matrix A = MatrixFactory.random(5, 5, 9);
+        long count = A.getModificationCount();
+        MatrixOperations.makeIdentity(A);
+        assertNotEquals(count, A.getModificationCount());
+        for (int i = 0; i < 5; i++)
+            for (int j = 0; j < 5; j++)
+                assertEquals(i == j ? 1 : 0, A.getEntry(i, j), 0);
+    }
+}
@@ -54,6 +54,18 @@ public class MatrixOperationsTest {
         assertEquals(12, solution.getEntry(1, 1));
     }
 
+    @Test
+    void testAddMatrixIntoProvidedResult() {
+        Matrix A = new Matrix(new double[][]{{1, 2, 3}});
+        Matrix B = new Matrix(new double[][]{{4, 5, 6}});
+        Matrix out = new Matrix(1, 3);
+
+        assertSame(out, MatrixOperations.addMatrix(A, B, out));
+        assertEquals(9, out.getEntry(0, 2));
+        assertThrowsExactly(SameDimensionsException.class,
+                () -> MatrixOperations.addMatrix(A, B, new Matrix(3, 1)));
+    }
+
     @Test
     void testAddMatrixDifferentDimensionsShouldFail() {
         Matrix A = new Matrix(2, 2);
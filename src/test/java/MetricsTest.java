@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixFactory;
+import de.home_skrobanek.fnum.metrics.InMemoryMetricsSink;
+import de.home_skrobanek.fnum.metrics.JfrMetricsSink;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.metrics.OperationStats;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@Tag("metrics")
+public class MetricsTest {
+
+    @AfterEach
+    void removeSink() {
+        Metrics.setSink(null);
+    }
+
+    @Test
+    void enabledBySurefireConfiguration() {
+        assertTrue(Metrics.ENABLED);
+    }
+
+    @Test
+    void recordsMatrixAndSolverOperations() {
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        Metrics.setSink(sink);
+
+        Matrix A = new Matrix(new double[][]{
+                {4, 3},
+                {6, 3}
+        });
+        A.multiply(A);
+        A.multiply(A);
+        A.getDet();
+
+        LUDecomposition lu = new LUDecomposition(A);
+        lu.execute(1e-12);
+        lu.solve(new Vector(1, 2));
+
+        OperationStats multiply = sink.getStats(Operation.MATRIX_MULTIPLY);
+        assertEquals(2, multiply.getCount());
+        assertEquals(2 * 16, multiply.getFlops());
+        assertEquals(2 * 8 * 12, multiply.getBytes());
+        assertEquals(1, multiply.getDistinctThreads());
+        assertEquals(1, multiply.getMaxThreads());
+
+        long histogramTotal = 0;
+        for (long bucket : multiply.getHistogram())
+            histogramTotal += bucket;
+        assertEquals(2, histogramTotal);
+
+        assertEquals(1, sink.getStats(Operation.MATRIX_DETERMINANT).getCount());
+        assertEquals(1, sink.getStats(Operation.LU_EXECUTE).getCount());
+        assertEquals(1, sink.getStats(Operation.LU_SOLVE).getCount());
+        assertEquals(8, sink.getStats(Operation.LU_SOLVE).getFlops());
+    }
+
+    @Test
+    void recordsVectorOperations() {
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        Metrics.setSink(sink);
+
+        Vector v = new Vector(1, 2, 3);
+        v.multiplyScalar(2);
+        v.addVector(v);
+        v.multiplyVector(v);
+
+        assertEquals(3, sink.getStats(Operation.VECTOR_SCALE).getFlops());
+        assertEquals(1, sink.getStats(Operation.VECTOR_ADD).getCount());
+        assertEquals(6, sink.getStats(Operation.VECTOR_DOT).getFlops());
+
+        sink.reset();
+        assertEquals(0, sink.getStats(Operation.VECTOR_DOT).getCount());
+    }
+
+    @Test
+    void nothingIsRecordedWithoutSink() {
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+
+        new Vector(1, 2).multiplyScalar(3);
+
+        assertEquals(0, sink.getStats(Operation.VECTOR_SCALE).getCount());
+    }
+
+    @Test
+    void jfrSinkAcceptsRecordsWithoutRecording() {
+        Metrics.setSink(new JfrMetricsSink());
+
+        assertDoesNotThrow(() -> new Matrix(3, 3).multiply(new Matrix(3, 3)));
+    }
+
+    @Test
+    void jfrEventSpansTheOperation() throws IOException {
+        Metrics.setSink(new JfrMetricsSink());
+        Matrix A = MatrixFactory.random(200, 200, 1);
+        Path file = Files.createTempFile("fnum", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("de.home_skrobanek.fnum.Operation");
+                recording.start();
+                A.multiply(A);
+                recording.stop();
+                recording.dump(file);
+            }
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent multiply = events.stream()
+                    .filter(event -> "MATRIX_MULTIPLY".equals(event.getString("operation")))
+                    .findFirst().orElseThrow();
+            long wallTime = multiply.getLong("wallTime");
+            assertTrue(wallTime > 0);
+            assertTrue(multiply.getDuration().toNanos() >= wallTime / 2);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
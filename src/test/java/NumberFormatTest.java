@@ -0,0 +1,151 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.ieee.FloatingPoint;
+import de.home_skrobanek.fnum.ieee.NumberFormat;
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+import java.util.Random;
+
+public class NumberFormatTest {
+
+    private static final NumberFormat BINARY32 = NumberFormat.of(2, 25, 7);
+
+    @Test
+    void testBinaryRoundingMatchesFloat() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            double x = (random.nextDouble() - 0.5) * Math.pow(2, random.nextInt(200) - 100);
+            assertEquals((float) x, BINARY32.round(x), 0.0);
+        }
+    }
+
+    @Test
+    void testKernelsMatchExactRounding() {
+        Random random = new Random(2);
+        int[][] formats = {{2, 12, 5}, {10, 9, 2}, {10, 4, 2}, {3, 7, 3}, {16, 5, 2}};
+
+        for (int[] f : formats)
+            for (RoundingMode mode : RoundingMode.values()) {
+                if (mode == RoundingMode.UNNECESSARY)
+                    continue;
+                NumberFormat format = NumberFormat.of(f[0], f[1], f[2], mode);
+                for (int i = 0; i < 2_000; i++) {
+                    double x = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 15);
+                    if (i % 10 == 0)
+                        x = format.round(x) + Math.ulp(x) * (random.nextInt(3) - 1);
+                    assertEquals(FloatingPoint.valueOf(x, format).getFloatValue(), format.round(x), 0.0,
+                            format + " x=" + x);
+                }
+            }
+    }
+
+    @Test
+    void testDecimalTies() {
+        NumberFormat format = NumberFormat.of(10, 4, 2);
+
+        // 1.235 is stored slightly above the tie
+        assertEquals(1.24, format.round(1.235), 0.0);
+        assertEquals(0.12, NumberFormat.of(10, 3, 2).round(0.125), 0.0);
+        assertEquals(1240.0, format.round(1245.0), 0.0);
+        assertEquals(1260.0, format.round(1255.0), 0.0);
+        assertEquals(1240.0, format.round(1244.0), 0.0);
+    }
+
+    @Test
+    void testRangeLimits() {
+        NumberFormat format = NumberFormat.of(2, 12, 2);
+
+        assertThrows(ArithmeticException.class, () -> format.round(1e10));
+        assertEquals(0.0, format.round(1e-10), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, format.round(Double.POSITIVE_INFINITY), 0.0);
+        assertTrue(Double.isNaN(format.round(Double.NaN)));
+    }
+
+    @Test
+    void testBulkRoundingInPlace() {
+        double[] values = {0.1, 0.2, 1.0 / 3.0, -7.7};
+        BINARY32.round(values);
+
+        for (double v : values)
+            assertEquals((float) v, v, 0.0);
+    }
+
+    @Test
+    void testDotProductInFormat() {
+        Random random = new Random(3);
+        int n = 1000;
+        double[] a = new double[n], b = new double[n];
+        float expected = 0;
+        for (int i = 0; i < n; i++) {
+            a[i] = (float) random.nextGaussian();
+            b[i] = (float) random.nextGaussian();
+            expected += (float) a[i] * (float) b[i];
+        }
+
+        assertEquals(expected, new Vector(a).multiplyVector(new Vector(b), BINARY32), 0.0);
+    }
+
+    @Test
+    void testMatrixMultiplyInFormat() {
+        Random random = new Random(4);
+        int n = 40;
+        float[][] fa = new float[n][n], fb = new float[n][n];
+        Matrix A = new Matrix(n, n), B = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                fa[i][j] = (float) random.nextGaussian();
+                fb[i][j] = (float) random.nextGaussian();
+                A.setEntry(i, j, fa[i][j]);
+                B.setEntry(i, j, fb[i][j]);
+            }
+
+        Matrix C = A.multiply(B, BINARY32);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                float sum = 0;
+                for (int k = 0; k < n; k++)
+                    sum += fa[i][k] * fb[k][j];
+                assertEquals(sum, C.getEntry(i, j), 0.0);
+            }
+    }
+
+    @Test
+    void testLUDecompositionInFormat() {
+        Random random = new Random(5);
+        int n = 60;
+        float[][] f = new float[n][n];
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                f[i][j] = (float) random.nextGaussian() + (i == j ? n : 0);
+                A.setEntry(i, j, f[i][j]);
+            }
+
+        LUDecomposition lu = new LUDecomposition(A);
+        lu.execute(1e-12, BINARY32);
+
+        // Right-looking elimination in float arithmetic
+        for (int k = 0; k < n; k++)
+            for (int i = k + 1; i < n; i++) {
+                float l = f[i][k] / f[k][k];
+                f[i][k] = l;
+                for (int j = k + 1; j < n; j++)
+                    f[i][j] -= l * f[k][j];
+            }
+
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                if (i > j) {
+                    assertEquals(f[i][j], lu.getL().getEntry(i, j), 0.0);
+                    assertEquals(0.0, lu.getR().getEntry(i, j), 0.0);
+                } else {
+                    assertEquals(f[i][j], lu.getR().getEntry(i, j), 0.0);
+                    assertEquals(i == j ? 1.0 : 0.0, lu.getL().getEntry(i, j), 0.0);
+                }
+            }
+    }
+}
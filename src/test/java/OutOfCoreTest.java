@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.OutOfCoreLUDecomposition;
+import de.home_skrobanek.fnum.matrix.TiledMatrixFile;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class OutOfCoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static Matrix random(int n, int m, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, m);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        return A;
+    }
+
+    private static Matrix diagonallyDominant(int n, long seed) {
+        Matrix A = random(n, n, seed);
+        for (int i = 0; i < n; i++)
+            A.setEntry(i, i, A.getEntry(i, i) + n);
+        return A;
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double tol) {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        assertEquals(expected.getColumnCount(), actual.getColumnCount());
+        for (int i = 0; i < expected.getRowCount(); i++)
+            for (int j = 0; j < expected.getColumnCount(); j++)
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), tol, "(" + i + ", " + j + ")");
+    }
+
+    @Test
+    void testRoundTripAndReopen() throws IOException {
+        Matrix A = random(23, 17, 1);
+        Path path = dir.resolve("a.tiles");
+        try (TiledMatrixFile file = TiledMatrixFile.fromMatrix(path, A, 5, 3)) {
+            assertEquals(5, file.getTileRowCount());
+            assertEquals(4, file.getTileColumnCount());
+            assertMatrixEquals(A, file.toMatrix(), 0);
+            file.setEntry(22, 16, 42);
+            assertEquals(42, file.getEntry(22, 16));
+            assertThrows(IndexOutOfBoundsException.class, () -> file.getEntry(23, 0));
+        }
+        A.setEntry(22, 16, 42);
+        try (TiledMatrixFile file = TiledMatrixFile.open(path, 2)) {
+            assertEquals(23, file.getRowCount());
+            assertEquals(17, file.getColumnCount());
+            assertMatrixEquals(A, file.toMatrix(), 0);
+        }
+    }
+
+    @Test
+    void testMultiplyMatchesInMemory() throws IOException {
+        Matrix A = random(37, 29, 2), B = random(29, 41, 3);
+        // The cache holds far fewer tiles than the matrices have
+        try (TiledMatrixFile a = TiledMatrixFile.fromMatrix(dir.resolve("a"), A, 8, 4);
+             TiledMatrixFile b = TiledMatrixFile.fromMatrix(dir.resolve("b"), B, 8, 4);
+             TiledMatrixFile c = TiledMatrixFile.create(dir.resolve("c"), 37, 41, 8, 4)) {
+            a.multiply(b, c);
+            assertMatrixEquals(A.multiply(B), c.toMatrix(), 1e-12);
+        }
+    }
+
+    @Test
+    void testMultiplyChecksDimensions() throws IOException {
+        try (TiledMatrixFile a = TiledMatrixFile.create(dir.resolve("a"), 4, 3, 2, 4);
+             TiledMatrixFile b = TiledMatrixFile.create(dir.resolve("b"), 4, 3, 2, 4);
+             TiledMatrixFile c = TiledMatrixFile.create(dir.resolve("c"), 4, 3, 3, 4)) {
+            assertThrows(IllegalArgumentException.class, () -> a.multiply(b, c));
+        }
+    }
+
+    @Test
+    void testLUMatchesInMemory() throws IOException {
+        int n = 45;
+        Matrix A = diagonallyDominant(n, 4);
+        LUDecomposition reference = new LUDecomposition(A);
+        reference.execute(0);
+
+        try (TiledMatrixFile file = TiledMatrixFile.fromMatrix(dir.resolve("lu"), A, 8, 5)) {
+            OutOfCoreLUDecomposition lu = new OutOfCoreLUDecomposition(file);
+            assertThrows(IllegalStateException.class, lu::getDeterminant);
+            lu.execute(0);
+
+            Matrix factors = file.toMatrix();
+            Matrix L = reference.getL(), R = reference.getR();
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    assertEquals(i > j ? L.getEntry(i, j) : R.getEntry(i, j), factors.getEntry(i, j), 1e-10);
+            assertEquals(reference.getDeterminant(), lu.getDeterminant(), 1e-10 * Math.abs(reference.getDeterminant()));
+
+            double[] b = new double[n];
+            for (int i = 0; i < n; i++)
+                b[i] = i + 1;
+            Vector x = lu.solve(new Vector(b.clone()));
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int j = 0; j < n; j++)
+                    sum += A.getEntry(i, j) * x.getValue(j);
+                assertEquals(b[i], sum, 1e-10);
+            }
+        }
+    }
+
+    @Test
+    void testLUSingular() throws IOException {
+        Matrix A = new Matrix(new double[][]{{1, 2, 0}, {2, 4, 0}, {0, 0, 1}});
+        try (TiledMatrixFile file = TiledMatrixFile.fromMatrix(dir.resolve("s"), A, 2, 2)) {
+            assertThrows(ArithmeticException.class, () -> new OutOfCoreLUDecomposition(file).execute(1e-12));
+        }
+        try (TiledMatrixFile file = TiledMatrixFile.create(dir.resolve("r"), 3, 4, 2, 2)) {
+            assertThrows(IllegalArgumentException.class, () -> new OutOfCoreLUDecomposition(file));
+        }
+    }
+}
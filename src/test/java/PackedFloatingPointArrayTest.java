@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.ieee.FloatingPoint;
+import de.home_skrobanek.fnum.ieee.NumberFormat;
+import de.home_skrobanek.fnum.ieee.PackedFloatingPointArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class PackedFloatingPointArrayTest {
+
+    private static double[] randomValues(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+            values[i] = random.nextGaussian() * Math.pow(10, random.nextInt(12) - 6);
+        values[0] = 0;
+        return values;
+    }
+
+    @Test
+    void testBinary32Layout() {
+        PackedFloatingPointArray packed = new PackedFloatingPointArray(NumberFormat.of(2, 25, 7), 1000);
+
+        assertEquals(33, packed.getBitsPerElement());
+        assertTrue(packed.getMemoryBytes() <= 1000 * 33 / 8 + 3 * 8);
+    }
+
+    @Test
+    void testRoundTripMatchesRounding() {
+        int[][] formats = {{2, 25, 7}, {2, 12, 5}, {10, 9, 2}, {10, 3, 2}, {3, 7, 3}, {10, 18, 2}};
+        double[] values = randomValues(20_000, 1);
+
+        for (int[] f : formats) {
+            NumberFormat format = NumberFormat.of(f[0], f[1], f[2]);
+            PackedFloatingPointArray packed = PackedFloatingPointArray.of(values, format);
+            double[] decoded = packed.decode();
+
+            for (int i = 0; i < values.length; i++)
+                assertEquals(format.round(values[i]), decoded[i], 0.0, format + " x=" + values[i]);
+        }
+    }
+
+    @Test
+    void testBinaryFormatWiderThanDouble() {
+        // p = 60 significant bits, more than the 53 of a double
+        NumberFormat format = NumberFormat.of(2, 61, 10);
+        double[] values = {1.5, 3.14159, -2.75, 0x1.fffffffffffffp-3, -1e-200};
+        PackedFloatingPointArray packed = PackedFloatingPointArray.of(values, format);
+
+        double[] decoded = packed.decode();
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], packed.getDouble(i), 0.0);
+            assertEquals(values[i], decoded[i], 0.0);
+            assertEquals(values[i], packed.get(i).getFloatValue(), 0.0);
+        }
+    }
+
+    @Test
+    void testUnalignedRanges() {
+        NumberFormat format = NumberFormat.of(10, 5, 2);
+        double[] values = randomValues(300, 2);
+        PackedFloatingPointArray packed = new PackedFloatingPointArray(format, 400);
+
+        packed.encode(values, 10, 37, 250);
+        double[] decoded = new double[260];
+        packed.decode(37, decoded, 5, 250);
+
+        assertEquals(0.0, packed.getDouble(36), 0.0);
+        assertEquals(0.0, packed.getDouble(287), 0.0);
+        for (int i = 0; i < 250; i++)
+            assertEquals(format.round(values[10 + i]), decoded[5 + i], 0.0);
+        assertThrows(IndexOutOfBoundsException.class, () -> packed.encode(values, 0, 200, 201));
+    }
+
+    @Test
+    void testFloatingPointAccess() {
+        NumberFormat format = NumberFormat.of(10, 4, 1);
+        PackedFloatingPointArray packed = new PackedFloatingPointArray(format, 3);
+        FloatingPoint x = FloatingPoint.valueOf(-0.0456, format);
+
+        packed.set(1, x);
+        FloatingPoint y = packed.get(1);
+
+        assertEquals(x.getMantissa(), y.getMantissa());
+        assertEquals(x.getExponent(), y.getExponent());
+        assertTrue(y.isNegative());
+        assertTrue(packed.get(0).isZero());
+        assertThrows(IllegalArgumentException.class,
+                () -> packed.set(0, FloatingPoint.valueOf(1, NumberFormat.of(10, 5, 1))));
+    }
+
+    @Test
+    void testSetDoubleDoesNotTouchNeighbours() {
+        NumberFormat format = NumberFormat.of(2, 12, 5);
+        double[] values = randomValues(200, 3);
+        PackedFloatingPointArray packed = PackedFloatingPointArray.of(values, format);
+
+        packed.setDouble(100, 1.5);
+
+        assertEquals(1.5, packed.getDouble(100), 0.0);
+        assertEquals(format.round(values[99]), packed.getDouble(99), 0.0);
+        assertEquals(format.round(values[101]), packed.getDouble(101), 0.0);
+    }
+
+    @Test
+    void testRejectsNonFiniteValues() {
+        PackedFloatingPointArray packed = new PackedFloatingPointArray(NumberFormat.of(2, 25, 7), 2);
+
+        assertThrows(IllegalArgumentException.class, () -> packed.setDouble(0, Double.NaN));
+    }
+}
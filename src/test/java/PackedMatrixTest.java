@@ -0,0 +1,167 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.PackedStorage;
+import de.home_skrobanek.fnum.matrix.SymmetricMatrix;
+import de.home_skrobanek.fnum.matrix.TriangularMatrix;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class PackedMatrixTest {
+
+    private static Matrix random(int n, int m, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, m);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        return A;
+    }
+
+    private static Matrix triangle(Matrix A, boolean lower) {
+        int n = A.getRowCount();
+        Matrix T = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                if (lower ? i >= j : i <= j)
+                    T.setEntry(i, j, A.getEntry(i, j) + (i == j ? n : 0));
+        return T;
+    }
+
+    @Test
+    void testLayoutsAddressEveryEntryOnce() {
+        for (PackedStorage storage : PackedStorage.values()) {
+            for (int n = 1; n <= 9; n++) {
+                SymmetricMatrix S = new SymmetricMatrix(n, storage);
+                assertEquals(n * (n + 1) / 2, S.getStoredEntries());
+                for (int i = 0; i < n; i++)
+                    for (int j = 0; j <= i; j++)
+                        S.setEntry(i, j, 100 * i + j);
+                for (int i = 0; i < n; i++)
+                    for (int j = 0; j <= i; j++) {
+                        assertEquals(100 * i + j, S.getEntry(i, j), 0.0, storage + " n=" + n);
+                        assertEquals(100 * i + j, S.getEntry(j, i), 0.0);
+                    }
+            }
+        }
+    }
+
+    @Test
+    void testTriangularEntries() {
+        TriangularMatrix T = new TriangularMatrix(4, false, PackedStorage.RECTANGULAR_FULL_PACKED);
+        T.setEntry(1, 3, 2.5);
+        assertEquals(2.5, T.getEntry(1, 3), 0.0);
+        assertEquals(0.0, T.getEntry(3, 1), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> T.setEntry(3, 1, 1.0));
+    }
+
+    @Test
+    void testTriangularKernelsMatchDense() {
+        int n = 23, m = 5;
+        Matrix B = random(n, m, 2);
+        for (PackedStorage storage : PackedStorage.values()) {
+            for (boolean lower : new boolean[]{true, false}) {
+                Matrix dense = triangle(random(n, n, 1), lower);
+                TriangularMatrix T = TriangularMatrix.fromMatrix(dense, lower, storage);
+                assertTrue(T.toMatrix().equals(dense, 0.0));
+
+                assertTrue(T.multiply(B).equals(dense.multiply(B), 1e-12));
+
+                Matrix X = T.solve(B);
+                assertTrue(dense.multiply(X).equals(B, 1e-12));
+
+                double[] x = new double[n];
+                for (int i = 0; i < n; i++)
+                    x[i] = B.getEntry(i, 0);
+                double[] y = T.multiply(x, new double[n]);
+                T.solve(y, y);
+                for (int i = 0; i < n; i++)
+                    assertEquals(x[i], y[i], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void testSingularTriangularSolveThrows() {
+        TriangularMatrix T = new TriangularMatrix(3, true);
+        T.setEntry(0, 0, 1);
+        T.setEntry(2, 2, 1);
+        assertThrows(ArithmeticException.class, () -> T.solve(new Vector(new double[]{1, 2, 3})));
+    }
+
+    @Test
+    void testSymmetricKernelsMatchDense() {
+        int n = 18, m = 4;
+        Matrix B = random(n, m, 4);
+        Matrix A = random(n, 7, 5);
+        for (PackedStorage storage : PackedStorage.values()) {
+            SymmetricMatrix S = SymmetricMatrix.fromMatrix(random(n, n, 3), storage);
+            Matrix dense = S.toMatrix();
+
+            assertTrue(S.multiply(B).equals(dense.multiply(B), 1e-12));
+
+            Vector x = new Vector(n);
+            for (int i = 0; i < n; i++)
+                x.addValue(i, B.getEntry(i, 1));
+            Vector y = S.multiply(x);
+            for (int i = 0; i < n; i++)
+                assertEquals(dense.multiply(B).getEntry(i, 1), y.getValue(i), 1e-12);
+
+            Matrix At = new Matrix(7, n);
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < 7; j++)
+                    At.setEntry(j, i, A.getEntry(i, j));
+            Matrix gram = A.multiply(At);
+            assertTrue(SymmetricMatrix.gram(A, storage).toMatrix().equals(gram, 1e-12));
+
+            // S = 2 · A · A^T - S
+            S.rankUpdate(2.0, A, -1.0);
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    assertEquals(2 * gram.getEntry(i, j) - dense.getEntry(i, j), S.getEntry(i, j), 1e-12);
+        }
+    }
+
+    @Test
+    void testLUTriangularFactors() {
+        int n = 12;
+        Matrix A = triangle(random(n, n, 6), true).multiply(triangle(random(n, n, 7), false));
+        LUDecomposition lu = new LUDecomposition(A);
+        assertThrows(IllegalStateException.class, lu::getTriangularL);
+        lu.execute(1e-12);
+
+        TriangularMatrix L = lu.getTriangularL();
+        TriangularMatrix R = lu.getTriangularR();
+        assertNull(L.getStorage());
+        assertTrue(L.toMatrix().equals(lu.getL(), 0.0));
+        assertTrue(R.toMatrix().equals(lu.getR(), 0.0));
+
+        // The views share the rows of the factors
+        R.setEntry(0, n - 1, 5);
+        assertEquals(5, lu.getR().getEntry(0, n - 1));
+        assertEquals(0, R.getEntry(n - 1, 0));
+        lu.execute(1e-12);
+
+        Matrix B = random(n, 3, 8);
+        Matrix X = R.solve(L.solve(B));
+        assertTrue(A.multiply(X).equals(B, 1e-10));
+        double[] x = R.solve(L.solve(column(B, 0), new double[n]), new double[n]);
+        assertArrayEquals(x, column(X, 0), 1e-12);
+
+        // View kernels agree with packed storage
+        TriangularMatrix packed = TriangularMatrix.fromMatrix(lu.getR(), false, PackedStorage.PACKED);
+        assertTrue(packed.multiply(B).equals(R.multiply(B), 1e-12));
+        assertArrayEquals(packed.multiply(x, new double[n]), R.multiply(x, new double[n]), 1e-12);
+        assertArrayEquals(L.multiply(R.multiply(x, new double[n]), new double[n]), column(B, 0), 1e-10);
+    }
+
+    private static double[] column(Matrix A, int j) {
+        double[] c = new double[A.getRowCount()];
+        for (int i = 0; i < c.length; i++)
+            c[i] = A.getEntry(i, j);
+        return c;
+    }
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.CholeskyDecomposition;
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixFactory;
+import de.home_skrobanek.fnum.matrix.PivotedLUDecomposition;
+import de.home_skrobanek.fnum.sparse.ConjugateGradient;
+import de.home_skrobanek.fnum.sparse.SparseMatrix;
+import de.home_skrobanek.fnum.utils.DoublePair;
+import de.home_skrobanek.fnum.utils.IntDoublePair;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Allocation of the pair results once the JIT has compiled the callers,
+ * run by {@code mvn test -Pbenchmark}. Whether a pair is scalar-replaced
+ * depends on inlining decisions of the JIT, so this is no regular test.
+ */
+public class PairBenchmark {
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the bytes allocated per call once the JIT has compiled the
+     * call. Compilation runs in the background, with a single core it may
+     * lag behind, so the measurement is repeated after a pause until it is
+     * allocation-free or the rounds are exhausted.
+     */
+    private static long bytesPerCall(Runnable call) throws InterruptedException {
+        for (int i = 0; i < 20_000; i++)
+            call.run();
+
+        // Reading the counter allocates itself, measure that overhead first
+        long calibration = allocatedBytes();
+        long overhead = allocatedBytes() - calibration;
+
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 20 && allocated / 10_000 > 0; round++) {
+            Thread.sleep(round * 10L);
+            long before = allocatedBytes();
+            for (int i = 0; i < 10_000; i++)
+                call.run();
+            allocated = allocatedBytes() - before - overhead;
+        }
+        return allocated / 10_000;
+    }
+
+    @Test
+    void logDeterminantIsScalarReplaced() throws InterruptedException {
+        int n = 6;
+        Matrix A = MatrixFactory.random(n, n, 4);
+        for (int i = 0; i < n; i++)
+            A.setEntry(i, i, A.getEntry(i, i) + n);
+        PivotedLUDecomposition pivoted = new PivotedLUDecomposition(A);
+        pivoted.execute(0);
+        Matrix S = MatrixFactory.symmetricPositiveDefinite(n, 5);
+        LUDecomposition lu = new LUDecomposition(S);
+        lu.execute(0);
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(S);
+        cholesky.execute();
+
+        // A pair that escaped would cost at least 24 bytes per call
+        double[] sink = new double[1];
+        assertEquals(0, bytesPerCall(() -> {
+            DoublePair log = pivoted.getLogDeterminant();
+            sink[0] += log.getFirst() * log.getSecond();
+        }));
+        assertEquals(0, bytesPerCall(() -> {
+            DoublePair log = lu.getLogDeterminant();
+            sink[0] += log.getFirst() * log.getSecond();
+        }));
+        assertEquals(0, bytesPerCall(() -> {
+            DoublePair log = cholesky.getLogDeterminant();
+            sink[0] += log.getFirst() * log.getSecond();
+        }));
+        assertTrue(sink[0] != 0);
+    }
+
+    @Test
+    void solveResult(TestReporter reporter) throws InterruptedException {
+        int n = 6;
+        Matrix S = MatrixFactory.symmetricPositiveDefinite(n, 5);
+        ConjugateGradient cg = new ConjugateGradient(SparseMatrix.fromMatrix(S), null);
+        Vector b = new Vector(1, 2, 3, 4, 5, 6), x = new Vector(n);
+
+        // The iteration is too large to be inlined, so the pair escapes and
+        // the bytes are only reported
+        double[] sink = new double[1];
+        long bytes = bytesPerCall(() -> {
+            for (int i = 0; i < n; i++)
+                x.addValue(i, 0);
+            IntDoublePair result = cg.solve(b, x, 1e-10, 50);
+            sink[0] += result.getFirst() + result.getSecond();
+        });
+        reporter.publishEntry("ConjugateGradient.solve", bytes + " bytes/call");
+        assertTrue(sink[0] != 0);
+    }
+}
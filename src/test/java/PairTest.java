@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.CholeskyDecomposition;
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixFactory;
+import de.home_skrobanek.fnum.matrix.PivotedLUDecomposition;
+import de.home_skrobanek.fnum.utils.DoublePair;
+import de.home_skrobanek.fnum.utils.IntDoublePair;
+import de.home_skrobanek.fnum.utils.Pair;
+import org.junit.jupiter.api.Test;
+
+public class PairTest {
+
+    @Test
+    void testValueSemantics() {
+        Pair<String, Integer> pair = Pair.of("a", 1);
+        assertEquals("a", pair.getFirst());
+        assertEquals(1, pair.getSecond());
+        assertEquals(Pair.of("a", 1), pair);
+        assertEquals(Pair.of("a", 1).hashCode(), pair.hashCode());
+        assertNotEquals(Pair.of("a", 2), pair);
+        assertEquals(Pair.of(null, null), Pair.of(null, null));
+        assertEquals("(a, 1)", pair.toString());
+
+        DoublePair d = new DoublePair(1.5, -2);
+        assertEquals(1.5, d.getFirst());
+        assertEquals(new DoublePair(1.5, -2), d);
+        assertEquals(new DoublePair(Double.NaN, 0), new DoublePair(Double.NaN, 0));
+        assertNotEquals(new DoublePair(0.0, 0), new DoublePair(-0.0, 0));
+
+        IntDoublePair i = new IntDoublePair(3, 0.25);
+        assertEquals(3, i.getFirst());
+        assertEquals(new IntDoublePair(3, 0.25).hashCode(), i.hashCode());
+        assertNotEquals(new IntDoublePair(4, 0.25), i);
+    }
+
+    @Test
+    void testLogDeterminant() {
+        Matrix A = MatrixFactory.random(8, 8, 1);
+        PivotedLUDecomposition pivoted = new PivotedLUDecomposition(A);
+        pivoted.execute(0);
+        double det = pivoted.getDeterminant();
+        DoublePair log = pivoted.getLogDeterminant();
+        assertEquals(Math.signum(det), log.getFirst());
+        assertEquals(Math.log(Math.abs(det)), log.getSecond(), 1e-12);
+
+        Matrix D = MatrixFactory.symmetricPositiveDefinite(8, 2);
+        LUDecomposition lu = new LUDecomposition(D);
+        lu.execute(0);
+        assertEquals(Math.log(lu.getDeterminant()), lu.getLogDeterminant().getSecond(), 1e-12);
+        assertEquals(1, lu.getLogDeterminant().getFirst());
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(D);
+        cholesky.execute();
+        assertEquals(lu.getLogDeterminant().getSecond(), cholesky.getLogDeterminant().getSecond(), 1e-12);
+
+        // det = 400^400 overflows, its logarithm does not
+        Matrix big = MatrixFactory.symmetricPositiveDefinite(400, 3);
+        PivotedLUDecomposition large = new PivotedLUDecomposition(big);
+        large.execute(0);
+        assertEquals(Double.POSITIVE_INFINITY, Math.abs(large.getDeterminant()));
+        CholeskyDecomposition largeCholesky = new CholeskyDecomposition(big);
+        largeCholesky.execute();
+        assertEquals(largeCholesky.getLogDeterminant().getSecond(), large.getLogDeterminant().getSecond(), 1e-9);
+        assertTrue(large.getLogDeterminant().getSecond() > 400 * Math.log(300));
+
+        assertThrows(IllegalStateException.class, () -> new LUDecomposition(D).getLogDeterminant());
+    }
+
+    @Test
+    void testLogDeterminantOfZeroPivot() {
+        // Without pivoting the zero pivot is followed by the pivot -Infinity
+        LUDecomposition lu = new LUDecomposition(new Matrix(new double[][]{{0, 1}, {1, 0}}));
+        lu.execute(0);
+        assertEquals(new DoublePair(0, Double.NEGATIVE_INFINITY), lu.getLogDeterminant());
+    }
+}
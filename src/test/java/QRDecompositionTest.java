@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.QRDecomposition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class QRDecompositionTest {
+
+    private static double[][] random(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++)
+            for (int j = 0; j < n; j++)
+                a[i][j] = random.nextDouble() - 0.5;
+        return a;
+    }
+
+    /** Checks Q orthogonal, R upper trapezoidal and Q · R = A */
+    private static void assertDecomposes(double[][] a, QRDecomposition qr) {
+        int m = a.length, n = a[0].length;
+        assertEquals(m, qr.getRowCount());
+        assertEquals(n, qr.getColumnCount());
+        Matrix Q = qr.getQ(), R = qr.getR();
+
+        Matrix Qt = Q.copy();
+        Qt.transpose();
+        Matrix identity = Qt.multiply(Q);
+        for (int i = 0; i < m; i++)
+            for (int j = 0; j < m; j++)
+                assertEquals(i == j ? 1.0 : 0.0, identity.getEntry(i, j), 1e-12);
+        for (int i = 0; i < m; i++)
+            for (int j = 0; j < Math.min(i, n); j++)
+                assertEquals(0.0, R.getEntry(i, j), 1e-12);
+        assertTrue(Q.multiply(R).equals(new Matrix(a), 1e-12));
+    }
+
+    @Test
+    void testDecomposition() {
+        double[][] a = random(9, 5, 1);
+        assertDecomposes(a, new QRDecomposition(new Matrix(a)));
+        double[][] wide = random(4, 7, 2);
+        assertDecomposes(wide, new QRDecomposition(new Matrix(wide)));
+    }
+
+    @Test
+    void testRowUpdates() {
+        double[][] a = random(8, 4, 3);
+        QRDecomposition qr = new QRDecomposition(new Matrix(a));
+
+        double[] row = {1, 2, 3, 4};
+        qr.insertRow(3, row);
+        double[][] inserted = new double[9][];
+        for (int i = 0, src = 0; i < 9; i++)
+            inserted[i] = i == 3 ? row : a[src++];
+        assertDecomposes(inserted, qr);
+
+        qr.deleteRow(6);
+        double[][] deleted = new double[8][];
+        for (int i = 0, dst = 0; i < 9; i++)
+            if (i != 6)
+                deleted[dst++] = inserted[i];
+        assertDecomposes(deleted, qr);
+    }
+
+    @Test
+    void testColumnUpdates() {
+        double[][] a = random(7, 3, 4);
+        QRDecomposition qr = new QRDecomposition(new Matrix(a));
+
+        double[] column = {1, -1, 2, -2, 3, -3, 4};
+        qr.insertColumn(1, column);
+        double[][] inserted = new double[7][4];
+        for (int i = 0; i < 7; i++) {
+            inserted[i][0] = a[i][0];
+            inserted[i][1] = column[i];
+            inserted[i][2] = a[i][1];
+            inserted[i][3] = a[i][2];
+        }
+        assertDecomposes(inserted, qr);
+
+        qr.deleteColumn(0);
+        double[][] deleted = new double[7][3];
+        for (int i = 0; i < 7; i++)
+            System.arraycopy(inserted[i], 1, deleted[i], 0, 3);
+        assertDecomposes(deleted, qr);
+    }
+
+    @Test
+    void testLeastSquares() {
+        // Fit y = 1 + 2t exactly through five points
+        double[][] a = new double[5][2];
+        double[] b = new double[5];
+        for (int i = 0; i < 5; i++) {
+            a[i][0] = 1;
+            a[i][1] = i;
+            b[i] = 1 + 2 * i;
+        }
+        QRDecomposition qr = new QRDecomposition(new Matrix(a));
+        double[] x = qr.solve(b);
+        assertEquals(1.0, x[0], 1e-12);
+        assertEquals(2.0, x[1], 1e-12);
+
+        // Sliding window: drop the first point, add a new one
+        qr.deleteRow(0);
+        qr.insertRow(4, new double[]{1, 5});
+        double[] shifted = {3, 5, 7, 9, 11};
+        x = qr.solve(shifted);
+        assertEquals(1.0, x[0], 1e-12);
+        assertEquals(2.0, x[1], 1e-12);
+    }
+}
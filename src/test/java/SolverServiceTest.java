@@ -0,0 +1,281 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.FactorizationCache;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.SolverService;
+import de.home_skrobanek.fnum.metrics.InMemoryMetricsSink;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Tag("metrics")
+public class SolverServiceTest {
+
+    private InMemoryMetricsSink sink;
+
+    @BeforeEach
+    void setUp() {
+        FactorizationCache.clear();
+        sink = new InMemoryMetricsSink();
+        Metrics.setSink(sink);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setSink(null);
+        FactorizationCache.clear();
+    }
+
+    private static Matrix random(int n, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        return A;
+    }
+
+    private static Vector randomVector(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+            values[i] = random.nextDouble();
+        return new Vector(values);
+    }
+
+    private static void assertSolves(Matrix A, Vector b, Vector x) {
+        for (int i = 0; i < A.getRowCount(); i++) {
+            double sum = 0;
+            for (int j = 0; j < A.getColumnCount(); j++)
+                sum += A.getEntry(i, j) * x.getValue(j);
+            assertEquals(b.getValue(i), sum, 1e-9);
+        }
+    }
+
+    @Test
+    void testConcurrentClients() throws Exception {
+        Matrix[] matrices = {random(40, 1), random(50, 2), random(60, 3)};
+        try (SolverService service = new SolverService(2, 16)) {
+            List<Thread> clients = new ArrayList<>();
+            List<AssertionError> errors = new ArrayList<>();
+            for (int c = 0; c < 6; c++) {
+                int client = c;
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (int r = 0; r < 10; r++) {
+                            Matrix A = matrices[(client + r) % matrices.length];
+                            Vector b = randomVector(A.getRowCount(), client * 100 + r);
+                            assertSolves(A, b, service.solve(A, b).get(10, TimeUnit.SECONDS));
+                        }
+                    } catch (Exception e) {
+                        synchronized (errors) {
+                            errors.add(new AssertionError(e));
+                        }
+                    } catch (AssertionError e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                });
+                clients.add(thread);
+                thread.start();
+            }
+            for (Thread thread : clients)
+                thread.join();
+            assertEquals(List.of(), errors);
+            assertEquals(0, service.getPendingCount());
+        }
+        // Every matrix is decomposed once, later batches hit the cache
+        assertEquals(3, sink.getStats(Operation.LU_EXECUTE).getCount());
+    }
+
+    @Test
+    void testRequestsForOneMatrixAreGrouped() throws Exception {
+        int n = 300, requests = 40;
+        Matrix A = random(n, 4);
+
+        // Holds the only compute thread in the decomposition of another matrix
+        CountDownLatch blocked = new CountDownLatch(1), release = new CountDownLatch(1);
+        Metrics.setSink(new InMemoryMetricsSink() {
+            @Override
+            public void record(Operation operation, long flops, long bytes, long nanos, int threads) {
+                super.record(operation, flops, bytes, nanos, threads);
+                if (operation == Operation.LU_EXECUTE && blocked.getCount() > 0) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+
+        try (SolverService service = new SolverService(1, requests + 1)) {
+            CompletableFuture<Vector> other = service.solve(random(50, 5), randomVector(50, 0));
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+            List<CompletableFuture<Vector>> futures = new ArrayList<>();
+            List<Vector> rhs = new ArrayList<>();
+            for (int r = 0; r < requests; r++) {
+                Vector b = randomVector(n, r);
+                rhs.add(b);
+                futures.add(service.solve(A, b));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (service.getWaitingCount() < requests && System.nanoTime() < deadline)
+                Thread.sleep(1);
+            assertEquals(requests, service.getWaitingCount());
+            release.countDown();
+
+            other.get(10, TimeUnit.SECONDS);
+            for (int r = 0; r < requests; r++)
+                assertSolves(A, rhs.get(r), futures.get(r).get(10, TimeUnit.SECONDS));
+
+            // All requests for A were queued behind the other matrix and are solved as one batch
+            assertEquals(2, service.getBatchCount());
+        } finally {
+            release.countDown();
+        }
+        assertEquals(2, ((InMemoryMetricsSink) Metrics.getSink()).getStats(Operation.LU_EXECUTE).getCount());
+    }
+
+    @Test
+    void testBackpressureBoundsPendingRequests() throws Exception {
+        Matrix A = random(200, 5);
+        try (SolverService service = new SolverService(1, 1)) {
+            CompletableFuture<Vector> first = service.solve(A, randomVector(200, 1));
+            CompletableFuture<Vector> second = service.solve(A, randomVector(200, 2));
+            // The second call could only return once the first request completed
+            assertTrue(first.isDone());
+            assertTrue(service.getPendingCount() <= 1);
+            second.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testFailuresCompleteExceptionally() throws Exception {
+        try (SolverService service = new SolverService(1, 4)) {
+            Matrix singular = new Matrix(new double[][]{{1, 2}, {2, 4}});
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> service.solve(singular, new Vector(1, 1)).get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof ArithmeticException);
+
+            e = assertThrows(ExecutionException.class,
+                    () -> service.solve(new Matrix(2, 3), new Vector(1, 1)).get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+
+            e = assertThrows(ExecutionException.class,
+                    () -> service.solve(random(3, 6), new Vector(1, 1)).get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+
+            // The service keeps working after failures
+            Matrix A = random(4, 7);
+            Vector b = randomVector(4, 8);
+            assertSolves(A, b, service.solve(A, b).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testClosedServiceRejectsRequests() {
+        SolverService service = new SolverService(1, 2);
+        service.close();
+        assertThrows(IllegalStateException.class, () -> service.solve(random(2, 9), new Vector(1, 1)));
+    }
+
+    /** Waits until the thread blocks on a lock or semaphore */
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.BLOCKED
+                && System.nanoTime() < deadline)
+            Thread.sleep(1);
+    }
+
+    @Test
+    void testCloseRacesBlockedSubmitter() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1), release = new CountDownLatch(1);
+        Metrics.setSink(new InMemoryMetricsSink() {
+            @Override
+            public void record(Operation operation, long flops, long bytes, long nanos, int threads) {
+                super.record(operation, flops, bytes, nanos, threads);
+                if (operation == Operation.LU_EXECUTE && blocked.getCount() > 0) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+
+        SolverService service = new SolverService(1, 1);
+        try {
+            CompletableFuture<Vector> first = service.solve(random(20, 10), randomVector(20, 1));
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+            // The submitter passed the closed check and waits for the only permit
+            List<CompletableFuture<Vector>> submitted = new ArrayList<>();
+            Thread submitter = new Thread(() -> submitted.add(service.solve(random(20, 11), randomVector(20, 2))));
+            submitter.start();
+            awaitBlocked(submitter);
+            Thread closer = new Thread(service::close);
+            closer.start();
+            awaitBlocked(closer);
+            release.countDown();
+
+            closer.join(TimeUnit.SECONDS.toMillis(10));
+            submitter.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(closer.isAlive());
+            assertFalse(submitter.isAlive());
+            first.get(10, TimeUnit.SECONDS);
+            assertEquals(1, submitted.size());
+            submitted.get(0).get(10, TimeUnit.SECONDS);
+            assertThrows(IllegalStateException.class, () -> service.solve(random(2, 12), new Vector(1, 1)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testCloseRacesSubmitters() throws Exception {
+        Matrix A = random(8, 13);
+        Vector b = randomVector(8, 3);
+        for (int round = 0; round < 200; round++) {
+            SolverService service = new SolverService(1, 2);
+            List<CompletableFuture<Vector>> submitted = Collections.synchronizedList(new ArrayList<>());
+            Thread[] submitters = new Thread[3];
+            for (int t = 0; t < submitters.length; t++) {
+                submitters[t] = new Thread(() -> {
+                    try {
+                        while (true)
+                            submitted.add(service.solve(A, b));
+                    } catch (IllegalStateException e) {
+                        // closed
+                    }
+                });
+                submitters[t].start();
+            }
+            service.close();
+            for (Thread submitter : submitters) {
+                submitter.join(TimeUnit.SECONDS.toMillis(10));
+                assertFalse(submitter.isAlive(), "Submitter blocked after close in round " + round);
+            }
+            for (CompletableFuture<Vector> future : submitted)
+                assertTrue(future.isDone());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.sparse.SparseMatrix;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class SparseDenseTest {
+
+    private static SparseMatrix randomSparse(int n, int m, int perRow, long seed) {
+        Random random = new Random(seed);
+        int[] rows = new int[n * perRow], cols = new int[n * perRow];
+        double[] values = new double[n * perRow];
+        for (int e = 0; e < rows.length; e++) {
+            rows[e] = e / perRow;
+            cols[e] = random.nextInt(m);
+            values[e] = random.nextDouble() - 0.5;
+        }
+        return SparseMatrix.fromTriplets(n, m, rows, cols, values);
+    }
+
+    private static Matrix randomDense(int n, int m, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, m);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        return A;
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double tol) {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        assertEquals(expected.getColumnCount(), actual.getColumnCount());
+        for (int i = 0; i < expected.getRowCount(); i++)
+            for (int j = 0; j < expected.getColumnCount(); j++)
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), tol);
+    }
+
+    @Test
+    void testMultiplyMatchesDense() {
+        // More rows than one chunk, so the parallel path runs
+        SparseMatrix A = randomSparse(3000, 500, 6, 1);
+        Matrix B = randomDense(500, 8, 2);
+        Matrix expected = A.toMatrix().multiply(B);
+
+        assertMatrixEquals(expected, A.multiply(B), 1e-12);
+        Matrix C = new Matrix(3000, 8, 7.0);
+        assertSame(C, A.multiply(B, C));
+        assertMatrixEquals(expected, C, 1e-12);
+    }
+
+    @Test
+    void testMultiplyAdd() {
+        SparseMatrix A = randomSparse(40, 30, 4, 3);
+        Matrix B = randomDense(30, 5, 4);
+        Matrix C = randomDense(40, 5, 5);
+        Matrix expected = A.toMatrix().multiply(B);
+        for (int i = 0; i < 40; i++)
+            for (int j = 0; j < 5; j++)
+                expected.setEntry(i, j, C.getEntry(i, j) - 2 * expected.getEntry(i, j));
+
+        long count = C.getModificationCount();
+        A.multiplyAdd(B, C, -2);
+        assertMatrixEquals(expected, C, 1e-12);
+        assertNotEquals(count, C.getModificationCount());
+        assertThrows(SameDimensionsException.class, () -> A.multiply(randomDense(29, 5, 6)));
+        assertThrows(SameDimensionsException.class, () -> A.multiply(B, new Matrix(40, 4)));
+    }
+
+    @Test
+    void testSampledProduct() {
+        SparseMatrix S = randomSparse(300, 200, 5, 7);
+        Matrix X = randomDense(300, 16, 8);
+        Matrix Y = randomDense(200, 16, 9);
+
+        Matrix Yt = Y.copy();
+        Yt.transpose();
+        Matrix full = X.multiply(Yt);
+        SparseMatrix sampled = S.sampledProduct(X, Y);
+        assertTrue(sampled.hasSamePattern(S));
+        for (int i = 0; i < 300; i++)
+            for (int j = 0; j < 200; j++)
+                assertEquals(S.getEntry(i, j) * full.getEntry(i, j), sampled.getEntry(i, j), 1e-12);
+
+        double[] out = new double[S.getNonZeroCount()];
+        assertSame(out, S.sampledProduct(X, Y, out));
+        assertThrows(SameDimensionsException.class, () -> S.sampledProduct(X, Y, new double[1]));
+        assertThrows(SameDimensionsException.class, () -> S.sampledProduct(X, randomDense(200, 15, 1)));
+    }
+
+    @Test
+    void testAddTo() {
+        SparseMatrix A = randomSparse(50, 60, 3, 10);
+        Matrix C = randomDense(50, 60, 11);
+        Matrix expected = C.copy();
+        Matrix dense = A.toMatrix();
+        for (int i = 0; i < 50; i++)
+            for (int j = 0; j < 60; j++)
+                expected.setEntry(i, j, expected.getEntry(i, j) + 0.5 * dense.getEntry(i, j));
+
+        assertSame(C, A.addTo(C, 0.5));
+        assertMatrixEquals(expected, C, 1e-15);
+        assertThrows(SameDimensionsException.class, () -> A.addTo(new Matrix(60, 50), 1));
+    }
+}
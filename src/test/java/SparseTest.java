@@ -0,0 +1,224 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.sparse.Ordering;
+import de.home_skrobanek.fnum.sparse.SparseCholeskyDecomposition;
+import de.home_skrobanek.fnum.sparse.SparseMatrix;
+import de.home_skrobanek.fnum.sparse.SymbolicCholesky;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SparseTest {
+
+    /** 5-point Laplacian on a k x k grid plus shift on the diagonal */
+    private static SparseMatrix laplacian(int k, double shift) {
+        List<int[]> entries = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        for (int r = 0; r < k; r++)
+            for (int c = 0; c < k; c++) {
+                int v = r * k + c;
+                entries.add(new int[]{v, v});
+                values.add(4 + shift);
+                int[][] neighbours = {{r - 1, c}, {r + 1, c}, {r, c - 1}, {r, c + 1}};
+                for (int[] w : neighbours)
+                    if (w[0] >= 0 && w[0] < k && w[1] >= 0 && w[1] < k) {
+                        entries.add(new int[]{v, w[0] * k + w[1]});
+                        values.add(-1.0);
+                    }
+            }
+        int[] i = new int[entries.size()], j = new int[entries.size()];
+        double[] x = new double[entries.size()];
+        for (int e = 0; e < x.length; e++) {
+            i[e] = entries.get(e)[0];
+            j[e] = entries.get(e)[1];
+            x[e] = values.get(e);
+        }
+        return SparseMatrix.fromTriplets(k * k, k * k, i, j, x);
+    }
+
+    private static double[] random(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = random.nextDouble() - 0.5;
+        return x;
+    }
+
+    private static void assertPermutation(int[] perm, int n) {
+        assertEquals(n, perm.length);
+        boolean[] seen = new boolean[n];
+        for (int p : perm) {
+            assertFalse(seen[p]);
+            seen[p] = true;
+        }
+    }
+
+    @Test
+    void testSparseMatrixOperations() {
+        SparseMatrix A = SparseMatrix.fromTriplets(3, 4,
+                new int[]{0, 2, 0, 1, 2, 0},
+                new int[]{3, 1, 0, 2, 1, 3},
+                new double[]{1, 2, 3, 4, 5, 6});
+        assertEquals(4, A.getNonZeroCount());
+        assertEquals(7, A.getEntry(0, 3));
+        assertEquals(7, A.getEntry(2, 1));
+        assertEquals(0, A.getEntry(1, 1));
+
+        double[] y = A.multiply(new double[]{1, 2, 3, 4}, new double[3]);
+        assertArrayEquals(new double[]{31, 12, 14}, y);
+        Vector v = A.multiply(new Vector(1, 2, 3, 4));
+        assertEquals(12, v.getValue(1));
+
+        Matrix dense = A.toMatrix();
+        SparseMatrix T = A.transpose();
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 4; j++)
+                assertEquals(dense.getEntry(i, j), T.getEntry(j, i));
+        assertTrue(SparseMatrix.fromMatrix(dense).hasSamePattern(A));
+        assertThrows(de.home_skrobanek.fnum.exception.SameDimensionsException.class,
+                () -> A.multiply(new double[3], new double[3]));
+
+        SparseMatrix L = laplacian(4, 0);
+        assertTrue(L.isSymmetric());
+        assertFalse(A.isSymmetric());
+        int[] perm = Ordering.REVERSE_CUTHILL_MCKEE.compute(L);
+        SparseMatrix P = L.permute(perm);
+        for (int i = 0; i < 16; i++)
+            for (int j = 0; j < 16; j++)
+                assertEquals(L.getEntry(perm[i], perm[j]), P.getEntry(i, j));
+    }
+
+    @Test
+    void testOrderingsReduceFill() {
+        SparseMatrix A = laplacian(30, 0);
+        int n = A.getRowCount();
+        int natural = SymbolicCholesky.analyze(A, Ordering.NATURAL).getFactorNonZeroCount();
+        for (Ordering ordering : Ordering.values()) {
+            int[] perm = ordering.compute(A);
+            assertPermutation(perm, n);
+            SymbolicCholesky symbolic = SymbolicCholesky.analyze(A, ordering);
+            // L holds at least the lower triangle of A, one column per node at most
+            assertTrue(symbolic.getFactorNonZeroCount() >= (A.getNonZeroCount() + n) / 2);
+            assertTrue(symbolic.getSupernodeCount() > 0 && symbolic.getSupernodeCount() <= n);
+        }
+        assertTrue(SymbolicCholesky.analyze(A, Ordering.MINIMUM_DEGREE).getFactorNonZeroCount() < natural);
+        assertTrue(SymbolicCholesky.analyze(A, Ordering.NESTED_DISSECTION).getFactorNonZeroCount() < natural);
+
+        // The tree of nested dissection is wider: fewer columns on its longest path
+        assertTrue(height(SymbolicCholesky.analyze(A, Ordering.NESTED_DISSECTION).getEliminationTree())
+                < height(SymbolicCholesky.analyze(A, Ordering.NATURAL).getEliminationTree()));
+    }
+
+    private static int height(int[] parent) {
+        int[] depth = new int[parent.length];
+        int max = 0;
+        for (int j = parent.length - 1; j >= 0; j--) {
+            if (parent[j] != -1)
+                depth[j] = depth[parent[j]] + 1;
+            max = Math.max(max, depth[j]);
+        }
+        return max;
+    }
+
+    @Test
+    void testReverseCuthillMcKeeReducesBandwidth() {
+        int n = 200;
+        Random random = new Random(7);
+        int[] shuffle = new int[n];
+        for (int i = 0; i < n; i++)
+            shuffle[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1), t = shuffle[i];
+            shuffle[i] = shuffle[j];
+            shuffle[j] = t;
+        }
+        // Band of half-width 3 with rows and columns shuffled
+        List<int[]> entries = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            for (int j = Math.max(0, i - 3); j <= Math.min(n - 1, i + 3); j++)
+                entries.add(new int[]{shuffle[i], shuffle[j]});
+        int[] rows = new int[entries.size()], cols = new int[entries.size()];
+        double[] values = new double[entries.size()];
+        for (int e = 0; e < rows.length; e++) {
+            rows[e] = entries.get(e)[0];
+            cols[e] = entries.get(e)[1];
+            values[e] = 1;
+        }
+        SparseMatrix A = SparseMatrix.fromTriplets(n, n, rows, cols, values);
+
+        assertTrue(bandwidth(A) > 50);
+        assertTrue(bandwidth(A.permute(Ordering.REVERSE_CUTHILL_MCKEE.compute(A))) <= 6);
+    }
+
+    private static int bandwidth(SparseMatrix A) {
+        int width = 0;
+        for (int i = 0; i < A.getRowCount(); i++)
+            for (int j = 0; j < A.getColumnCount(); j++)
+                if (A.getEntry(i, j) != 0)
+                    width = Math.max(width, Math.abs(i - j));
+        return width;
+    }
+
+    @Test
+    void testSolveMatchesDense() {
+        SparseMatrix A = laplacian(15, 0.1);
+        int n = A.getRowCount();
+        double[] b = random(n, 1);
+        Matrix dense = A.toMatrix();
+        Vector expected = dense.solve(new Vector(b.clone()));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (Ordering ordering : Ordering.values()) {
+            SparseCholeskyDecomposition cholesky = new SparseCholeskyDecomposition(A, ordering);
+            cholesky.execute(A, pool);
+            double[] x = cholesky.solve(b, new double[n]);
+            for (int i = 0; i < n; i++)
+                assertEquals(expected.getValue(i), x[i], 1e-12, ordering.toString());
+
+            double[] r = A.multiply(x, new double[n]);
+            for (int i = 0; i < n; i++)
+                assertEquals(b[i], r[i], 1e-12);
+            assertEquals(dense.getDet(), cholesky.getDeterminant(), 1e-8 * Math.abs(dense.getDet()));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void testRefactorizationReusesAnalysis() {
+        SparseMatrix A = laplacian(12, 0);
+        SymbolicCholesky symbolic = SymbolicCholesky.analyze(A, Ordering.NESTED_DISSECTION);
+        SparseCholeskyDecomposition cholesky = new SparseCholeskyDecomposition(symbolic);
+        assertThrows(IllegalStateException.class, () -> cholesky.solve(new Vector(144)));
+
+        int n = A.getRowCount();
+        double[] b = random(n, 2);
+        for (double shift : new double[]{0, 1, 10}) {
+            SparseMatrix B = laplacian(12, shift);
+            cholesky.execute(B);
+            Vector x = cholesky.solve(new Vector(b.clone()));
+            Vector r = B.multiply(x);
+            for (int i = 0; i < n; i++)
+                assertEquals(b[i], r.getValue(i), 1e-12);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> cholesky.execute(laplacian(11, 0)));
+        SparseMatrix other = SparseMatrix.fromTriplets(n, n, new int[]{0, 1}, new int[]{0, 1}, new double[]{1, 1});
+        assertThrows(IllegalArgumentException.class, () -> cholesky.execute(other));
+
+        SparseMatrix indefinite = laplacian(12, -6);
+        assertThrows(ArithmeticException.class, () -> cholesky.execute(indefinite));
+        assertThrows(IllegalStateException.class, cholesky::getDeterminant);
+
+        // The work vectors are clean after the failure
+        cholesky.execute(A);
+        Vector x = cholesky.solve(new Vector(b.clone()));
+        Vector r = A.multiply(x);
+        for (int i = 0; i < n; i++)
+            assertEquals(b[i], r.getValue(i), 1e-12);
+    }
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.StrassenMultiplication;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class StrassenMultiplicationTest {
+
+    private static final double TOL = 1e-9;
+
+    private static Matrix random(int n, int m, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, m);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                A.setEntry(i, j, random.nextDouble() * 2 - 1);
+        return A;
+    }
+
+    @Test
+    void rejectsIncompatibleDimensions() {
+        Matrix A = new Matrix(2, 3);
+        Matrix B = new Matrix(2, 3);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new StrassenMultiplication(A, B));
+    }
+
+    @Test
+    void smallMatricesUseStandardProduct() {
+        Matrix A = new Matrix(new double[][]{
+                {1, 2},
+                {3, 4}
+        });
+        Matrix B = new Matrix(new double[][]{
+                {5, 6},
+                {7, 8}
+        });
+
+        StrassenMultiplication strassen = new StrassenMultiplication(A, B);
+        strassen.execute();
+
+        Matrix expected = new Matrix(new double[][]{
+                {19, 22},
+                {43, 50}
+        });
+        assertTrue(strassen.getC().equals(expected, TOL));
+    }
+
+    @Test
+    void sequentialRecursionMatchesStandardProduct() {
+        Matrix A = random(100, 100, 1);
+        Matrix B = random(100, 100, 2);
+
+        StrassenMultiplication strassen = new StrassenMultiplication(A, B);
+        strassen.setCutoff(8);
+        strassen.setParallelDepth(0);
+        strassen.execute();
+
+        assertTrue(strassen.getC().equals(A.multiply(B), TOL));
+    }
+
+    @Test
+    void parallelRecursionMatchesStandardProduct() {
+        Matrix A = random(64, 64, 3);
+        Matrix B = random(64, 64, 4);
+
+        StrassenMultiplication strassen = new StrassenMultiplication(A, B);
+        strassen.setCutoff(8);
+        strassen.setParallelDepth(2);
+        strassen.execute();
+
+        assertTrue(strassen.getC().equals(A.multiply(B), TOL));
+    }
+
+    @Test
+    void rectangularFactorsArePadded() {
+        Matrix A = random(37, 51, 5);
+        Matrix B = random(51, 23, 6);
+
+        StrassenMultiplication strassen = new StrassenMultiplication(A, B);
+        strassen.setCutoff(10);
+        strassen.execute();
+
+        Matrix C = strassen.getC();
+        assertEquals(37, C.getRowCount());
+        assertEquals(23, C.getColumnCount());
+        assertTrue(C.equals(A.multiply(B), TOL));
+    }
+
+    @Test
+    void errorCheckStaysWithinBound() {
+        Matrix A = random(128, 128, 7);
+        Matrix B = random(128, 128, 8);
+
+        StrassenMultiplication strassen = new StrassenMultiplication(A, B);
+        strassen.setCutoff(16);
+        strassen.setErrorCheck(true);
+        strassen.execute();
+
+        assertTrue(strassen.getErrorEstimate() <= strassen.getErrorBound());
+        assertTrue(strassen.getErrorBound() > 0);
+    }
+}
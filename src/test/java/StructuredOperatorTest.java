@@ -0,0 +1,202 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.matrix.BlockMatrix;
+import de.home_skrobanek.fnum.matrix.HadamardOperator;
+import de.home_skrobanek.fnum.matrix.KroneckerOperator;
+import de.home_skrobanek.fnum.matrix.LinearOperator;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixExponential;
+import de.home_skrobanek.fnum.matrix.MatrixOperations;
+import de.home_skrobanek.fnum.metrics.InMemoryMetricsSink;
+import de.home_skrobanek.fnum.metrics.Metrics;
+import de.home_skrobanek.fnum.metrics.Operation;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class StructuredOperatorTest {
+
+    private static Matrix random(int n, int m, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, m);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5);
+        return A;
+    }
+
+    private static double[] randomArray(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = random.nextDouble() - 0.5;
+        return x;
+    }
+
+    private static double[] dense(Matrix M, double[] x) {
+        double[] y = new double[M.getRowCount()];
+        for (int i = 0; i < y.length; i++)
+            for (int j = 0; j < x.length; j++)
+                y[i] += M.getEntry(i, j) * x[j];
+        return y;
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double tol) {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        assertEquals(expected.getColumnCount(), actual.getColumnCount());
+        for (int i = 0; i < expected.getRowCount(); i++)
+            for (int j = 0; j < expected.getColumnCount(); j++)
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), tol);
+    }
+
+    @Test
+    void testKroneckerMatchesMaterialized() {
+        // Both evaluation orders: tall and wide factors
+        int[][] shapes = {{3, 5, 4, 2}, {6, 2, 3, 7}, {4, 4, 5, 5}};
+        for (int[] s : shapes) {
+            Matrix A = random(s[0], s[1], 1), B = random(s[2], s[3], 2);
+            KroneckerOperator K = new KroneckerOperator(A, B);
+            Matrix full = K.materialize();
+            assertEquals(s[0] * s[2], K.getRowCount());
+            assertEquals(s[1] * s[3], K.getColumnCount());
+            assertEquals(A.getEntry(1, 1) * B.getEntry(1, 0), full.getEntry(s[2] + 1, s[3]), 0);
+            assertEquals(full.getEntry(s[2] + 1, s[3]), K.getEntry(s[2] + 1, s[3]), 0);
+
+            double[] x = randomArray(K.getColumnCount(), 3);
+            assertArrayEquals(dense(full, x), K.multiply(x, new double[K.getRowCount()]), 1e-13);
+
+            Matrix X = random(K.getColumnCount(), 3, 4);
+            assertMatrixEquals(full.multiply(X), K.multiply(X), 1e-13);
+        }
+
+        Matrix A = random(3, 4, 5), B = random(2, 2, 6);
+        KroneckerOperator K = new KroneckerOperator(A, B);
+        assertThrows(SameDimensionsException.class, () -> K.multiply(new double[7], new double[6]));
+        assertThrows(IllegalArgumentException.class, () -> LinearOperator.of(K));
+    }
+
+    @Test
+    void testKroneckerVecIdentity() {
+        // (A ⊗ B) vec(X) = vec(B X A^T) with column-major vec
+        Matrix A = random(3, 4, 7), B = random(5, 2, 8), X = random(2, 4, 9);
+        double[] x = new double[8];
+        for (int j = 0; j < 4; j++)
+            for (int i = 0; i < 2; i++)
+                x[j * 2 + i] = X.getEntry(i, j);
+        double[] y = new KroneckerOperator(A, B).multiply(x, new double[15]);
+
+        Matrix At = A.copy();
+        At.transpose();
+        Matrix Y = B.multiply(X).multiply(At);
+        for (int j = 0; j < 3; j++)
+            for (int i = 0; i < 5; i++)
+                assertEquals(Y.getEntry(i, j), y[j * 5 + i], 1e-14);
+    }
+
+    @Test
+    void testKroneckerSumExponential() {
+        // exp(A ⊕ B) = exp(A) ⊗ exp(B) for the Kronecker sum A ⊗ I + I ⊗ B
+        Matrix A = random(4, 4, 10), B = random(3, 3, 11);
+        Matrix I4 = MatrixOperations.makeIdentity(4, 4), I3 = MatrixOperations.makeIdentity(3, 3);
+        LinearOperator left = LinearOperator.of(new KroneckerOperator(A, I3));
+        LinearOperator right = LinearOperator.of(new KroneckerOperator(I4, B));
+        LinearOperator sum = new LinearOperator() {
+            @Override
+            public int getDimension() {
+                return 12;
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                double[] t = new double[12];
+                left.apply(x, y);
+                right.apply(x, t);
+                for (int i = 0; i < 12; i++)
+                    y[i] += t[i];
+            }
+
+            @Override
+            public double norm1() {
+                return left.norm1() + right.norm1();
+            }
+        };
+
+        double[] b = randomArray(12, 12);
+        double[] expected = new KroneckerOperator(A.expm(), B.expm()).multiply(b, new double[12]);
+        assertArrayEquals(expected, MatrixExponential.expmv(sum, 1, b), 1e-12);
+    }
+
+    @Test
+    void testBlockMatrix() {
+        Matrix A = random(4, 4, 13), C = random(3, 4, 14), I = MatrixOperations.makeIdentity(3, 3);
+        Matrix Ct = C.copy();
+        Ct.transpose();
+        // Saddle point matrix [A C^T; C 0] and a matrix with a zero block row part
+        BlockMatrix K = BlockMatrix.of(new Matrix[][]{{A, Ct}, {C, null}});
+        assertEquals(7, K.getRowCount());
+        assertEquals(2, K.getBlockColumnCount());
+        Matrix full = K.materialize();
+        assertEquals(C.getEntry(1, 2), full.getEntry(5, 2), 0);
+        assertEquals(0, full.getEntry(5, 5), 0);
+        assertEquals(full.getEntry(2, 5), K.getEntry(2, 5), 0);
+
+        double[] x = randomArray(7, 15);
+        assertArrayEquals(dense(full, x), K.multiply(x, new double[7]), 1e-14);
+        Vector v = K.multiply(new Vector(x.clone()));
+        assertEquals(dense(full, x)[6], v.getValue(6), 1e-14);
+        Matrix X = random(7, 5, 16);
+        assertMatrixEquals(full.multiply(X), K.multiply(X), 1e-14);
+        assertEquals(LinearOperator.of(full).norm1(), LinearOperator.of(K).norm1(), 1e-14);
+
+        K.setBlock(1, 1, I);
+        assertEquals(1, K.materialize().getEntry(4, 4), 0);
+        assertThrows(SameDimensionsException.class, () -> K.setBlock(1, 1, A));
+        assertThrows(IndexOutOfBoundsException.class, () -> K.setBlock(2, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> BlockMatrix.of(new Matrix[][]{{A, null}, {null, null}}));
+    }
+
+    @Test
+    void testHadamard() {
+        Matrix A = random(6, 5, 17), B = random(6, 5, 18);
+        HadamardOperator H = new HadamardOperator(A, B);
+        Matrix full = H.materialize();
+        assertEquals(A.getEntry(2, 3) * B.getEntry(2, 3), full.getEntry(2, 3), 0);
+
+        double[] x = randomArray(5, 19);
+        assertArrayEquals(dense(full, x), H.multiply(x, new double[6]), 1e-15);
+        Matrix X = random(5, 4, 20);
+        assertMatrixEquals(full.multiply(X), H.multiply(X), 1e-15);
+
+        // The factors are referenced, changes are visible
+        A.setEntry(0, 0, 2);
+        assertEquals(2 * B.getEntry(0, 0), H.getEntry(0, 0), 0);
+        assertThrows(SameDimensionsException.class, () -> new HadamardOperator(A, random(5, 6, 21)));
+        assertThrows(IllegalArgumentException.class, () -> LinearOperator.of(H));
+
+        Matrix S = random(5, 5, 22), T = random(5, 5, 23);
+        assertEquals(LinearOperator.of(new HadamardOperator(S, T).materialize()).norm1(),
+                LinearOperator.of(new HadamardOperator(S, T)).norm1(), 1e-15);
+    }
+
+    @Test
+    @Tag("metrics")
+    void testProductsReportTheirOwnOperations() {
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        Metrics.setSink(sink);
+        try {
+            Matrix A = random(3, 3, 30), B = random(2, 2, 31);
+            new KroneckerOperator(A, B).multiply(randomArray(6, 32), new double[6]);
+            new HadamardOperator(A, A).multiply(randomArray(3, 33), new double[3]);
+            BlockMatrix.of(new Matrix[][]{{A, A}, {A, A}}).multiply(randomArray(6, 34), new double[6]);
+        } finally {
+            Metrics.setSink(null);
+        }
+        assertEquals(1, sink.getStats(Operation.KRONECKER_MULTIPLY).getCount());
+        assertEquals(1, sink.getStats(Operation.HADAMARD_MULTIPLY).getCount());
+        assertEquals(1, sink.getStats(Operation.BLOCK_MULTIPLY).getCount());
+        assertEquals(0, sink.getStats(Operation.MATRIX_MULTIPLY).getCount());
+    }
+}
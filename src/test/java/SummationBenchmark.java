@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.utils.Summation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+/**
+ * Timing of the summation strategies, run by {@code mvn test -Pbenchmark}.
+ * The figures are published to the test report.
+ */
+public class SummationBenchmark {
+
+    @Test
+    void sumAndDot(TestReporter reporter) {
+        int n = 1 << 20;
+        double[] x = SummationTest.illConditioned(n, 5);
+        double[] y = SummationTest.illConditioned(n, 6);
+        double exact = SummationTest.exactSum(x);
+
+        for (Summation summation : Summation.values()) {
+            double sink = 0;
+            long best = Long.MAX_VALUE, bestDot = Long.MAX_VALUE;
+            for (int run = 0; run < 15; run++) {
+                long start = System.nanoTime();
+                sink += summation.sum(x, 0, n);
+                best = Math.min(best, System.nanoTime() - start);
+                start = System.nanoTime();
+                sink += summation.dot(x, y, 0, n);
+                bestDot = Math.min(bestDot, System.nanoTime() - start);
+            }
+            double error = Math.abs(summation.sum(x, 0, n) - exact) / Math.abs(exact);
+            reporter.publishEntry(summation.toString(), String.format("sum %.2f ns/elem, dot %.2f ns/elem, sum rel. error %.1e",
+                    (double) best / n, (double) bestDot / n, error));
+            assertFalse(Double.isNaN(sink));
+        }
+    }
+}
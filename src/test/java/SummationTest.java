@@ -0,0 +1,122 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.utils.Summation;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+public class SummationTest {
+
+    /** Large cancelling pairs around small summands, condition number about 1e20 */
+    static double[] illConditioned(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i += 2) {
+            double big = Math.scalb(random.nextDouble(), 40 + random.nextInt(20));
+            x[i] = big;
+            if (i + 1 < n)
+                x[i + 1] = -big + random.nextDouble() * 1e-3;
+        }
+        // Shuffle so that the pairs do not cancel locally
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double tmp = x[i];
+            x[i] = x[j];
+            x[j] = tmp;
+        }
+        return x;
+    }
+
+    static double exactSum(double[] x) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (double v : x)
+            sum = sum.add(new BigDecimal(v));
+        return sum.round(MathContext.DECIMAL128).doubleValue();
+    }
+
+    private static double exactDot(double[] x, double[] y) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < x.length; i++)
+            sum = sum.add(new BigDecimal(x[i]).multiply(new BigDecimal(y[i])));
+        return sum.round(MathContext.DECIMAL128).doubleValue();
+    }
+
+    @Test
+    void testWellConditionedSumsAgree() {
+        Random random = new Random(1);
+        for (int n : new int[]{0, 1, 3, 127, 128, 129, 1000, 4097}) {
+            double[] x = new double[n];
+            for (int i = 0; i < n; i++)
+                x[i] = random.nextDouble();
+            double exact = exactSum(x);
+            for (Summation summation : Summation.values())
+                assertEquals(exact, summation.sum(x, 0, n), 1e-13 * Math.max(1, exact), summation + " n=" + n);
+            for (Summation summation : Summation.values())
+                assertEquals(summation.sum(x, 1, Math.max(1, n)), Summation.DOT2.sum(x, 1, Math.max(1, n)),
+                        1e-13 * Math.max(1, exact));
+        }
+    }
+
+    @Test
+    void testCompensatedSumsOfIllConditionedData() {
+        double[] x = illConditioned(10_000, 2);
+        double exact = exactSum(x);
+
+        double naive = Summation.NAIVE.sum(x, 0, x.length);
+        double neumaier = Summation.NEUMAIER.sum(x, 0, x.length);
+        double dot2 = Summation.DOT2.sum(x, 0, x.length);
+        assertTrue(Math.abs(naive - exact) > 1e-3 * Math.abs(exact), "naive summation is unexpectedly exact");
+        assertEquals(exact, neumaier, 1e-12 * Math.abs(exact));
+        assertEquals(exact, dot2, 1e-12 * Math.abs(exact));
+    }
+
+    @Test
+    void testDot2CompensatesProducts() {
+        // x_i · y_i cancel in pairs, only the rounding errors of the products remain
+        int n = 2000;
+        Random random = new Random(3);
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i += 2) {
+            x[i] = 1 + random.nextDouble();
+            y[i] = 1 + random.nextDouble();
+            x[i + 1] = -x[i];
+            y[i + 1] = y[i] * (1 + 0x1p-40);
+        }
+        double exact = exactDot(x, y);
+        assertEquals(exact, Summation.DOT2.dot(x, y, 0, n), 1e-14 * Math.abs(exact));
+        assertEquals(exact, new Vector(x).multiplyVector(new Vector(y), Summation.DOT2), 1e-14 * Math.abs(exact));
+        assertEquals(new Vector(x).multiplyVector(new Vector(y)),
+                new Vector(x).multiplyVector(new Vector(y), Summation.NAIVE), 0.0);
+    }
+
+    @Test
+    void testMatrixKernels() {
+        int n = 40;
+        Random random = new Random(4);
+        Matrix A = new Matrix(n, n), B = new Matrix(n, 7);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, (i == j ? n : 0) + random.nextDouble());
+            for (int j = 0; j < 7; j++)
+                B.setEntry(i, j, random.nextDouble());
+        }
+        for (Summation summation : Summation.values())
+            assertTrue(A.multiply(B, summation).equals(A.multiply(B), 1e-12), summation.toString());
+
+        LUDecomposition reference = new LUDecomposition(A);
+        reference.execute(1e-12);
+        LUDecomposition naive = new LUDecomposition(A);
+        naive.execute(1e-12, Summation.NAIVE);
+        assertTrue(naive.getL().equals(reference.getL(), 0.0));
+        assertTrue(naive.getR().equals(reference.getR(), 0.0));
+
+        LUDecomposition compensated = new LUDecomposition(A);
+        compensated.execute(1e-12, Summation.DOT2);
+        assertTrue(compensated.getL().multiply(compensated.getR()).equals(A, 1e-12));
+    }
+}
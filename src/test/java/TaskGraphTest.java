@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.utils.TaskGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskGraphTest {
+
+    private static long[] keys(long... keys) {
+        return keys;
+    }
+
+    @Test
+    void testDependenciesFromAccesses() {
+        TaskGraph graph = new TaskGraph();
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        graph.add(() -> log.add("write a"), 0, keys(), keys(1));
+        graph.add(() -> log.add("read a 1"), 0, keys(1), keys(2));
+        graph.add(() -> log.add("read a 2"), 0, keys(1), keys(3));
+        graph.add(() -> log.add("write a again"), 0, keys(), keys(1));
+        graph.add(() -> log.add("read b c"), 0, keys(2, 3), keys());
+        // RAW, RAW, WAW + 2 WAR, 2 RAW
+        assertEquals(1 + 1 + 3 + 2, graph.getEdgeCount());
+
+        graph.execute(new ForkJoinPool(4));
+        assertEquals(5, log.size());
+        assertEquals("write a", log.get(0));
+        assertTrue(log.indexOf("write a again") > log.indexOf("read a 1"));
+        assertTrue(log.indexOf("write a again") > log.indexOf("read a 2"));
+        assertTrue(log.indexOf("read b c") > log.indexOf("read a 1"));
+        assertTrue(log.indexOf("read b c") > log.indexOf("read a 2"));
+    }
+
+    @Test
+    void testChainRunsInOrder() {
+        TaskGraph graph = new TaskGraph();
+        AtomicInteger counter = new AtomicInteger();
+        int[] seen = new int[100];
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            graph.add(() -> seen[index] = counter.getAndIncrement(), index, keys(), keys(7));
+        }
+        graph.execute();
+        for (int i = 0; i < 100; i++)
+            assertEquals(i, seen[i]);
+    }
+
+    @Test
+    void testPriorityOrdersReadyTasks() {
+        // With one worker the ready successors run by descending priority
+        TaskGraph graph = new TaskGraph();
+        List<Integer> log = Collections.synchronizedList(new ArrayList<>());
+        graph.add(() -> log.add(-1), 0, keys(), keys(0));
+        for (int p : new int[]{3, 9, 1, 5})
+            graph.add(() -> log.add(p), p, keys(0), keys(p + 100));
+        graph.execute(new ForkJoinPool(1));
+        assertEquals(List.of(-1, 9, 5, 3, 1), log);
+    }
+
+    @Test
+    void testFailureIsRethrownAndStopsWork() {
+        TaskGraph graph = new TaskGraph();
+        AtomicInteger runs = new AtomicInteger();
+        graph.add(() -> {
+            throw new ArithmeticException("boom");
+        }, 0, keys(), keys(1));
+        for (int i = 0; i < 10; i++)
+            graph.add(runs::incrementAndGet, 0, keys(1), keys(2 + i));
+        ArithmeticException e = assertThrows(ArithmeticException.class, graph::execute);
+        assertEquals("boom", e.getMessage());
+        assertEquals(0, runs.get());
+        assertThrows(IllegalStateException.class, graph::execute);
+    }
+}
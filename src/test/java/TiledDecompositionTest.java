@@ -0,0 +1,136 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.CholeskyDecomposition;
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.TiledCholeskyDecomposition;
+import de.home_skrobanek.fnum.matrix.TiledLUDecomposition;
+import de.home_skrobanek.fnum.matrix.PackedStorage;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class TiledDecompositionTest {
+
+    private static Matrix diagonallyDominant(int n, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, random.nextDouble() - 0.5 + (i == j ? n : 0));
+        return A;
+    }
+
+    private static Matrix spd(int n, long seed) {
+        Matrix B = diagonallyDominant(n, seed);
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, 0.5 * (B.getEntry(i, j) + B.getEntry(j, i)));
+        return A;
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double tol) {
+        for (int i = 0; i < expected.getRowCount(); i++)
+            for (int j = 0; j < expected.getColumnCount(); j++)
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), tol, "(" + i + ", " + j + ")");
+    }
+
+    private static void assertSolves(Matrix A, Vector x, double[] b) {
+        for (int i = 0; i < A.getRowCount(); i++) {
+            double sum = 0;
+            for (int j = 0; j < A.getColumnCount(); j++)
+                sum += A.getEntry(i, j) * x.getValue(j);
+            assertEquals(b[i], sum, 1e-9);
+        }
+    }
+
+    @Test
+    void testCholeskyMatchesUntiled() {
+        int n = 53;
+        Matrix A = spd(n, 1);
+        CholeskyDecomposition reference = new CholeskyDecomposition(A);
+        reference.execute();
+        Matrix L = reference.getL(PackedStorage.PACKED).toMatrix();
+
+        for (int tile : new int[]{1, 7, 16, 53, 64}) {
+            TiledCholeskyDecomposition tiled = new TiledCholeskyDecomposition(A, tile);
+            tiled.execute(new ForkJoinPool(3));
+            assertMatrixEquals(L, tiled.getL(), 1e-12);
+            assertEquals(reference.getDeterminant(), tiled.getDeterminant(), 1e-10 * Math.abs(reference.getDeterminant()));
+
+            double[] b = new double[n];
+            for (int i = 0; i < n; i++)
+                b[i] = i - 3;
+            assertSolves(A, tiled.solve(new Vector(b.clone())), b);
+        }
+    }
+
+    @Test
+    void testCholeskyTaskCount() {
+        // T tiles: T POTRF, T(T-1)/2 TRSM, T(T-1)(T+1)/6 SYRK and GEMM
+        TiledCholeskyDecomposition tiled = new TiledCholeskyDecomposition(spd(40, 2), 10);
+        tiled.execute();
+        assertEquals(4 + 6 + 10, tiled.getTaskCount());
+    }
+
+    @Test
+    void testCholeskyRejectsIndefinite() {
+        Matrix A = spd(20, 3);
+        A.setEntry(15, 15, -100);
+        TiledCholeskyDecomposition tiled = new TiledCholeskyDecomposition(A, 4);
+        assertThrows(ArithmeticException.class, tiled::execute);
+        assertThrows(IllegalStateException.class, tiled::getL);
+    }
+
+    @Test
+    void testLUMatchesUntiled() {
+        int n = 47;
+        Matrix A = diagonallyDominant(n, 4);
+        LUDecomposition reference = new LUDecomposition(A);
+        reference.execute(0);
+
+        for (int tile : new int[]{1, 5, 16, 64}) {
+            TiledLUDecomposition tiled = new TiledLUDecomposition(A, tile);
+            tiled.execute(0, new ForkJoinPool(3));
+            assertMatrixEquals(reference.getL(), tiled.getL(), 1e-12);
+            assertMatrixEquals(reference.getR(), tiled.getR(), 1e-10);
+            assertEquals(reference.getDeterminant(), tiled.getDeterminant(), 1e-10 * Math.abs(reference.getDeterminant()));
+
+            double[] b = new double[n];
+            for (int i = 0; i < n; i++)
+                b[i] = 1 + i % 5;
+            assertSolves(A, tiled.solve(new Vector(b.clone())), b);
+
+            double[] y = tiled.solveTransposed(b, new double[n]);
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int j = 0; j < n; j++)
+                    sum += A.getEntry(j, i) * y[j];
+                assertEquals(b[i], sum, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testLUThresholdIgnoresPadding() {
+        int n = 10;
+        Matrix A = diagonallyDominant(n, 6);
+        LUDecomposition reference = new LUDecomposition(A);
+        reference.execute(2);
+
+        TiledLUDecomposition tiled = new TiledLUDecomposition(A, 4);
+        tiled.execute(2, new ForkJoinPool(3));
+        assertMatrixEquals(reference.getR(), tiled.getR(), 1e-10);
+        assertThrows(ArithmeticException.class, () -> new TiledLUDecomposition(A, 4).execute(n + 1));
+    }
+
+    @Test
+    void testLUSingular() {
+        Matrix A = new Matrix(new double[][]{{1, 2, 3}, {2, 4, 6}, {1, 0, 1}});
+        assertThrows(ArithmeticException.class, () -> new TiledLUDecomposition(A, 2).execute(1e-12));
+        assertThrows(IllegalArgumentException.class, () -> new TiledLUDecomposition(new Matrix(2, 3)));
+    }
+}
@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.BandedMatrix;
+import de.home_skrobanek.fnum.matrix.TridiagonalSolver;
+import de.home_skrobanek.fnum.utils.Workspace;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class TridiagonalSolverTest {
+
+    private static double[][] randomSystem(int n, long seed) {
+        Random random = new Random(seed);
+        double[] lower = new double[n - 1], diagonal = new double[n], upper = new double[n - 1];
+        for (int i = 0; i < n; i++) {
+            diagonal[i] = 4 + random.nextDouble();
+            if (i < n - 1) {
+                lower[i] = random.nextDouble() * 2 - 1;
+                upper[i] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return new double[][]{lower, diagonal, upper};
+    }
+
+    private static double[] multiply(double[][] system, double[] x) {
+        int n = x.length;
+        return BandedMatrix.tridiagonal(system[0], system[1], system[2]).multiply(x, new double[n]);
+    }
+
+    @Test
+    void testThomasSolvesPoissonProblem() {
+        int n = 100;
+        double[] lower = new double[n - 1], diagonal = new double[n], upper = new double[n - 1];
+        java.util.Arrays.fill(lower, -1);
+        java.util.Arrays.fill(upper, -1);
+        java.util.Arrays.fill(diagonal, 2);
+        double[] expected = new double[n];
+        for (int i = 0; i < n; i++)
+            expected[i] = i * (n - 1 - i);
+
+        double[] b = multiply(new double[][]{lower, diagonal, upper}, expected);
+        double[] x = new TridiagonalSolver(lower, diagonal, upper).solve(b, new double[n]);
+
+        for (int i = 0; i < n; i++)
+            assertEquals(expected[i], x[i], 1e-8);
+    }
+
+    @Test
+    void testParallelMatchesThomas() {
+        int n = 10_001;
+        double[][] system = randomSystem(n, 1);
+        double[] expected = new double[n];
+        for (int i = 0; i < n; i++)
+            expected[i] = Math.cos(i * 0.01);
+        double[] b = multiply(system, expected);
+
+        TridiagonalSolver solver = new TridiagonalSolver(system[0], system[1], system[2]);
+        for (int blocks : new int[]{2, 3, 7, 64}) {
+            solver.setBlocks(blocks);
+            double[] x = solver.solveParallel(b, new double[n]);
+            for (int i = 0; i < n; i++)
+                assertEquals(expected[i], x[i], 1e-12, "blocks=" + blocks + " i=" + i);
+        }
+    }
+
+    @Test
+    void testSolveInPlace() {
+        int n = 5_000;
+        double[][] system = randomSystem(n, 2);
+        double[] expected = new double[n];
+        for (int i = 0; i < n; i++)
+            expected[i] = i % 17;
+        double[] b = multiply(system, expected);
+
+        TridiagonalSolver solver = new TridiagonalSolver(system[0], system[1], system[2]);
+        solver.setBlocks(5);
+        double[] x = b.clone();
+        solver.solveParallel(x, x);
+        for (int i = 0; i < n; i++)
+            assertEquals(expected[i], x[i], 1e-12);
+
+        solver.solve(b, b);
+        for (int i = 0; i < n; i++)
+            assertEquals(expected[i], b[i], 1e-12);
+    }
+
+    @Test
+    void testFromBandedMatrixAndVector() {
+        BandedMatrix A = BandedMatrix.tridiagonal(new double[]{1, 1}, new double[]{4, 4, 4}, new double[]{1, 1});
+        Vector x = new TridiagonalSolver(A).solve(new Vector(5, 6, 5));
+
+        assertEquals(1.0, x.getValue(0), 1e-12);
+        assertEquals(1.0, x.getValue(1), 1e-12);
+        assertEquals(1.0, x.getValue(2), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> new TridiagonalSolver(new BandedMatrix(4, 2, 1)));
+    }
+
+    @Test
+    void testZeroPivotThrows() {
+        TridiagonalSolver solver = new TridiagonalSolver(new double[]{1}, new double[]{0, 1}, new double[]{1});
+
+        assertThrows(ArithmeticException.class, () -> solver.solve(new double[2], new double[2]));
+    }
+
+    @Test
+    void testZeroPivotReleasesWorkspace() {
+        TridiagonalSolver solver = new TridiagonalSolver(new double[]{1}, new double[]{0, 1}, new double[]{1});
+        int mark = Workspace.current().mark();
+
+        assertThrows(ArithmeticException.class, () -> solver.solve(new double[2], new double[2]));
+        assertEquals(mark, Workspace.current().mark());
+    }
+}
@@ -0,0 +1,139 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.exception.SameDimensionsException;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.vector.Vector2D;
+import de.home_skrobanek.fnum.vector.Vector2DArray;
+import de.home_skrobanek.fnum.vector.Vector3D;
+import de.home_skrobanek.fnum.vector.Vector3DArray;
+import org.junit.jupiter.api.Test;
+
+public class VectorArrayTest {
+
+    private static final double TOL = 1e-12;
+
+    @Test
+    void setAndGet2D() {
+        Vector2DArray points = new Vector2DArray(3);
+        points.set(1, new Vector2D(1.5, -2.0));
+
+        Vector2D v = points.get(1);
+        assertEquals(1.5, v.getX());
+        assertEquals(-2.0, v.getY());
+        assertEquals(0.0, points.get(0).getX());
+    }
+
+    @Test
+    void addAndScale2D() {
+        Vector2DArray a = new Vector2DArray(new double[]{1, 2}, new double[]{3, 4});
+        Vector2DArray b = new Vector2DArray(new double[]{5, 6}, new double[]{7, 8});
+
+        a.add(b);
+        a.scale(0.5);
+
+        assertEquals(3.0, a.getXs()[0]);
+        assertEquals(6.0, a.getYs()[1]);
+    }
+
+    @Test
+    void differentSizesThrow() {
+        Vector2DArray a = new Vector2DArray(2);
+        Vector2DArray b = new Vector2DArray(3);
+
+        assertThrowsExactly(SameDimensionsException.class, () -> a.add(b));
+        assertThrowsExactly(SameDimensionsException.class,
+                () -> new Vector3DArray(new double[2], new double[2], new double[3]));
+    }
+
+    @Test
+    void dotCrossAndLength2D() {
+        Vector2DArray a = new Vector2DArray(new double[]{1, 3}, new double[]{0, 4});
+        Vector2DArray b = new Vector2DArray(new double[]{0, 1}, new double[]{1, 1});
+        double[] out = new double[2];
+
+        a.dot(b, out);
+        assertEquals(0.0, out[0]);
+        assertEquals(7.0, out[1]);
+
+        a.cross(b, out);
+        assertEquals(1.0, out[0]);
+        assertEquals(-1.0, out[1]);
+
+        a.length(out);
+        assertEquals(1.0, out[0]);
+        assertEquals(5.0, out[1]);
+    }
+
+    @Test
+    void homogeneousTransform2D() {
+        Vector2DArray a = new Vector2DArray(new double[]{1}, new double[]{2});
+        Matrix translate = new Matrix(new double[][]{
+                {1, 0, 10},
+                {0, 1, 20},
+                {0, 0, 1}
+        });
+
+        a.transform(translate);
+
+        assertEquals(11.0, a.getXs()[0], TOL);
+        assertEquals(22.0, a.getYs()[0], TOL);
+        assertThrows(IllegalArgumentException.class, () -> a.transform(new Matrix(4, 4)));
+    }
+
+    @Test
+    void crossProduct3D() {
+        Vector3DArray a = new Vector3DArray(2);
+        Vector3DArray b = new Vector3DArray(2);
+        a.set(0, new Vector3D(1, 0, 0));
+        b.set(0, new Vector3D(0, 1, 0));
+        a.set(1, 1, 2, 3);
+        b.set(1, 4, 5, 6);
+
+        Vector3DArray c = new Vector3DArray(2);
+        a.cross(b, c);
+
+        assertEquals(1.0, c.get(0).getZ());
+        assertEquals(-3.0, c.get(1).getX());
+        assertEquals(6.0, c.get(1).getY());
+        assertEquals(-3.0, c.get(1).getZ());
+    }
+
+    @Test
+    void normalizeLargeContainerInParallel() {
+        int n = 100_000;
+        Vector3DArray a = new Vector3DArray(n);
+        for (int i = 0; i < n; i++)
+            a.set(i, i, 2.0 * i, -i);
+
+        a.normalize();
+        double[] length = new double[n];
+        a.length(length);
+
+        assertEquals(0.0, length[0]);
+        for (int i = 1; i < n; i++)
+            assertEquals(1.0, length[i], TOL);
+    }
+
+    @Test
+    void linearAndHomogeneousTransform3D() {
+        Vector3DArray a = new Vector3DArray(new double[]{1}, new double[]{2}, new double[]{3});
+        Matrix rotateZ = new Matrix(new double[][]{
+                {0, -1, 0},
+                {1, 0, 0},
+                {0, 0, 1}
+        });
+        a.transform(rotateZ);
+        assertEquals(-2.0, a.getXs()[0], TOL);
+        assertEquals(1.0, a.getYs()[0], TOL);
+
+        Matrix scaleW = new Matrix(new double[][]{
+                {1, 0, 0, 0},
+                {0, 1, 0, 0},
+                {0, 0, 1, 0},
+                {0, 0, 0, 2}
+        });
+        a.transform(scaleW);
+        assertEquals(-1.0, a.getXs()[0], TOL);
+        assertEquals(1.5, a.getZs()[0], TOL);
+    }
+}
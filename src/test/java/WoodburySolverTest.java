@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.PivotedLUDecomposition;
+import de.home_skrobanek.fnum.matrix.WoodburySolver;
+import de.home_skrobanek.fnum.utils.Workspace;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class WoodburySolverTest {
+
+    private static Matrix dominant(int n, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                A.setEntry(i, j, (i == j ? n : 0) + random.nextDouble() - 0.5);
+        return A;
+    }
+
+    @Test
+    void testSingleEntryChange() {
+        int n = 25;
+        Matrix A = dominant(n, 1);
+        LUDecomposition lu = new LUDecomposition(A);
+        lu.execute(1e-12);
+
+        // A(3, 7) += 5
+        Matrix U = new Matrix(n, 1), V = new Matrix(n, 1);
+        U.setEntry(3, 0, 5);
+        V.setEntry(7, 0, 1);
+        WoodburySolver solver = new WoodburySolver(lu, U, V);
+
+        Matrix modified = A.copy();
+        modified.setEntry(3, 7, A.getEntry(3, 7) + 5);
+        PivotedLUDecomposition reference = new PivotedLUDecomposition(modified);
+        reference.execute(0);
+
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            b[i] = Math.cos(i);
+        double[] x = solver.solve(b, new double[n]);
+        double[] expected = reference.solve(b, new double[n]);
+        for (int i = 0; i < n; i++)
+            assertEquals(expected[i], x[i], 1e-12);
+        assertEquals(reference.getDeterminant(), solver.getDeterminant(), 1e-10 * Math.abs(reference.getDeterminant()));
+    }
+
+    @Test
+    void testRankKChange() {
+        int n = 30, k = 4;
+        Matrix A = dominant(n, 2);
+        PivotedLUDecomposition lu = new PivotedLUDecomposition(A);
+        lu.execute(0);
+
+        Random random = new Random(3);
+        Matrix U = new Matrix(n, k), V = new Matrix(n, k);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < k; j++) {
+                U.setEntry(i, j, random.nextDouble());
+                V.setEntry(i, j, random.nextDouble());
+            }
+        WoodburySolver solver = new WoodburySolver(lu, U, V);
+        assertEquals(k, solver.getRank());
+
+        Vector b = new Vector(n);
+        for (int i = 0; i < n; i++)
+            b.addValue(i, i % 3);
+        Vector x = solver.solve(b);
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                double aij = A.getEntry(i, j);
+                for (int t = 0; t < k; t++)
+                    aij += U.getEntry(i, t) * V.getEntry(j, t);
+                sum += aij * x.getValue(j);
+            }
+            assertEquals(b.getValue(i), sum, 1e-10);
+        }
+    }
+
+    @Test
+    void testRepeatedSolvesReuseWorkspace() {
+        int n = 20, k = 3;
+        Matrix A = dominant(n, 4);
+        PivotedLUDecomposition lu = new PivotedLUDecomposition(A);
+        lu.execute(0);
+        Random random = new Random(5);
+        Matrix U = new Matrix(n, k), V = new Matrix(n, k);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < k; j++) {
+                U.setEntry(i, j, random.nextDouble());
+                V.setEntry(i, j, random.nextDouble());
+            }
+        WoodburySolver solver = new WoodburySolver(lu, U, V);
+
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            b[i] = i + 1;
+        Workspace workspace = Workspace.current();
+        int mark = workspace.mark();
+        double[] first = solver.solve(b, new double[n]);
+        int buffers = workspace.getCachedBufferCount();
+        double[] second = solver.solve(b, new double[n]);
+
+        assertArrayEquals(first, second, 0.0);
+        assertEquals(mark, workspace.mark());
+        assertEquals(buffers, workspace.getCachedBufferCount());
+    }
+
+    @Test
+    void testSingularModificationThrows() {
+        Matrix A = new Matrix(new double[][]{
+                {2, 0},
+                {0, 1}
+        });
+        PivotedLUDecomposition lu = new PivotedLUDecomposition(A);
+        lu.execute(0);
+
+        // A(0, 0) -= 2 makes the first row zero
+        Matrix U = new Matrix(new double[][]{{-2}, {0}});
+        Matrix V = new Matrix(new double[][]{{1}, {0}});
+        assertThrows(ArithmeticException.class, () -> new WoodburySolver(lu, U, V));
+    }
+}
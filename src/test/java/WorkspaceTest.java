@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.home_skrobanek.fnum.matrix.LUDecomposition;
+import de.home_skrobanek.fnum.matrix.Matrix;
+import de.home_skrobanek.fnum.matrix.MatrixOperations;
+import de.home_skrobanek.fnum.utils.Workspace;
+import de.home_skrobanek.fnum.vector.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class WorkspaceTest {
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    void releasedBuffersAreReused() {
+        Workspace workspace = new Workspace();
+
+        int mark = workspace.mark();
+        double[] first = workspace.borrowVector(10);
+        double[][] matrix = workspace.borrowMatrix(3, 3);
+        workspace.release(mark);
+
+        assertSame(first, workspace.borrowVector(5));
+        assertSame(matrix, workspace.borrowMatrix(2, 3));
+        assertEquals(2, workspace.getCachedBufferCount());
+    }
+
+    @Test
+    void growsBufferWhenTooSmall() {
+        Workspace workspace = new Workspace();
+
+        double[] small = workspace.borrowVector(4);
+        workspace.release(0);
+        double[] large = workspace.borrowVector(8);
+
+        assertNotSame(small, large);
+        assertTrue(large.length >= 8);
+    }
+
+    @Test
+    void threadLocalWorkspaceIsStable() {
+        assertSame(Workspace.current(), Workspace.current());
+    }
+
+    @Test
+    void steadyStateLoopAllocatesNothing() {
+        Matrix A = new Matrix(5, 5);
+        Matrix B = MatrixOperations.makeIdentity(5, 5);
+        Matrix sum = new Matrix(5, 5);
+        Matrix product = new Matrix(5, 5);
+        Matrix L = new Matrix(5, 5);
+        Matrix R = new Matrix(5, 5);
+        Vector b = new Vector(1, 2, 3, 4, 5);
+        Vector x = new Vector(5);
+        LUDecomposition lu = new LUDecomposition(A);
+
+        double[] det = new double[1];
+        Runnable iteration = () -> {
+            for (int i = 0; i < 5; i++)
+                for (int j = 0; j < 5; j++)
+                    A.setEntry(i, j, i == j ? 10 + det[0] * 1e-12 : 1.0 / (i + j + 1));
+
+            lu.execute(1e-12, L, R);
+            lu.solve(b, x);
+            MatrixOperations.addMatrix(A, B, sum);
+            A.multiply(sum, product);
+            det[0] = A.getDet();
+        };
+
+        for (int i = 0; i < 20_000; i++)
+            iteration.run();
+
+        // Reading the counter allocates itself, measure that overhead first
+        long calibration = allocatedBytes();
+        long overhead = allocatedBytes() - calibration;
+
+        long before = allocatedBytes();
+        for (int i = 0; i < 10_000; i++)
+            iteration.run();
+        long allocated = allocatedBytes() - before - overhead;
+
+        // Any allocation inside the loop costs at least 16 bytes per iteration,
+        // the remainder are one-off allocations of the JIT compiler
+        assertEquals(0, allocated / 10_000, allocated + " bytes allocated in 10000 iterations");
+    }
+}